@@ -39,6 +39,7 @@ CREATE TABLE IF NOT EXISTS `comments` (
   KEY `idx_target` (`target_type`,`target_id`),
   KEY `idx_parent_id` (`parent_id`),
   KEY `idx_created_at` (`created_at`),
+  KEY `idx_target_parent_created` (`target_type`,`target_id`,`parent_id`,`created_at`,`id`),
   CONSTRAINT `comments_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=18 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='评论表';
 
@@ -90,6 +91,7 @@ CREATE TABLE IF NOT EXISTS `community_posts` (
   KEY `idx_category` (`category`),
   KEY `idx_created_at` (`created_at`),
   KEY `idx_like_count` (`like_count`),
+  KEY `idx_status_top_created` (`status`,`is_top`,`created_at`,`id`),
   CONSTRAINT `community_posts_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`),
   CONSTRAINT `community_posts_ibfk_2` FOREIGN KEY (`recognition_id`) REFERENCES `recognition_results` (`id`) ON DELETE SET NULL
 ) ENGINE=InnoDB AUTO_INCREMENT=68 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='社区帖子表';
@@ -159,6 +161,77 @@ INSERT INTO `community_posts` (`id`, `user_id`, `recognition_id`, `title`, `cont
 	(66, 2, NULL, '犬类行为训练心得', '结合品种识别了解犬类性格特点，有针对性地进行训练。不同品种需要不同的训练方法。', '["/api/v1/files/images/2025/10/24/d527fc1805e14cc5929f364b1c7a6044.jpg"]', '综合讨论', '训练,行为,犬类', 336, 0, 0, 0, 0, 0, 1, '2025-10-24 00:59:26', '2025-10-24 02:56:57'),
 	(67, 2, NULL, '测试', '测试', '["/api/v1/files/images/2025/10/24/2e9a9f9656ee4cc78ff8e01368dedb5b.jpg"]', 'share', '数据分析', 2, 0, 0, 0, 0, 0, 1, '2025-10-24 02:08:20', '2025-10-24 02:56:33');
 
+-- 导出  表 image_recognition.file_manifest 结构
+DROP TABLE IF EXISTS `file_manifest`;
+CREATE TABLE IF NOT EXISTS `file_manifest` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '文件ID(主键)',
+  `path` varchar(500) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '相对上传目录的路径',
+  `name` varchar(255) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '文件名',
+  `type` varchar(20) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '文件类型(上传目录的第一级目录,例如 images、avatars)',
+  `size` bigint NOT NULL DEFAULT '0' COMMENT '文件大小(字节)',
+  `modified_at` datetime(3) NOT NULL COMMENT '文件修改时间',
+  `content_hash` char(64) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '内容哈希(SHA-256,上传时计算)',
+  `checked_at` datetime DEFAULT NULL COMMENT '最近一次对账时间',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_path` (`path`),
+  KEY `idx_modified` (`modified_at`,`id`),
+  KEY `idx_type_modified` (`type`,`modified_at`,`id`),
+  KEY `idx_name` (`name`),
+  KEY `idx_content_hash` (`content_hash`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='上传文件清单表';
+
+-- 正在导出表  image_recognition.file_manifest 的数据：~0 rows (大约)
+DELETE FROM `file_manifest`;
+
+-- 导出  表 image_recognition.file_manifest_stats 结构
+DROP TABLE IF EXISTS `file_manifest_stats`;
+CREATE TABLE IF NOT EXISTS `file_manifest_stats` (
+  `type` varchar(20) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '文件类型',
+  `file_count` bigint NOT NULL DEFAULT '0' COMMENT '文件数量',
+  `total_size` bigint NOT NULL DEFAULT '0' COMMENT '文件总大小(字节)',
+  `updated_at` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`type`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='上传文件统计表(随上传、删除增量更新)';
+
+-- 正在导出表  image_recognition.file_manifest_stats 的数据：~0 rows (大约)
+DELETE FROM `file_manifest_stats`;
+
+-- 导出  表 image_recognition.file_references 结构
+DROP TABLE IF EXISTS `file_references`;
+CREATE TABLE IF NOT EXISTS `file_references` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '引用ID(主键)',
+  `file_key` varchar(500) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '文件标识(去除域名和查询参数的文件URL)',
+  `owner_type` tinyint NOT NULL COMMENT '引用方类型: 0-USER_AVATAR用户头像, 1-POST社区帖子, 2-KNOWLEDGE知识库, 3-RECOGNITION识别记录',
+  `owner_id` bigint NOT NULL COMMENT '引用方ID',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_file_owner` (`file_key`,`owner_type`,`owner_id`),
+  KEY `idx_owner` (`owner_type`,`owner_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='文件引用表';
+
+-- 正在导出表  image_recognition.file_references 的数据：~0 rows (大约)
+DELETE FROM `file_references`;
+
+-- 导出  表 image_recognition.image_variants 结构
+DROP TABLE IF EXISTS `image_variants`;
+CREATE TABLE IF NOT EXISTS `image_variants` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '派生图片ID(主键)',
+  `source_hash` char(64) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '原图地址哈希(SHA-256,不含查询参数)',
+  `source_url` varchar(1000) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '原图URL',
+  `variant` varchar(20) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '派生规格,例如 w320',
+  `width` int NOT NULL COMMENT '宽度(像素)',
+  `height` int NOT NULL COMMENT '高度(像素)',
+  `file_size` int NOT NULL COMMENT '文件大小(字节)',
+  `url` varchar(1000) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '派生图片URL',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_source_variant` (`source_hash`,`variant`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='派生图片(缩略图)表';
+
+-- 正在导出表  image_recognition.image_variants 的数据：~0 rows (大约)
+DELETE FROM `image_variants`;
+
 -- 导出  表 image_recognition.knowledge 结构
 DROP TABLE IF EXISTS `knowledge`;
 CREATE TABLE IF NOT EXISTS `knowledge` (
@@ -270,6 +343,7 @@ CREATE TABLE IF NOT EXISTS `notifications` (
   KEY `idx_type` (`type`),
   KEY `idx_is_read` (`is_read`),
   KEY `idx_created_at` (`created_at`),
+  KEY `idx_user_created` (`user_id`,`created_at`,`id`),
   KEY `sender_id` (`sender_id`),
   CONSTRAINT `notifications_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`),
   CONSTRAINT `notifications_ibfk_2` FOREIGN KEY (`sender_id`) REFERENCES `users` (`id`)
@@ -289,6 +363,7 @@ CREATE TABLE IF NOT EXISTS `recognition_results` (
   `id` bigint NOT NULL AUTO_INCREMENT COMMENT '识别ID(主键)',
   `user_id` bigint NOT NULL COMMENT '用户ID',
   `image_url` varchar(500) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '图片URL',
+  `original_image_url` varchar(500) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '原图URL(image_url 为预处理后的识别用图片时)',
   `image_name` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '图片名称',
   `image_size` int DEFAULT NULL COMMENT '图片大小(字节)',
   `image_width` int DEFAULT NULL COMMENT '图片宽度(像素)',
@@ -302,13 +377,17 @@ CREATE TABLE IF NOT EXISTS `recognition_results` (
   `processing_time` int DEFAULT NULL COMMENT '处理耗时(毫秒)',
   `status` tinyint DEFAULT '0' COMMENT '识别状态: 0-PENDING待处理, 1-SUCCESS成功, 2-FAILED失败',
   `error_message` varchar(500) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '错误信息',
+  `image_hash` char(64) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '图片内容哈希(SHA-256)',
+  `is_cached` tinyint DEFAULT '0' COMMENT '是否命中识别结果缓存: 0-否, 1-是',
   `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `updated_at` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`),
   KEY `idx_user_id` (`user_id`),
   KEY `idx_status` (`status`),
+  KEY `idx_image_hash` (`image_hash`),
   KEY `idx_created_at` (`created_at`),
   KEY `idx_main_category` (`main_category`),
+  KEY `idx_user_created` (`user_id`,`created_at`,`id`),
   CONSTRAINT `recognition_results_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=21 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='识别结果表';
 
@@ -363,6 +442,47 @@ INSERT INTO `system_logs` (`id`, `user_id`, `module`, `action`, `description`, `
 	(3, 3, 'community', 'create_post', '用户发布社区帖子', '192.168.1.102', 'Mozilla/5.0 (Windows NT 10.0; Win64; x64) Firefox/121.0', '/api/v1/community/posts', 'POST', '{"title":"花园里的玫瑰"}', 256, 0, NULL, '2025-10-20 10:24:53'),
 	(4, NULL, 'system', 'backup', '系统自动备份数据库', '127.0.0.1', 'SystemCron/1.0', '/internal/backup', 'POST', '{}', 5432, 0, NULL, '2025-10-20 10:24:53');
 
+-- 导出  表 image_recognition.tag_counts 结构
+DROP TABLE IF EXISTS `tag_counts`;
+CREATE TABLE IF NOT EXISTS `tag_counts` (
+  `owner_type` tinyint NOT NULL COMMENT '关联方类型: 0-POST社区帖子, 1-KNOWLEDGE知识库, 2-RECOGNITION识别记录',
+  `tag_id` bigint NOT NULL COMMENT '标签ID',
+  `ref_count` int NOT NULL DEFAULT '0' COMMENT '计入计数的关联数',
+  PRIMARY KEY (`owner_type`,`tag_id`),
+  KEY `idx_owner_count` (`owner_type`,`ref_count`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='标签计数表';
+
+-- 正在导出表  image_recognition.tag_counts 的数据：~0 rows (大约)
+DELETE FROM `tag_counts`;
+
+-- 导出  表 image_recognition.tag_relations 结构
+DROP TABLE IF EXISTS `tag_relations`;
+CREATE TABLE IF NOT EXISTS `tag_relations` (
+  `owner_type` tinyint NOT NULL COMMENT '关联方类型: 0-POST社区帖子, 1-KNOWLEDGE知识库, 2-RECOGNITION识别记录',
+  `owner_id` bigint NOT NULL COMMENT '关联方ID',
+  `tag_id` bigint NOT NULL COMMENT '标签ID',
+  `counted` tinyint NOT NULL DEFAULT '1' COMMENT '是否计入标签计数: 0-否, 1-是',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`owner_type`,`owner_id`,`tag_id`),
+  KEY `idx_tag_owner` (`tag_id`,`owner_type`,`owner_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='标签关联表';
+
+-- 正在导出表  image_recognition.tag_relations 的数据：~0 rows (大约)
+DELETE FROM `tag_relations`;
+
+-- 导出  表 image_recognition.tags 结构
+DROP TABLE IF EXISTS `tags`;
+CREATE TABLE IF NOT EXISTS `tags` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '标签ID(主键)',
+  `name` varchar(50) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '标签名称',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_name` (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='标签表';
+
+-- 正在导出表  image_recognition.tags 的数据：~0 rows (大约)
+DELETE FROM `tags`;
+
 -- 导出  表 image_recognition.users 结构
 DROP TABLE IF EXISTS `users`;
 CREATE TABLE IF NOT EXISTS `users` (
@@ -468,6 +588,20 @@ INSERT INTO `user_likes` (`id`, `user_id`, `target_type`, `target_id`, `created_
 	(21, 2, 2, 12, '2025-10-23 22:11:00'),
 	(22, 2, 0, 64, '2025-10-24 02:08:36');
 
+-- 导出  表 image_recognition.view_count_flushes 结构
+DROP TABLE IF EXISTS `view_count_flushes`;
+CREATE TABLE IF NOT EXISTS `view_count_flushes` (
+  `flush_id` varchar(64) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '批次ID(主键)',
+  `target_type` tinyint NOT NULL COMMENT '目标类型: 0-POST帖子, 2-KNOWLEDGE知识',
+  `item_count` int NOT NULL DEFAULT '0' COMMENT '批次包含的目标数',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`flush_id`),
+  KEY `idx_created_at` (`created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='浏览量刷新批次表';
+
+-- 正在导出表  image_recognition.view_count_flushes 的数据：~0 rows (大约)
+DELETE FROM `view_count_flushes`;
+
 -- 导出  表 image_recognition.vip_orders 结构
 DROP TABLE IF EXISTS `vip_orders`;
 CREATE TABLE IF NOT EXISTS `vip_orders` (
@@ -1,5 +1,7 @@
 package com.pengcunfu.recognition.annotation;
 
+import com.pengcunfu.recognition.enums.RateLimitAlgorithm;
+
 import java.lang.annotation.*;
 
 /**
@@ -21,6 +23,11 @@ public @interface RateLimit {
      */
     int time() default 60;
 
+    /**
+     * 限流算法
+     */
+    RateLimitAlgorithm algorithm() default RateLimitAlgorithm.FIXED_WINDOW;
+
     /**
      * 限流提示消息
      */
@@ -2,11 +2,11 @@ package com.pengcunfu.recognition.aspect;
 
 import com.pengcunfu.recognition.annotation.Role;
 import com.pengcunfu.recognition.constant.ErrorCode;
-import com.pengcunfu.recognition.entity.User;
 import com.pengcunfu.recognition.enums.UserRole;
 import com.pengcunfu.recognition.exception.BusinessException;
-import com.pengcunfu.recognition.repository.UserRepository;
 import com.pengcunfu.recognition.security.SecurityContextHolder;
+import com.pengcunfu.recognition.security.UserPrincipal;
+import com.pengcunfu.recognition.service.PrincipalService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
@@ -17,9 +17,12 @@ import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 角色权限切面
@@ -32,7 +35,12 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class RoleAspect {
 
-    private final UserRepository userRepository;
+    private static final Map<UserRole, Set<String>> GRANTED_ROLES = buildGrantedRoles();
+
+    private final PrincipalService principalService;
+
+    // 注解 -> 需要的角色集合（注解实例按值比较，同一注解只计算一次）
+    private final Map<Role, Set<String>> requiredRoleCache = new ConcurrentHashMap<>();
 
     /**
      * 方法级别的角色验证
@@ -73,22 +81,22 @@ public class RoleAspect {
             throw new BusinessException(ErrorCode.UNAUTHORIZED, "请先登录");
         }
 
-        // 获取用户信息
-        User user = userRepository.selectById(userId);
-        if (user == null) {
-            log.warn("角色验证失败: 用户不存在, userId={}", userId);
-            throw new BusinessException(ErrorCode.USER_NOT_FOUND, "用户不存在");
-        }
-
         // 获取需要的角色
-        String[] requiredRoles = roleAnnotation.value();
-        if (requiredRoles.length == 0) {
+        Set<String> requiredRoles = requiredRoleCache.computeIfAbsent(roleAnnotation, RoleAspect::normalizeRoles);
+        if (requiredRoles.isEmpty()) {
             log.warn("@Role 注解未指定任何角色");
             return;
         }
 
+        // 获取用户信息（本地缓存 -> Redis -> 数据库）
+        UserPrincipal principal = principalService.getPrincipal(userId);
+        if (principal == null) {
+            log.warn("角色验证失败: 用户不存在, userId={}", userId);
+            throw new BusinessException(ErrorCode.USER_NOT_FOUND, "用户不存在");
+        }
+
         // 获取用户当前角色
-        Integer userRoleCode = user.getRole();
+        Integer userRoleCode = principal.getRole();
         UserRole userRole = UserRole.fromCode(userRoleCode);
         
         if (userRole == null) {
@@ -101,53 +109,53 @@ public class RoleAspect {
         
         if (!hasPermission) {
             log.warn("角色验证失败: userId={}, userRole={}, requiredRoles={}, requireAll={}", 
-                    userId, userRole.name(), Arrays.toString(requiredRoles), roleAnnotation.requireAll());
+                    userId, userRole.name(), requiredRoles, roleAnnotation.requireAll());
             throw new BusinessException(ErrorCode.FORBIDDEN, roleAnnotation.message());
         }
 
         log.debug("角色验证通过: userId={}, userRole={}, requiredRoles={}", 
-                userId, userRole.name(), Arrays.toString(requiredRoles));
+                userId, userRole.name(), requiredRoles);
     }
 
     /**
      * 检查权限
      */
-    private boolean checkPermission(UserRole userRole, String[] requiredRoles, boolean requireAll) {
-        Set<String> userRoleSet = new HashSet<>();
-        
-        // 构建用户拥有的角色集合
-        // USER 角色
-        if (userRole == UserRole.USER || userRole == UserRole.VIP || userRole == UserRole.ADMIN) {
-            userRoleSet.add("USER");
-        }
-        
-        // VIP 角色
-        if (userRole == UserRole.VIP || userRole == UserRole.ADMIN) {
-            userRoleSet.add("VIP");
-        }
-        
-        // ADMIN 角色
-        if (userRole == UserRole.ADMIN) {
-            userRoleSet.add("ADMIN");
-        }
+    private boolean checkPermission(UserRole userRole, Set<String> requiredRoles, boolean requireAll) {
+        Set<String> userRoleSet = GRANTED_ROLES.get(userRole);
 
         // 如果需要所有角色（AND）
         if (requireAll) {
-            for (String requiredRole : requiredRoles) {
-                if (!userRoleSet.contains(requiredRole.toUpperCase())) {
-                    return false;
-                }
-            }
-            return true;
-        } else {
-            // 只需要任一角色（OR）
-            for (String requiredRole : requiredRoles) {
-                if (userRoleSet.contains(requiredRole.toUpperCase())) {
-                    return true;
-                }
+            return userRoleSet.containsAll(requiredRoles);
+        }
+
+        // 只需要任一角色（OR）
+        for (String requiredRole : requiredRoles) {
+            if (userRoleSet.contains(requiredRole)) {
+                return true;
             }
-            return false;
         }
+        return false;
+    }
+
+    /**
+     * 注解中的角色统一转为大写
+     */
+    private static Set<String> normalizeRoles(Role roleAnnotation) {
+        Set<String> roles = new HashSet<>();
+        for (String role : roleAnnotation.value()) {
+            roles.add(role.toUpperCase());
+        }
+        return Collections.unmodifiableSet(roles);
     }
-}
 
+    /**
+     * 各角色拥有的角色集合（VIP 包含 USER，ADMIN 包含全部）
+     */
+    private static Map<UserRole, Set<String>> buildGrantedRoles() {
+        Map<UserRole, Set<String>> grantedRoles = new EnumMap<>(UserRole.class);
+        grantedRoles.put(UserRole.USER, Set.of("USER"));
+        grantedRoles.put(UserRole.VIP, Set.of("USER", "VIP"));
+        grantedRoles.put(UserRole.ADMIN, Set.of("USER", "VIP", "ADMIN"));
+        return grantedRoles;
+    }
+}
@@ -0,0 +1,55 @@
+package com.pengcunfu.recognition.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 访问日志配置类
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "access-log")
+public class AccessLogConfig {
+
+    /**
+     * 是否记录访问日志
+     */
+    private boolean enabled = true;
+
+    /**
+     * 环形队列容量，写满后丢弃新日志
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * 不记录访问日志的路径
+     */
+    private List<String> excludePatterns = new ArrayList<>(List.of("/swagger-ui/**", "/v3/api-docs/**", "/actuator/**"));
+
+    /**
+     * 按路径配置的请求/响应体采样策略，未匹配的路径不记录请求体和响应体
+     */
+    private List<BodyPolicy> bodyPolicies = new ArrayList<>();
+
+    @Data
+    public static class BodyPolicy {
+        /**
+         * 路径（Ant风格）
+         */
+        private String pattern;
+
+        /**
+         * 采样比例（0-1）
+         */
+        private double sampleRate = 0;
+
+        /**
+         * 请求体和响应体各自最多记录的字节数
+         */
+        private int maxBodyBytes = 512;
+    }
+}
@@ -0,0 +1,75 @@
+package com.pengcunfu.recognition.config;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 异步任务配置类
+ * {@code @Async} 方法（如邮件发送）和启动时的标签、搜索索引回填使用有界线程池，队列写满时由调用线程执行，停机时等待已提交的任务完成
+ */
+@Slf4j
+@Data
+@Configuration
+@EnableAsync
+@ConfigurationProperties(prefix = "async")
+public class AsyncConfig implements AsyncConfigurer {
+
+    /**
+     * 核心线程数
+     */
+    private int corePoolSize = 4;
+
+    /**
+     * 最大线程数
+     */
+    private int maxPoolSize = 8;
+
+    /**
+     * 等待队列容量
+     */
+    private int queueCapacity = 500;
+
+    /**
+     * 非核心线程空闲存活时间（秒）
+     */
+    private int keepAliveSeconds = 60;
+
+    /**
+     * 停机时等待任务完成的最长时间（秒）
+     */
+    private int awaitTerminationSeconds = 30;
+
+    @Bean(name = "asyncExecutor")
+    public ThreadPoolTaskExecutor asyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setKeepAliveSeconds(keepAliveSeconds);
+        executor.setThreadNamePrefix("async-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(awaitTerminationSeconds);
+        return executor;
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return asyncExecutor();
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) -> log.error("异步任务执行失败: method={}", method.getName(), ex);
+    }
+}
@@ -28,12 +28,78 @@ public class DoubaoConfig {
     private String model;
 
     /**
-     * 请求超时时间(毫秒)
+     * 请求超时时间(毫秒)，单次调用的读取/调用超时
      */
     private Integer timeout = 30000;
 
     /**
-     * 最大重试次数
+     * 连接超时时间(毫秒)
+     */
+    private Integer connectTimeout = 10000;
+
+    /**
+     * 总超时时间(毫秒)，包含所有重试，超过后不再重试
+     */
+    private Integer totalTimeout = 90000;
+
+    /**
+     * 发起一次调用所需的最少剩余时间(毫秒)，剩余时间不足时不再重试
+     */
+    private Integer minAttemptMillis = 1000;
+
+    /**
+     * 最大重试次数（仅对超时、429和5xx错误重试）
      */
     private Integer maxRetries = 3;
+
+    /**
+     * 重试基础退避时间(毫秒)，按指数增长并加随机抖动
+     */
+    private Integer retryBaseDelay = 500;
+
+    /**
+     * 重试最大退避时间(毫秒)
+     */
+    private Integer retryMaxDelay = 8000;
+
+    /**
+     * 连接池最大空闲连接数
+     */
+    private Integer maxIdleConnections = 20;
+
+    /**
+     * 空闲连接保活时间(秒)
+     */
+    private Integer keepAliveSeconds = 300;
+
+    /**
+     * 最大并发调用数（舱壁隔离，防止占满Tomcat线程）
+     */
+    private Integer maxConcurrentCalls = 32;
+
+    /**
+     * 等待并发许可的最长时间(毫秒)
+     */
+    private Integer bulkheadWaitMillis = 2000;
+
+    /**
+     * 熔断配置
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * 熔断配置内部类
+     */
+    @Data
+    public static class CircuitBreaker {
+        /**
+         * 连续失败多少次后打开熔断
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * 熔断打开持续时间(秒)，之后放行一次试探请求
+         */
+        private int openSeconds = 30;
+    }
 }
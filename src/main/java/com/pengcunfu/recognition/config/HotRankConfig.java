@@ -0,0 +1,67 @@
+package com.pengcunfu.recognition.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 热度排行配置类
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "hot-rank")
+public class HotRankConfig {
+
+    /**
+     * 热度半衰期（小时），经过一个半衰期后事件贡献的热度减半
+     */
+    private double halfLifeHours = 24;
+
+    /**
+     * 衰减热度分的间隔（毫秒）
+     */
+    private long rescaleIntervalMillis = 600000;
+
+    /**
+     * 每个排行保留的最大成员数
+     */
+    private int maxSize = 1000;
+
+    /**
+     * 衰减后低于该分数的成员被移除
+     */
+    private double minScore = 0.01;
+
+    /**
+     * 排行为空时，启动回填最近多少天内发布的帖子和知识
+     */
+    private int backfillDays = 7;
+
+    /**
+     * 事件权重
+     */
+    private Weight weight = new Weight();
+
+    @Data
+    public static class Weight {
+        /**
+         * 浏览
+         */
+        private double view = 1;
+
+        /**
+         * 点赞（取消点赞时扣除）
+         */
+        private double like = 3;
+
+        /**
+         * 评论
+         */
+        private double comment = 4;
+
+        /**
+         * 收藏（取消收藏时扣除）
+         */
+        private double collect = 5;
+    }
+}
@@ -46,6 +46,31 @@ public class ImageRecognitionConfig {
      */
     private Prompt prompt = new Prompt();
 
+    /**
+     * 异步识别任务配置
+     */
+    private Job job = new Job();
+
+    /**
+     * 批量识别配置
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * 识别结果缓存配置
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * 相同识别请求合并配置
+     */
+    private SingleFlight singleFlight = new SingleFlight();
+
+    /**
+     * 识别图片预处理配置
+     */
+    private Preprocess preprocess = new Preprocess();
+
     /**
      * 提示词内容（从文件加载后存储）
      */
@@ -128,4 +153,140 @@ public class ImageRecognitionConfig {
         private String defaultFile;
         private String detailedFile;
     }
+
+    /**
+     * 异步识别任务配置内部类
+     */
+    @Data
+    public static class Job {
+        /**
+         * 核心线程数
+         */
+        private int corePoolSize = 4;
+
+        /**
+         * 最大线程数
+         */
+        private int maxPoolSize = 16;
+
+        /**
+         * 等待队列容量
+         */
+        private int queueCapacity = 200;
+
+        /**
+         * 空闲线程存活时间（秒）
+         */
+        private int keepAliveSeconds = 60;
+
+        /**
+         * 结果订阅（SSE）超时时间（毫秒）
+         */
+        private long subscribeTimeout = 5 * 60 * 1000L;
+
+        /**
+         * 待处理识别记录的超时时间（秒），启动时把更早创建且仍为待处理的记录标记为失败
+         * 需大于模型调用总超时加上排队等待的时间，避免误伤其他实例上仍在执行的任务
+         */
+        private long pendingTimeoutSeconds = 600;
+    }
+
+    /**
+     * 批量识别配置内部类
+     */
+    @Data
+    public static class Batch {
+        /**
+         * 单个批次的最大并发识别数
+         */
+        private int concurrency = 5;
+
+        /**
+         * 批量识别线程池大小（所有批次共享），线程耗尽时新提交的单项直接按失败处理
+         */
+        private int poolSize = 32;
+
+        /**
+         * 整个批次的截止时间（秒）
+         */
+        private int timeoutSeconds = 180;
+    }
+
+    /**
+     * 识别结果缓存配置内部类
+     */
+    @Data
+    public static class Cache {
+        /**
+         * 是否启用识别结果缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 本地缓存最大条目数
+         */
+        private int localMaxSize = 1000;
+
+        /**
+         * 本地缓存过期时间（秒），Redis缓存过期时间见 CacheKeyPrefix.RECOGNITION_RESULT
+         */
+        private int localTtlSeconds = 600;
+    }
+
+    /**
+     * 相同识别请求合并配置内部类
+     */
+    @Data
+    public static class SingleFlight {
+        /**
+         * 是否启用集群模式（通过Redis锁合并多实例间的相同请求）
+         */
+        private boolean cluster = false;
+
+        /**
+         * 集群锁过期时间（秒），应大于模型调用含重试的总超时（doubao.api.total-timeout）
+         */
+        private int lockSeconds = 180;
+
+        /**
+         * 等待进行中请求结果的最长时间（秒），应大于模型调用含重试的总超时
+         */
+        private int waitSeconds = 180;
+
+        /**
+         * 集群模式下轮询共享结果的间隔（毫秒）
+         */
+        private long pollIntervalMillis = 500;
+    }
+
+    /**
+     * 识别图片预处理配置内部类
+     */
+    @Data
+    public static class Preprocess {
+        /**
+         * 是否启用预处理（缩放并重新编码后再提交模型）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 识别用图片的最长边（像素）
+         */
+        private int maxEdge = 1024;
+
+        /**
+         * JPEG编码质量（0-1）
+         */
+        private float quality = 0.85f;
+
+        /**
+         * 原图尺寸不超过最长边且小于该大小（字节）时直接使用原图
+         */
+        private long skipBelowBytes = 300 * 1024;
+
+        /**
+         * 允许上传的最大像素数（宽×高），解码前按文件头尺寸校验
+         */
+        private long maxPixels = 40_000_000L;
+    }
 }
@@ -0,0 +1,52 @@
+package com.pengcunfu.recognition.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 派生图片（缩略图）配置类
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "image.variant")
+public class ImageVariantConfig {
+
+    /**
+     * 是否在上传后生成缩略图
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缩略图宽度（像素），每个宽度生成一张
+     */
+    private List<Integer> widths = Arrays.asList(160, 320, 640);
+
+    /**
+     * 列表页使用的缩略图宽度（取不小于该宽度的最小缩略图）
+     */
+    private int listWidth = 320;
+
+    /**
+     * JPEG编码质量（0-1）
+     */
+    private float quality = 0.8f;
+
+    /**
+     * 生成线程数
+     */
+    private int poolSize = 2;
+
+    /**
+     * 等待生成的最大任务数，超出后丢弃（列表页回退为原图）
+     */
+    private int queueCapacity = 500;
+
+    /**
+     * 以内存数据提交的任务中，等待和正在生成的原图数据总字节数上限，超出后丢弃
+     */
+    private long maxQueuedBytes = 64L * 1024 * 1024;
+}
@@ -1,30 +0,0 @@
-package com.pengcunfu.recognition.config;
-
-import com.pengcunfu.recognition.interceptor.LogInterceptor;
-import lombok.RequiredArgsConstructor;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-
-/**
- * 拦截器配置
- */
-@Configuration
-@RequiredArgsConstructor
-public class InterceptorConfig implements WebMvcConfigurer {
-
-    private final LogInterceptor logInterceptor;
-
-    @Override
-    public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(logInterceptor)
-                .addPathPatterns("/api/**")
-                .excludePathPatterns(
-                        "/api/v1/auth/login",
-                        "/api/v1/auth/register",
-                        "/swagger-ui/**",
-                        "/v3/api-docs/**"
-                );
-    }
-}
-
@@ -0,0 +1,49 @@
+package com.pengcunfu.recognition.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 限流配置类
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitConfig {
+
+    /**
+     * 本地预限流配置
+     */
+    private Local local = new Local();
+
+    @Data
+    public static class Local {
+        /**
+         * 是否启用本地预限流（关闭后每次检查都访问Redis）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每次从Redis租用的许可占限流次数的比例，
+         * 未用完的租约最多使全局少放行 实例数 × 租约大小 次
+         */
+        private double leaseRatio = 0.1;
+
+        /**
+         * 单次租用的最大许可数
+         */
+        private int maxLease = 50;
+
+        /**
+         * 滑动窗口和令牌桶租约的最长有效期（毫秒），
+         * 租约内的许可按租用时刻计入全局窗口，有效期越长误差越大
+         */
+        private long leaseTtlMillis = 1000;
+
+        /**
+         * 本地最多保存的限流键数量，超出后新键直接访问Redis
+         */
+        private int maxKeys = 10000;
+    }
+}
@@ -0,0 +1,54 @@
+package com.pengcunfu.recognition.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 全文检索配置类
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "search")
+public class SearchConfig {
+
+    /**
+     * 索引目录
+     */
+    private String indexPath = "./data/search-index";
+
+    /**
+     * 索引写入缓冲区大小（MB）
+     */
+    private double ramBufferSizeMb = 64;
+
+    /**
+     * 刷新可见索引的间隔（毫秒），新写入的内容最迟在该间隔后可被搜索到
+     */
+    private long refreshIntervalMillis = 1000;
+
+    /**
+     * 持久化提交的间隔（毫秒）
+     */
+    private long commitIntervalMillis = 30000;
+
+    /**
+     * 可翻到的最大结果数（页码 × 每页大小）
+     */
+    private int maxResultWindow = 1000;
+
+    /**
+     * 每个分面返回的最大取值数
+     */
+    private int facetLimit = 20;
+
+    /**
+     * 正文高亮片段数
+     */
+    private int highlightPassages = 2;
+
+    /**
+     * 正文高亮片段最大长度（字符）
+     */
+    private int highlightMaxLength = 10000;
+}
@@ -0,0 +1,50 @@
+package com.pengcunfu.recognition.config;
+
+import com.pengcunfu.recognition.enums.LogOverflowPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 系统日志批量写入配置类
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "system-log")
+public class SystemLogConfig {
+
+    /**
+     * 待写入队列容量
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 单批写入的最大条数
+     */
+    private int batchSize = 200;
+
+    /**
+     * 未攒满一批时的最长等待时间（毫秒）
+     */
+    private long flushIntervalMillis = 1000;
+
+    /**
+     * 队列溢出策略
+     */
+    private LogOverflowPolicy overflowPolicy = LogOverflowPolicy.DROP;
+
+    /**
+     * SAMPLE 策略的高水位（队列占用比例，0-1）
+     */
+    private double sampleHighWatermark = 0.8;
+
+    /**
+     * SAMPLE 策略超过高水位后保留的比例（0-1）
+     */
+    private double sampleRate = 0.1;
+
+    /**
+     * BLOCK 策略的最长等待时间（毫秒）
+     */
+    private long blockTimeoutMillis = 50;
+}
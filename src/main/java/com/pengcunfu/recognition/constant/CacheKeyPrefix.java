@@ -16,6 +16,16 @@ public enum CacheKeyPrefix {
      */
     USER_TOKEN("user:token:", 604800L),
     
+    /**
+     * 用户摘要缓存（包含角色、状态和VIP到期时间，过期时间较短）
+     */
+    USER_SUMMARY("user:summary:", 300L),
+    
+    /**
+     * 用户摘要失效版本号，每次失效递增
+     */
+    USER_SUMMARY_VERSION("user:summary:version:", 3600L),
+    
     /**
      * 邮箱验证码缓存
      */
@@ -51,6 +61,16 @@ public enum CacheKeyPrefix {
      */
     HOT_KNOWLEDGE("hot:knowledge", 600L),
     
+    /**
+     * 标签计数缓存
+     */
+    TAG_COUNTS("tag:counts:", 600L),
+    
+    /**
+     * 游标分页总数缓存
+     */
+    PAGE_TOTAL("page:total:", 60L),
+    
     /**
      * API限流缓存
      */
@@ -138,6 +138,16 @@ public class ErrorCode {
      */
     public static final int RECOGNITION_NOT_FOUND = 20005;
 
+    /**
+     * 识别服务暂不可用（熔断或并发已满）
+     */
+    public static final int RECOGNITION_SERVICE_UNAVAILABLE = 20006;
+
+    /**
+     * 识别服务调用超时
+     */
+    public static final int RECOGNITION_TIMEOUT = 20007;
+
     // ==================== 社区模块错误码 (3xxxx) ====================
 
     /**
@@ -78,9 +78,19 @@ public class RedisConstants {
     public static final String POST_INFO_KEY = "post" + KEY_SEPARATOR + "info" + KEY_SEPARATOR;
 
     /**
-     * 帖子浏览次数缓存键 - post:view:{postId}
+     * 待刷新浏览量增量哈希键 - view:pending:{targetType}，字段为目标ID，值为增量
      */
-    public static final String POST_VIEW_COUNT_KEY = "post" + KEY_SEPARATOR + "view" + KEY_SEPARATOR;
+    public static final String VIEW_PENDING_KEY = "view" + KEY_SEPARATOR + "pending" + KEY_SEPARATOR;
+
+    /**
+     * 刷新中浏览量增量哈希键 - view:flushing:{targetType}
+     */
+    public static final String VIEW_FLUSHING_KEY = "view" + KEY_SEPARATOR + "flushing" + KEY_SEPARATOR;
+
+    /**
+     * 浏览量刷新批次ID键 - view:flush-id:{targetType}
+     */
+    public static final String VIEW_FLUSH_ID_KEY = "view" + KEY_SEPARATOR + "flush-id" + KEY_SEPARATOR;
 
     /**
      * 知识缓存键 - knowledge:info:{knowledgeId}
@@ -150,10 +160,25 @@ public class RedisConstants {
     public static final String ORDER_LOCK_KEY = LOCK_KEY_PREFIX + KEY_SEPARATOR + "order" + KEY_SEPARATOR;
 
     /**
-     * 识别锁键 - lock:recognition:{userId}
+     * 识别锁键 - lock:recognition:{imageHash}:{recognitionType}:{promptFingerprint}
      */
     public static final String RECOGNITION_LOCK_KEY = LOCK_KEY_PREFIX + KEY_SEPARATOR + "recognition" + KEY_SEPARATOR;
 
+    /**
+     * 用户主体缓存失效频道 - channel:principal:invalidate，消息内容为用户ID
+     */
+    public static final String PRINCIPAL_INVALIDATE_CHANNEL = "channel" + KEY_SEPARATOR + "principal" + KEY_SEPARATOR + "invalidate";
+
+    /**
+     * 用户摘要缓存失效频道 - channel:user-summary:invalidate，消息内容为用户ID
+     */
+    public static final String USER_SUMMARY_INVALIDATE_CHANNEL = "channel" + KEY_SEPARATOR + "user-summary" + KEY_SEPARATOR + "invalidate";
+
+    /**
+     * 标签重建完成标记 - tag:rebuild:done，存在时启动不再自动回填
+     */
+    public static final String TAG_REBUILD_DONE_KEY = "tag" + KEY_SEPARATOR + "rebuild" + KEY_SEPARATOR + "done";
+
     private RedisConstants() {
         throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
     }
@@ -4,6 +4,7 @@ import com.pengcunfu.recognition.annotation.Role;
 import com.pengcunfu.recognition.request.CommentRequest;
 import com.pengcunfu.recognition.response.ApiResponse;
 import com.pengcunfu.recognition.response.CommentResponse;
+import com.pengcunfu.recognition.response.CursorPageResponse;
 import com.pengcunfu.recognition.response.PageResponse;
 import com.pengcunfu.recognition.security.SecurityContextHolder;
 import com.pengcunfu.recognition.service.CommentService;
@@ -42,6 +43,23 @@ public class CommentController {
         return ApiResponse.success(response);
     }
 
+    /**
+     * 获取评论列表（游标分页）
+     */
+    @GetMapping("/scroll")
+    public ApiResponse<CursorPageResponse<CommentResponse.CommentInfo>> scrollComments(
+            @RequestParam Integer targetType,
+            @RequestParam Long targetId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(defaultValue = "false") Boolean withTotal) {
+        log.info("游标获取评论列表: targetType={}, targetId={}, cursor={}, size={}", 
+            targetType, targetId, cursor, size);
+        CursorPageResponse<CommentResponse.CommentInfo> response = 
+            commentService.scrollComments(targetType, targetId, cursor, size, withTotal);
+        return ApiResponse.success(response);
+    }
+
     /**
      * 创建评论
      */
@@ -4,6 +4,7 @@ import com.pengcunfu.recognition.annotation.Role;
 import com.pengcunfu.recognition.request.CommunityRequest;
 import com.pengcunfu.recognition.response.ApiResponse;
 import com.pengcunfu.recognition.response.CommunityResponse;
+import com.pengcunfu.recognition.response.CursorPageResponse;
 import com.pengcunfu.recognition.response.PageResponse;
 import com.pengcunfu.recognition.security.SecurityContextHolder;
 import com.pengcunfu.recognition.service.CommunityService;
@@ -48,6 +49,26 @@ public class CommunityController {
         return ApiResponse.success(response);
     }
 
+    /**
+     * 获取帖子列表（游标分页，按置顶、最新排序）
+     */
+    @GetMapping("/posts/scroll")
+    public ApiResponse<CursorPageResponse<CommunityResponse.PostInfo>> scrollPosts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String tag,
+            @RequestParam(defaultValue = "false") Boolean withTotal) {
+        log.info("游标获取帖子列表: cursor={}, size={}, category={}, tag={}", cursor, size, category, tag);
+
+        // 获取当前用户ID（可能为null，表示未登录用户）
+        Long currentUserId = SecurityContextHolder.getCurrentUserId();
+
+        CursorPageResponse<CommunityResponse.PostInfo> response =
+            communityService.scrollPosts(cursor, size, category, tag, currentUserId, withTotal);
+        return ApiResponse.success(response);
+    }
+
     /**
      * 获取帖子详情
      */
@@ -193,7 +214,7 @@ public class CommunityController {
     }
 
     /**
-     * 获取热门帖子（按访问量排序）
+     * 获取热门帖子（按时间衰减热度排序）
      */
     @GetMapping("/hot-posts")
     public ApiResponse<java.util.List<CommunityResponse.PostInfo>> getHotPosts(
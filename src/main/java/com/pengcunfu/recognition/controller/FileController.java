@@ -1,27 +1,21 @@
 package com.pengcunfu.recognition.controller;
 
 import com.pengcunfu.recognition.annotation.Role;
+import com.pengcunfu.recognition.constant.ErrorCode;
+import com.pengcunfu.recognition.exception.BusinessException;
 import com.pengcunfu.recognition.response.ApiResponse;
+import com.pengcunfu.recognition.service.FileAccessService;
+import com.pengcunfu.recognition.service.FileReferenceService;
 import com.pengcunfu.recognition.service.FileService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -34,6 +28,7 @@ import java.util.List;
 public class FileController {
 
     private final FileService fileService;
+    private final FileReferenceService fileReferenceService;
 
     @Value("${file.upload.path:./uploads}")
     private String uploadPath;
@@ -56,11 +51,7 @@ public class FileController {
     @PostMapping("/upload/images")
     public ApiResponse<List<String>> uploadImages(@RequestParam("files") MultipartFile[] files) {
         log.info("批量上传图片: count={}", files.length);
-        List<String> urls = new ArrayList<>();
-        for (MultipartFile file : files) {
-            String url = fileService.uploadImage(file);
-            urls.add(url);
-        }
+        List<String> urls = fileService.uploadImages(files);
         return ApiResponse.success(urls);
     }
 
@@ -82,6 +73,10 @@ public class FileController {
     @DeleteMapping
     public ApiResponse<Void> deleteFile(@RequestParam("url") String url) {
         log.info("删除文件: url={}", url);
+        // 内容相同的上传共用同一个文件，仍被引用的文件不能删除
+        if (!fileReferenceService.findReferenced(List.of(url)).isEmpty()) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM, "文件仍在使用中，无法删除");
+        }
         fileService.deleteFile(url);
         return ApiResponse.success();
     }
@@ -108,60 +103,22 @@ public class FileController {
 @RequiredArgsConstructor
 class FileAccessController {
 
-    @Value("${file.upload.path:./uploads}")
-    private String uploadPath;
+    private final FileAccessService fileAccessService;
 
     /**
-     * 访问文件
+     * 访问文件（支持条件请求与Range请求）
      * 例如: /api/v1/files/images/2025/10/20/xxx.jpg
      */
     @GetMapping("/**")
-    public ResponseEntity<Resource> getFile(HttpServletRequest request) {
+    public void getFile(HttpServletRequest request, HttpServletResponse response) {
+        // 移除 /api/v1/files/ 前缀
+        String filePath = request.getRequestURI().substring("/api/v1/files/".length());
+
         try {
-            // 获取完整请求路径
-            String requestPath = request.getRequestURI();
-            // 移除 /api/v1/files/ 前缀
-            String filePath = requestPath.substring("/api/v1/files/".length());
-            
-            log.debug("访问文件: requestPath={}, filePath={}", requestPath, filePath);
-            
-            // 构建完整文件路径
-            Path fullPath = Paths.get(uploadPath).toAbsolutePath().normalize().resolve(filePath);
-            File file = fullPath.toFile();
-            
-            log.debug("文件绝对路径: {}, 存在: {}", fullPath, file.exists());
-            
-            if (!file.exists() || !file.isFile()) {
-                log.warn("文件不存在: {}", fullPath);
-                return ResponseEntity.notFound().build();
-            }
-            
-            // 安全检查：确保文件在上传目录内
-            Path uploadDir = Paths.get(uploadPath).toAbsolutePath().normalize();
-            if (!fullPath.startsWith(uploadDir)) {
-                log.warn("非法访问路径: {}", fullPath);
-                return ResponseEntity.badRequest().build();
-            }
-            
-            Resource resource = new FileSystemResource(file);
-            
-            // 根据文件扩展名设置 Content-Type
-            String contentType = Files.probeContentType(fullPath);
-            if (contentType == null) {
-                contentType = "application/octet-stream";
-            }
-            
-            log.info("文件访问成功: path={}, size={}, type={}", filePath, file.length(), contentType);
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + file.getName() + "\"")
-                    .body(resource);
-                    
-        } catch (Exception e) {
-            log.error("文件访问失败", e);
-            return ResponseEntity.internalServerError().build();
+            fileAccessService.serve(filePath, request, response);
+        } catch (IOException e) {
+            // 客户端中断下载等情况，响应可能已部分写出
+            log.debug("文件传输中断: path={}, error={}", filePath, e.getMessage());
         }
     }
 }
-
@@ -100,6 +100,17 @@ public class KnowledgeController {
         return ApiResponse.success();
     }
 
+    /**
+     * 获取热门知识（按时间衰减热度排序）
+     */
+    @GetMapping("/hot")
+    public ApiResponse<java.util.List<KnowledgeResponse.KnowledgeInfo>> getHotKnowledge(
+            @RequestParam(defaultValue = "5") Integer limit) {
+        log.info("获取热门知识: limit={}", limit);
+        java.util.List<KnowledgeResponse.KnowledgeInfo> hotKnowledge = knowledgeService.getHotKnowledge(limit);
+        return ApiResponse.success(hotKnowledge);
+    }
+
     /**
      * 获取所有分类
      */
@@ -2,6 +2,7 @@ package com.pengcunfu.recognition.controller;
 
 import com.pengcunfu.recognition.annotation.Role;
 import com.pengcunfu.recognition.response.ApiResponse;
+import com.pengcunfu.recognition.response.CursorPageResponse;
 import com.pengcunfu.recognition.response.NotificationResponse;
 import com.pengcunfu.recognition.response.PageResponse;
 import com.pengcunfu.recognition.security.SecurityContextHolder;
@@ -59,6 +60,22 @@ public class NotificationController {
         return ApiResponse.success(response);
     }
 
+    /**
+     * 获取通知列表（游标分页）
+     */
+    @Role("USER")
+    @GetMapping("/scroll")
+    public ApiResponse<CursorPageResponse<NotificationResponse.NotificationInfo>> scrollNotifications(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) Integer isRead,
+            @RequestParam(defaultValue = "false") Boolean withTotal) {
+        Long userId = SecurityContextHolder.getCurrentUserId();
+        CursorPageResponse<NotificationResponse.NotificationInfo> response = 
+            notificationService.scrollNotifications(userId, cursor, size, isRead, withTotal);
+        return ApiResponse.success(response);
+    }
+
     /**
      * 标记为已读
      */
@@ -5,19 +5,19 @@ import com.pengcunfu.recognition.constant.ErrorCode;
 import com.pengcunfu.recognition.exception.BusinessException;
 import com.pengcunfu.recognition.request.RecognitionRequest;
 import com.pengcunfu.recognition.response.ApiResponse;
+import com.pengcunfu.recognition.response.CursorPageResponse;
 import com.pengcunfu.recognition.response.PageResponse;
 import com.pengcunfu.recognition.response.RecognitionResponse;
 import com.pengcunfu.recognition.security.SecurityContextHolder;
+import com.pengcunfu.recognition.service.RecognitionImageService;
 import com.pengcunfu.recognition.service.RecognitionService;
-import com.pengcunfu.recognition.util.TosUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
 /**
@@ -31,7 +31,7 @@ import java.io.IOException;
 public class RecognitionController {
 
     private final RecognitionService recognitionService;
-    private final TosUtil tosUtil;
+    private final RecognitionImageService recognitionImageService;
 
     /**
      * 图像识别（文件直接上传到 TOS）
@@ -44,48 +44,7 @@ public class RecognitionController {
         log.info("图像识别: userId={}, fileName={}, recognitionType={}", userId, file.getOriginalFilename(), recognitionType);
         
         try {
-            // 验证文件
-            if (file.isEmpty()) {
-                throw new BusinessException(ErrorCode.INVALID_PARAM, "上传文件为空");
-            }
-            
-            // 验证文件类型
-            String contentType = file.getContentType();
-            if (contentType == null || !contentType.startsWith("image/")) {
-                throw new BusinessException(ErrorCode.INVALID_PARAM, "只支持上传图片文件");
-            }
-            
-            // 验证文件大小（10MB）
-            if (file.getSize() > 10 * 1024 * 1024) {
-                throw new BusinessException(ErrorCode.INVALID_PARAM, "文件大小不能超过 10MB");
-            }
-            
-            // 获取图片尺寸
-            Integer imageWidth = null;
-            Integer imageHeight = null;
-            try {
-                BufferedImage image = ImageIO.read(new ByteArrayInputStream(file.getBytes()));
-                if (image != null) {
-                    imageWidth = image.getWidth();
-                    imageHeight = image.getHeight();
-                    log.info("图片尺寸: {}x{}", imageWidth, imageHeight);
-                }
-            } catch (Exception e) {
-                log.warn("获取图片尺寸失败: {}", e.getMessage());
-            }
-            
-            // 直接上传到 TOS
-            String imageUrl = tosUtil.uploadFile(file, "recognition");
-            log.info("文件上传成功: userId={}, imageUrl={}", userId, imageUrl);
-            
-            // 构建识别请求
-            RecognitionRequest.ImageRecognitionRequest request = new RecognitionRequest.ImageRecognitionRequest();
-            request.setRecognitionType(recognitionType);
-            request.setImageUrl(imageUrl);
-            request.setImageSize((int) file.getSize());
-            request.setImageWidth(imageWidth);
-            request.setImageHeight(imageHeight);
-            request.setImageName(file.getOriginalFilename());
+            RecognitionRequest.ImageRecognitionRequest request = buildRecognitionRequest(userId, file, recognitionType);
             
             // 执行识别
             RecognitionResponse.RecognitionInfo result = recognitionService.recognizeImage(userId, request);
@@ -101,6 +60,111 @@ public class RecognitionController {
         }
     }
 
+    /**
+     * 提交异步识别任务（文件直接上传到 TOS）
+     * 立即返回待处理的识别记录，结果通过轮询或订阅获取
+     */
+    @PostMapping("/jobs")
+    public ApiResponse<RecognitionResponse.RecognitionInfo> submitJob(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "recognitionType", required = false, defaultValue = "0") Integer recognitionType) {
+        Long userId = SecurityContextHolder.getCurrentUserId();
+        log.info("提交识别任务: userId={}, fileName={}, recognitionType={}", userId, file.getOriginalFilename(), recognitionType);
+        
+        try {
+            RecognitionRequest.ImageRecognitionRequest request = buildRecognitionRequest(userId, file, recognitionType);
+            
+            RecognitionResponse.RecognitionInfo result = recognitionService.submitRecognitionJob(userId, request);
+            return ApiResponse.success(result);
+        } catch (IOException e) {
+            log.error("文件上传失败: userId={}, error={}", userId, e.getMessage(), e);
+            throw new BusinessException(ErrorCode.INTERNAL_ERROR, "文件上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 提交异步高级识别任务（VIP功能）
+     */
+    @PostMapping("/jobs/advanced")
+    @Role("VIP")
+    public ApiResponse<RecognitionResponse.RecognitionInfo> submitAdvancedJob(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "settings", required = false) String settings) {
+        Long userId = SecurityContextHolder.getCurrentUserId();
+        log.info("提交高级识别任务: userId={}, fileName={}, settings={}", userId, file.getOriginalFilename(), settings);
+        
+        try {
+            RecognitionRequest.AdvancedRecognitionRequest request = buildAdvancedRecognitionRequest(userId, file, settings);
+            
+            RecognitionResponse.RecognitionInfo result = recognitionService.submitAdvancedRecognitionJob(userId, request);
+            return ApiResponse.success(result);
+        } catch (IOException e) {
+            log.error("高级识别文件上传失败: userId={}, error={}", userId, e.getMessage(), e);
+            throw new BusinessException(ErrorCode.INTERNAL_ERROR, "文件上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询识别任务状态
+     */
+    @GetMapping("/jobs/{id}")
+    public ApiResponse<RecognitionResponse.RecognitionInfo> getJob(@PathVariable Long id) {
+        Long userId = SecurityContextHolder.getCurrentUserId();
+        log.debug("查询识别任务: userId={}, id={}", userId, id);
+        RecognitionResponse.RecognitionInfo result = recognitionService.getRecognitionDetail(userId, id);
+        return ApiResponse.success(result);
+    }
+
+    /**
+     * 订阅识别任务结果（SSE）
+     */
+    @GetMapping(value = "/jobs/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeJob(@PathVariable Long id) {
+        Long userId = SecurityContextHolder.getCurrentUserId();
+        log.info("订阅识别任务: userId={}, id={}", userId, id);
+        return recognitionService.subscribeRecognitionJob(userId, id);
+    }
+
+    /**
+     * 流式图像识别（SSE）
+     * 模型输出片段以 delta 事件实时推送，最终识别结果以 result 事件推送
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRecognize(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "recognitionType", required = false, defaultValue = "0") Integer recognitionType) {
+        Long userId = SecurityContextHolder.getCurrentUserId();
+        log.info("流式图像识别: userId={}, fileName={}, recognitionType={}", userId, file.getOriginalFilename(), recognitionType);
+        
+        try {
+            RecognitionRequest.ImageRecognitionRequest request = buildRecognitionRequest(userId, file, recognitionType);
+            return recognitionService.streamRecognition(userId, request);
+        } catch (IOException e) {
+            log.error("文件上传失败: userId={}, error={}", userId, e.getMessage(), e);
+            throw new BusinessException(ErrorCode.INTERNAL_ERROR, "文件上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 流式高级图像识别（VIP功能，SSE）
+     */
+    @PostMapping(value = "/stream/advanced", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Role("VIP")
+    public SseEmitter streamAdvancedRecognize(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "settings", required = false) String settings) {
+        Long userId = SecurityContextHolder.getCurrentUserId();
+        log.info("流式高级图像识别: userId={}, fileName={}, settings={}", userId, file.getOriginalFilename(), settings);
+        
+        try {
+            RecognitionRequest.AdvancedRecognitionRequest request = buildAdvancedRecognitionRequest(userId, file, settings);
+            return recognitionService.streamAdvancedRecognition(userId, request);
+        } catch (IOException e) {
+            log.error("高级识别文件上传失败: userId={}, error={}", userId, e.getMessage(), e);
+            throw new BusinessException(ErrorCode.INTERNAL_ERROR, "文件上传失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取识别历史列表
      */
@@ -115,6 +179,21 @@ public class RecognitionController {
         return ApiResponse.success(response);
     }
 
+    /**
+     * 获取识别历史列表（游标分页）
+     */
+    @GetMapping("/history/scroll")
+    public ApiResponse<CursorPageResponse<RecognitionResponse.RecognitionInfo>> scrollHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(defaultValue = "false") Boolean withTotal) {
+        Long userId = SecurityContextHolder.getCurrentUserId();
+        log.info("游标获取识别历史: userId={}, cursor={}, size={}", userId, cursor, size);
+        CursorPageResponse<RecognitionResponse.RecognitionInfo> response =
+            recognitionService.scrollRecognitionHistory(userId, cursor, size, withTotal);
+        return ApiResponse.success(response);
+    }
+
     /**
      * 获取识别结果详情
      */
@@ -194,49 +273,7 @@ public class RecognitionController {
         log.info("高级图像识别: userId={}, fileName={}, settings={}", userId, file.getOriginalFilename(), settings);
         
         try {
-            // 验证文件
-            if (file.isEmpty()) {
-                throw new BusinessException(ErrorCode.INVALID_PARAM, "上传文件为空");
-            }
-            
-            // 验证文件类型
-            String contentType = file.getContentType();
-            if (contentType == null || !contentType.startsWith("image/")) {
-                throw new BusinessException(ErrorCode.INVALID_PARAM, "只支持上传图片文件");
-            }
-            
-            // VIP用户支持更大文件（20MB）
-            if (file.getSize() > 20 * 1024 * 1024) {
-                throw new BusinessException(ErrorCode.INVALID_PARAM, "文件大小不能超过 20MB");
-            }
-            
-            // 获取图片尺寸
-            Integer imageWidth = null;
-            Integer imageHeight = null;
-            try {
-                BufferedImage image = ImageIO.read(new ByteArrayInputStream(file.getBytes()));
-                if (image != null) {
-                    imageWidth = image.getWidth();
-                    imageHeight = image.getHeight();
-                    log.info("图片尺寸: {}x{}", imageWidth, imageHeight);
-                }
-            } catch (Exception e) {
-                log.warn("获取图片尺寸失败: {}", e.getMessage());
-            }
-            
-            // 上传到 TOS
-            String imageUrl = tosUtil.uploadFile(file, "advanced-recognition");
-            log.info("高级识别文件上传成功: userId={}, imageUrl={}", userId, imageUrl);
-            
-            // 构建高级识别请求
-            RecognitionRequest.AdvancedRecognitionRequest request = new RecognitionRequest.AdvancedRecognitionRequest();
-            request.setRecognitionType(1); // 高级识别类型
-            request.setImageUrl(imageUrl);
-            request.setImageSize((int) file.getSize());
-            request.setImageWidth(imageWidth);
-            request.setImageHeight(imageHeight);
-            request.setImageName(file.getOriginalFilename());
-            request.setSettings(settings);
+            RecognitionRequest.AdvancedRecognitionRequest request = buildAdvancedRecognitionRequest(userId, file, settings);
             
             // 执行高级识别
             RecognitionResponse.RecognitionInfo result = recognitionService.advancedRecognizeImage(userId, request);
@@ -276,6 +313,8 @@ public class RecognitionController {
             
             // 上传所有文件到TOS
             String[] imageUrls = new String[files.length];
+            String[] imageHashes = new String[files.length];
+            String[] originalImageUrls = new String[files.length];
             for (int i = 0; i < files.length; i++) {
                 MultipartFile file = files[i];
                 
@@ -296,7 +335,10 @@ public class RecognitionController {
                 }
                 
                 // 上传到TOS
-                imageUrls[i] = tosUtil.uploadFile(file, "advanced-recognition");
+                RecognitionImageService.UploadedImage uploaded = recognitionImageService.upload(file, "advanced-recognition");
+                imageUrls[i] = uploaded.getImageUrl();
+                imageHashes[i] = uploaded.getImageHash();
+                originalImageUrls[i] = uploaded.getOriginalUrl();
                 log.info("高级识别文件 {} 上传成功: userId={}, imageUrl={}", i + 1, userId, imageUrls[i]);
             }
             
@@ -304,6 +346,8 @@ public class RecognitionController {
             RecognitionRequest.BatchAdvancedRecognitionRequest request = new RecognitionRequest.BatchAdvancedRecognitionRequest();
             request.setRecognitionType(1); // 高级识别类型
             request.setImageUrls(imageUrls);
+            request.setImageHashes(imageHashes);
+            request.setOriginalImageUrls(originalImageUrls);
             request.setSettings(settings);
             
             // 执行批量高级识别
@@ -344,6 +388,8 @@ public class RecognitionController {
             
             // 上传所有文件到TOS
             String[] imageUrls = new String[files.length];
+            String[] imageHashes = new String[files.length];
+            String[] originalImageUrls = new String[files.length];
             for (int i = 0; i < files.length; i++) {
                 MultipartFile file = files[i];
                 
@@ -364,7 +410,10 @@ public class RecognitionController {
                 }
                 
                 // 上传到TOS
-                imageUrls[i] = tosUtil.uploadFile(file, "recognition");
+                RecognitionImageService.UploadedImage uploaded = recognitionImageService.upload(file, "recognition");
+                imageUrls[i] = uploaded.getImageUrl();
+                imageHashes[i] = uploaded.getImageHash();
+                originalImageUrls[i] = uploaded.getOriginalUrl();
                 log.info("文件 {} 上传成功: userId={}, imageUrl={}", i + 1, userId, imageUrls[i]);
             }
             
@@ -372,6 +421,8 @@ public class RecognitionController {
             RecognitionRequest.BatchRecognitionRequest request = new RecognitionRequest.BatchRecognitionRequest();
             request.setRecognitionType(recognitionType);
             request.setImageUrls(imageUrls);
+            request.setImageHashes(imageHashes);
+            request.setOriginalImageUrls(originalImageUrls);
             
             // 执行批量识别
             java.util.List<RecognitionResponse.RecognitionInfo> results = 
@@ -388,5 +439,81 @@ public class RecognitionController {
             throw new BusinessException(ErrorCode.INTERNAL_ERROR, "批量图像识别失败: " + e.getMessage());
         }
     }
-}
 
+    /**
+     * 校验并上传识别图片，构建识别请求
+     */
+    private RecognitionRequest.ImageRecognitionRequest buildRecognitionRequest(
+            Long userId, MultipartFile file, Integer recognitionType) throws IOException {
+        // 验证文件
+        if (file.isEmpty()) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM, "上传文件为空");
+        }
+        
+        // 验证文件类型
+        String contentType = file.getContentType();
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM, "只支持上传图片文件");
+        }
+        
+        // 验证文件大小（10MB）
+        if (file.getSize() > 10 * 1024 * 1024) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM, "文件大小不能超过 10MB");
+        }
+        
+        // 上传到 TOS，并生成识别用的缩放图片
+        RecognitionImageService.UploadedImage uploaded = recognitionImageService.upload(file, "recognition");
+        log.info("文件上传成功: userId={}, imageUrl={}", userId, uploaded.getImageUrl());
+        
+        // 构建识别请求
+        RecognitionRequest.ImageRecognitionRequest request = new RecognitionRequest.ImageRecognitionRequest();
+        request.setRecognitionType(recognitionType);
+        request.setImageUrl(uploaded.getImageUrl());
+        request.setOriginalImageUrl(uploaded.getOriginalUrl());
+        request.setImageSize(uploaded.getImageSize());
+        request.setImageWidth(uploaded.getImageWidth());
+        request.setImageHeight(uploaded.getImageHeight());
+        request.setImageName(file.getOriginalFilename());
+        request.setImageHash(uploaded.getImageHash());
+        return request;
+    }
+
+    /**
+     * 校验并上传高级识别图片，构建高级识别请求
+     */
+    private RecognitionRequest.AdvancedRecognitionRequest buildAdvancedRecognitionRequest(
+            Long userId, MultipartFile file, String settings) throws IOException {
+        // 验证文件
+        if (file.isEmpty()) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM, "上传文件为空");
+        }
+        
+        // 验证文件类型
+        String contentType = file.getContentType();
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM, "只支持上传图片文件");
+        }
+        
+        // VIP用户支持更大文件（20MB）
+        if (file.getSize() > 20 * 1024 * 1024) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM, "文件大小不能超过 20MB");
+        }
+        
+        // 上传到 TOS，并生成识别用的缩放图片
+        RecognitionImageService.UploadedImage uploaded = recognitionImageService.upload(file, "advanced-recognition");
+        log.info("高级识别文件上传成功: userId={}, imageUrl={}", userId, uploaded.getImageUrl());
+        
+        // 构建高级识别请求
+        RecognitionRequest.AdvancedRecognitionRequest request = new RecognitionRequest.AdvancedRecognitionRequest();
+        request.setRecognitionType(1); // 高级识别类型
+        request.setImageUrl(uploaded.getImageUrl());
+        request.setOriginalImageUrl(uploaded.getOriginalUrl());
+        request.setImageSize(uploaded.getImageSize());
+        request.setImageWidth(uploaded.getImageWidth());
+        request.setImageHeight(uploaded.getImageHeight());
+        request.setImageName(file.getOriginalFilename());
+        request.setSettings(settings);
+        request.setImageHash(uploaded.getImageHash());
+        return request;
+    }
+}
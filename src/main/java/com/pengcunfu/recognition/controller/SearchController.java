@@ -0,0 +1,38 @@
+package com.pengcunfu.recognition.controller;
+
+import com.pengcunfu.recognition.response.ApiResponse;
+import com.pengcunfu.recognition.response.SearchResponse;
+import com.pengcunfu.recognition.service.SearchIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 全文检索控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SearchIndexService searchIndexService;
+
+    /**
+     * 检索已发布的知识或帖子（按相关度排序，带高亮和分类、标签分面）
+     *
+     * @param type 0-社区帖子, 1-知识库
+     */
+    @GetMapping
+    public ApiResponse<SearchResponse.SearchResult> search(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "1") Integer type,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String tag,
+            @RequestParam(defaultValue = "1") Integer page,
+            @RequestParam(defaultValue = "10") Integer size) {
+        log.info("全文检索: keyword={}, type={}, category={}, tag={}, page={}, size={}",
+                keyword, type, category, tag, page, size);
+        return ApiResponse.success(searchIndexService.searchPublished(type, keyword, category, tag, page, size));
+    }
+}
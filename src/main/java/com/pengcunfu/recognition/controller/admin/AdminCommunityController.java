@@ -6,10 +6,13 @@ import com.pengcunfu.recognition.response.ApiResponse;
 import com.pengcunfu.recognition.response.CommunityResponse;
 import com.pengcunfu.recognition.response.PageResponse;
 import com.pengcunfu.recognition.service.CommunityService;
+import com.pengcunfu.recognition.service.TagService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 /**
  * 管理后台 - 社区管理控制器
  */
@@ -21,6 +24,7 @@ import org.springframework.web.bind.annotation.*;
 public class AdminCommunityController {
 
     private final CommunityService communityService;
+    private final TagService tagService;
 
     /**
      * 获取帖子列表（管理员）
@@ -105,5 +109,13 @@ public class AdminCommunityController {
         communityService.togglePostTop(postId, isTop);
         return ApiResponse.success();
     }
-}
 
+    /**
+     * 根据帖子、知识库和识别记录的标签字段重建标签关联和计数
+     */
+    @PostMapping("/tags/rebuild")
+    public ApiResponse<Map<String, Object>> rebuildTags() {
+        log.info("重建标签索引");
+        return ApiResponse.success(tagService.rebuild());
+    }
+}
@@ -1,32 +1,25 @@
 package com.pengcunfu.recognition.controller.admin;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.pengcunfu.recognition.annotation.Role;
 import com.pengcunfu.recognition.constant.ErrorCode;
-import com.pengcunfu.recognition.entity.CommunityPost;
-import com.pengcunfu.recognition.entity.Knowledge;
-import com.pengcunfu.recognition.entity.RecognitionResult;
-import com.pengcunfu.recognition.entity.User;
+import com.pengcunfu.recognition.entity.FileManifest;
+import com.pengcunfu.recognition.entity.FileManifestStats;
 import com.pengcunfu.recognition.exception.BusinessException;
-import com.pengcunfu.recognition.repository.CommunityPostRepository;
-import com.pengcunfu.recognition.repository.KnowledgeRepository;
-import com.pengcunfu.recognition.repository.RecognitionResultRepository;
-import com.pengcunfu.recognition.repository.UserRepository;
 import com.pengcunfu.recognition.response.ApiResponse;
+import com.pengcunfu.recognition.response.CursorPageResponse;
+import com.pengcunfu.recognition.service.FileCleanupService;
+import com.pengcunfu.recognition.service.FileManifestService;
+import com.pengcunfu.recognition.service.FileReferenceService;
 import com.pengcunfu.recognition.service.FileService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.text.DecimalFormat;
-import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.*;
 
 /**
@@ -39,16 +32,12 @@ import java.util.*;
 public class AdminFileController {
 
     private final FileService fileService;
-    private final UserRepository userRepository;
-    private final CommunityPostRepository communityPostRepository;
-    private final KnowledgeRepository knowledgeRepository;
-    private final RecognitionResultRepository recognitionResultRepository;
-
-    @Value("${file.upload.path:./uploads}")
-    private String uploadPath;
+    private final FileManifestService fileManifestService;
+    private final FileReferenceService fileReferenceService;
+    private final FileCleanupService fileCleanupService;
 
     /**
-     * 获取文件列表（分页）
+     * 获取文件列表（分页，基于文件清单查询）
      */
     @Role("ADMIN")
     @GetMapping
@@ -59,154 +48,94 @@ public class AdminFileController {
             @RequestParam(required = false) String keyword) {
         log.info("获取文件列表: page={}, size={}, type={}, keyword={}", page, size, type, keyword);
 
-        try {
-            // 确定搜索目录
-            String searchDir = uploadPath;
-            if (type != null && !type.isEmpty()) {
-                searchDir = uploadPath + "/" + type;
-            }
-
-            File dir = new File(searchDir);
-            if (!dir.exists() || !dir.isDirectory()) {
-                return ApiResponse.success(new Page<>(page, size));
-            }
-
-            // 收集所有文件
-            List<FileInfo> allFiles = new ArrayList<>();
-            collectFiles(dir, uploadPath, allFiles, keyword);
-
-            // 按修改时间降序排序
-            allFiles.sort((f1, f2) -> f2.getModifiedTime().compareTo(f1.getModifiedTime()));
+        Page<FileManifest> manifestPage = fileManifestService.getPage(page, size, type, keyword);
+        List<FileInfo> pageFiles = toFileInfos(manifestPage.getRecords());
 
-            // 手动分页
-            int start = (page - 1) * size;
-            int end = Math.min(start + size, allFiles.size());
-            List<FileInfo> pageFiles = start < allFiles.size() ? allFiles.subList(start, end) : new ArrayList<>();
+        Page<FileInfo> result = new Page<>(page, size);
+        result.setRecords(pageFiles);
+        result.setTotal(manifestPage.getTotal());
 
-            // 检查文件引用情况
-            for (FileInfo fileInfo : pageFiles) {
-                checkFileUsage(fileInfo);
-            }
+        return ApiResponse.success(result);
+    }
 
-            Page<FileInfo> result = new Page<>(page, size);
-            result.setRecords(pageFiles);
-            result.setTotal(allFiles.size());
+    /**
+     * 获取文件列表（游标分页）
+     */
+    @Role("ADMIN")
+    @GetMapping("/scroll")
+    public ApiResponse<CursorPageResponse<FileInfo>> scrollFiles(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") Integer size,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String keyword) {
+        log.info("游标获取文件列表: cursor={}, size={}, type={}, keyword={}", cursor, size, type, keyword);
 
-            return ApiResponse.success(result);
+        CursorPageResponse<FileManifest> manifestPage = fileManifestService.getPageAfter(cursor, size, type, keyword);
 
-        } catch (Exception e) {
-            log.error("获取文件列表失败", e);
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "获取文件列表失败: " + e.getMessage());
-        }
+        return ApiResponse.success(CursorPageResponse.<FileInfo>builder()
+                .data(toFileInfos(manifestPage.getData()))
+                .size(manifestPage.getSize())
+                .hasMore(manifestPage.getHasMore())
+                .nextCursor(manifestPage.getNextCursor())
+                .build());
     }
 
     /**
-     * 递归收集文件
+     * 从上传目录重建文件清单
      */
-    private void collectFiles(File dir, String basePath, List<FileInfo> fileList, String keyword) {
-        File[] files = dir.listFiles();
-        if (files == null) return;
-
-        for (File file : files) {
-            if (file.isDirectory()) {
-                collectFiles(file, basePath, fileList, keyword);
-            } else {
-                try {
-                    // 跳过非图片文件
-                    String name = file.getName().toLowerCase();
-                    if (!name.endsWith(".jpg") && !name.endsWith(".jpeg") && 
-                        !name.endsWith(".png") && !name.endsWith(".gif") && 
-                        !name.endsWith(".webp") && !name.endsWith(".bmp")) {
-                        continue;
-                    }
-
-                    // 关键字过滤
-                    if (keyword != null && !keyword.isEmpty() && 
-                        !file.getName().toLowerCase().contains(keyword.toLowerCase())) {
-                        continue;
-                    }
-
-                    FileInfo fileInfo = new FileInfo();
-                    fileInfo.setName(file.getName());
-                    fileInfo.setSize(file.length());
-                    fileInfo.setSizeFormatted(formatFileSize(file.length()));
-                    
-                    // 获取文件属性
-                    LocalDateTime modifiedTime = LocalDateTime.ofInstant(
-                            Instant.ofEpochMilli(file.lastModified()), 
-                            ZoneId.systemDefault());
-                    fileInfo.setModifiedTime(modifiedTime);
-
-                    // 计算相对路径和URL
-                    String relativePath = file.getAbsolutePath()
-                            .substring(new File(basePath).getAbsolutePath().length())
-                            .replace("\\", "/");
-                    if (relativePath.startsWith("/")) {
-                        relativePath = relativePath.substring(1);
-                    }
-                    fileInfo.setPath(relativePath);
-                    fileInfo.setUrl("/api/v1/files/" + relativePath);
-
-                    // 确定类型
-                    if (relativePath.startsWith("images/")) {
-                        fileInfo.setType("images");
-                    } else if (relativePath.startsWith("avatars/")) {
-                        fileInfo.setType("avatars");
-                    } else {
-                        fileInfo.setType("other");
-                    }
-
-                    fileList.add(fileInfo);
-                } catch (Exception e) {
-                    log.warn("读取文件属性失败: {}", file.getAbsolutePath(), e);
-                }
-            }
-        }
+    @Role("ADMIN")
+    @PostMapping("/reconcile")
+    public ApiResponse<Map<String, Object>> reconcileFiles() {
+        log.info("重建文件清单");
+        return ApiResponse.success(fileManifestService.reconcile());
     }
 
     /**
-     * 检查文件使用情况
+     * 根据业务数据重建文件引用表
      */
-    private void checkFileUsage(FileInfo fileInfo) {
-        String url = fileInfo.getUrl();
-        List<String> usedBy = new ArrayList<>();
-
-        // 检查用户头像
-        QueryWrapper<User> userQuery = new QueryWrapper<>();
-        userQuery.eq("avatar", url);
-        long userCount = userRepository.selectCount(userQuery);
-        if (userCount > 0) {
-            usedBy.add("用户头像(" + userCount + ")");
-        }
+    @Role("ADMIN")
+    @PostMapping("/rebuild-references")
+    public ApiResponse<Map<String, Object>> rebuildReferences() {
+        log.info("重建文件引用");
+        return ApiResponse.success(fileReferenceService.rebuild());
+    }
 
-        // 检查社区帖子
-        QueryWrapper<CommunityPost> postQuery = new QueryWrapper<>();
-        postQuery.like("images", url);
-        long postCount = communityPostRepository.selectCount(postQuery);
-        if (postCount > 0) {
-            usedBy.add("社区帖子(" + postCount + ")");
-        }
+    /**
+     * 清理未被引用的孤立文件（默认只统计不删除）
+     */
+    @Role("ADMIN")
+    @PostMapping("/cleanup")
+    public ApiResponse<Map<String, Object>> cleanupFiles(@RequestParam(defaultValue = "true") Boolean dryRun) {
+        log.info("清理孤立文件: dryRun={}", dryRun);
+        return ApiResponse.success(fileCleanupService.collectOrphans(dryRun));
+    }
 
-        // 检查知识库
-        QueryWrapper<Knowledge> knowledgeQuery = new QueryWrapper<>();
-        knowledgeQuery.like("cover_image", url)
-                .or()
-                .like("images", url);
-        long knowledgeCount = knowledgeRepository.selectCount(knowledgeQuery);
-        if (knowledgeCount > 0) {
-            usedBy.add("知识库(" + knowledgeCount + ")");
+    /**
+     * 转换为文件信息并批量检查引用情况
+     */
+    private List<FileInfo> toFileInfos(List<FileManifest> manifests) {
+        List<FileInfo> fileInfos = new ArrayList<>(manifests.size());
+        for (FileManifest manifest : manifests) {
+            FileInfo fileInfo = new FileInfo();
+            fileInfo.setName(manifest.getName());
+            fileInfo.setPath(manifest.getPath());
+            fileInfo.setUrl("/api/v1/files/" + manifest.getPath());
+            fileInfo.setType("images".equals(manifest.getType()) || "avatars".equals(manifest.getType())
+                    ? manifest.getType() : "other");
+            fileInfo.setSize(manifest.getSize());
+            fileInfo.setSizeFormatted(formatFileSize(manifest.getSize()));
+            fileInfo.setModifiedTime(manifest.getModifiedAt());
+            fileInfos.add(fileInfo);
         }
 
-        // 检查识别记录
-        QueryWrapper<RecognitionResult> recordQuery = new QueryWrapper<>();
-        recordQuery.eq("image_url", url);
-        long recordCount = recognitionResultRepository.selectCount(recordQuery);
-        if (recordCount > 0) {
-            usedBy.add("识别记录(" + recordCount + ")");
+        Map<String, List<String>> usage = fileReferenceService.getUsage(
+                fileInfos.stream().map(FileInfo::getUrl).toList());
+        for (FileInfo fileInfo : fileInfos) {
+            List<String> usedBy = usage.getOrDefault(fileInfo.getUrl(), Collections.emptyList());
+            fileInfo.setUsedBy(usedBy);
+            fileInfo.setInUse(!usedBy.isEmpty());
         }
-
-        fileInfo.setUsedBy(usedBy);
-        fileInfo.setInUse(!usedBy.isEmpty());
+        return fileInfos;
     }
 
     /**
@@ -238,14 +167,10 @@ public class AdminFileController {
     public ApiResponse<Void> deleteFile(@RequestParam("url") String url) {
         log.info("管理员删除文件: url={}", url);
 
-        // 创建临时FileInfo检查使用情况
-        FileInfo fileInfo = new FileInfo();
-        fileInfo.setUrl(url);
-        checkFileUsage(fileInfo);
-
-        if (fileInfo.getInUse()) {
+        List<String> usedBy = fileReferenceService.getUsage(List.of(url)).get(url);
+        if (usedBy != null) {
             throw new BusinessException(ErrorCode.PARAM_ERROR, 
-                    "文件正在使用中，无法删除。使用位置: " + String.join(", ", fileInfo.getUsedBy()));
+                    "文件正在使用中，无法删除。使用位置: " + String.join(", ", usedBy));
         }
 
         fileService.deleteFile(url);
@@ -265,15 +190,13 @@ public class AdminFileController {
         int failCount = 0;
         List<String> failedFiles = new ArrayList<>();
 
+        Map<String, List<String>> usage = fileReferenceService.getUsage(urls);
         for (String url : urls) {
             try {
-                FileInfo fileInfo = new FileInfo();
-                fileInfo.setUrl(url);
-                checkFileUsage(fileInfo);
-
-                if (fileInfo.getInUse()) {
+                List<String> usedBy = usage.get(url);
+                if (usedBy != null) {
                     failCount++;
-                    failedFiles.add(url + " (使用中: " + String.join(", ", fileInfo.getUsedBy()) + ")");
+                    failedFiles.add(url + " (使用中: " + String.join(", ", usedBy) + ")");
                 } else {
                     fileService.deleteFile(url);
                     successCount++;
@@ -294,51 +217,21 @@ public class AdminFileController {
     }
 
     /**
-     * 获取文件统计信息
+     * 获取文件统计信息（读取增量维护的统计表）
      */
     @Role("ADMIN")
     @GetMapping("/stats")
     public ApiResponse<FileStats> getFileStats() {
         log.info("获取文件统计信息");
 
-        try {
-            File dir = new File(uploadPath);
-            if (!dir.exists()) {
-                return ApiResponse.success(new FileStats());
-            }
-
-            FileStats stats = new FileStats();
-            calculateStats(dir, stats);
-            stats.setTotalSizeFormatted(formatFileSize(stats.getTotalSize()));
-
-            return ApiResponse.success(stats);
-
-        } catch (Exception e) {
-            log.error("获取文件统计信息失败", e);
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "获取文件统计信息失败");
+        FileStats stats = new FileStats();
+        for (FileManifestStats typeStats : fileManifestService.getStats()) {
+            stats.setImageCount(stats.getImageCount() + typeStats.getFileCount().intValue());
+            stats.setTotalSize(stats.getTotalSize() + typeStats.getTotalSize());
         }
-    }
+        stats.setTotalSizeFormatted(formatFileSize(stats.getTotalSize()));
 
-    /**
-     * 递归计算统计信息
-     */
-    private void calculateStats(File dir, FileStats stats) {
-        File[] files = dir.listFiles();
-        if (files == null) return;
-
-        for (File file : files) {
-            if (file.isDirectory()) {
-                calculateStats(file, stats);
-            } else {
-                String name = file.getName().toLowerCase();
-                if (name.endsWith(".jpg") || name.endsWith(".jpeg") || 
-                    name.endsWith(".png") || name.endsWith(".gif") || 
-                    name.endsWith(".webp") || name.endsWith(".bmp")) {
-                    stats.setImageCount(stats.getImageCount() + 1);
-                    stats.setTotalSize(stats.getTotalSize() + file.length());
-                }
-            }
-        }
+        return ApiResponse.success(stats);
     }
 
     /**
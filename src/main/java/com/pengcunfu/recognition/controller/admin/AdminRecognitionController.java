@@ -2,8 +2,10 @@ package com.pengcunfu.recognition.controller.admin;
 
 import com.pengcunfu.recognition.annotation.Role;
 import com.pengcunfu.recognition.response.ApiResponse;
+import com.pengcunfu.recognition.response.CacheResponse;
 import com.pengcunfu.recognition.response.PageResponse;
 import com.pengcunfu.recognition.response.RecognitionResponse;
+import com.pengcunfu.recognition.service.RecognitionCacheService;
 import com.pengcunfu.recognition.service.RecognitionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +24,7 @@ import java.util.List;
 public class AdminRecognitionController {
 
     private final RecognitionService recognitionService;
+    private final RecognitionCacheService recognitionCacheService;
 
     /**
      * 获取识别记录列表（管理员）
@@ -59,5 +62,13 @@ public class AdminRecognitionController {
         recognitionService.batchDeleteRecords(ids);
         return ApiResponse.success();
     }
-}
 
+    /**
+     * 获取识别结果缓存统计
+     */
+    @GetMapping("/cache-stats")
+    public ApiResponse<CacheResponse.CacheStats> getCacheStats() {
+        log.info("获取识别结果缓存统计");
+        return ApiResponse.success(recognitionCacheService.getStats());
+    }
+}
@@ -0,0 +1,42 @@
+package com.pengcunfu.recognition.controller.admin;
+
+import com.pengcunfu.recognition.annotation.Role;
+import com.pengcunfu.recognition.response.ApiResponse;
+import com.pengcunfu.recognition.response.SearchResponse;
+import com.pengcunfu.recognition.service.SearchIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * 管理员全文检索控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/search")
+@RequiredArgsConstructor
+@Role("ADMIN")
+public class AdminSearchController {
+
+    private final SearchIndexService searchIndexService;
+
+    /**
+     * 获取索引状态
+     */
+    @GetMapping("/stats")
+    public ApiResponse<SearchResponse.IndexStats> getStats() {
+        log.info("获取搜索索引状态");
+        return ApiResponse.success(searchIndexService.getStats());
+    }
+
+    /**
+     * 根据数据库重建全部搜索索引
+     */
+    @PostMapping("/rebuild")
+    public ApiResponse<Map<String, Object>> rebuild() {
+        log.info("重建搜索索引");
+        return ApiResponse.success(searchIndexService.rebuild());
+    }
+}
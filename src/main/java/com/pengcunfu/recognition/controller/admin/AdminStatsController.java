@@ -1,11 +1,17 @@
 package com.pengcunfu.recognition.controller.admin;
 
 import com.pengcunfu.recognition.annotation.Role;
+import com.pengcunfu.recognition.response.AccessLogResponse;
 import com.pengcunfu.recognition.response.ApiResponse;
+import com.pengcunfu.recognition.response.CursorPageResponse;
 import com.pengcunfu.recognition.response.PageResponse;
+import com.pengcunfu.recognition.response.RateLimitResponse;
 import com.pengcunfu.recognition.response.StatsResponse;
+import com.pengcunfu.recognition.response.SystemLogResponse;
+import com.pengcunfu.recognition.service.AccessLogService;
 import com.pengcunfu.recognition.service.StatsService;
 import com.pengcunfu.recognition.service.SystemLogService;
+import com.pengcunfu.recognition.service.redis.RateLimitService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -25,6 +31,8 @@ public class AdminStatsController {
 
     private final StatsService statsService;
     private final SystemLogService systemLogService;
+    private final RateLimitService rateLimitService;
+    private final AccessLogService accessLogService;
 
     /**
      * 获取系统概览
@@ -76,6 +84,26 @@ public class AdminStatsController {
         return ApiResponse.success(response);
     }
 
+    /**
+     * 获取系统日志（游标分页）
+     */
+    @GetMapping("/logs/scroll")
+    public ApiResponse<CursorPageResponse<StatsResponse.SystemLogInfo>> scrollSystemLogs(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10") Integer size,
+            @RequestParam(value = "module", required = false) String module,
+            @RequestParam(value = "userId", required = false) Long userId,
+            @RequestParam(value = "startTime", required = false) 
+            @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @RequestParam(value = "endTime", required = false) 
+            @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime,
+            @RequestParam(value = "withTotal", defaultValue = "false") Boolean withTotal) {
+        log.info("游标获取系统日志: cursor={}, size={}, module={}", cursor, size, module);
+        CursorPageResponse<StatsResponse.SystemLogInfo> response = 
+            systemLogService.scrollLogs(cursor, size, module, userId, startTime, endTime, withTotal);
+        return ApiResponse.success(response);
+    }
+
     /**
      * 获取用户角色分布统计
      */
@@ -115,5 +143,31 @@ public class AdminStatsController {
         StatsResponse.DailyRecognitionStats stats = statsService.getDailyRecognitionStats();
         return ApiResponse.success(stats);
     }
-}
 
+    /**
+     * 获取限流统计（本地命中率、续租频率与检查耗时）
+     */
+    @GetMapping("/rate-limit")
+    public ApiResponse<RateLimitResponse.LimiterStats> getRateLimitStats() {
+        log.info("获取限流统计");
+        return ApiResponse.success(rateLimitService.getStats());
+    }
+
+    /**
+     * 获取访问日志统计（队列积压、已写出与丢弃条数）
+     */
+    @GetMapping("/access-log")
+    public ApiResponse<AccessLogResponse.WriterStats> getAccessLogStats() {
+        log.info("获取访问日志统计");
+        return ApiResponse.success(accessLogService.getStats());
+    }
+
+    /**
+     * 获取系统日志写入统计（队列积压、已写入、丢弃与失败条数）
+     */
+    @GetMapping("/system-log")
+    public ApiResponse<SystemLogResponse.WriterStats> getSystemLogStats() {
+        log.info("获取系统日志写入统计");
+        return ApiResponse.success(systemLogService.getStats());
+    }
+}
@@ -0,0 +1,66 @@
+package com.pengcunfu.recognition.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 上传文件清单表
+ * 记录本地上传目录中的文件，上传、删除时同步更新，对账任务可从磁盘重建
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = false)
+@TableName("file_manifest")
+public class FileManifest {
+
+    /**
+     * 文件ID(主键)
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 相对上传目录的路径
+     */
+    private String path;
+
+    /**
+     * 文件名
+     */
+    private String name;
+
+    /**
+     * 文件类型(上传目录的第一级目录,例如 images、avatars)
+     */
+    private String type;
+
+    /**
+     * 文件大小(字节)
+     */
+    private Long size;
+
+    /**
+     * 文件修改时间
+     */
+    private LocalDateTime modifiedAt;
+
+    /**
+     * 内容哈希(SHA-256,上传时计算)
+     */
+    private String contentHash;
+
+    /**
+     * 最近一次对账时间
+     */
+    private LocalDateTime checkedAt;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,40 @@
+package com.pengcunfu.recognition.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 上传文件统计表
+ * 按文件类型记录数量和总大小，随上传、删除增量更新
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = false)
+@TableName("file_manifest_stats")
+public class FileManifestStats {
+
+    /**
+     * 文件类型(主键)
+     */
+    @TableId(type = IdType.INPUT)
+    private String type;
+
+    /**
+     * 文件数量
+     */
+    private Long fileCount;
+
+    /**
+     * 文件总大小(字节)
+     */
+    private Long totalSize;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+}
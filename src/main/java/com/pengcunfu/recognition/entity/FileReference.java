@@ -0,0 +1,46 @@
+package com.pengcunfu.recognition.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文件引用表
+ * 记录上传文件被哪些数据引用，用于使用情况检查和孤立文件清理
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = false)
+@TableName("file_references")
+public class FileReference {
+
+    /**
+     * 引用ID(主键)
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 文件标识(去除域名和查询参数的文件URL)
+     */
+    private String fileKey;
+
+    /**
+     * 引用方类型: 0-USER_AVATAR用户头像, 1-POST社区帖子, 2-KNOWLEDGE知识库, 3-RECOGNITION识别记录
+     */
+    private Integer ownerType;
+
+    /**
+     * 引用方ID
+     */
+    private Long ownerId;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,66 @@
+package com.pengcunfu.recognition.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 派生图片表
+ * 记录上传图片生成的固定宽度缩略图
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = false)
+@TableName("image_variants")
+public class ImageVariant {
+
+    /**
+     * 派生图片ID(主键)
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 原图地址哈希(SHA-256,不含查询参数)
+     */
+    private String sourceHash;
+
+    /**
+     * 原图URL
+     */
+    private String sourceUrl;
+
+    /**
+     * 派生规格,例如 w320
+     */
+    private String variant;
+
+    /**
+     * 宽度(像素)
+     */
+    private Integer width;
+
+    /**
+     * 高度(像素)
+     */
+    private Integer height;
+
+    /**
+     * 文件大小(字节)
+     */
+    private Integer fileSize;
+
+    /**
+     * 派生图片URL
+     */
+    private String url;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+}
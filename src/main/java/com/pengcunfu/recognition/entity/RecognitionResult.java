@@ -34,6 +34,11 @@ public class RecognitionResult {
      */
     private String imageUrl;
 
+    /**
+     * 原图URL(imageUrl 为预处理后的识别用图片时)
+     */
+    private String originalImageUrl;
+
     /**
      * 图片名称
      */
@@ -104,6 +109,16 @@ public class RecognitionResult {
      */
     private String errorMessage;
 
+    /**
+     * 图片内容哈希(SHA-256)
+     */
+    private String imageHash;
+
+    /**
+     * 是否命中识别结果缓存: 0-否, 1-是
+     */
+    private Integer isCached;
+
     /**
      * 创建时间
      */
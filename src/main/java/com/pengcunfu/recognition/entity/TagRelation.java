@@ -0,0 +1,45 @@
+package com.pengcunfu.recognition.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 标签关联表
+ * 主键为 (关联方类型, 关联方ID, 标签ID)，另有 (标签ID, 关联方类型, 关联方ID) 索引用于按标签筛选
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = false)
+@TableName("tag_relations")
+public class TagRelation {
+
+    /**
+     * 关联方类型: 0-POST社区帖子, 1-KNOWLEDGE知识库, 2-RECOGNITION识别记录
+     */
+    private Integer ownerType;
+
+    /**
+     * 关联方ID
+     */
+    private Long ownerId;
+
+    /**
+     * 标签ID
+     */
+    private Long tagId;
+
+    /**
+     * 是否计入标签计数: 0-否, 1-是（未发布的帖子不计入）
+     */
+    private Integer counted;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,41 @@
+package com.pengcunfu.recognition.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 浏览量刷新批次表
+ * 与浏览量更新在同一事务中写入，重启后重放未确认的批次时据此跳过已写入的批次
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = false)
+@TableName("view_count_flushes")
+public class ViewCountFlush {
+
+    /**
+     * 批次ID(主键)
+     */
+    @TableId(type = IdType.INPUT)
+    private String flushId;
+
+    /**
+     * 目标类型: 0-POST帖子, 2-KNOWLEDGE知识
+     */
+    private Integer targetType;
+
+    /**
+     * 批次包含的目标数
+     */
+    private Integer itemCount;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,61 @@
+package com.pengcunfu.recognition.enums;
+
+import lombok.Getter;
+
+/**
+ * 文件引用方类型枚举
+ * 用于记录上传文件被哪类数据引用
+ */
+@Getter
+public enum FileOwnerType {
+
+    /**
+     * 用户头像
+     */
+    USER_AVATAR(0, "用户头像"),
+
+    /**
+     * 社区帖子
+     */
+    POST(1, "社区帖子"),
+
+    /**
+     * 知识库
+     */
+    KNOWLEDGE(2, "知识库"),
+
+    /**
+     * 识别记录
+     */
+    RECOGNITION(3, "识别记录");
+
+    private final Integer code;
+    private final String description;
+
+    FileOwnerType(Integer code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    /**
+     * 获取值（用于数据库存储）
+     */
+    public Integer getValue() {
+        return this.code;
+    }
+
+    /**
+     * 根据code获取枚举
+     */
+    public static FileOwnerType fromCode(Integer code) {
+        if (code == null) {
+            return null;
+        }
+        for (FileOwnerType type : values()) {
+            if (type.code.equals(code)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Invalid file owner type code: " + code);
+    }
+}
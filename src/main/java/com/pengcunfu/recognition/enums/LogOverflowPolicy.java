@@ -0,0 +1,55 @@
+package com.pengcunfu.recognition.enums;
+
+import lombok.Getter;
+
+/**
+ * 日志队列溢出策略枚举
+ */
+@Getter
+public enum LogOverflowPolicy {
+
+    /**
+     * 丢弃：队列写满时直接丢弃新日志
+     */
+    DROP(0, "丢弃"),
+
+    /**
+     * 采样：队列积压超过高水位后按比例保留新日志，写满时丢弃
+     */
+    SAMPLE(1, "采样"),
+
+    /**
+     * 阻塞：队列写满时调用线程最多等待一段时间，超时后丢弃
+     */
+    BLOCK(2, "阻塞");
+
+    private final Integer code;
+    private final String description;
+
+    LogOverflowPolicy(Integer code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    /**
+     * 获取值
+     */
+    public Integer getValue() {
+        return this.code;
+    }
+
+    /**
+     * 根据code获取枚举
+     */
+    public static LogOverflowPolicy fromCode(Integer code) {
+        if (code == null) {
+            return null;
+        }
+        for (LogOverflowPolicy policy : values()) {
+            if (policy.code.equals(code)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Invalid log overflow policy code: " + code);
+    }
+}
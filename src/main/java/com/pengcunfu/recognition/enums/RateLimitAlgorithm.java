@@ -0,0 +1,55 @@
+package com.pengcunfu.recognition.enums;
+
+import lombok.Getter;
+
+/**
+ * 限流算法枚举
+ */
+@Getter
+public enum RateLimitAlgorithm {
+
+    /**
+     * 固定窗口：窗口内计数，窗口边界处可能出现两倍突发
+     */
+    FIXED_WINDOW(0, "固定窗口"),
+
+    /**
+     * 滑动日志：记录窗口内每次放行的时间，任意窗口内都不超过限制
+     */
+    SLIDING_WINDOW(1, "滑动窗口"),
+
+    /**
+     * 令牌桶：允许容量内的突发，之后按窗口匀速放行
+     */
+    TOKEN_BUCKET(2, "令牌桶");
+
+    private final Integer code;
+    private final String description;
+
+    RateLimitAlgorithm(Integer code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    /**
+     * 获取值
+     */
+    public Integer getValue() {
+        return this.code;
+    }
+
+    /**
+     * 根据code获取枚举
+     */
+    public static RateLimitAlgorithm fromCode(Integer code) {
+        if (code == null) {
+            return null;
+        }
+        for (RateLimitAlgorithm algorithm : values()) {
+            if (algorithm.code.equals(code)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Invalid rate limit algorithm code: " + code);
+    }
+}
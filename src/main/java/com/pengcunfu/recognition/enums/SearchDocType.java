@@ -0,0 +1,50 @@
+package com.pengcunfu.recognition.enums;
+
+import lombok.Getter;
+
+/**
+ * 全文检索文档类型枚举
+ */
+@Getter
+public enum SearchDocType {
+
+    /**
+     * 社区帖子
+     */
+    POST(0, "社区帖子"),
+
+    /**
+     * 知识库
+     */
+    KNOWLEDGE(1, "知识库");
+
+    private final Integer code;
+    private final String description;
+
+    SearchDocType(Integer code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    /**
+     * 获取值（用于索引存储）
+     */
+    public Integer getValue() {
+        return this.code;
+    }
+
+    /**
+     * 根据code获取枚举
+     */
+    public static SearchDocType fromCode(Integer code) {
+        if (code == null) {
+            return null;
+        }
+        for (SearchDocType type : values()) {
+            if (type.code.equals(code)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Invalid search doc type code: " + code);
+    }
+}
@@ -0,0 +1,56 @@
+package com.pengcunfu.recognition.enums;
+
+import lombok.Getter;
+
+/**
+ * 标签关联方类型枚举
+ * 用于记录标签被哪类数据使用
+ */
+@Getter
+public enum TagOwnerType {
+
+    /**
+     * 社区帖子
+     */
+    POST(0, "社区帖子"),
+
+    /**
+     * 知识库
+     */
+    KNOWLEDGE(1, "知识库"),
+
+    /**
+     * 识别记录
+     */
+    RECOGNITION(2, "识别记录");
+
+    private final Integer code;
+    private final String description;
+
+    TagOwnerType(Integer code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    /**
+     * 获取值（用于数据库存储）
+     */
+    public Integer getValue() {
+        return this.code;
+    }
+
+    /**
+     * 根据code获取枚举
+     */
+    public static TagOwnerType fromCode(Integer code) {
+        if (code == null) {
+            return null;
+        }
+        for (TagOwnerType type : values()) {
+            if (type.code.equals(code)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Invalid tag owner type code: " + code);
+    }
+}
@@ -0,0 +1,191 @@
+package com.pengcunfu.recognition.filter;
+
+import com.pengcunfu.recognition.config.AccessLogConfig;
+import com.pengcunfu.recognition.security.SecurityContextHolder;
+import com.pengcunfu.recognition.service.AccessLogService;
+import com.pengcunfu.recognition.util.IpUtil;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 访问日志过滤器
+ * 位于过滤器链最外层，记录方法、URI、用户、状态码、耗时和请求/响应字节数；
+ * 只有命中采样策略的文本请求才保留截断后的请求体和响应体，multipart 和流式响应从不记录内容；
+ * 请求结束时清除当前线程的用户上下文
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private final AccessLogConfig accessLogConfig;
+    private final AccessLogService accessLogService;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // 关闭访问日志时仍需经过本过滤器清除用户上下文
+        if (!accessLogConfig.isEnabled()) {
+            return false;
+        }
+        String path = request.getRequestURI();
+        for (String pattern : accessLogConfig.getExcludePatterns()) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!accessLogConfig.isEnabled()) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                SecurityContextHolder.clear();
+            }
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        long timestamp = System.currentTimeMillis();
+        int bodyLimit = sampleBodyLimit(request);
+        HttpServletRequest requestToUse = bodyLimit > 0 && isTextual(request.getContentType())
+                ? new ContentCachingRequestWrapper(request, bodyLimit)
+                : request;
+        AccessLogResponseWrapper responseToUse = new AccessLogResponseWrapper(response, bodyLimit);
+
+        String error = null;
+        try {
+            filterChain.doFilter(requestToUse, responseToUse);
+        } catch (IOException | ServletException | RuntimeException e) {
+            error = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Long userId = SecurityContextHolder.getCurrentUserId();
+            SecurityContextHolder.clear();
+
+            if (requestToUse.isAsyncStarted()) {
+                // 流式响应在异步完成时记录，耗时和字节数覆盖整个推送过程
+                requestToUse.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        submit(requestToUse, responseToUse, timestamp, startNanos, userId, true, null);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        submit(requestToUse, responseToUse, timestamp, startNanos, userId, true, "AsyncTimeout");
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        Throwable throwable = event.getThrowable();
+                        submit(requestToUse, responseToUse, timestamp, startNanos, userId, true,
+                                throwable != null ? throwable.getClass().getSimpleName() : "AsyncError");
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                responseToUse.flushWriter();
+                submit(requestToUse, responseToUse, timestamp, startNanos, userId, false, error);
+            }
+        }
+    }
+
+    private void submit(HttpServletRequest request, AccessLogResponseWrapper response,
+                        long timestamp, long startNanos, Long userId, boolean async, String error) {
+        try {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            accessLogService.submit(AccessLogService.AccessLogEvent.builder()
+                    .timestamp(timestamp)
+                    .method(request.getMethod())
+                    .uri(request.getRequestURI())
+                    .pattern(pattern != null ? pattern.toString() : null)
+                    .status(error != null && response.getStatus() < 400 ? 500 : response.getStatus())
+                    .latencyMicros((System.nanoTime() - startNanos) / 1000)
+                    .userId(userId)
+                    .ip(IpUtil.getClientIp(request))
+                    .requestBytes(Math.max(0, request.getContentLengthLong()))
+                    .responseBytes(response.getBytesWritten())
+                    .async(async)
+                    .error(error)
+                    .requestBody(requestBody(request))
+                    .responseBody(isTextual(response.getContentType()) ? response.getCapturedBody() : null)
+                    .build());
+        } catch (Exception e) {
+            log.warn("记录访问日志失败: uri={}, error={}", request.getRequestURI(), e.getMessage());
+        }
+    }
+
+    /**
+     * 按路径匹配采样策略，返回本次请求保留的请求体/响应体字节数，未采样返回 0
+     */
+    private int sampleBodyLimit(HttpServletRequest request) {
+        if (accessLogConfig.getBodyPolicies().isEmpty()) {
+            return 0;
+        }
+        String path = request.getRequestURI();
+        for (AccessLogConfig.BodyPolicy policy : accessLogConfig.getBodyPolicies()) {
+            if (policy.getPattern() != null && pathMatcher.match(policy.getPattern(), path)) {
+                return ThreadLocalRandom.current().nextDouble() < policy.getSampleRate()
+                        ? Math.max(0, policy.getMaxBodyBytes())
+                        : 0;
+            }
+        }
+        return 0;
+    }
+
+    private String requestBody(HttpServletRequest request) {
+        if (!(request instanceof ContentCachingRequestWrapper)) {
+            return null;
+        }
+        ContentCachingRequestWrapper wrapper = (ContentCachingRequestWrapper) request;
+        byte[] content = wrapper.getContentAsByteArray();
+        if (content.length == 0) {
+            return null;
+        }
+        String encoding = wrapper.getCharacterEncoding();
+        return new String(content, encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 只记录文本类内容，multipart、文件下载和 SSE 等流式内容不记录
+     */
+    private boolean isTextual(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase();
+        if (type.startsWith("multipart/") || type.startsWith("text/event-stream")) {
+            return false;
+        }
+        return type.startsWith("application/json") || type.startsWith("text/")
+                || type.startsWith("application/x-www-form-urlencoded") || type.contains("+json");
+    }
+}
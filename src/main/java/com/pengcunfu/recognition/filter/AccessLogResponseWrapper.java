@@ -0,0 +1,142 @@
+package com.pengcunfu.recognition.filter;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 访问日志响应包装
+ * 统计写出的响应字节数，采样时额外保留响应体的前若干字节；写出直接透传，不缓冲整个响应
+ */
+class AccessLogResponseWrapper extends HttpServletResponseWrapper {
+
+    private final int captureLimit;
+    private final ByteArrayOutputStream captured;
+    private long bytesWritten;
+    private CountingOutputStream outputStream;
+    private PrintWriter writer;
+
+    /**
+     * @param captureLimit 保留的响应体字节数，0 表示不保留
+     */
+    AccessLogResponseWrapper(HttpServletResponse response, int captureLimit) {
+        super(response);
+        this.captureLimit = captureLimit;
+        this.captured = captureLimit > 0 ? new ByteArrayOutputStream(Math.min(captureLimit, 1024)) : null;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new CountingOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), charset));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    /**
+     * 刷出通过 getWriter 写入但仍在编码缓冲区中的内容（容器只会刷出原始响应）
+     */
+    void flushWriter() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * 已写出的响应字节数
+     */
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * 保留的响应体（未采样时为 null）
+     */
+    String getCapturedBody() {
+        if (captured == null || captured.size() == 0) {
+            return null;
+        }
+        String encoding = getCharacterEncoding();
+        return captured.toString(encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8);
+    }
+
+    private void capture(byte[] bytes, int offset, int length) {
+        if (captured != null && captured.size() < captureLimit) {
+            captured.write(bytes, offset, Math.min(length, captureLimit - captured.size()));
+        }
+    }
+
+    /**
+     * 计数输出流
+     */
+    private class CountingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        CountingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            bytesWritten++;
+            if (captured != null && captured.size() < captureLimit) {
+                captured.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            delegate.write(bytes, offset, length);
+            bytesWritten += length;
+            capture(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
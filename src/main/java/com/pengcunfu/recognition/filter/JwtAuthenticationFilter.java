@@ -3,6 +3,7 @@ package com.pengcunfu.recognition.filter;
 import com.pengcunfu.recognition.constant.JwtConstants;
 import com.pengcunfu.recognition.security.UserPrincipal;
 import com.pengcunfu.recognition.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -35,11 +36,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // 从请求头中获取Token
             String token = extractTokenFromRequest(request);
             
-            if (token != null && jwtUtil.validateToken(token)) {
-                // 从Token中获取用户信息
-                Long userId = jwtUtil.getUserIdFromToken(token);
-                String username = jwtUtil.getUsernameFromToken(token);
-                Integer role = jwtUtil.getRoleFromToken(token);
+            // 只验证一次Token，用户信息都从同一份Claims中读取
+            Claims claims = token != null ? jwtUtil.getClaimsFromToken(token) : null;
+            if (claims != null) {
+                Long userId = jwtUtil.getUserId(claims);
+                String username = claims.getSubject();
+                Integer role = jwtUtil.getRole(claims);
 
                 if (userId != null && username != null) {
                     // 创建用户主体
@@ -8,6 +8,9 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * 评论Repository
  */
@@ -30,6 +33,44 @@ public interface CommentRepository extends BaseMapper<Comment> {
             @Param("status") Integer status
     );
 
+    /**
+     * 游标查询评论列表（一级评论），从游标之后开始取
+     */
+    @Select("""
+            <script>
+            SELECT * FROM comments
+            WHERE target_type = #{targetType} AND target_id = #{targetId}
+            AND status = #{status} AND parent_id IS NULL
+            <if test="cursorTime != null and cursorId != null">
+                AND (created_at &lt; #{cursorTime} OR (created_at = #{cursorTime} AND id &lt; #{cursorId}))
+            </if>
+            ORDER BY created_at DESC, id DESC
+            LIMIT #{limit}
+            </script>
+            """)
+    List<Comment> findCommentsByTargetAfter(
+            @Param("targetType") Integer targetType,
+            @Param("targetId") Long targetId,
+            @Param("status") Integer status,
+            @Param("cursorTime") LocalDateTime cursorTime,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit
+    );
+
+    /**
+     * 统计一级评论数量
+     */
+    @Select("""
+            SELECT COUNT(*) FROM comments
+            WHERE target_type = #{targetType} AND target_id = #{targetId}
+            AND status = #{status} AND parent_id IS NULL
+            """)
+    long countCommentsByTarget(
+            @Param("targetType") Integer targetType,
+            @Param("targetId") Long targetId,
+            @Param("status") Integer status
+    );
+
     /**
      * 分页查询回复列表
      */
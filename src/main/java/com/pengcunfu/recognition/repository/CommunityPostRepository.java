@@ -18,58 +18,138 @@ public interface CommunityPostRepository extends BaseMapper<CommunityPost> {
      * 分页查询帖子（按热度排序）
      */
     @Select("""
+            <script>
             SELECT * FROM community_posts
             WHERE status = #{status}
-            ${categoryCondition}
-            ${tagCondition}
+            <if test="category != null and category != ''">
+                AND category = #{category}
+            </if>
+            <if test="tag != null and tag != ''">
+                AND id IN (
+                    SELECT tr.owner_id FROM tag_relations tr
+                    JOIN tags t ON t.id = tr.tag_id
+                    WHERE t.name = #{tag} AND tr.owner_type = 0
+                )
+            </if>
             ORDER BY like_count DESC, view_count DESC
+            </script>
             """)
     Page<CommunityPost> findPostsByHot(
             Page<CommunityPost> page,
             @Param("status") Integer status,
-            @Param("categoryCondition") String categoryCondition,
-            @Param("tagCondition") String tagCondition
+            @Param("category") String category,
+            @Param("tag") String tag
     );
 
     /**
-     * 获取热门帖子（按访问量排序，用于热门帖子展示）
+     * 分页查询帖子（按最新排序）
      */
     @Select("""
+            <script>
             SELECT * FROM community_posts
             WHERE status = #{status}
-            ORDER BY view_count DESC, created_at DESC
-            LIMIT #{limit}
+            <if test="category != null and category != ''">
+                AND category = #{category}
+            </if>
+            <if test="tag != null and tag != ''">
+                AND id IN (
+                    SELECT tr.owner_id FROM tag_relations tr
+                    JOIN tags t ON t.id = tr.tag_id
+                    WHERE t.name = #{tag} AND tr.owner_type = 0
+                )
+            </if>
+            ORDER BY is_top DESC, created_at DESC
+            </script>
             """)
-    java.util.List<CommunityPost> findHotPostsByViews(
+    Page<CommunityPost> findPostsByLatest(
+            Page<CommunityPost> page,
             @Param("status") Integer status,
-            @Param("limit") Integer limit
+            @Param("category") String category,
+            @Param("tag") String tag
     );
 
     /**
-     * 分页查询帖子（按最新排序）
+     * 游标查询帖子（按置顶、最新排序），从游标之后开始取
      */
     @Select("""
+            <script>
             SELECT * FROM community_posts
             WHERE status = #{status}
-            ${categoryCondition}
-            ${tagCondition}
-            ORDER BY is_top DESC, created_at DESC
+            <if test="category != null and category != ''">
+                AND category = #{category}
+            </if>
+            <if test="tag != null and tag != ''">
+                AND id IN (
+                    SELECT tr.owner_id FROM tag_relations tr
+                    JOIN tags t ON t.id = tr.tag_id
+                    WHERE t.name = #{tag} AND tr.owner_type = 0
+                )
+            </if>
+            <if test="cursorTop != null and cursorTime != null and cursorId != null">
+                AND (is_top &lt; #{cursorTop}
+                     OR (is_top = #{cursorTop} AND (created_at &lt; #{cursorTime}
+                         OR (created_at = #{cursorTime} AND id &lt; #{cursorId}))))
+            </if>
+            ORDER BY is_top DESC, created_at DESC, id DESC
+            LIMIT #{limit}
+            </script>
             """)
-    Page<CommunityPost> findPostsByLatest(
-            Page<CommunityPost> page,
+    java.util.List<CommunityPost> findLatestAfter(
             @Param("status") Integer status,
-            @Param("categoryCondition") String categoryCondition,
-            @Param("tagCondition") String tagCondition
+            @Param("category") String category,
+            @Param("tag") String tag,
+            @Param("cursorTop") Integer cursorTop,
+            @Param("cursorTime") LocalDateTime cursorTime,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit
     );
 
     /**
-     * 增加浏览数
+     * 统计帖子数量（按分类、标签）
+     */
+    @Select("""
+            <script>
+            SELECT COUNT(*) FROM community_posts
+            WHERE status = #{status}
+            <if test="category != null and category != ''">
+                AND category = #{category}
+            </if>
+            <if test="tag != null and tag != ''">
+                AND id IN (
+                    SELECT tr.owner_id FROM tag_relations tr
+                    JOIN tags t ON t.id = tr.tag_id
+                    WHERE t.name = #{tag} AND tr.owner_type = 0
+                )
+            </if>
+            </script>
+            """)
+    long countByCategoryAndTag(
+            @Param("status") Integer status,
+            @Param("category") String category,
+            @Param("tag") String tag
+    );
+
+    /**
+     * 批量累加浏览数（不修改更新时间）
+     *
+     * @param deltas ID -> 浏览量增量
      */
     @Update("""
-            UPDATE community_posts SET view_count = view_count + 1
-            WHERE id = #{postId}
+            <script>
+            UPDATE community_posts
+            SET view_count = view_count + CASE id
+            <foreach collection="deltas" index="id" item="delta" separator=" ">
+                WHEN #{id} THEN #{delta}
+            </foreach>
+            ELSE 0 END,
+            updated_at = updated_at
+            WHERE id IN
+            <foreach collection="deltas" index="id" open="(" separator="," close=")">
+                #{id}
+            </foreach>
+            </script>
             """)
-    int incrementViewCount(@Param("postId") Long postId);
+    int addViewCounts(@Param("deltas") java.util.Map<Long, Long> deltas);
 
     /**
      * 增加点赞数
@@ -182,19 +262,6 @@ public interface CommunityPostRepository extends BaseMapper<CommunityPost> {
             """)
     java.util.List<com.pengcunfu.recognition.response.CommunityResponse.CategoryInfo> getCategories(@Param("status") Integer status);
 
-    /**
-     * 获取所有标签(需要在Java层面处理,因为tags是逗号分隔的字符串)
-     * 这里先查询所有已发布帖子的tags字段
-     */
-    @Select("""
-            SELECT tags
-            FROM community_posts
-            WHERE status = #{status}
-            AND tags IS NOT NULL
-            AND tags != ''
-            """)
-    java.util.List<String> getAllTags(@Param("status") Integer status);
-
     /**
      * 分页查询指定用户发布的帖子(按创建时间倒序)
      */
@@ -224,5 +291,20 @@ public interface CommunityPostRepository extends BaseMapper<CommunityPost> {
             @Param("excludeId") Long excludeId,
             @Param("status") Integer status
     );
-}
 
+    /**
+     * 查询指定时间之后发布的帖子（启动时回填热门排行）
+     */
+    @Select("""
+            SELECT id, view_count, like_count, comment_count, collect_count, created_at FROM community_posts
+            WHERE status = #{status}
+            AND created_at >= #{since}
+            ORDER BY created_at DESC
+            LIMIT #{limit}
+            """)
+    java.util.List<CommunityPost> findHotCandidates(
+            @Param("status") Integer status,
+            @Param("since") LocalDateTime since,
+            @Param("limit") int limit
+    );
+}
@@ -0,0 +1,109 @@
+package com.pengcunfu.recognition.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.pengcunfu.recognition.entity.FileManifest;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 上传文件清单Repository
+ */
+@Mapper
+public interface FileManifestRepository extends BaseMapper<FileManifest> {
+
+    /**
+     * 根据路径查询
+     */
+    @Select("SELECT * FROM file_manifest WHERE path = #{path}")
+    FileManifest findByPath(@Param("path") String path);
+
+    /**
+     * 查询同类型中内容哈希相同的最早一个文件
+     */
+    @Select("SELECT * FROM file_manifest WHERE content_hash = #{contentHash} AND type = #{type} ORDER BY id LIMIT 1")
+    FileManifest findByContentHash(@Param("type") String type, @Param("contentHash") String contentHash);
+
+    /**
+     * 分页查询文件（按修改时间倒序，关键字按文件名前缀匹配）
+     */
+    @Select("""
+            <script>
+            SELECT * FROM file_manifest
+            WHERE 1=1
+            <if test="type != null and type != ''">
+                AND type = #{type}
+            </if>
+            <if test="keyword != null and keyword != ''">
+                AND name LIKE CONCAT(#{keyword}, '%')
+            </if>
+            ORDER BY modified_at DESC, id DESC
+            </script>
+            """)
+    Page<FileManifest> findPage(
+            Page<FileManifest> page,
+            @Param("type") String type,
+            @Param("keyword") String keyword
+    );
+
+    /**
+     * 游标分页查询文件，返回位于游标 (modifiedAt, id) 之后的记录
+     */
+    @Select("""
+            <script>
+            SELECT * FROM file_manifest
+            WHERE 1=1
+            <if test="type != null and type != ''">
+                AND type = #{type}
+            </if>
+            <if test="keyword != null and keyword != ''">
+                AND name LIKE CONCAT(#{keyword}, '%')
+            </if>
+            <if test="cursorTime != null and cursorId != null">
+                AND (modified_at &lt; #{cursorTime} OR (modified_at = #{cursorTime} AND id &lt; #{cursorId}))
+            </if>
+            ORDER BY modified_at DESC, id DESC
+            LIMIT #{limit}
+            </script>
+            """)
+    List<FileManifest> findAfter(
+            @Param("type") String type,
+            @Param("keyword") String keyword,
+            @Param("cursorTime") LocalDateTime cursorTime,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit
+    );
+
+    /**
+     * 批量写入对账结果，已存在的路径更新大小、修改时间和对账时间
+     */
+    @Insert("""
+            <script>
+            INSERT INTO file_manifest (path, name, type, size, modified_at, checked_at)
+            VALUES
+            <foreach collection="files" item="file" separator=",">
+                (#{file.path}, #{file.name}, #{file.type}, #{file.size}, #{file.modifiedAt}, #{checkedAt})
+            </foreach>
+            ON DUPLICATE KEY UPDATE
+                size = VALUES(size),
+                modified_at = VALUES(modified_at),
+                checked_at = VALUES(checked_at)
+            </script>
+            """)
+    int upsertBatch(@Param("files") List<FileManifest> files, @Param("checkedAt") LocalDateTime checkedAt);
+
+    /**
+     * 删除对账时未在磁盘上找到的记录
+     */
+    @Delete("""
+            DELETE FROM file_manifest
+            WHERE checked_at IS NULL OR checked_at < #{checkedAt}
+            """)
+    int deleteUncheckedBefore(@Param("checkedAt") LocalDateTime checkedAt);
+}
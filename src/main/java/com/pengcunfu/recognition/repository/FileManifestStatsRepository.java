@@ -0,0 +1,50 @@
+package com.pengcunfu.recognition.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.pengcunfu.recognition.entity.FileManifestStats;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 上传文件统计Repository
+ */
+@Mapper
+public interface FileManifestStatsRepository extends BaseMapper<FileManifestStats> {
+
+    /**
+     * 增量更新统计（数量、大小可为负数）
+     */
+    @Insert("""
+            INSERT INTO file_manifest_stats (type, file_count, total_size)
+            VALUES (#{type}, #{count}, #{size})
+            ON DUPLICATE KEY UPDATE
+                file_count = GREATEST(file_count + VALUES(file_count), 0),
+                total_size = GREATEST(total_size + VALUES(total_size), 0)
+            """)
+    int increase(@Param("type") String type, @Param("count") long count, @Param("size") long size);
+
+    /**
+     * 按清单重算各类型的统计（单条语句写入，不会出现统计被清空的中间状态）
+     */
+    @Insert("""
+            INSERT INTO file_manifest_stats (type, file_count, total_size)
+            SELECT type, COUNT(*), COALESCE(SUM(size), 0)
+            FROM file_manifest
+            GROUP BY type
+            ON DUPLICATE KEY UPDATE
+                file_count = VALUES(file_count),
+                total_size = VALUES(total_size)
+            """)
+    int replaceFromManifest();
+
+    /**
+     * 删除清单中已没有文件的类型
+     */
+    @Delete("""
+            DELETE FROM file_manifest_stats
+            WHERE type NOT IN (SELECT type FROM (SELECT DISTINCT type FROM file_manifest) AS types)
+            """)
+    int deleteMissingTypes();
+}
@@ -0,0 +1,114 @@
+package com.pengcunfu.recognition.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.pengcunfu.recognition.entity.FileReference;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文件引用Repository
+ */
+@Mapper
+public interface FileReferenceRepository extends BaseMapper<FileReference> {
+
+    /**
+     * 批量写入引用（已存在的忽略）
+     */
+    @Insert("""
+            <script>
+            INSERT IGNORE INTO file_references (file_key, owner_type, owner_id)
+            VALUES
+            <foreach collection="fileKeys" item="fileKey" separator=",">
+                (#{fileKey}, #{ownerType}, #{ownerId})
+            </foreach>
+            </script>
+            """)
+    int insertIgnore(
+            @Param("ownerType") Integer ownerType,
+            @Param("ownerId") Long ownerId,
+            @Param("fileKeys") Collection<String> fileKeys
+    );
+
+    /**
+     * 删除引用方的全部引用
+     */
+    @Delete("DELETE FROM file_references WHERE owner_type = #{ownerType} AND owner_id = #{ownerId}")
+    int deleteByOwner(@Param("ownerType") Integer ownerType, @Param("ownerId") Long ownerId);
+
+    /**
+     * 批量统计文件被各类引用方引用的次数
+     */
+    @Select("""
+            <script>
+            SELECT file_key AS fileKey, owner_type AS ownerType, COUNT(*) AS refCount
+            FROM file_references
+            WHERE file_key IN
+            <foreach collection="fileKeys" item="fileKey" open="(" separator="," close=")">
+                #{fileKey}
+            </foreach>
+            GROUP BY file_key, owner_type
+            </script>
+            """)
+    List<Map<String, Object>> countByFileKeys(@Param("fileKeys") Collection<String> fileKeys);
+
+    /**
+     * 批量查询存在引用的文件
+     */
+    @Select("""
+            <script>
+            SELECT DISTINCT file_key FROM file_references
+            WHERE file_key IN
+            <foreach collection="fileKeys" item="fileKey" open="(" separator="," close=")">
+                #{fileKey}
+            </foreach>
+            </script>
+            """)
+    List<String> findReferencedKeys(@Param("fileKeys") Collection<String> fileKeys);
+
+    /**
+     * 删除引用方已不存在（或已逻辑删除）的用户头像引用
+     */
+    @Delete("""
+            DELETE r FROM file_references r
+            LEFT JOIN users u ON r.owner_id = u.id
+            WHERE r.owner_type = 0 AND (u.id IS NULL OR u.deleted = 1)
+            """)
+    int deleteDanglingAvatarReferences();
+
+    /**
+     * 删除引用方已不存在的帖子引用
+     */
+    @Delete("""
+            DELETE r FROM file_references r
+            LEFT JOIN community_posts p ON r.owner_id = p.id
+            WHERE r.owner_type = 1 AND p.id IS NULL
+            """)
+    int deleteDanglingPostReferences();
+
+    /**
+     * 删除引用方已不存在的知识库引用
+     */
+    @Delete("""
+            DELETE r FROM file_references r
+            LEFT JOIN knowledge k ON r.owner_id = k.id
+            WHERE r.owner_type = 2 AND k.id IS NULL
+            """)
+    int deleteDanglingKnowledgeReferences();
+
+    /**
+     * 删除引用方已不存在的识别记录引用
+     */
+    @Delete("""
+            DELETE r FROM file_references r
+            LEFT JOIN recognition_results rr ON r.owner_id = rr.id
+            WHERE r.owner_type = 3 AND rr.id IS NULL
+            """)
+    int deleteDanglingRecognitionReferences();
+}
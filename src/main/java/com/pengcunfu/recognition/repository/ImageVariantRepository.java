@@ -0,0 +1,38 @@
+package com.pengcunfu.recognition.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.pengcunfu.recognition.entity.ImageVariant;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 派生图片Repository
+ */
+@Mapper
+public interface ImageVariantRepository extends BaseMapper<ImageVariant> {
+
+    /**
+     * 批量查询多张原图的全部派生图片
+     */
+    @Select("""
+            <script>
+            SELECT * FROM image_variants
+            WHERE source_hash IN
+            <foreach collection="sourceHashes" item="hash" open="(" separator="," close=")">
+                #{hash}
+            </foreach>
+            ORDER BY source_hash, width
+            </script>
+            """)
+    List<ImageVariant> findBySourceHashes(@Param("sourceHashes") Collection<String> sourceHashes);
+
+    /**
+     * 查询原图的全部派生图片
+     */
+    @Select("SELECT * FROM image_variants WHERE source_hash = #{sourceHash} ORDER BY width")
+    List<ImageVariant> findBySourceHash(@Param("sourceHash") String sourceHash);
+}
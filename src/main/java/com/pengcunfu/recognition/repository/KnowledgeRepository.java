@@ -6,6 +6,9 @@ import com.pengcunfu.recognition.entity.Knowledge;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
 
 /**
  * 知识Repository
@@ -33,7 +36,11 @@ public interface KnowledgeRepository extends BaseMapper<Knowledge> {
                 AND category = #{category}
             </if>
             <if test="tag != null and tag != ''">
-                AND tags LIKE CONCAT('%', #{tag}, '%')
+                AND id IN (
+                    SELECT tr.owner_id FROM tag_relations tr
+                    JOIN tags t ON t.id = tr.tag_id
+                    WHERE t.name = #{tag} AND tr.owner_type = 1
+                )
             </if>
             <if test="keyword != null and keyword != ''">
                 AND (title LIKE CONCAT('%', #{keyword}, '%') OR content LIKE CONCAT('%', #{keyword}, '%'))
@@ -56,9 +63,40 @@ public interface KnowledgeRepository extends BaseMapper<Knowledge> {
     java.util.List<String> findAllCategories();
 
     /**
-     * 获取所有标签（需要在代码中进一步处理）
+     * 批量累加浏览数（不修改更新时间）
+     *
+     * @param deltas ID -> 浏览量增量
      */
-    @Select("SELECT DISTINCT tags FROM knowledge WHERE tags IS NOT NULL AND tags != ''")
-    java.util.List<String> findAllTagsRaw();
-}
+    @Update("""
+            <script>
+            UPDATE knowledge
+            SET view_count = view_count + CASE id
+            <foreach collection="deltas" index="id" item="delta" separator=" ">
+                WHEN #{id} THEN #{delta}
+            </foreach>
+            ELSE 0 END,
+            updated_at = updated_at
+            WHERE id IN
+            <foreach collection="deltas" index="id" open="(" separator="," close=")">
+                #{id}
+            </foreach>
+            </script>
+            """)
+    int addViewCounts(@Param("deltas") java.util.Map<Long, Long> deltas);
 
+    /**
+     * 查询指定时间之后发布的知识（启动时回填热门排行）
+     */
+    @Select("""
+            SELECT id, view_count, like_count, comment_count, collect_count, created_at FROM knowledge
+            WHERE status = #{status}
+            AND created_at >= #{since}
+            ORDER BY created_at DESC
+            LIMIT #{limit}
+            """)
+    java.util.List<Knowledge> findHotCandidates(
+            @Param("status") Integer status,
+            @Param("since") LocalDateTime since,
+            @Param("limit") int limit
+    );
+}
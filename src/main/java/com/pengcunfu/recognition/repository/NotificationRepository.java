@@ -8,6 +8,9 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * 通知Repository
  */
@@ -39,6 +42,45 @@ public interface NotificationRepository extends BaseMapper<Notification> {
             @Param("isRead") Integer isRead
     );
 
+    /**
+     * 游标查询用户通知，从游标之后开始取
+     */
+    @Select("""
+            <script>
+            SELECT * FROM notifications
+            WHERE user_id = #{userId}
+            <if test="isRead != null">
+                AND is_read = #{isRead}
+            </if>
+            <if test="cursorTime != null and cursorId != null">
+                AND (created_at &lt; #{cursorTime} OR (created_at = #{cursorTime} AND id &lt; #{cursorId}))
+            </if>
+            ORDER BY created_at DESC, id DESC
+            LIMIT #{limit}
+            </script>
+            """)
+    List<Notification> findByUserIdAfter(
+            @Param("userId") Long userId,
+            @Param("isRead") Integer isRead,
+            @Param("cursorTime") LocalDateTime cursorTime,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit
+    );
+
+    /**
+     * 统计用户通知数量
+     */
+    @Select("""
+            <script>
+            SELECT COUNT(*) FROM notifications
+            WHERE user_id = #{userId}
+            <if test="isRead != null">
+                AND is_read = #{isRead}
+            </if>
+            </script>
+            """)
+    long countByUserId(@Param("userId") Long userId, @Param("isRead") Integer isRead);
+
     /**
      * 标记所有通知为已读
      */
@@ -26,6 +26,27 @@ public interface RecognitionResultRepository extends BaseMapper<RecognitionResul
             @Param("userId") Long userId
     );
 
+    /**
+     * 游标查询用户识别历史，从游标之后开始取
+     */
+    @Select("""
+            <script>
+            SELECT * FROM recognition_results
+            WHERE user_id = #{userId}
+            <if test="cursorTime != null and cursorId != null">
+                AND (created_at &lt; #{cursorTime} OR (created_at = #{cursorTime} AND id &lt; #{cursorId}))
+            </if>
+            ORDER BY created_at DESC, id DESC
+            LIMIT #{limit}
+            </script>
+            """)
+    java.util.List<RecognitionResult> findByUserIdAfter(
+            @Param("userId") Long userId,
+            @Param("cursorTime") LocalDateTime cursorTime,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit
+    );
+
     /**
      * 查询用户的识别记录
      */
@@ -237,25 +258,5 @@ public interface RecognitionResultRepository extends BaseMapper<RecognitionResul
      */
     @Select("SELECT COUNT(DISTINCT main_category) FROM recognition_results WHERE user_id = #{userId} AND main_category IS NOT NULL AND main_category != ''")
     Long countDistinctCategoriesByUserId(@Param("userId") Long userId);
-
-    /**
-     * 统计用户的不同标签数量
-     */
-    @Select("""
-            SELECT COUNT(DISTINCT tag_item) FROM (
-                SELECT TRIM(SUBSTRING_INDEX(SUBSTRING_INDEX(tags, ',', numbers.n), ',', -1)) as tag_item
-                FROM recognition_results
-                CROSS JOIN (
-                    SELECT 1 n UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4 UNION ALL SELECT 5
-                    UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9 UNION ALL SELECT 10
-                ) numbers
-                WHERE user_id = #{userId} 
-                AND tags IS NOT NULL 
-                AND tags != ''
-                AND CHAR_LENGTH(tags) - CHAR_LENGTH(REPLACE(tags, ',', '')) >= numbers.n - 1
-            ) tag_split
-            WHERE tag_item != ''
-            """)
-    Long countDistinctTagsByUserId(@Param("userId") Long userId);
 }
 
@@ -3,11 +3,13 @@ package com.pengcunfu.recognition.repository;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.pengcunfu.recognition.entity.SystemLog;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 系统日志Repository
@@ -44,5 +46,85 @@ public interface SystemLogRepository extends BaseMapper<SystemLog> {
             @Param("startTime") LocalDateTime startTime,
             @Param("endTime") LocalDateTime endTime
     );
-}
 
+    /**
+     * 游标查询系统日志（带条件），从游标之后开始取
+     */
+    @Select("""
+            <script>
+            SELECT * FROM system_logs
+            WHERE 1=1
+            <if test="module != null and module != ''">
+                AND module = #{module}
+            </if>
+            <if test="userId != null">
+                AND user_id = #{userId}
+            </if>
+            <if test="startTime != null">
+                AND created_at >= #{startTime}
+            </if>
+            <if test="endTime != null">
+                AND created_at &lt;= #{endTime}
+            </if>
+            <if test="cursorTime != null and cursorId != null">
+                AND (created_at &lt; #{cursorTime} OR (created_at = #{cursorTime} AND id &lt; #{cursorId}))
+            </if>
+            ORDER BY created_at DESC, id DESC
+            LIMIT #{limit}
+            </script>
+            """)
+    List<SystemLog> findLogsAfter(
+            @Param("module") String module,
+            @Param("userId") Long userId,
+            @Param("startTime") LocalDateTime startTime,
+            @Param("endTime") LocalDateTime endTime,
+            @Param("cursorTime") LocalDateTime cursorTime,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit
+    );
+
+    /**
+     * 统计系统日志数量（带条件）
+     */
+    @Select("""
+            <script>
+            SELECT COUNT(*) FROM system_logs
+            WHERE 1=1
+            <if test="module != null and module != ''">
+                AND module = #{module}
+            </if>
+            <if test="userId != null">
+                AND user_id = #{userId}
+            </if>
+            <if test="startTime != null">
+                AND created_at >= #{startTime}
+            </if>
+            <if test="endTime != null">
+                AND created_at &lt;= #{endTime}
+            </if>
+            </script>
+            """)
+    long countLogsWithConditions(
+            @Param("module") String module,
+            @Param("userId") Long userId,
+            @Param("startTime") LocalDateTime startTime,
+            @Param("endTime") LocalDateTime endTime
+    );
+
+    /**
+     * 批量写入系统日志（单条多行 INSERT）
+     */
+    @Insert("""
+            <script>
+            INSERT INTO system_logs (user_id, module, action, description, ip_address, user_agent,
+                request_url, request_method, request_params, response_time, status, error_message, created_at)
+            VALUES
+            <foreach collection="logs" item="log" separator=",">
+                (#{log.userId}, #{log.module}, #{log.action}, #{log.description}, #{log.ipAddress}, #{log.userAgent},
+                 #{log.requestUrl}, #{log.requestMethod}, #{log.requestParams}, #{log.responseTime}, #{log.status},
+                 #{log.errorMessage}, #{log.createdAt})
+            </foreach>
+            </script>
+            """)
+    int insertBatch(@Param("logs") List<SystemLog> logs);
+}
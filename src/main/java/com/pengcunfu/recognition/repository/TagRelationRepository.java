@@ -0,0 +1,113 @@
+package com.pengcunfu.recognition.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.pengcunfu.recognition.entity.TagRelation;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 标签关联Repository
+ */
+@Mapper
+public interface TagRelationRepository extends BaseMapper<TagRelation> {
+
+    /**
+     * 批量写入关联方的标签（已存在的忽略）
+     */
+    @Insert("""
+            <script>
+            INSERT IGNORE INTO tag_relations (owner_type, owner_id, tag_id, counted)
+            VALUES
+            <foreach collection="tagIds" item="tagId" separator=",">
+                (#{ownerType}, #{ownerId}, #{tagId}, #{counted})
+            </foreach>
+            </script>
+            """)
+    int insertIgnore(
+            @Param("ownerType") Integer ownerType,
+            @Param("ownerId") Long ownerId,
+            @Param("tagIds") Collection<Long> tagIds,
+            @Param("counted") Integer counted
+    );
+
+    /**
+     * 删除关联方的全部标签
+     */
+    @Delete("DELETE FROM tag_relations WHERE owner_type = #{ownerType} AND owner_id = #{ownerId}")
+    int deleteByOwner(@Param("ownerType") Integer ownerType, @Param("ownerId") Long ownerId);
+
+    /**
+     * 查询关联方的标签ID（按是否计数筛选）
+     */
+    @Select("""
+            SELECT tag_id FROM tag_relations
+            WHERE owner_type = #{ownerType} AND owner_id = #{ownerId} AND counted = #{counted}
+            FOR UPDATE
+            """)
+    List<Long> findTagIdsForUpdate(
+            @Param("ownerType") Integer ownerType,
+            @Param("ownerId") Long ownerId,
+            @Param("counted") Integer counted
+    );
+
+    /**
+     * 修改关联方标签的计数标记
+     */
+    @Update("""
+            UPDATE tag_relations SET counted = #{counted}
+            WHERE owner_type = #{ownerType} AND owner_id = #{ownerId}
+            """)
+    int updateCounted(
+            @Param("ownerType") Integer ownerType,
+            @Param("ownerId") Long ownerId,
+            @Param("counted") Integer counted
+    );
+
+    /**
+     * 统计用户识别记录使用过的不同标签数
+     */
+    @Select("""
+            SELECT COUNT(DISTINCT tr.tag_id)
+            FROM recognition_results r
+            JOIN tag_relations tr ON tr.owner_type = 2 AND tr.owner_id = r.id
+            WHERE r.user_id = #{userId}
+            """)
+    Long countDistinctRecognitionTagsByUserId(@Param("userId") Long userId);
+
+    /**
+     * 删除帖子已不存在的关联
+     */
+    @Delete("""
+            DELETE tr FROM tag_relations tr
+            LEFT JOIN community_posts p ON p.id = tr.owner_id
+            WHERE tr.owner_type = 0 AND p.id IS NULL
+            """)
+    int deleteDanglingPostRelations();
+
+    /**
+     * 删除知识已不存在的关联
+     */
+    @Delete("""
+            DELETE tr FROM tag_relations tr
+            LEFT JOIN knowledge k ON k.id = tr.owner_id
+            WHERE tr.owner_type = 1 AND k.id IS NULL
+            """)
+    int deleteDanglingKnowledgeRelations();
+
+    /**
+     * 删除识别记录已不存在的关联
+     */
+    @Delete("""
+            DELETE tr FROM tag_relations tr
+            LEFT JOIN recognition_results r ON r.id = tr.owner_id
+            WHERE tr.owner_type = 2 AND r.id IS NULL
+            """)
+    int deleteDanglingRecognitionRelations();
+}
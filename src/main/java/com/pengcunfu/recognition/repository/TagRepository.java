@@ -0,0 +1,96 @@
+package com.pengcunfu.recognition.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.pengcunfu.recognition.entity.Tag;
+import com.pengcunfu.recognition.response.TagResponse;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 标签Repository
+ * 维护标签字典和按关联方类型的标签计数
+ */
+@Mapper
+public interface TagRepository extends BaseMapper<Tag> {
+
+    /**
+     * 批量写入标签（已存在的忽略）
+     */
+    @Insert("""
+            <script>
+            INSERT IGNORE INTO tags (name)
+            VALUES
+            <foreach collection="names" item="name" separator=",">
+                (#{name})
+            </foreach>
+            </script>
+            """)
+    int insertIgnore(@Param("names") Collection<String> names);
+
+    /**
+     * 按名称批量查询标签ID
+     */
+    @Select("""
+            <script>
+            SELECT id FROM tags
+            WHERE name IN
+            <foreach collection="names" item="name" open="(" separator="," close=")">
+                #{name}
+            </foreach>
+            </script>
+            """)
+    List<Long> findIdsByNames(@Param("names") Collection<String> names);
+
+    /**
+     * 批量累加标签计数
+     *
+     * @param deltas 标签ID -> 计数增量
+     */
+    @Insert("""
+            <script>
+            INSERT INTO tag_counts (owner_type, tag_id, ref_count)
+            VALUES
+            <foreach collection="deltas" index="tagId" item="delta" separator=",">
+                (#{ownerType}, #{tagId}, #{delta})
+            </foreach>
+            ON DUPLICATE KEY UPDATE ref_count = ref_count + VALUES(ref_count)
+            </script>
+            """)
+    int addCounts(@Param("ownerType") Integer ownerType, @Param("deltas") Map<Long, Integer> deltas);
+
+    /**
+     * 查询某类关联方的标签计数（按数量降序）
+     */
+    @Select("""
+            SELECT t.name AS name, c.ref_count AS count
+            FROM tag_counts c
+            JOIN tags t ON t.id = c.tag_id
+            WHERE c.owner_type = #{ownerType} AND c.ref_count > 0
+            ORDER BY c.ref_count DESC, t.name
+            """)
+    List<TagResponse.TagCount> findCounts(@Param("ownerType") Integer ownerType);
+
+    /**
+     * 清空标签计数
+     */
+    @Delete("DELETE FROM tag_counts")
+    int deleteAllCounts();
+
+    /**
+     * 根据关联表重算标签计数
+     */
+    @Insert("""
+            INSERT INTO tag_counts (owner_type, tag_id, ref_count)
+            SELECT owner_type, tag_id, SUM(counted)
+            FROM tag_relations
+            GROUP BY owner_type, tag_id
+            """)
+    int recomputeCounts();
+}
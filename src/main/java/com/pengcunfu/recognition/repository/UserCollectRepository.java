@@ -105,5 +105,22 @@ public interface UserCollectRepository extends BaseMapper<UserCollect> {
             @Param("size") Integer size,
             @Param("offset") Integer offset
     );
-}
 
+    /**
+     * 批量查询用户已收藏的目标ID
+     */
+    @Select("""
+            <script>
+            SELECT target_id FROM user_collects
+            WHERE user_id = #{userId} AND target_type = #{targetType} AND target_id IN
+            <foreach collection="targetIds" item="targetId" open="(" separator="," close=")">
+                #{targetId}
+            </foreach>
+            </script>
+            """)
+    java.util.List<Long> findTargetIds(
+            @Param("userId") Long userId,
+            @Param("targetType") Integer targetType,
+            @Param("targetIds") java.util.Collection<Long> targetIds
+    );
+}
@@ -108,5 +108,22 @@ public interface UserLikeRepository extends BaseMapper<UserLike> {
             @Param("size") Integer size,
             @Param("offset") Integer offset
     );
-}
 
+    /**
+     * 批量查询用户已点赞的目标ID
+     */
+    @Select("""
+            <script>
+            SELECT target_id FROM user_likes
+            WHERE user_id = #{userId} AND target_type = #{targetType} AND target_id IN
+            <foreach collection="targetIds" item="targetId" open="(" separator="," close=")">
+                #{targetId}
+            </foreach>
+            </script>
+            """)
+    java.util.List<Long> findTargetIds(
+            @Param("userId") Long userId,
+            @Param("targetType") Integer targetType,
+            @Param("targetIds") java.util.Collection<Long> targetIds
+    );
+}
@@ -182,4 +182,18 @@ public interface UserRepository extends BaseMapper<User> {
             WHERE role = #{role} AND deleted = 0
             """)
     long countByRole(@Param("role") Integer role);
+
+    /**
+     * 批量查询用户摘要（只查询展示和权限校验需要的字段）
+     */
+    @Select("""
+            <script>
+            SELECT id, username, nickname, avatar, role, status, vip_expire_time FROM users
+            WHERE deleted = 0 AND id IN
+            <foreach collection="ids" item="id" open="(" separator="," close=")">
+                #{id}
+            </foreach>
+            </script>
+            """)
+    java.util.List<User> findSummariesByIds(@Param("ids") java.util.Collection<Long> ids);
 }
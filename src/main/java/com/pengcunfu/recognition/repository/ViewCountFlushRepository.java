@@ -0,0 +1,24 @@
+package com.pengcunfu.recognition.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.pengcunfu.recognition.entity.ViewCountFlush;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+
+/**
+ * 浏览量刷新批次Repository
+ */
+@Mapper
+public interface ViewCountFlushRepository extends BaseMapper<ViewCountFlush> {
+
+    /**
+     * 删除过期的批次记录
+     */
+    @Delete("""
+            DELETE FROM view_count_flushes WHERE created_at < #{before}
+            """)
+    int deleteBefore(@Param("before") LocalDateTime before);
+}
@@ -17,6 +17,11 @@ public class RecognitionRequest {
         @NotNull(message = "图片不能为空")
         private String imageUrl;
 
+        /**
+         * 原图URL（imageUrl 为预处理后的识别用图片时）
+         */
+        private String originalImageUrl;
+
         /**
          * 图片名称
          */
@@ -41,6 +46,11 @@ public class RecognitionRequest {
          * 识别类型: 0-QUICK快速识别, 1-DETAILED详细识别
          */
         private Integer recognitionType = 0;
+
+        /**
+         * 图片内容哈希(SHA-256)，用于识别结果缓存
+         */
+        private String imageHash;
     }
 
     /**
@@ -52,6 +62,16 @@ public class RecognitionRequest {
         private String[] imageUrls;
 
         private Integer recognitionType = 0;
+
+        /**
+         * 图片内容哈希(SHA-256)，与 imageUrls 一一对应
+         */
+        private String[] imageHashes;
+
+        /**
+         * 原图URL，与 imageUrls 一一对应
+         */
+        private String[] originalImageUrls;
     }
 
     /**
@@ -97,6 +117,11 @@ public class RecognitionRequest {
         @NotNull(message = "图片不能为空")
         private String imageUrl;
 
+        /**
+         * 原图URL（imageUrl 为预处理后的识别用图片时）
+         */
+        private String originalImageUrl;
+
         /**
          * 图片名称
          */
@@ -126,6 +151,11 @@ public class RecognitionRequest {
          * 高级设置JSON字符串
          */
         private String settings;
+
+        /**
+         * 图片内容哈希(SHA-256)，用于识别结果缓存
+         */
+        private String imageHash;
     }
 
     /**
@@ -145,5 +175,15 @@ public class RecognitionRequest {
          * 高级设置JSON字符串
          */
         private String settings;
+
+        /**
+         * 图片内容哈希(SHA-256)，与 imageUrls 一一对应
+         */
+        private String[] imageHashes;
+
+        /**
+         * 原图URL，与 imageUrls 一一对应
+         */
+        private String[] originalImageUrls;
     }
 }
@@ -0,0 +1,29 @@
+package com.pengcunfu.recognition.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 访问日志响应
+ */
+@Data
+public class AccessLogResponse {
+
+    /**
+     * 访问日志写入统计
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class WriterStats {
+        private Boolean enabled;
+        private Integer capacity;
+        private Integer pending;
+        private Long writtenCount;
+        private Long droppedCount;
+        private Long sampledBodyCount;
+    }
+}
@@ -33,6 +33,7 @@ public class CommunityResponse {
         private String tags;
         private String imageUrl;
         private java.util.List<String> images; // 改为List<String>
+        private String thumbnailUrl; // 首图缩略图
         private Long recognitionResultId;
         private Long recognitionId;
         private Integer status;
@@ -0,0 +1,44 @@
+package com.pengcunfu.recognition.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页响应
+ * 按上一页最后一条记录定位下一页，翻页开销与页码无关
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+
+    /**
+     * 数据列表
+     */
+    private List<T> data;
+
+    /**
+     * 每页大小
+     */
+    private Integer size;
+
+    /**
+     * 是否还有下一页
+     */
+    private Boolean hasMore;
+
+    /**
+     * 下一页游标（没有下一页时为空）
+     */
+    private String nextCursor;
+
+    /**
+     * 总记录数（仅在请求时返回，为短时缓存的近似值）
+     */
+    private Long total;
+}
@@ -29,6 +29,7 @@ public class KnowledgeResponse {
         private String detail;
         private String imageUrl;
         private String coverImage;
+        private String thumbnailUrl; // 封面缩略图
         private String images;
         private String tags;
         private Long authorId;
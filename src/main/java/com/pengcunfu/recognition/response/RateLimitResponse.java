@@ -0,0 +1,34 @@
+package com.pengcunfu.recognition.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 限流响应
+ */
+@Data
+public class RateLimitResponse {
+
+    /**
+     * 限流统计信息
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LimiterStats {
+        private Boolean localEnabled;
+        private Integer localKeys;
+        private Long checkCount;
+        private Long localAllowedCount;
+        private Long localRejectedCount;
+        private Double localHitRate;
+        private Long remoteCount;
+        private Long leasedPermits;
+        private Double leaseRefillPerSecond;
+        private Double avgLatencyMicros;
+        private Double avgRemoteLatencyMicros;
+    }
+}
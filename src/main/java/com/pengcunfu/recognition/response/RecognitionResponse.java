@@ -24,6 +24,8 @@ public class RecognitionResponse {
         private Long id;
         private Long userId;
         private String imageUrl;
+        private String originalImageUrl; // 原图
+        private String thumbnailUrl; // 列表缩略图
         private String imageName;
         private Integer imageSize;
         private Integer imageWidth;
@@ -41,6 +43,7 @@ public class RecognitionResponse {
         private Integer processingTime;
         private Integer status;
         private String errorMessage;
+        private Integer isCached;
         private LocalDateTime createdAt;
     }
 
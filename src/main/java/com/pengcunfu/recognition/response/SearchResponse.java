@@ -0,0 +1,81 @@
+package com.pengcunfu.recognition.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 全文检索响应
+ */
+@Data
+public class SearchResponse {
+
+    /**
+     * 检索结果
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SearchResult {
+        private List<SearchHit> data;
+        private Long total;
+        private Integer page;
+        private Integer size;
+        private Integer pages;
+        private List<FacetValue> categories;
+        private List<FacetValue> tags;
+        private Long tookMillis;
+    }
+
+    /**
+     * 命中文档（标题和正文片段中的关键词以 &lt;em&gt; 标记，其余内容已做HTML转义）
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SearchHit {
+        private Integer type;
+        private Long id;
+        private String title;
+        private String highlight;
+        private String category;
+        private List<String> tags;
+        private LocalDateTime createdAt;
+        private Float score;
+    }
+
+    /**
+     * 分面取值
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetValue {
+        private String value;
+        private Long count;
+    }
+
+    /**
+     * 索引状态
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IndexStats {
+        private Boolean ready;
+        private Boolean rebuilding;
+        private Integer numDocs;
+        private Integer pendingTasks;
+        private Long indexedCount;
+        private Long deletedCount;
+        private Long failedCount;
+    }
+}
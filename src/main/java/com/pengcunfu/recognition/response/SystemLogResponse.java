@@ -0,0 +1,32 @@
+package com.pengcunfu.recognition.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 系统日志响应
+ */
+@Data
+public class SystemLogResponse {
+
+    /**
+     * 系统日志写入统计
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class WriterStats {
+        private String overflowPolicy;
+        private Integer capacity;
+        private Integer pending;
+        private Long acceptedCount;
+        private Long writtenCount;
+        private Long droppedCount;
+        private Long sampledOutCount;
+        private Long failedCount;
+        private Long batchCount;
+    }
+}
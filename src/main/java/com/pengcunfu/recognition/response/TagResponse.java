@@ -0,0 +1,25 @@
+package com.pengcunfu.recognition.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 标签响应
+ */
+@Data
+public class TagResponse {
+
+    /**
+     * 标签计数
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TagCount {
+        private String name;
+        private Long count;
+    }
+}
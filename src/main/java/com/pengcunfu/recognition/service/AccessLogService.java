@@ -0,0 +1,190 @@
+package com.pengcunfu.recognition.service;
+
+import com.pengcunfu.recognition.config.AccessLogConfig;
+import com.pengcunfu.recognition.response.AccessLogResponse;
+import com.pengcunfu.recognition.util.RingBuffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 访问日志服务
+ * 请求线程只把访问日志事件放入无锁环形队列，由单个后台线程格式化为 key=value 结构化日志写出；
+ * 队列写满时丢弃并计数，不阻塞请求
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccessLogService {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("ACCESS_LOG");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final AccessLogConfig accessLogConfig;
+
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder sampledBodyCount = new LongAdder();
+
+    private RingBuffer<AccessLogEvent> buffer;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        buffer = new RingBuffer<>(accessLogConfig.getBufferSize());
+        running = true;
+        writerThread = new Thread(this::runWriter, "access-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("访问日志写入线程已启动: capacity={}", buffer.capacity());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(2));
+    }
+
+    /**
+     * 提交访问日志事件，队列已满时丢弃
+     */
+    public void submit(AccessLogEvent event) {
+        if (event.getRequestBody() != null || event.getResponseBody() != null) {
+            sampledBodyCount.increment();
+        }
+        if (!buffer.offer(event)) {
+            droppedCount.increment();
+        }
+    }
+
+    /**
+     * 获取访问日志统计
+     */
+    public AccessLogResponse.WriterStats getStats() {
+        return AccessLogResponse.WriterStats.builder()
+                .enabled(accessLogConfig.isEnabled())
+                .capacity(buffer.capacity())
+                .pending(buffer.size())
+                .writtenCount(writtenCount.sum())
+                .droppedCount(droppedCount.sum())
+                .sampledBodyCount(sampledBodyCount.sum())
+                .build();
+    }
+
+    private void runWriter() {
+        while (true) {
+            AccessLogEvent event = buffer.poll();
+            if (event != null) {
+                try {
+                    ACCESS_LOG.info(format(event));
+                    writtenCount.increment();
+                } catch (Exception e) {
+                    log.warn("写入访问日志失败: {}", e.getMessage());
+                }
+            } else if (running) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 格式化为 key=value 结构化日志
+     */
+    private String format(AccessLogEvent event) {
+        StringBuilder line = new StringBuilder(256);
+        append(line, "time", Instant.ofEpochMilli(event.getTimestamp()).toString());
+        append(line, "method", event.getMethod());
+        append(line, "uri", event.getUri());
+        append(line, "pattern", event.getPattern());
+        append(line, "status", event.getStatus());
+        append(line, "latencyMs", String.format("%.3f", event.getLatencyMicros() / 1000.0));
+        append(line, "userId", event.getUserId());
+        append(line, "ip", event.getIp());
+        append(line, "reqBytes", event.getRequestBytes());
+        append(line, "respBytes", event.getResponseBytes());
+        append(line, "async", event.isAsync() ? Boolean.TRUE : null);
+        append(line, "error", event.getError());
+        append(line, "reqBody", event.getRequestBody());
+        append(line, "respBody", event.getResponseBody());
+        return line.toString();
+    }
+
+    private void append(StringBuilder line, String key, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (line.length() > 0) {
+            line.append(' ');
+        }
+        line.append(key).append('=');
+        String text = value.toString();
+        if (!needsQuote(text)) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c == '\n') {
+                line.append("\\n");
+            } else if (c == '\r') {
+                line.append("\\r");
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private boolean needsQuote(String text) {
+        if (text.isEmpty()) {
+            return true;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ' ' || c == '"' || c == '=' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 访问日志事件
+     */
+    @Data
+    @Builder
+    public static class AccessLogEvent {
+        private long timestamp;
+        private String method;
+        private String uri;
+        private String pattern;
+        private int status;
+        private long latencyMicros;
+        private Long userId;
+        private String ip;
+        private long requestBytes;
+        private long responseBytes;
+        private boolean async;
+        private String error;
+        private String requestBody;
+        private String responseBody;
+    }
+}
@@ -1,6 +1,7 @@
 package com.pengcunfu.recognition.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.pengcunfu.recognition.constant.CacheKeyPrefix;
 import com.pengcunfu.recognition.constant.ErrorCode;
 import com.pengcunfu.recognition.entity.Comment;
 import com.pengcunfu.recognition.entity.CommunityPost;
@@ -11,11 +12,14 @@ import com.pengcunfu.recognition.enums.TargetType;
 import com.pengcunfu.recognition.exception.BusinessException;
 import com.pengcunfu.recognition.repository.CommentRepository;
 import com.pengcunfu.recognition.repository.CommunityPostRepository;
-import com.pengcunfu.recognition.repository.UserRepository;
 import com.pengcunfu.recognition.repository.UserLikeRepository;
 import com.pengcunfu.recognition.request.CommentRequest;
 import com.pengcunfu.recognition.response.CommentResponse;
+import com.pengcunfu.recognition.response.CursorPageResponse;
 import com.pengcunfu.recognition.response.PageResponse;
+import com.pengcunfu.recognition.service.redis.CacheService;
+import com.pengcunfu.recognition.service.redis.HotDataService;
+import com.pengcunfu.recognition.util.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -34,8 +38,10 @@ public class CommentService {
 
     private final CommentRepository commentRepository;
     private final CommunityPostRepository communityPostRepository;
-    private final UserRepository userRepository;
     private final UserLikeRepository userLikeRepository;
+    private final HydrationService hydrationService;
+    private final HotDataService hotDataService;
+    private final CacheService cacheService;
 
     /**
      * 发表评论
@@ -70,6 +76,8 @@ public class CommentService {
             }
         }
 
+        hotDataService.recordComment(TargetType.fromCode(request.getTargetType()), request.getTargetId());
+
         log.info("评论发表成功: userId={}, commentId={}", userId, comment.getId());
 
         return convertToCommentInfo(comment);
@@ -89,9 +97,7 @@ public class CommentService {
         );
 
         return PageResponse.<CommentResponse.CommentInfo>builder()
-                .data(pageResult.getRecords().stream()
-                        .map(this::convertToCommentInfo)
-                        .collect(Collectors.toList()))
+                .data(convertToCommentInfos(pageResult.getRecords()))
                 .total(pageResult.getTotal())
                 .page((int) pageResult.getCurrent())
                 .size((int) pageResult.getSize())
@@ -99,6 +105,52 @@ public class CommentService {
                 .build();
     }
 
+    /**
+     * 游标获取评论列表
+     * 每页只查询 size+1 条，不统计总数；withTotal 为 true 时返回短时缓存的总数
+     *
+     * @param cursor 上一页返回的游标，首页为空
+     */
+    public CursorPageResponse<CommentResponse.CommentInfo> scrollComments(
+            Integer targetType, Long targetId, String cursor, Integer size, boolean withTotal) {
+        log.info("游标获取评论列表: targetType={}, targetId={}, cursor={}, size={}",
+                targetType, targetId, cursor, size);
+
+        size = PageCursor.checkSize(size);
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        // 多查一条判断是否还有下一页
+        java.util.List<Comment> comments = commentRepository.findCommentsByTargetAfter(
+                targetType, targetId, CommentStatus.PUBLISHED.getValue(),
+                pageCursor != null ? pageCursor.getCreatedAt() : null,
+                pageCursor != null ? pageCursor.getId() : null,
+                size + 1
+        );
+        boolean hasMore = comments.size() > size;
+        if (hasMore) {
+            comments = new java.util.ArrayList<>(comments.subList(0, size));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Comment last = comments.get(comments.size() - 1);
+            nextCursor = PageCursor.of(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        Long total = null;
+        if (withTotal) {
+            total = cacheService.getCount(CacheKeyPrefix.PAGE_TOTAL, "comment:" + targetType + ":" + targetId,
+                    () -> commentRepository.countCommentsByTarget(targetType, targetId, CommentStatus.PUBLISHED.getValue()));
+        }
+
+        return CursorPageResponse.<CommentResponse.CommentInfo>builder()
+                .data(convertToCommentInfos(comments))
+                .size(size)
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .total(total)
+                .build();
+    }
+
     /**
      * 获取评论的回复列表
      */
@@ -111,9 +163,7 @@ public class CommentService {
         );
 
         return PageResponse.<CommentResponse.CommentInfo>builder()
-                .data(pageResult.getRecords().stream()
-                        .map(this::convertToCommentInfo)
-                        .collect(Collectors.toList()))
+                .data(convertToCommentInfos(pageResult.getRecords()))
                 .total(pageResult.getTotal())
                 .page((int) pageResult.getCurrent())
                 .size((int) pageResult.getSize())
@@ -231,9 +281,23 @@ public class CommentService {
      * 转换为评论信息 DTO
      */
     private CommentResponse.CommentInfo convertToCommentInfo(Comment comment) {
-        // 获取用户信息
-        User user = userRepository.selectById(comment.getUserId());
+        return convertToCommentInfos(java.util.List.of(comment)).get(0);
+    }
+
+    /**
+     * 批量转换为评论信息DTO（评论用户一次批量查询）
+     */
+    private java.util.List<CommentResponse.CommentInfo> convertToCommentInfos(java.util.List<Comment> comments) {
+        java.util.Map<Long, User> users = hydrationService.findUsers(comments, Comment::getUserId);
+        return comments.stream()
+                .map(comment -> buildCommentInfo(comment, users.get(comment.getUserId())))
+                .collect(Collectors.toList());
+    }
 
+    /**
+     * 组装评论信息DTO
+     */
+    private CommentResponse.CommentInfo buildCommentInfo(Comment comment, User user) {
         return CommentResponse.CommentInfo.builder()
                 .id(comment.getId())
                 .userId(comment.getUserId())
@@ -3,22 +3,28 @@ package com.pengcunfu.recognition.service;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pengcunfu.recognition.constant.CacheKeyPrefix;
 import com.pengcunfu.recognition.constant.ErrorCode;
 import com.pengcunfu.recognition.entity.CommunityPost;
 import com.pengcunfu.recognition.entity.User;
 import com.pengcunfu.recognition.entity.UserLike;
 import com.pengcunfu.recognition.entity.UserCollect;
+import com.pengcunfu.recognition.enums.FileOwnerType;
 import com.pengcunfu.recognition.enums.PostStatus;
+import com.pengcunfu.recognition.enums.SearchDocType;
+import com.pengcunfu.recognition.enums.TagOwnerType;
 import com.pengcunfu.recognition.enums.TargetType;
 import com.pengcunfu.recognition.exception.BusinessException;
 import com.pengcunfu.recognition.repository.CommunityPostRepository;
-import com.pengcunfu.recognition.repository.UserRepository;
 import com.pengcunfu.recognition.repository.UserLikeRepository;
 import com.pengcunfu.recognition.repository.UserCollectRepository;
 import com.pengcunfu.recognition.request.CommunityRequest;
 import com.pengcunfu.recognition.response.CommunityResponse;
+import com.pengcunfu.recognition.response.CursorPageResponse;
 import com.pengcunfu.recognition.response.PageResponse;
+import com.pengcunfu.recognition.service.redis.CacheService;
 import com.pengcunfu.recognition.service.redis.HotDataService;
+import com.pengcunfu.recognition.util.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -36,10 +42,16 @@ import java.util.stream.Collectors;
 public class CommunityService {
 
     private final CommunityPostRepository communityPostRepository;
-    private final UserRepository userRepository;
     private final UserLikeRepository userLikeRepository;
     private final UserCollectRepository userCollectRepository;
+    private final ViewCountService viewCountService;
     private final HotDataService hotDataService;
+    private final ImageVariantService imageVariantService;
+    private final HydrationService hydrationService;
+    private final FileReferenceService fileReferenceService;
+    private final TagService tagService;
+    private final SearchIndexService searchIndexService;
+    private final CacheService cacheService;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
@@ -82,6 +94,9 @@ public class CommunityService {
                 .build();
 
         communityPostRepository.insert(post);
+        fileReferenceService.replaceReferences(FileOwnerType.POST, post.getId(), post.getImages());
+        tagService.replaceTags(TagOwnerType.POST, post.getId(), post.getTags(), true);
+        searchIndexService.reindexAfterCommit(SearchDocType.POST, post.getId());
 
         log.info("帖子发布成功: userId={}, postId={}", userId, post.getId());
 
@@ -105,36 +120,24 @@ public class CommunityService {
                 page, size, category, tag, sort, currentUserId);
 
         Page<CommunityPost> pageRequest = new Page<>(page, size);
-        
-        // 构建分类条件
-        String categoryCondition = "";
-        if (category != null && !category.isEmpty()) {
-            categoryCondition = "AND category = '" + category + "'";
-        }
 
-        // 构建标签条件（使用LIKE查询，因为tags是逗号分隔的字符串）
-        String tagCondition = "";
-        if (tag != null && !tag.isEmpty()) {
-            // 使用LIKE查询标签，考虑逗号分隔的情况
-            tagCondition = "AND (tags = '" + tag + "' OR tags LIKE '" + tag + ",%' OR tags LIKE '%," + tag + ",%' OR tags LIKE '%," + tag + "')";
-        }
-
-        // 根据排序方式查询
+        // 根据排序方式查询（标签通过标签关联表筛选）
         Page<CommunityPost> pageResult;
         if ("hot".equals(sort)) {
             pageResult = communityPostRepository.findPostsByHot(
-                    pageRequest, PostStatus.PUBLISHED.getValue(), categoryCondition, tagCondition
+                    pageRequest, PostStatus.PUBLISHED.getValue(), category, tag
             );
         } else {
             pageResult = communityPostRepository.findPostsByLatest(
-                    pageRequest, PostStatus.PUBLISHED.getValue(), categoryCondition, tagCondition
+                    pageRequest, PostStatus.PUBLISHED.getValue(), category, tag
             );
         }
 
+        java.util.List<CommunityResponse.PostInfo> posts = convertToPostInfos(pageResult.getRecords(), currentUserId);
+        imageVariantService.fillListThumbnails(posts, CommunityResponse.PostInfo::getImageUrl, CommunityResponse.PostInfo::setThumbnailUrl);
+
         return PageResponse.<CommunityResponse.PostInfo>builder()
-                .data(pageResult.getRecords().stream()
-                        .map(post -> convertToPostInfo(post, currentUserId))
-                        .collect(Collectors.toList()))
+                .data(posts)
                 .total(pageResult.getTotal())
                 .page((int) pageResult.getCurrent())
                 .size((int) pageResult.getSize())
@@ -142,6 +145,61 @@ public class CommunityService {
                 .build();
     }
 
+    /**
+     * 游标获取帖子列表（按置顶、最新排序）
+     * 每页只查询 size+1 条，不统计总数；withTotal 为 true 时返回短时缓存的总数
+     *
+     * @param cursor 上一页返回的游标，首页为空
+     */
+    public CursorPageResponse<CommunityResponse.PostInfo> scrollPosts(
+            String cursor, Integer size, String category, String tag, Long currentUserId, boolean withTotal) {
+        log.info("游标获取帖子列表: cursor={}, size={}, category={}, tag={}, userId={}",
+                cursor, size, category, tag, currentUserId);
+
+        size = PageCursor.checkSize(size);
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        if (pageCursor != null && pageCursor.getTop() == null) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM, "无效的分页游标");
+        }
+
+        // 多查一条判断是否还有下一页
+        java.util.List<CommunityPost> posts = communityPostRepository.findLatestAfter(
+                PostStatus.PUBLISHED.getValue(), category, tag,
+                pageCursor != null ? pageCursor.getTop() : null,
+                pageCursor != null ? pageCursor.getCreatedAt() : null,
+                pageCursor != null ? pageCursor.getId() : null,
+                size + 1
+        );
+        boolean hasMore = posts.size() > size;
+        if (hasMore) {
+            posts = new java.util.ArrayList<>(posts.subList(0, size));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            CommunityPost last = posts.get(posts.size() - 1);
+            nextCursor = PageCursor.of(last.getIsTop(), last.getCreatedAt(), last.getId()).encode();
+        }
+
+        Long total = null;
+        if (withTotal) {
+            total = cacheService.getCount(CacheKeyPrefix.PAGE_TOTAL,
+                    "post:" + (category != null ? category : "") + ":" + (tag != null ? tag : ""),
+                    () -> communityPostRepository.countByCategoryAndTag(PostStatus.PUBLISHED.getValue(), category, tag));
+        }
+
+        java.util.List<CommunityResponse.PostInfo> postInfos = convertToPostInfos(posts, currentUserId);
+        imageVariantService.fillListThumbnails(postInfos, CommunityResponse.PostInfo::getImageUrl, CommunityResponse.PostInfo::setThumbnailUrl);
+
+        return CursorPageResponse.<CommunityResponse.PostInfo>builder()
+                .data(postInfos)
+                .size(size)
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .total(total)
+                .build();
+    }
+
     /**
      * 获取帖子列表（管理员，使用 SQL 查询）
      */
@@ -150,14 +208,20 @@ public class CommunityService {
         log.info("管理员获取帖子列表: page={}, size={}, status={}, keyword={}", 
                 page, size, status, keyword);
 
-        Page<CommunityPost> pageRequest = new Page<>(page, size);
-        Page<CommunityPost> pageResult = communityPostRepository.findPostsForAdmin(
-                pageRequest, status, keyword);
+        Page<CommunityPost> pageResult;
+        if (keyword != null && !keyword.isBlank() && searchIndexService.isReady()) {
+            // 关键词查询走全文索引，按相关度排序；索引未就绪时回退到 LIKE 查询
+            pageResult = searchPostPage(keyword, status, page, size);
+        } else {
+            Page<CommunityPost> pageRequest = new Page<>(page, size);
+            pageResult = communityPostRepository.findPostsForAdmin(pageRequest, status, keyword);
+        }
+
+        java.util.List<CommunityResponse.PostInfo> posts = convertToPostInfos(pageResult.getRecords(), null);
+        imageVariantService.fillListThumbnails(posts, CommunityResponse.PostInfo::getImageUrl, CommunityResponse.PostInfo::setThumbnailUrl);
 
         return PageResponse.<CommunityResponse.PostInfo>builder()
-                .data(pageResult.getRecords().stream()
-                        .map(this::convertToPostInfo)
-                        .collect(Collectors.toList()))
+                .data(posts)
                 .total(pageResult.getTotal())
                 .page((int) pageResult.getCurrent())
                 .size((int) pageResult.getSize())
@@ -165,10 +229,33 @@ public class CommunityService {
                 .build();
     }
 
+    /**
+     * 通过全文索引查询一页帖子，按索引返回的相关度顺序加载
+     */
+    private Page<CommunityPost> searchPostPage(String keyword, Integer status, Integer page, Integer size) {
+        Page<Long> idPage = searchIndexService.searchIds(SearchDocType.POST, keyword, status, null, null, page, size);
+
+        java.util.List<CommunityPost> records = new java.util.ArrayList<>(idPage.getRecords().size());
+        if (!idPage.getRecords().isEmpty()) {
+            java.util.Map<Long, CommunityPost> postMap = communityPostRepository.selectBatchIds(idPage.getRecords()).stream()
+                    .collect(Collectors.toMap(CommunityPost::getId, post -> post));
+            for (Long id : idPage.getRecords()) {
+                CommunityPost post = postMap.get(id);
+                if (post != null) {
+                    records.add(post);
+                }
+            }
+        }
+
+        Page<CommunityPost> result = new Page<>(page, size);
+        result.setRecords(records);
+        result.setTotal(idPage.getTotal());
+        return result;
+    }
+
     /**
      * 获取帖子详情
      */
-    @Transactional
     public CommunityResponse.PostInfo getPostDetail(Long postId) {
         return getPostDetail(postId, null);
     }
@@ -176,7 +263,6 @@ public class CommunityService {
     /**
      * 获取帖子详情（带用户状态）
      */
-    @Transactional
     public CommunityResponse.PostInfo getPostDetail(Long postId, Long currentUserId) {
         log.info("获取帖子详情: postId={}, userId={}", postId, currentUserId);
 
@@ -186,11 +272,9 @@ public class CommunityService {
             throw new BusinessException(ErrorCode.NOT_FOUND, "帖子不存在");
         }
 
-        // 增加浏览量（使用 SQL）
-        communityPostRepository.incrementViewCount(postId);
-
-        // 缓存热点数据
-        hotDataService.incrementPostViewCount(postId);
+        // 增加浏览量（只写Redis，定时批量写入数据库）
+        viewCountService.recordView(TargetType.POST, postId);
+        hotDataService.recordView(TargetType.POST, postId);
 
         return convertToPostInfo(post, currentUserId);
     }
@@ -238,9 +322,15 @@ public class CommunityService {
                 log.error("图片列表转换为JSON失败", e);
                 throw new BusinessException(ErrorCode.SYSTEM_ERROR, "图片数据处理失败");
             }
+            fileReferenceService.replaceReferences(FileOwnerType.POST, postId, post.getImages());
         }
 
         communityPostRepository.updateById(post);
+        if (request.getTags() != null) {
+            tagService.replaceTags(TagOwnerType.POST, postId, post.getTags(),
+                    PostStatus.PUBLISHED.getValue().equals(post.getStatus()));
+        }
+        searchIndexService.reindexAfterCommit(SearchDocType.POST, postId);
 
         log.info("帖子更新成功: userId={}, postId={}", userId, postId);
     }
@@ -263,6 +353,11 @@ public class CommunityService {
         }
 
         communityPostRepository.deleteById(postId);
+        fileReferenceService.removeReferences(FileOwnerType.POST, postId);
+        tagService.removeTags(TagOwnerType.POST, postId);
+        searchIndexService.reindexAfterCommit(SearchDocType.POST, postId);
+
+        hotDataService.removeHot(TargetType.POST, postId);
 
         log.info("帖子删除成功: userId={}, postId={}", userId, postId);
     }
@@ -314,6 +409,10 @@ public class CommunityService {
                 .build();
 
         communityPostRepository.insert(post);
+        fileReferenceService.replaceReferences(FileOwnerType.POST, post.getId(), post.getImages());
+        tagService.replaceTags(TagOwnerType.POST, post.getId(), post.getTags(),
+                PostStatus.PUBLISHED.getValue().equals(post.getStatus()));
+        searchIndexService.reindexAfterCommit(SearchDocType.POST, post.getId());
 
         log.info("帖子创建成功: postId={}, userId={}", post.getId(), userId);
         return post.getId();
@@ -358,12 +457,20 @@ public class CommunityService {
                 log.error("图片列表转换为JSON失败", e);
                 throw new BusinessException(ErrorCode.SYSTEM_ERROR, "图片数据处理失败");
             }
+            fileReferenceService.replaceReferences(FileOwnerType.POST, postId, post.getImages());
         }
         if (request.getStatus() != null) {
             post.setStatus(request.getStatus());
         }
 
         communityPostRepository.updateById(post);
+        boolean published = PostStatus.PUBLISHED.getValue().equals(post.getStatus());
+        if (request.getTags() != null) {
+            tagService.replaceTags(TagOwnerType.POST, postId, post.getTags(), published);
+        } else if (request.getStatus() != null) {
+            tagService.setCounted(TagOwnerType.POST, postId, published);
+        }
+        searchIndexService.reindexAfterCommit(SearchDocType.POST, postId);
 
         log.info("帖子更新成功: postId={}", postId);
     }
@@ -382,6 +489,11 @@ public class CommunityService {
         }
 
         communityPostRepository.deleteById(postId);
+        fileReferenceService.removeReferences(FileOwnerType.POST, postId);
+        tagService.removeTags(TagOwnerType.POST, postId);
+        searchIndexService.reindexAfterCommit(SearchDocType.POST, postId);
+
+        hotDataService.removeHot(TargetType.POST, postId);
 
         log.info("帖子删除成功: postId={}", postId);
     }
@@ -401,6 +513,11 @@ public class CommunityService {
 
         post.setStatus(status);
         communityPostRepository.updateById(post);
+        tagService.setCounted(TagOwnerType.POST, postId, PostStatus.PUBLISHED.getValue().equals(status));
+        searchIndexService.reindexAfterCommit(SearchDocType.POST, postId);
+        if (!PostStatus.PUBLISHED.getValue().equals(status)) {
+            hotDataService.removeHot(TargetType.POST, postId);
+        }
 
         log.info("帖子状态更新成功: postId={}, status={}", postId, status);
     }
@@ -458,6 +575,8 @@ public class CommunityService {
         // 更新帖子点赞数（使用 SQL）
         communityPostRepository.incrementLikeCount(postId);
 
+        hotDataService.recordLike(TargetType.POST, postId);
+
         log.info("点赞成功: userId={}, postId={}", userId, postId);
     }
 
@@ -483,6 +602,8 @@ public class CommunityService {
         // 更新帖子点赞数（使用 SQL）
         communityPostRepository.decrementLikeCount(postId);
 
+        hotDataService.cancelLike(TargetType.POST, postId, like.getCreatedAt());
+
         log.info("取消点赞成功: userId={}, postId={}", userId, postId);
     }
 
@@ -517,6 +638,8 @@ public class CommunityService {
 
         userCollectRepository.insert(collect);
 
+        hotDataService.recordCollect(TargetType.POST, postId);
+
         log.info("收藏成功: userId={}, postId={}", userId, postId);
     }
 
@@ -539,6 +662,8 @@ public class CommunityService {
                 userId, postId, TargetType.POST.getValue()
         );
 
+        hotDataService.cancelCollect(TargetType.POST, postId, collect.getCreatedAt());
+
         log.info("取消收藏成功: userId={}, postId={}", userId, postId);
     }
 
@@ -561,32 +686,12 @@ public class CommunityService {
     public java.util.List<CommunityResponse.TagInfo> getTags() {
         log.info("获取帖子标签列表");
 
-        // 从数据库中获取所有已发布帖子的tags字段
-        java.util.List<String> allTagStrings = communityPostRepository.getAllTags(PostStatus.PUBLISHED.getValue());
-
-        // 使用Map统计每个标签的出现次数
-        java.util.Map<String, Long> tagCountMap = new java.util.HashMap<>();
-
-        for (String tagString : allTagStrings) {
-            if (tagString != null && !tagString.trim().isEmpty()) {
-                // 按逗号分隔标签
-                String[] tags = tagString.split(",");
-                for (String tag : tags) {
-                    String trimmedTag = tag.trim();
-                    if (!trimmedTag.isEmpty()) {
-                        tagCountMap.put(trimmedTag, tagCountMap.getOrDefault(trimmedTag, 0L) + 1);
-                    }
-                }
-            }
-        }
-
-        // 转换为TagInfo列表并按数量降序排序
-        java.util.List<CommunityResponse.TagInfo> tagInfos = tagCountMap.entrySet().stream()
-                .map(entry -> CommunityResponse.TagInfo.builder()
-                        .name(entry.getKey())
-                        .count(entry.getValue())
+        // 已发布帖子的标签计数（增量维护，按数量降序）
+        java.util.List<CommunityResponse.TagInfo> tagInfos = tagService.getTagCounts(TagOwnerType.POST).stream()
+                .map(tagCount -> CommunityResponse.TagInfo.builder()
+                        .name(tagCount.getName())
+                        .count(tagCount.getCount())
                         .build())
-                .sorted((a, b) -> Long.compare(b.getCount(), a.getCount()))
                 .collect(java.util.stream.Collectors.toList());
 
         log.info("获取到 {} 个标签", tagInfos.size());
@@ -604,16 +709,37 @@ public class CommunityService {
      * 转换为帖子信息 DTO（带用户状态）
      */
     private CommunityResponse.PostInfo convertToPostInfo(CommunityPost post, Long currentUserId) {
-        // 获取作者信息
-        User author = userRepository.selectById(post.getUserId());
-        
+        return convertToPostInfos(java.util.List.of(post), currentUserId).get(0);
+    }
+
+    /**
+     * 批量转换为帖子信息 DTO
+     * 作者、点赞状态、收藏状态和未写入的浏览量各一次批量查询，在内存中组装
+     */
+    private java.util.List<CommunityResponse.PostInfo> convertToPostInfos(
+            java.util.List<CommunityPost> posts, Long currentUserId) {
+        java.util.List<Long> postIds = posts.stream().map(CommunityPost::getId).collect(Collectors.toList());
+        java.util.Map<Long, User> authors = hydrationService.findUsers(posts, CommunityPost::getUserId);
+        java.util.Set<Long> likedIds = hydrationService.findLikedTargetIds(currentUserId, TargetType.POST, postIds);
+        java.util.Set<Long> collectedIds = hydrationService.findCollectedTargetIds(currentUserId, TargetType.POST, postIds);
+        java.util.Map<Long, Long> pendingViews = viewCountService.getPendingDeltas(TargetType.POST, postIds);
+
+        java.util.List<CommunityResponse.PostInfo> result = new java.util.ArrayList<>(posts.size());
+        for (CommunityPost post : posts) {
+            result.add(buildPostInfo(post, authors.get(post.getUserId()),
+                    likedIds.contains(post.getId()), collectedIds.contains(post.getId()),
+                    pendingViews.get(post.getId())));
+        }
+        return result;
+    }
+
+    /**
+     * 组装帖子信息 DTO
+     */
+    private CommunityResponse.PostInfo buildPostInfo(
+            CommunityPost post, User author, Boolean isLiked, Boolean isCollected, Long pendingViews) {
         // 优先显示昵称,如果没有则显示用户名
-        String displayName = "未知用户";
-        if (author != null) {
-            displayName = (author.getNickname() != null && !author.getNickname().isEmpty()) 
-                ? author.getNickname() 
-                : author.getUsername();
-        }
+        String displayName = author != null ? HydrationService.displayName(author) : "未知用户";
 
         // 解析图片JSON数组
         java.util.List<String> imagesList = new java.util.ArrayList<>();
@@ -636,22 +762,6 @@ public class CommunityService {
             }
         }
 
-        // 查询当前用户的点赞和收藏状态
-        Boolean isLiked = false;
-        Boolean isCollected = false;
-        
-        if (currentUserId != null) {
-            // 查询点赞状态
-            UserLike userLike = userLikeRepository.findByUserAndTarget(
-                    currentUserId, post.getId(), TargetType.POST.getValue());
-            isLiked = userLike != null;
-            
-            // 查询收藏状态
-            UserCollect userCollect = userCollectRepository.findByUserAndTarget(
-                    currentUserId, post.getId(), TargetType.POST.getValue());
-            isCollected = userCollect != null;
-        }
-
         return CommunityResponse.PostInfo.builder()
                 .id(post.getId())
                 .userId(post.getUserId())
@@ -669,7 +779,7 @@ public class CommunityService {
                 .recognitionId(post.getRecognitionId())
                 .recognitionResultId(post.getRecognitionId())
                 .status(post.getStatus())
-                .viewCount(post.getViewCount())
+                .viewCount(ViewCountService.merge(post.getViewCount(), pendingViews))
                 .likeCount(post.getLikeCount())
                 .commentCount(post.getCommentCount())
                 .isTop(post.getIsTop())
@@ -691,10 +801,11 @@ public class CommunityService {
         // 使用SQL查询该用户发布的帖子(按创建时间倒序)
         Page<CommunityPost> pageResult = communityPostRepository.findPostsByAuthor(pageRequest, userId);
 
+        java.util.List<CommunityResponse.PostInfo> posts = convertToPostInfos(pageResult.getRecords(), null);
+        imageVariantService.fillListThumbnails(posts, CommunityResponse.PostInfo::getImageUrl, CommunityResponse.PostInfo::setThumbnailUrl);
+
         return PageResponse.<CommunityResponse.PostInfo>builder()
-                .data(pageResult.getRecords().stream()
-                        .map(this::convertToPostInfo)
-                        .collect(Collectors.toList()))
+                .data(posts)
                 .total(pageResult.getTotal())
                 .page((int) pageResult.getCurrent())
                 .size((int) pageResult.getSize())
@@ -721,13 +832,13 @@ public class CommunityService {
                 PostStatus.PUBLISHED.getValue()
         );
 
-        return relatedPosts.stream()
-                .map(this::convertToPostInfo)
-                .collect(Collectors.toList());
+        java.util.List<CommunityResponse.PostInfo> posts = convertToPostInfos(relatedPosts, null);
+        imageVariantService.fillListThumbnails(posts, CommunityResponse.PostInfo::getImageUrl, CommunityResponse.PostInfo::setThumbnailUrl);
+        return posts;
     }
 
     /**
-     * 获取热门帖子（按访问量排序）
+     * 获取热门帖子（按时间衰减热度排序，排行只读Redis）
      */
     public java.util.List<CommunityResponse.PostInfo> getHotPosts(Integer limit) {
         log.info("获取热门帖子: limit={}", limit);
@@ -737,16 +848,25 @@ public class CommunityService {
             limit = 5;
         }
 
-        // 查询热门帖子（按访问量排序）
-        java.util.List<CommunityPost> hotPosts = communityPostRepository.findHotPostsByViews(
-                PostStatus.PUBLISHED.getValue(),
-                limit
-        );
+        // 多取一些，跳过已删除或未发布的帖子
+        java.util.List<Long> hotIds = hotDataService.getHotIds(TargetType.POST, limit * 2);
+        java.util.List<CommunityPost> hotPosts = new java.util.ArrayList<>(limit);
+        if (!hotIds.isEmpty()) {
+            java.util.Map<Long, CommunityPost> postMap = communityPostRepository.selectBatchIds(hotIds).stream()
+                    .filter(post -> PostStatus.PUBLISHED.getValue().equals(post.getStatus()))
+                    .collect(Collectors.toMap(CommunityPost::getId, post -> post));
+            for (Long id : hotIds) {
+                CommunityPost post = postMap.get(id);
+                if (post != null && hotPosts.size() < limit) {
+                    hotPosts.add(post);
+                }
+            }
+        }
 
         log.info("获取到 {} 条热门帖子", hotPosts.size());
 
-        return hotPosts.stream()
-                .map(this::convertToPostInfo)
-                .collect(Collectors.toList());
+        java.util.List<CommunityResponse.PostInfo> posts = convertToPostInfos(hotPosts, null);
+        imageVariantService.fillListThumbnails(posts, CommunityResponse.PostInfo::getImageUrl, CommunityResponse.PostInfo::setThumbnailUrl);
+        return posts;
     }
 }
@@ -0,0 +1,124 @@
+package com.pengcunfu.recognition.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.pengcunfu.recognition.entity.FileManifest;
+import com.pengcunfu.recognition.repository.FileManifestRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 孤立文件清理服务
+ * 先根据业务数据重建引用表，再按ID分批遍历文件清单，批量查询引用，
+ * 删除超过保护期且没有任何引用的本地文件
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileCleanupService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final String LOCAL_URL_PREFIX = "/api/v1/files/";
+
+    // 缩略图等派生图片随原图一起删除，不单独作为孤立文件处理
+    private static final Pattern VARIANT_NAME = Pattern.compile(".*_[wr]\\d+\\.jpg$");
+
+    private final FileReferenceService fileReferenceService;
+    private final FileManifestRepository fileManifestRepository;
+    private final FileService fileService;
+
+    @Value("${file.cleanup.grace-hours:24}")
+    private long graceHours;
+
+    /**
+     * 清理孤立文件
+     *
+     * @param dryRun 为 true 时只统计不删除
+     */
+    public Map<String, Object> collectOrphans(boolean dryRun) {
+        long startTime = System.currentTimeMillis();
+        fileReferenceService.rebuild();
+
+        // 保护期内的文件可能刚上传、业务数据尚未保存
+        LocalDateTime graceBefore = LocalDateTime.now().minusHours(graceHours);
+        int scanned = 0;
+        int orphanCount = 0;
+        long orphanSize = 0;
+        int deleted = 0;
+        List<String> orphans = new ArrayList<>();
+
+        long lastId = 0;
+        while (true) {
+            List<FileManifest> batch = fileManifestRepository.selectList(new LambdaQueryWrapper<FileManifest>()
+                    .gt(FileManifest::getId, lastId)
+                    .orderByAsc(FileManifest::getId)
+                    .last("LIMIT " + BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+            scanned += batch.size();
+
+            Map<String, FileManifest> candidates = new HashMap<>();
+            for (FileManifest manifest : batch) {
+                if (manifest.getModifiedAt() != null && manifest.getModifiedAt().isBefore(graceBefore)
+                        && !VARIANT_NAME.matcher(manifest.getName()).matches()) {
+                    candidates.put(LOCAL_URL_PREFIX + manifest.getPath(), manifest);
+                }
+            }
+            if (candidates.isEmpty()) {
+                continue;
+            }
+
+            Set<String> referenced = fileReferenceService.findReferenced(candidates.keySet());
+            for (Map.Entry<String, FileManifest> entry : candidates.entrySet()) {
+                if (referenced.contains(entry.getKey())) {
+                    continue;
+                }
+                if (!dryRun && reusedSinceScan(entry.getValue(), graceBefore)) {
+                    continue;
+                }
+                orphanCount++;
+                orphanSize += entry.getValue().getSize();
+                orphans.add(entry.getKey());
+                if (!dryRun) {
+                    try {
+                        fileService.deleteFile(entry.getKey());
+                        deleted++;
+                    } catch (Exception e) {
+                        log.warn("删除孤立文件失败: url={}, error={}", entry.getKey(), e.getMessage());
+                    }
+                }
+            }
+        }
+
+        log.info("孤立文件清理完成: dryRun={}, scanned={}, orphans={}, size={}, deleted={}, time={}ms",
+                dryRun, scanned, orphanCount, orphanSize, deleted, System.currentTimeMillis() - startTime);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("dryRun", dryRun);
+        result.put("scanned", scanned);
+        result.put("orphanCount", orphanCount);
+        result.put("orphanSize", orphanSize);
+        result.put("deleted", deleted);
+        result.put("orphans", orphans.size() > BATCH_SIZE ? orphans.subList(0, BATCH_SIZE) : orphans);
+        return result;
+    }
+
+    /**
+     * 删除前重新读取清单：扫描之后被上传去重复用的文件修改时间已刷新，不能删除
+     */
+    private boolean reusedSinceScan(FileManifest manifest, LocalDateTime graceBefore) {
+        FileManifest latest = fileManifestRepository.selectById(manifest.getId());
+        return latest == null || latest.getModifiedAt() == null || !latest.getModifiedAt().isBefore(graceBefore);
+    }
+}
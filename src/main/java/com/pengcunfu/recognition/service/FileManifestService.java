@@ -0,0 +1,410 @@
+package com.pengcunfu.recognition.service;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.pengcunfu.recognition.constant.ErrorCode;
+import com.pengcunfu.recognition.entity.FileManifest;
+import com.pengcunfu.recognition.entity.FileManifestStats;
+import com.pengcunfu.recognition.exception.BusinessException;
+import com.pengcunfu.recognition.repository.FileManifestRepository;
+import com.pengcunfu.recognition.repository.FileManifestStatsRepository;
+import com.pengcunfu.recognition.response.CursorPageResponse;
+import com.pengcunfu.recognition.util.FileUtil;
+import com.pengcunfu.recognition.util.PageCursor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 上传文件清单服务
+ * 上传、删除本地文件时同步维护清单和按类型的统计，管理端分页、搜索和统计都基于清单查询；
+ * 对账任务并行扫描上传目录重建清单，用于首次启用或清单与磁盘不一致时
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileManifestService {
+
+    private static final String LOCAL_URL_PREFIX = "/api/v1/files/";
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    private final FileManifestRepository fileManifestRepository;
+    private final FileManifestStatsRepository fileManifestStatsRepository;
+    private final FileUtil fileUtil;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${file.upload.path:./uploads}")
+    private String uploadPath;
+
+    @Value("${file.manifest.reconcile-parallelism:4}")
+    private int reconcileParallelism;
+
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    /**
+     * 记录新上传的本地文件，失败时只记录日志（可由对账任务补齐）
+     *
+     * @param url         文件访问URL
+     * @param file        磁盘文件
+     * @param contentHash 内容哈希，未知时为 null
+     */
+    public void record(String url, Path file, String contentHash) {
+        String path = toRelativePath(url);
+        if (path == null || !isManaged(path)) {
+            return;
+        }
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            FileManifest manifest = toManifest(path, attributes);
+            manifest.setContentHash(contentHash);
+            manifest.setCheckedAt(LocalDateTime.now());
+
+            fileManifestRepository.insert(manifest);
+            fileManifestStatsRepository.increase(manifest.getType(), 1, manifest.getSize());
+        } catch (DuplicateKeyException e) {
+            log.debug("文件清单记录已存在: path={}", path);
+        } catch (Exception e) {
+            log.warn("记录文件清单失败: path={}, error={}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * 复用内容相同的已上传本地文件，用于上传去重
+     * 命中时把文件和清单的修改时间刷新为当前时间，复用的文件重新进入孤立文件清理的保护期
+     *
+     * @return 已存在文件的访问URL，没有或文件已不在磁盘上时返回 null
+     */
+    public String reuseByContentHash(String type, String contentHash) {
+        if (contentHash == null) {
+            return null;
+        }
+
+        try {
+            FileManifest manifest = fileManifestRepository.findByContentHash(type, contentHash);
+            if (manifest == null) {
+                return null;
+            }
+            Path file = Paths.get(uploadPath, manifest.getPath());
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+
+            // 同时更新磁盘修改时间，对账时不会把清单改回旧时间
+            Instant now = Instant.now();
+            Files.setLastModifiedTime(file, FileTime.from(now));
+            fileManifestRepository.updateById(FileManifest.builder()
+                    .id(manifest.getId())
+                    .modifiedAt(LocalDateTime.ofInstant(now, ZoneId.systemDefault()))
+                    .build());
+            return LOCAL_URL_PREFIX + manifest.getPath();
+        } catch (Exception e) {
+            log.warn("按内容哈希查询文件清单失败: contentHash={}, error={}", contentHash, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 删除本地文件对应的清单记录
+     */
+    public void remove(String url) {
+        String path = toRelativePath(url);
+        if (path == null) {
+            return;
+        }
+
+        try {
+            FileManifest manifest = fileManifestRepository.findByPath(path);
+            if (manifest != null && fileManifestRepository.deleteById(manifest.getId()) > 0) {
+                fileManifestStatsRepository.increase(manifest.getType(), -1, -manifest.getSize());
+            }
+        } catch (Exception e) {
+            log.warn("删除文件清单记录失败: path={}, error={}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * 分页查询文件，无关键字时总数取自统计表
+     */
+    public Page<FileManifest> getPage(Integer page, Integer size, String type, String keyword) {
+        boolean hasKeyword = keyword != null && !keyword.isEmpty();
+        Page<FileManifest> pageRequest = new Page<>(page, size);
+        pageRequest.setSearchCount(hasKeyword);
+
+        Page<FileManifest> result = fileManifestRepository.findPage(pageRequest, type, keyword);
+        if (!hasKeyword) {
+            result.setTotal(countFiles(type));
+        }
+        return result;
+    }
+
+    /**
+     * 游标分页查询文件
+     *
+     * @param cursor 上一页返回的游标，首页为空
+     */
+    public CursorPageResponse<FileManifest> getPageAfter(String cursor, Integer size, String type, String keyword) {
+        size = PageCursor.checkSize(size);
+        PageCursor pageCursor = PageCursor.decode(cursor);
+
+        // 多查一条判断是否还有下一页
+        List<FileManifest> files = fileManifestRepository.findAfter(type, keyword,
+                pageCursor != null ? pageCursor.getCreatedAt() : null,
+                pageCursor != null ? pageCursor.getId() : null,
+                size + 1);
+        boolean hasMore = files.size() > size;
+        if (hasMore) {
+            files = new ArrayList<>(files.subList(0, size));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            FileManifest last = files.get(files.size() - 1);
+            nextCursor = PageCursor.of(last.getModifiedAt(), last.getId()).encode();
+        }
+
+        return CursorPageResponse.<FileManifest>builder()
+                .data(files)
+                .size(size)
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * 获取按类型的文件统计
+     */
+    public List<FileManifestStats> getStats() {
+        return fileManifestStatsRepository.selectList(null);
+    }
+
+    /**
+     * 对账：并行扫描上传目录重建清单
+     * 每个目录由一个线程扫描并批量写入，扫描完成后删除磁盘上已不存在的记录并重算统计
+     */
+    public Map<String, Object> reconcile() {
+        if (!reconciling.compareAndSet(false, true)) {
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUESTS, "文件清单对账正在进行中");
+        }
+
+        try {
+            Path root = Paths.get(uploadPath).toAbsolutePath().normalize();
+            Map<String, Object> result = new HashMap<>();
+            if (!Files.isDirectory(root)) {
+                log.warn("上传目录不存在，跳过文件清单对账: {}", root);
+                result.put("scanned", 0);
+                result.put("removed", 0);
+                return result;
+            }
+
+            long startTime = System.currentTimeMillis();
+            // 对账时间精确到秒，与数据库字段一致；对账期间新上传的文件对账时间不早于该时间，不会被删除
+            LocalDateTime checkedAt = LocalDateTime.now().withNano(0);
+
+            List<Path> directories;
+            try (Stream<Path> stream = Files.walk(root)) {
+                directories = stream.filter(Files::isDirectory).collect(Collectors.toList());
+            }
+
+            int scanned = scanDirectories(root, directories, checkedAt);
+            int removed = fileManifestRepository.deleteUncheckedBefore(checkedAt);
+            rebuildStats();
+
+            log.info("文件清单对账完成: directories={}, scanned={}, removed={}, time={}ms",
+                    directories.size(), scanned, removed, System.currentTimeMillis() - startTime);
+
+            result.put("directories", directories.size());
+            result.put("scanned", scanned);
+            result.put("removed", removed);
+            return result;
+        } catch (IOException e) {
+            log.error("文件清单对账失败", e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件清单对账失败: " + e.getMessage());
+        } finally {
+            reconciling.set(false);
+        }
+    }
+
+    /**
+     * 首次启动（清单为空）时在后台执行对账
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileIfEmpty() {
+        try {
+            if (fileManifestRepository.selectCount(null) > 0 || !Files.isDirectory(Paths.get(uploadPath))) {
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("检查文件清单失败，跳过启动对账: error={}", e.getMessage());
+            return;
+        }
+
+        Thread thread = new Thread(() -> {
+            try {
+                reconcile();
+            } catch (Exception e) {
+                log.warn("启动时文件清单对账失败: error={}", e.getMessage());
+            }
+        }, "file-manifest-reconcile");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 并行扫描目录，任一目录失败时整体失败（不删除任何记录）
+     */
+    private int scanDirectories(Path root, List<Path> directories, LocalDateTime checkedAt) throws IOException {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, reconcileParallelism), runnable -> {
+            Thread thread = new Thread(runnable, "file-manifest-scan-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(directories.size());
+            for (Path directory : directories) {
+                futures.add(executor.submit(() -> scanDirectory(root, directory, checkedAt)));
+            }
+
+            int scanned = 0;
+            for (Future<Integer> future : futures) {
+                scanned += future.get();
+            }
+            return scanned;
+        } catch (ExecutionException e) {
+            throw new IOException("扫描目录失败: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("文件清单对账已中断", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 扫描单个目录中的文件（不递归），批量写入清单
+     */
+    private int scanDirectory(Path root, Path directory, LocalDateTime checkedAt) throws IOException {
+        List<FileManifest> batch = new ArrayList<>(RECONCILE_BATCH_SIZE);
+        int scanned = 0;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String path = root.relativize(file).toString().replace('\\', '/');
+                if (!isManaged(path)) {
+                    continue;
+                }
+
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (!attributes.isRegularFile()) {
+                    continue;
+                }
+
+                batch.add(toManifest(path, attributes));
+                if (batch.size() >= RECONCILE_BATCH_SIZE) {
+                    scanned += flush(batch, checkedAt);
+                }
+            }
+        }
+
+        scanned += flush(batch, checkedAt);
+        return scanned;
+    }
+
+    /**
+     * 写入一批对账结果
+     */
+    private int flush(List<FileManifest> batch, LocalDateTime checkedAt) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int size = batch.size();
+        fileManifestRepository.upsertBatch(batch, checkedAt);
+        batch.clear();
+        return size;
+    }
+
+    /**
+     * 根据清单重算统计
+     * 在同一事务中覆盖各类型统计并删除已无文件的类型，查询统计时不会读到清空后的中间状态
+     */
+    private void rebuildStats() {
+        transactionTemplate.executeWithoutResult(status -> {
+            fileManifestStatsRepository.replaceFromManifest();
+            fileManifestStatsRepository.deleteMissingTypes();
+        });
+    }
+
+    /**
+     * 统计表中的文件数量
+     */
+    private long countFiles(String type) {
+        long total = 0;
+        for (FileManifestStats stat : getStats()) {
+            if (type == null || type.isEmpty() || type.equals(stat.getType())) {
+                total += stat.getFileCount();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 构建清单记录
+     */
+    private FileManifest toManifest(String path, BasicFileAttributes attributes) {
+        int slashIndex = path.indexOf('/');
+        return FileManifest.builder()
+                .path(path)
+                .name(path.substring(path.lastIndexOf('/') + 1))
+                .type(slashIndex > 0 ? path.substring(0, slashIndex) : "other")
+                .size(attributes.size())
+                .modifiedAt(LocalDateTime.ofInstant(attributes.lastModifiedTime().toInstant(), ZoneId.systemDefault()))
+                .build();
+    }
+
+    /**
+     * 清单只记录图片文件（与管理端文件列表范围一致）
+     */
+    private boolean isManaged(String path) {
+        return fileUtil.isAllowedImageType(fileUtil.getFileExtension(path.substring(path.lastIndexOf('/') + 1)));
+    }
+
+    /**
+     * 本地文件URL转换为相对上传目录的路径，非本地文件返回 null
+     */
+    private String toRelativePath(String url) {
+        if (url == null || !url.startsWith(LOCAL_URL_PREFIX)) {
+            return null;
+        }
+        int queryIndex = url.indexOf('?');
+        return url.substring(LOCAL_URL_PREFIX.length(), queryIndex >= 0 ? queryIndex : url.length());
+    }
+}
@@ -0,0 +1,263 @@
+package com.pengcunfu.recognition.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pengcunfu.recognition.constant.ErrorCode;
+import com.pengcunfu.recognition.entity.CommunityPost;
+import com.pengcunfu.recognition.entity.Knowledge;
+import com.pengcunfu.recognition.entity.RecognitionResult;
+import com.pengcunfu.recognition.entity.User;
+import com.pengcunfu.recognition.enums.FileOwnerType;
+import com.pengcunfu.recognition.exception.BusinessException;
+import com.pengcunfu.recognition.repository.CommunityPostRepository;
+import com.pengcunfu.recognition.repository.FileReferenceRepository;
+import com.pengcunfu.recognition.repository.KnowledgeRepository;
+import com.pengcunfu.recognition.repository.RecognitionResultRepository;
+import com.pengcunfu.recognition.repository.UserRepository;
+import com.pengcunfu.recognition.util.KeysetBatch;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 文件引用服务
+ * 帖子、知识库、用户头像和识别记录写入时同步维护 (文件, 引用方类型, 引用方ID) 引用表，
+ * 文件使用情况检查和孤立文件清理都基于该表的批量索引查询
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileReferenceService {
+
+    private static final String LOCAL_URL_MARKER = "/api/v1/files/";
+    private static final int MAX_FILE_KEY_LENGTH = 500;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final FileReferenceRepository fileReferenceRepository;
+    private final UserRepository userRepository;
+    private final CommunityPostRepository communityPostRepository;
+    private final KnowledgeRepository knowledgeRepository;
+    private final RecognitionResultRepository recognitionResultRepository;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    /**
+     * 替换引用方的全部文件引用
+     *
+     * @param ownerType   引用方类型
+     * @param ownerId     引用方ID
+     * @param fieldValues 图片字段的值（单个URL、逗号分隔或JSON数组）
+     */
+    public void replaceReferences(FileOwnerType ownerType, Long ownerId, String... fieldValues) {
+        if (ownerId == null) {
+            return;
+        }
+
+        Set<String> fileKeys = new LinkedHashSet<>();
+        for (String fieldValue : fieldValues) {
+            for (String url : parseUrls(fieldValue)) {
+                String fileKey = fileKey(url);
+                if (fileKey != null) {
+                    fileKeys.add(fileKey);
+                }
+            }
+        }
+
+        fileReferenceRepository.deleteByOwner(ownerType.getValue(), ownerId);
+        if (!fileKeys.isEmpty()) {
+            fileReferenceRepository.insertIgnore(ownerType.getValue(), ownerId, fileKeys);
+        }
+    }
+
+    /**
+     * 删除引用方的全部文件引用
+     */
+    public void removeReferences(FileOwnerType ownerType, Long ownerId) {
+        if (ownerId != null) {
+            fileReferenceRepository.deleteByOwner(ownerType.getValue(), ownerId);
+        }
+    }
+
+    /**
+     * 批量查询文件使用情况
+     *
+     * @return 文件URL -> 使用位置描述（未被引用的文件不在结果中）
+     */
+    public Map<String, List<String>> getUsage(Collection<String> urls) {
+        Map<String, List<String>> keyToUrls = groupByFileKey(urls);
+        if (keyToUrls.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, List<String>> usage = new HashMap<>();
+        for (Map<String, Object> row : fileReferenceRepository.countByFileKeys(keyToUrls.keySet())) {
+            FileOwnerType ownerType = FileOwnerType.fromCode(((Number) row.get("ownerType")).intValue());
+            String description = ownerType.getDescription() + "(" + ((Number) row.get("refCount")).longValue() + ")";
+            for (String url : keyToUrls.get((String) row.get("fileKey"))) {
+                usage.computeIfAbsent(url, key -> new ArrayList<>()).add(description);
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * 批量查询被引用的文件
+     *
+     * @return 存在引用的文件URL
+     */
+    public Set<String> findReferenced(Collection<String> urls) {
+        Map<String, List<String>> keyToUrls = groupByFileKey(urls);
+        if (keyToUrls.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        Set<String> referenced = new HashSet<>();
+        for (String fileKey : fileReferenceRepository.findReferencedKeys(keyToUrls.keySet())) {
+            referenced.addAll(keyToUrls.get(fileKey));
+        }
+        return referenced;
+    }
+
+    /**
+     * 根据业务数据重建引用表
+     * 逐类按ID分批读取引用方，逐个替换其引用，最后删除引用方已不存在的记录
+     */
+    public Map<String, Object> rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUESTS, "文件引用重建正在进行中");
+        }
+
+        try {
+            long startTime = System.currentTimeMillis();
+
+            int users = KeysetBatch.forEach(REBUILD_BATCH_SIZE, lastId -> userRepository.selectList(new LambdaQueryWrapper<User>()
+                            .select(User::getId, User::getAvatar)
+                            .gt(User::getId, lastId)
+                            .orderByAsc(User::getId)
+                            .last("LIMIT " + REBUILD_BATCH_SIZE)),
+                    User::getId,
+                    user -> replaceReferences(FileOwnerType.USER_AVATAR, user.getId(), user.getAvatar()));
+
+            int posts = KeysetBatch.forEach(REBUILD_BATCH_SIZE, lastId -> communityPostRepository.selectList(new LambdaQueryWrapper<CommunityPost>()
+                            .select(CommunityPost::getId, CommunityPost::getImages)
+                            .gt(CommunityPost::getId, lastId)
+                            .orderByAsc(CommunityPost::getId)
+                            .last("LIMIT " + REBUILD_BATCH_SIZE)),
+                    CommunityPost::getId,
+                    post -> replaceReferences(FileOwnerType.POST, post.getId(), post.getImages()));
+
+            int knowledge = KeysetBatch.forEach(REBUILD_BATCH_SIZE, lastId -> knowledgeRepository.selectList(new LambdaQueryWrapper<Knowledge>()
+                            .select(Knowledge::getId, Knowledge::getCoverImage, Knowledge::getImages)
+                            .gt(Knowledge::getId, lastId)
+                            .orderByAsc(Knowledge::getId)
+                            .last("LIMIT " + REBUILD_BATCH_SIZE)),
+                    Knowledge::getId,
+                    item -> replaceReferences(FileOwnerType.KNOWLEDGE, item.getId(), item.getCoverImage(), item.getImages()));
+
+            int recognitions = KeysetBatch.forEach(REBUILD_BATCH_SIZE, lastId -> recognitionResultRepository.selectList(new LambdaQueryWrapper<RecognitionResult>()
+                            .select(RecognitionResult::getId, RecognitionResult::getImageUrl, RecognitionResult::getOriginalImageUrl)
+                            .gt(RecognitionResult::getId, lastId)
+                            .orderByAsc(RecognitionResult::getId)
+                            .last("LIMIT " + REBUILD_BATCH_SIZE)),
+                    RecognitionResult::getId,
+                    result -> replaceReferences(FileOwnerType.RECOGNITION, result.getId(), result.getImageUrl(), result.getOriginalImageUrl()));
+
+            int dangling = fileReferenceRepository.deleteDanglingAvatarReferences()
+                    + fileReferenceRepository.deleteDanglingPostReferences()
+                    + fileReferenceRepository.deleteDanglingKnowledgeReferences()
+                    + fileReferenceRepository.deleteDanglingRecognitionReferences();
+
+            log.info("文件引用重建完成: users={}, posts={}, knowledge={}, recognitions={}, dangling={}, time={}ms",
+                    users, posts, knowledge, recognitions, dangling, System.currentTimeMillis() - startTime);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("users", users);
+            result.put("posts", posts);
+            result.put("knowledge", knowledge);
+            result.put("recognitions", recognitions);
+            result.put("dangling", dangling);
+            return result;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 解析图片字段（单个URL、逗号分隔或JSON数组）
+     */
+    public List<String> parseUrls(String fieldValue) {
+        if (fieldValue == null || fieldValue.isBlank()) {
+            return Collections.emptyList();
+        }
+
+        String value = fieldValue.trim();
+        if (value.startsWith("[")) {
+            try {
+                return objectMapper.readValue(value, new TypeReference<List<String>>() {});
+            } catch (Exception e) {
+                log.debug("图片字段不是有效的JSON数组，按逗号分隔解析: {}", value);
+                value = value.replace("[", "").replace("]", "").replace("\"", "");
+            }
+        }
+
+        List<String> urls = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (!part.isBlank()) {
+                urls.add(part.trim());
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * 文件标识：去除查询参数，本地文件再去除域名，使相对地址和绝对地址一致
+     */
+    public String fileKey(String url) {
+        if (url == null || url.isBlank()) {
+            return null;
+        }
+
+        String key = url.trim();
+        int queryIndex = key.indexOf('?');
+        if (queryIndex >= 0) {
+            key = key.substring(0, queryIndex);
+        }
+        int localIndex = key.indexOf(LOCAL_URL_MARKER);
+        if (localIndex > 0) {
+            key = key.substring(localIndex);
+        }
+
+        if (key.isEmpty() || key.length() > MAX_FILE_KEY_LENGTH) {
+            log.debug("忽略无法记录的文件地址: {}", url);
+            return null;
+        }
+        return key;
+    }
+
+    /**
+     * 按文件标识分组（不同写法的URL可能对应同一文件）
+     */
+    private Map<String, List<String>> groupByFileKey(Collection<String> urls) {
+        Map<String, List<String>> keyToUrls = new HashMap<>();
+        for (String url : urls) {
+            String fileKey = fileKey(url);
+            if (fileKey != null) {
+                keyToUrls.computeIfAbsent(fileKey, key -> new ArrayList<>()).add(url);
+            }
+        }
+        return keyToUrls;
+    }
+}
@@ -5,18 +5,40 @@ import com.pengcunfu.recognition.constant.FileConstants;
 import com.pengcunfu.recognition.exception.BusinessException;
 import com.pengcunfu.recognition.exception.FileException;
 import com.pengcunfu.recognition.util.FileUtil;
+import com.pengcunfu.recognition.util.SizeLimitInputStream;
 import com.pengcunfu.recognition.util.TosUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 文件服务
@@ -27,8 +49,15 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class FileService {
 
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    // 识别图片类型需要的文件头长度
+    private static final int MAGIC_BYTES_LENGTH = 12;
+
     private final TosUtil tosUtil;
     private final FileUtil fileUtil;
+    private final ImageVariantService imageVariantService;
+    private final FileManifestService fileManifestService;
 
     @Value("${file.upload.path:./uploads}")
     private String uploadPath;
@@ -36,54 +65,172 @@ public class FileService {
     @Value("${file.upload.use-tos:false}")
     private Boolean useTos;
 
+    @Value("${file.upload.concurrency:4}")
+    private int uploadConcurrency;
+
+    private ExecutorService uploadExecutor;
+
+    /**
+     * 初始化批量上传线程池
+     */
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.uploadExecutor = Executors.newFixedThreadPool(uploadConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "file-upload-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 关闭批量上传线程池
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (uploadExecutor != null) {
+            uploadExecutor.shutdown();
+        }
+    }
+
     /**
      * 上传文件
      */
     public String uploadFile(MultipartFile file, String type) {
+        return storeFile(file, type).getUrl();
+    }
+
+    /**
+     * 保存上传文件
+     * 只读取一次上传内容：读取时同时计算内容哈希、校验实际大小，并直接写入本地文件或临时文件；
+     * 图片先根据文件头识别真实类型，按识别出的类型保存；内容相同的文件只保存一份
+     */
+    public StoredFile storeFile(MultipartFile file, String type) {
         log.info("上传文件: fileName={}, size={}, type={}", 
                 file.getOriginalFilename(), file.getSize(), type);
 
         // 验证文件
         validateFile(file, type);
 
-        try {
-            // 生成文件名
-            String extension = fileUtil.getFileExtension(file.getOriginalFilename());
-            String fileName = UUID.randomUUID().toString().replace("-", "") + "." + extension;
+        boolean image = isImageType(type);
+        String extension = fileUtil.getFileExtension(file.getOriginalFilename());
+        MessageDigest digest = DigestUtils.getSha256Digest();
+
+        try (BufferedInputStream buffered = new BufferedInputStream(file.getInputStream(), STREAM_BUFFER_SIZE)) {
+            if (image) {
+                buffered.mark(MAGIC_BYTES_LENGTH);
+                byte[] header = buffered.readNBytes(MAGIC_BYTES_LENGTH);
+                buffered.reset();
+
+                String detected = fileUtil.detectImageType(header);
+                if (detected == null) {
+                    throw new FileException(ErrorCode.FILE_TYPE_ERROR, "文件内容不是有效的图片");
+                }
+                extension = detected;
+            }
 
-            // 根据日期创建目录
-            String dateDir = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-            String relativePath = dateDir + "/" + fileName;
+            SizeLimitInputStream limited = new SizeLimitInputStream(buffered, maxSize(type));
+            InputStream input = new DigestInputStream(limited, digest);
 
+            String url;
+            String contentHash;
             if (useTos) {
-                // 上传到TOS对象存储
-                String url = tosUtil.uploadFile(file, type);
-                log.info("文件上传成功(TOS): fileName={}, url={}", fileName, url);
-                return url;
-            } else {
-                // 上传到本地文件系统
-                String fullPath = uploadPath + "/" + type + "/" + relativePath;
-                File destFile = new File(fullPath).getAbsoluteFile();
-                
-                // 确保目录存在
-                if (!destFile.getParentFile().exists()) {
-                    boolean created = destFile.getParentFile().mkdirs();
-                    log.debug("创建目录: path={}, success={}", destFile.getParentFile().getAbsolutePath(), created);
+                // 先写入临时文件得到内容哈希，对象key由哈希决定，已存在的内容不再上传
+                Path spool = Files.createTempFile("upload-", "." + extension);
+                boolean spoolHandedOff = false;
+                try {
+                    Files.copy(input, spool, StandardCopyOption.REPLACE_EXISTING);
+                    contentHash = Hex.encodeHexString(digest.digest());
+
+                    String key = tosUtil.buildContentKey(type, contentHash, extension);
+                    boolean exists = tosUtil.exists(key);
+                    if (!exists) {
+                        tosUtil.putFile(spool, key);
+                    }
+                    url = tosUtil.generatePresignedUrl(key);
+                    log.info("文件上传成功(TOS): url={}, deduplicated={}", url, exists);
+
+                    if (!exists && "images".equals(type)) {
+                        // 缩略图在生成线程中读取临时文件，生成结束后删除
+                        imageVariantService.generateAsync(url, spool, true);
+                        spoolHandedOff = true;
+                    }
+                } finally {
+                    if (!spoolHandedOff) {
+                        Files.deleteIfExists(spool);
+                    }
                 }
+            } else {
+                // 上传到本地文件系统，按日期分目录
+                String fileName = UUID.randomUUID().toString().replace("-", "") + "." + extension;
+                String dateDir = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
+                String relativePath = dateDir + "/" + fileName;
+                Path destPath = Paths.get(uploadPath, type, dateDir, fileName).toAbsolutePath();
 
-                file.transferTo(destFile);
-                
-                String url = "/api/v1/files/" + type + "/" + relativePath;
-                log.info("文件上传成功(本地): fileName={}, path={}", fileName, destFile.getAbsolutePath());
-                return url;
+                writeLocal(input, destPath);
+                contentHash = Hex.encodeHexString(digest.digest());
+
+                String existing = fileManifestService.reuseByContentHash(type, contentHash);
+                if (existing != null) {
+                    // 内容相同的文件已存在，复用已有文件（缩略图也已生成）
+                    Files.deleteIfExists(destPath);
+                    url = existing;
+                    log.info("文件上传成功(本地，内容重复): url={}", url);
+                } else {
+                    url = "/api/v1/files/" + type + "/" + relativePath;
+                    fileManifestService.record(url, destPath, contentHash);
+                    log.info("文件上传成功(本地): fileName={}, path={}", fileName, destPath);
+                    if ("images".equals(type)) {
+                        imageVariantService.generateAsync(url, destPath);
+                    }
+                }
             }
 
+            return StoredFile.builder()
+                    .url(url)
+                    .contentHash(contentHash)
+                    .size(limited.getCount())
+                    .extension(extension)
+                    .build();
+
         } catch (IOException e) {
             log.error("文件上传失败: fileName={}", file.getOriginalFilename(), e);
             throw new FileException("文件上传失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 批量上传图片，多个文件并发保存，返回顺序与上传顺序一致
+     */
+    public List<String> uploadImages(MultipartFile[] files) {
+        List<Future<String>> futures = new ArrayList<>(files.length);
+        for (MultipartFile file : files) {
+            futures.add(uploadExecutor.submit(() -> uploadImage(file)));
+        }
+
+        List<String> urls = new ArrayList<>(files.length);
+        RuntimeException failure = null;
+        for (Future<String> future : futures) {
+            try {
+                urls.add(future.get());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause()
+                            : new FileException("文件上传失败: " + e.getCause().getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FileException("文件上传已中断");
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        return urls;
+    }
+
     /**
      * 上传图片
      */
@@ -98,6 +245,33 @@ public class FileService {
         return uploadFile(file, "avatars");
     }
 
+    /**
+     * 写入本地文件，写入失败时删除不完整的文件
+     */
+    private void writeLocal(InputStream input, Path destPath) throws IOException {
+        Files.createDirectories(destPath.getParent());
+        try {
+            Files.copy(input, destPath);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(destPath);
+            throw e;
+        }
+    }
+
+    /**
+     * 是否为图片类型的上传
+     */
+    private boolean isImageType(String type) {
+        return "images".equals(type) || "avatars".equals(type);
+    }
+
+    /**
+     * 上传大小上限
+     */
+    private long maxSize(String type) {
+        return isImageType(type) ? FileConstants.MAX_IMAGE_SIZE : FileConstants.MAX_FILE_SIZE;
+    }
+
     /**
      * 验证文件
      */
@@ -107,9 +281,7 @@ public class FileService {
         }
 
         // 验证文件大小
-        long maxSize = "images".equals(type) || "avatars".equals(type) 
-                ? FileConstants.MAX_IMAGE_SIZE 
-                : FileConstants.MAX_FILE_SIZE;
+        long maxSize = maxSize(type);
 
         if (file.getSize() > maxSize) {
             throw new BusinessException(ErrorCode.INVALID_PARAM, 
@@ -124,7 +296,7 @@ public class FileService {
 
         String extension = fileUtil.getFileExtension(fileName);
         
-        if ("images".equals(type) || "avatars".equals(type)) {
+        if (isImageType(type)) {
             if (!fileUtil.isAllowedImageType(extension)) {
                 throw new BusinessException(ErrorCode.INVALID_PARAM, 
                         "不支持的图片格式，仅支持: " + String.join(", ", FileConstants.ALLOWED_IMAGE_EXTENSIONS));
@@ -139,6 +311,8 @@ public class FileService {
         log.info("删除文件: fileUrl={}", fileUrl);
 
         try {
+            imageVariantService.deleteVariants(fileUrl);
+
             if (useTos && fileUrl.startsWith("http")) {
                 // 从TOS删除
                 tosUtil.deleteFile(fileUrl);
@@ -150,11 +324,38 @@ public class FileService {
                 if (file.exists() && file.delete()) {
                     log.info("文件删除成功(本地): filePath={}", filePath);
                 }
+                fileManifestService.remove(fileUrl);
             }
         } catch (Exception e) {
             log.error("文件删除失败: fileUrl={}", fileUrl, e);
             throw new FileException("文件删除失败: " + e.getMessage());
         }
     }
-}
 
+    /**
+     * 上传结果
+     */
+    @Data
+    @Builder
+    public static class StoredFile {
+        /**
+         * 访问URL
+         */
+        private String url;
+
+        /**
+         * 内容哈希(SHA-256)
+         */
+        private String contentHash;
+
+        /**
+         * 实际大小(字节)
+         */
+        private Long size;
+
+        /**
+         * 扩展名（图片为根据文件头识别出的类型）
+         */
+        private String extension;
+    }
+}
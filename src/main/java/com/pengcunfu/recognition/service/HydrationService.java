@@ -0,0 +1,93 @@
+package com.pengcunfu.recognition.service;
+
+import com.pengcunfu.recognition.entity.User;
+import com.pengcunfu.recognition.enums.TargetType;
+import com.pengcunfu.recognition.repository.UserCollectRepository;
+import com.pengcunfu.recognition.repository.UserLikeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 批量数据填充服务
+ * 列表页先收集整页的ID，作者从用户摘要缓存批量读取，点赞和收藏状态分别用一次IN查询加载，
+ * 每页的查询次数与条数无关
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HydrationService {
+
+    private final UserSummaryService userSummaryService;
+    private final UserLikeRepository userLikeRepository;
+    private final UserCollectRepository userCollectRepository;
+
+    /**
+     * 批量查询用户展示信息（读取用户摘要缓存）
+     *
+     * @return 用户ID -> 用户，不存在的用户不在结果中
+     */
+    public Map<Long, User> findUsers(Collection<Long> userIds) {
+        return userSummaryService.getAll(userIds);
+    }
+
+    /**
+     * 批量查询列表项作者
+     */
+    public <T> Map<Long, User> findUsers(List<T> items, Function<T, Long> userIdGetter) {
+        return findUsers(items.stream().map(userIdGetter).toList());
+    }
+
+    /**
+     * 批量查询用户已点赞的目标
+     */
+    public Set<Long> findLikedTargetIds(Long userId, TargetType targetType, Collection<Long> targetIds) {
+        Set<Long> ids = distinct(targetIds);
+        if (userId == null || ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(userLikeRepository.findTargetIds(userId, targetType.getValue(), ids));
+    }
+
+    /**
+     * 批量查询用户已收藏的目标
+     */
+    public Set<Long> findCollectedTargetIds(Long userId, TargetType targetType, Collection<Long> targetIds) {
+        Set<Long> ids = distinct(targetIds);
+        if (userId == null || ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(userCollectRepository.findTargetIds(userId, targetType.getValue(), ids));
+    }
+
+    /**
+     * 用户展示名称：优先昵称，其次用户名
+     */
+    public static String displayName(User user) {
+        if (user == null) {
+            return null;
+        }
+        return user.getNickname() != null && !user.getNickname().isEmpty()
+                ? user.getNickname()
+                : user.getUsername();
+    }
+
+    private Set<Long> distinct(Collection<Long> ids) {
+        Set<Long> result = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id != null) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+}
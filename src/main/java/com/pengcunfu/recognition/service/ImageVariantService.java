@@ -0,0 +1,411 @@
+package com.pengcunfu.recognition.service;
+
+import com.pengcunfu.recognition.config.ImageVariantConfig;
+import com.pengcunfu.recognition.entity.ImageVariant;
+import com.pengcunfu.recognition.repository.ImageVariantRepository;
+import com.pengcunfu.recognition.util.ImageUtil;
+import com.pengcunfu.recognition.util.TosUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 派生图片服务
+ * 上传图片后异步生成多个固定宽度的缩略图（本地存储或TOS，与原图放在一起），
+ * 列表接口按原图地址批量查询，返回不小于所需宽度的最小缩略图
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageVariantService {
+
+    private static final String LOCAL_URL_PREFIX = "/api/v1/files/";
+
+    private final ImageVariantRepository imageVariantRepository;
+    private final ImageVariantConfig imageVariantConfig;
+    private final TosUtil tosUtil;
+    private final FileManifestService fileManifestService;
+
+    @Value("${file.upload.path:./uploads}")
+    private String uploadPath;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 以内存数据提交、尚未生成完成的原图数据总字节数
+     */
+    private final AtomicLong queuedBytes = new AtomicLong();
+
+    /**
+     * 初始化缩略图生成线程池
+     */
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(
+                imageVariantConfig.getPoolSize(),
+                imageVariantConfig.getPoolSize(),
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(imageVariantConfig.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        log.info("初始化缩略图生成线程池: poolSize={}, queue={}, widths={}",
+                imageVariantConfig.getPoolSize(), imageVariantConfig.getQueueCapacity(), imageVariantConfig.getWidths());
+    }
+
+    /**
+     * 异步生成缩略图，队列已满或排队数据总量超过上限时跳过（列表页回退为原图）
+     * 任务持有完整的原图数据，按字节数限制排队总量，避免大图堆积占满堆内存
+     *
+     * @param sourceUrl 原图URL（列表中保存的图片地址）
+     * @param data      原图数据
+     */
+    public void generateAsync(String sourceUrl, byte[] data) {
+        if (!imageVariantConfig.isEnabled() || sourceUrl == null || data == null || data.length == 0) {
+            return;
+        }
+
+        long size = data.length;
+        long total = queuedBytes.addAndGet(size);
+        if (total > imageVariantConfig.getMaxQueuedBytes()) {
+            queuedBytes.addAndGet(-size);
+            log.warn("缩略图生成排队数据已达上限，跳过: sourceUrl={}, size={}, queuedBytes={}",
+                    sourceUrl, size, total - size);
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(sourceUrl, data);
+                } catch (Exception e) {
+                    log.warn("生成缩略图失败: sourceUrl={}, error={}", sourceUrl, e.getMessage());
+                } finally {
+                    queuedBytes.addAndGet(-size);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queuedBytes.addAndGet(-size);
+            log.warn("缩略图生成队列已满，跳过: sourceUrl={}", sourceUrl);
+        }
+    }
+
+    /**
+     * 异步生成缩略图，原图数据在生成线程中从本地文件读取
+     *
+     * @param sourceUrl 原图URL
+     * @param file      原图本地文件
+     */
+    public void generateAsync(String sourceUrl, Path file) {
+        generateAsync(sourceUrl, file, false);
+    }
+
+    /**
+     * 异步生成缩略图，原图数据在生成线程中从本地文件读取
+     *
+     * @param sourceUrl   原图URL
+     * @param file        原图本地文件
+     * @param deleteAfter 是否在生成结束（或跳过）后删除该文件，用于临时文件
+     */
+    public void generateAsync(String sourceUrl, Path file, boolean deleteAfter) {
+        if (!imageVariantConfig.isEnabled() || sourceUrl == null || file == null) {
+            if (deleteAfter) {
+                deleteQuietly(file);
+            }
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(sourceUrl, Files.readAllBytes(file));
+                } catch (Exception e) {
+                    log.warn("生成缩略图失败: sourceUrl={}, error={}", sourceUrl, e.getMessage());
+                } finally {
+                    if (deleteAfter) {
+                        deleteQuietly(file);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("缩略图生成队列已满，跳过: sourceUrl={}", sourceUrl);
+            if (deleteAfter) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    /**
+     * 生成缩略图
+     * 从大到小依次缩放，每一级都基于上一级结果，只生成比原图窄的宽度
+     */
+    public void generate(String sourceUrl, byte[] data) throws IOException {
+        BufferedImage image = ImageUtil.decode(data);
+        if (image == null) {
+            log.debug("无法解码图片，跳过缩略图: sourceUrl={}", sourceUrl);
+            return;
+        }
+
+        List<Integer> widths = new ArrayList<>(new LinkedHashSet<>(imageVariantConfig.getWidths()));
+        widths.sort(Collections.reverseOrder());
+
+        String sourceHash = sourceHash(sourceUrl);
+        long startTime = System.currentTimeMillis();
+        BufferedImage current = image;
+        int generated = 0;
+
+        for (Integer width : widths) {
+            if (width == null || width <= 0 || current.getWidth() <= width) {
+                continue;
+            }
+
+            current = ImageUtil.scaleToWidth(current, width);
+            byte[] encoded = ImageUtil.encodeJpeg(current, imageVariantConfig.getQuality());
+            String variant = "w" + width;
+            String url = store(sourceUrl, variant, encoded);
+            if (url == null) {
+                return;
+            }
+
+            ImageVariant imageVariant = ImageVariant.builder()
+                    .sourceHash(sourceHash)
+                    .sourceUrl(sourceUrl)
+                    .variant(variant)
+                    .width(current.getWidth())
+                    .height(current.getHeight())
+                    .fileSize(encoded.length)
+                    .url(url)
+                    .build();
+            try {
+                imageVariantRepository.insert(imageVariant);
+                generated++;
+            } catch (DuplicateKeyException e) {
+                log.debug("缩略图已存在: sourceUrl={}, variant={}", sourceUrl, variant);
+            }
+        }
+
+        log.info("缩略图生成完成: sourceUrl={}, size={}x{}, count={}, time={}ms",
+                sourceUrl, image.getWidth(), image.getHeight(), generated, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 批量查询列表页缩略图
+     *
+     * @param sourceUrls 原图URL
+     * @return 原图URL -> 缩略图URL（没有合适缩略图的原图不在结果中）
+     */
+    public Map<String, String> findListThumbnails(Collection<String> sourceUrls) {
+        return findThumbnails(sourceUrls, imageVariantConfig.getListWidth());
+    }
+
+    /**
+     * 批量查询缩略图，每张原图取不小于 minWidth 的最小缩略图
+     *
+     * @param sourceUrls 原图URL
+     * @param minWidth   所需最小宽度
+     * @return 原图URL -> 缩略图URL（没有合适缩略图的原图不在结果中）
+     */
+    public Map<String, String> findThumbnails(Collection<String> sourceUrls, int minWidth) {
+        Map<String, String> hashToUrl = new HashMap<>();
+        for (String sourceUrl : sourceUrls) {
+            if (sourceUrl != null && !sourceUrl.isBlank()) {
+                hashToUrl.put(sourceHash(sourceUrl), sourceUrl);
+            }
+        }
+        if (hashToUrl.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> thumbnails = new HashMap<>();
+        // 结果按原图、宽度升序排列，每张原图取第一个满足宽度的缩略图
+        for (ImageVariant variant : imageVariantRepository.findBySourceHashes(hashToUrl.keySet())) {
+            String sourceUrl = hashToUrl.get(variant.getSourceHash());
+            if (sourceUrl != null && variant.getWidth() >= minWidth && !thumbnails.containsKey(sourceUrl)) {
+                thumbnails.put(sourceUrl, variant.getUrl());
+            }
+        }
+        return thumbnails;
+    }
+
+    /**
+     * 为列表项填充缩略图，没有缩略图时使用原图
+     *
+     * @param items          列表项
+     * @param sourceGetter   获取原图URL
+     * @param thumbnailSetter 设置缩略图URL
+     */
+    public <T> void fillListThumbnails(List<T> items, Function<T, String> sourceGetter, BiConsumer<T, String> thumbnailSetter) {
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+
+        Set<String> sourceUrls = new LinkedHashSet<>();
+        for (T item : items) {
+            String sourceUrl = sourceGetter.apply(item);
+            if (sourceUrl != null && !sourceUrl.isBlank()) {
+                sourceUrls.add(sourceUrl);
+            }
+        }
+
+        Map<String, String> thumbnails;
+        try {
+            thumbnails = findListThumbnails(sourceUrls);
+        } catch (Exception e) {
+            log.warn("查询缩略图失败，使用原图: error={}", e.getMessage());
+            thumbnails = Collections.emptyMap();
+        }
+
+        for (T item : items) {
+            String sourceUrl = sourceGetter.apply(item);
+            if (sourceUrl != null && !sourceUrl.isBlank()) {
+                thumbnailSetter.accept(item, thumbnails.getOrDefault(sourceUrl, sourceUrl));
+            }
+        }
+    }
+
+    /**
+     * 删除原图的全部缩略图
+     */
+    public void deleteVariants(String sourceUrl) {
+        if (sourceUrl == null || sourceUrl.isBlank()) {
+            return;
+        }
+
+        for (ImageVariant variant : imageVariantRepository.findBySourceHash(sourceHash(sourceUrl))) {
+            try {
+                if (variant.getUrl().startsWith(LOCAL_URL_PREFIX)) {
+                    Files.deleteIfExists(localFile(variant.getUrl()).toPath());
+                    fileManifestService.remove(variant.getUrl());
+                } else {
+                    String key = tosUtil.extractKeyFromUrl(variant.getUrl());
+                    if (key != null) {
+                        tosUtil.deleteFile(key);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("删除缩略图文件失败: url={}, error={}", variant.getUrl(), e.getMessage());
+            }
+            imageVariantRepository.deleteById(variant.getId());
+        }
+    }
+
+    /**
+     * 原图地址哈希（去除查询参数，TOS预签名地址刷新后仍能命中）
+     */
+    public String sourceHash(String sourceUrl) {
+        return DigestUtils.sha256Hex(stripQuery(sourceUrl));
+    }
+
+    /**
+     * 保存缩略图，与原图放在同一目录
+     *
+     * @return 缩略图URL，原图地址无法识别时返回 null
+     */
+    private String store(String sourceUrl, String variant, byte[] data) throws IOException {
+        String path = stripQuery(sourceUrl);
+
+        if (path.startsWith(LOCAL_URL_PREFIX)) {
+            int lastDotIndex = path.lastIndexOf('.');
+            String basePath = lastDotIndex > path.lastIndexOf('/') ? path.substring(0, lastDotIndex) : path;
+            String url = basePath + "_" + variant + ".jpg";
+
+            File destFile = localFile(url);
+            if (!destFile.getParentFile().exists()) {
+                destFile.getParentFile().mkdirs();
+            }
+            Files.write(destFile.toPath(), data);
+            fileManifestService.record(url, destFile.toPath(), DigestUtils.sha256Hex(data));
+            return url;
+        }
+
+        if (path.startsWith("http")) {
+            return tosUtil.uploadVariant(sourceUrl, variant, data, "jpg");
+        }
+
+        log.debug("无法识别的图片地址，跳过缩略图: sourceUrl={}", sourceUrl);
+        return null;
+    }
+
+    /**
+     * 删除临时文件，失败时只记录日志
+     */
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除临时文件失败: file={}, error={}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 本地文件URL对应的磁盘文件
+     */
+    private File localFile(String url) {
+        return new File(uploadPath + "/" + url.substring(LOCAL_URL_PREFIX.length())).getAbsoluteFile();
+    }
+
+    /**
+     * 去除URL中的查询参数
+     */
+    private String stripQuery(String url) {
+        int queryIndex = url.indexOf('?');
+        return queryIndex >= 0 ? url.substring(0, queryIndex) : url;
+    }
+
+    /**
+     * 关闭缩略图生成线程池
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            log.info("缩略图生成线程池已关闭");
+        }
+    }
+}
@@ -6,17 +6,21 @@ import com.pengcunfu.recognition.constant.ErrorCode;
 import com.pengcunfu.recognition.entity.Knowledge;
 import com.pengcunfu.recognition.entity.UserLike;
 import com.pengcunfu.recognition.entity.UserCollect;
+import com.pengcunfu.recognition.enums.FileOwnerType;
 import com.pengcunfu.recognition.enums.KnowledgeStatus;
+import com.pengcunfu.recognition.enums.SearchDocType;
+import com.pengcunfu.recognition.enums.TagOwnerType;
 import com.pengcunfu.recognition.enums.TargetType;
 import com.pengcunfu.recognition.exception.BusinessException;
 import com.pengcunfu.recognition.entity.User;
 import com.pengcunfu.recognition.repository.KnowledgeRepository;
 import com.pengcunfu.recognition.repository.UserLikeRepository;
 import com.pengcunfu.recognition.repository.UserCollectRepository;
-import com.pengcunfu.recognition.repository.UserRepository;
 import com.pengcunfu.recognition.request.KnowledgeRequest;
 import com.pengcunfu.recognition.response.KnowledgeResponse;
 import com.pengcunfu.recognition.response.PageResponse;
+import com.pengcunfu.recognition.response.TagResponse;
+import com.pengcunfu.recognition.service.redis.HotDataService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -36,7 +40,13 @@ public class KnowledgeService {
     private final KnowledgeRepository knowledgeRepository;
     private final UserLikeRepository userLikeRepository;
     private final UserCollectRepository userCollectRepository;
-    private final UserRepository userRepository;
+    private final ImageVariantService imageVariantService;
+    private final ViewCountService viewCountService;
+    private final HotDataService hotDataService;
+    private final HydrationService hydrationService;
+    private final FileReferenceService fileReferenceService;
+    private final TagService tagService;
+    private final SearchIndexService searchIndexService;
 
     /**
      * 获取知识列表
@@ -45,32 +55,40 @@ public class KnowledgeService {
             Integer page, Integer size, String category, String keyword) {
         log.info("获取知识列表: page={}, size={}, category={}, keyword={}", page, size, category, keyword);
 
-        Page<Knowledge> pageRequest = new Page<>(page, size);
+        Page<Knowledge> pageResult;
+        if (keyword != null && !keyword.isBlank() && searchIndexService.isReady()) {
+            // 关键词查询走全文索引，按相关度排序
+            pageResult = searchKnowledgePage(keyword, KnowledgeStatus.PUBLISHED.getValue(), category, null, page, size);
+        } else {
+            Page<Knowledge> pageRequest = new Page<>(page, size);
 
-        LambdaQueryWrapper<Knowledge> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(Knowledge::getStatus, KnowledgeStatus.PUBLISHED.getValue());
+            LambdaQueryWrapper<Knowledge> queryWrapper = new LambdaQueryWrapper<>();
+            queryWrapper.eq(Knowledge::getStatus, KnowledgeStatus.PUBLISHED.getValue());
 
-        if (category != null && !category.isEmpty()) {
-            queryWrapper.eq(Knowledge::getCategory, category);
-        }
+            if (category != null && !category.isEmpty()) {
+                queryWrapper.eq(Knowledge::getCategory, category);
+            }
 
-        if (keyword != null && !keyword.isEmpty()) {
-            queryWrapper.and(wrapper -> wrapper
-                    .like(Knowledge::getTitle, keyword)
-                    .or()
-                    .like(Knowledge::getContent, keyword)
-                    .or()
-                    .like(Knowledge::getTags, keyword));
-        }
+            // 索引未就绪时回退到 LIKE 查询
+            if (keyword != null && !keyword.isEmpty()) {
+                queryWrapper.and(wrapper -> wrapper
+                        .like(Knowledge::getTitle, keyword)
+                        .or()
+                        .like(Knowledge::getContent, keyword)
+                        .or()
+                        .like(Knowledge::getTags, keyword));
+            }
 
-        queryWrapper.orderByDesc(Knowledge::getCreatedAt);
+            queryWrapper.orderByDesc(Knowledge::getCreatedAt);
 
-        Page<Knowledge> pageResult = knowledgeRepository.selectPage(pageRequest, queryWrapper);
+            pageResult = knowledgeRepository.selectPage(pageRequest, queryWrapper);
+        }
+
+        java.util.List<KnowledgeResponse.KnowledgeInfo> knowledgeList = convertToKnowledgeInfos(pageResult.getRecords(), null);
+        imageVariantService.fillListThumbnails(knowledgeList, KnowledgeResponse.KnowledgeInfo::getCoverImage, KnowledgeResponse.KnowledgeInfo::setThumbnailUrl);
 
         return PageResponse.<KnowledgeResponse.KnowledgeInfo>builder()
-                .data(pageResult.getRecords().stream()
-                        .map(this::convertToKnowledgeInfo)
-                        .collect(Collectors.toList()))
+                .data(knowledgeList)
                 .total(pageResult.getTotal())
                 .page((int) pageResult.getCurrent())
                 .size((int) pageResult.getSize())
@@ -86,14 +104,19 @@ public class KnowledgeService {
         log.info("管理员获取知识列表: page={}, size={}, status={}, category={}, tag={}, keyword={}", 
                 page, size, status, category, tag, keyword);
 
-        Page<Knowledge> pageRequest = new Page<>(page, size);
-        Page<Knowledge> pageResult = knowledgeRepository.findKnowledgeForAdmin(
-                pageRequest, status, category, tag, keyword);
+        Page<Knowledge> pageResult;
+        if (keyword != null && !keyword.isBlank() && searchIndexService.isReady()) {
+            pageResult = searchKnowledgePage(keyword, status, category, tag, page, size);
+        } else {
+            Page<Knowledge> pageRequest = new Page<>(page, size);
+            pageResult = knowledgeRepository.findKnowledgeForAdmin(pageRequest, status, category, tag, keyword);
+        }
+
+        java.util.List<KnowledgeResponse.KnowledgeInfo> knowledgeList = convertToKnowledgeInfos(pageResult.getRecords(), null);
+        imageVariantService.fillListThumbnails(knowledgeList, KnowledgeResponse.KnowledgeInfo::getCoverImage, KnowledgeResponse.KnowledgeInfo::setThumbnailUrl);
 
         return PageResponse.<KnowledgeResponse.KnowledgeInfo>builder()
-                .data(pageResult.getRecords().stream()
-                        .map(this::convertToKnowledgeInfo)
-                        .collect(Collectors.toList()))
+                .data(knowledgeList)
                 .total(pageResult.getTotal())
                 .page((int) pageResult.getCurrent())
                 .size((int) pageResult.getSize())
@@ -101,6 +124,31 @@ public class KnowledgeService {
                 .build();
     }
 
+    /**
+     * 通过全文索引查询一页知识，按索引返回的相关度顺序加载
+     */
+    private Page<Knowledge> searchKnowledgePage(
+            String keyword, Integer status, String category, String tag, Integer page, Integer size) {
+        Page<Long> idPage = searchIndexService.searchIds(SearchDocType.KNOWLEDGE, keyword, status, category, tag, page, size);
+
+        java.util.List<Knowledge> records = new java.util.ArrayList<>(idPage.getRecords().size());
+        if (!idPage.getRecords().isEmpty()) {
+            java.util.Map<Long, Knowledge> knowledgeMap = knowledgeRepository.selectBatchIds(idPage.getRecords()).stream()
+                    .collect(Collectors.toMap(Knowledge::getId, knowledge -> knowledge));
+            for (Long id : idPage.getRecords()) {
+                Knowledge knowledge = knowledgeMap.get(id);
+                if (knowledge != null) {
+                    records.add(knowledge);
+                }
+            }
+        }
+
+        Page<Knowledge> result = new Page<>(page, size);
+        result.setRecords(records);
+        result.setTotal(idPage.getTotal());
+        return result;
+    }
+
     /**
      * 获取所有分类
      */
@@ -115,34 +163,46 @@ public class KnowledgeService {
     public java.util.List<String> getAllTags() {
         log.info("获取所有知识标签");
         
-        // 获取所有标签原始数据
-        java.util.List<String> rawTags = knowledgeRepository.findAllTagsRaw();
-        
-        // 处理标签：拆分逗号分隔的标签，去重
-        java.util.Set<String> tagSet = new java.util.HashSet<>();
-        for (String tags : rawTags) {
-            if (tags != null && !tags.isEmpty()) {
-                String[] tagArray = tags.split(",");
-                for (String tag : tagArray) {
-                    String trimmedTag = tag.trim();
-                    if (!trimmedTag.isEmpty()) {
-                        tagSet.add(trimmedTag);
-                    }
+        // 知识标签计数（增量维护），按名称排序
+        java.util.List<String> tagList = tagService.getTagCounts(TagOwnerType.KNOWLEDGE).stream()
+                .map(TagResponse.TagCount::getName)
+                .sorted()
+                .collect(Collectors.toList());
+
+        return tagList;
+    }
+
+    /**
+     * 获取热门知识（按时间衰减热度排序，排行只读Redis）
+     */
+    public java.util.List<KnowledgeResponse.KnowledgeInfo> getHotKnowledge(Integer limit) {
+        log.info("获取热门知识: limit={}", limit);
+
+        if (limit == null || limit <= 0) {
+            limit = 5;
+        }
+
+        // 多取一些，跳过已删除或未发布的知识
+        java.util.List<Long> hotIds = hotDataService.getHotIds(TargetType.KNOWLEDGE, limit * 2);
+        java.util.List<Knowledge> hotKnowledge = new java.util.ArrayList<>(limit);
+        if (!hotIds.isEmpty()) {
+            java.util.Map<Long, Knowledge> knowledgeMap = knowledgeRepository.selectBatchIds(hotIds).stream()
+                    .filter(knowledge -> KnowledgeStatus.PUBLISHED.getValue().equals(knowledge.getStatus()))
+                    .collect(Collectors.toMap(Knowledge::getId, knowledge -> knowledge));
+            for (Long id : hotIds) {
+                Knowledge knowledge = knowledgeMap.get(id);
+                if (knowledge != null && hotKnowledge.size() < limit) {
+                    hotKnowledge.add(knowledge);
                 }
             }
         }
-        
-        // 转换为列表并排序
-        java.util.List<String> tagList = new java.util.ArrayList<>(tagSet);
-        java.util.Collections.sort(tagList);
-        
-        return tagList;
+
+        return convertToKnowledgeInfos(hotKnowledge, null);
     }
 
     /**
      * 获取知识详情
      */
-    @Transactional
     public KnowledgeResponse.KnowledgeInfo getKnowledgeDetail(Long knowledgeId, Long userId) {
         log.info("获取知识详情: knowledgeId={}, userId={}", knowledgeId, userId);
 
@@ -152,9 +212,9 @@ public class KnowledgeService {
             throw new BusinessException(ErrorCode.NOT_FOUND, "知识条目不存在");
         }
 
-        // 增加浏览量
-        knowledge.setViewCount(knowledge.getViewCount() + 1);
-        knowledgeRepository.updateById(knowledge);
+        // 增加浏览量（只写Redis，定时批量写入数据库）
+        viewCountService.recordView(TargetType.KNOWLEDGE, knowledgeId);
+        hotDataService.recordView(TargetType.KNOWLEDGE, knowledgeId);
 
         return convertToKnowledgeInfo(knowledge, userId);
     }
@@ -181,6 +241,10 @@ public class KnowledgeService {
                 .build();
 
         knowledgeRepository.insert(knowledge);
+        fileReferenceService.replaceReferences(FileOwnerType.KNOWLEDGE, knowledge.getId(),
+                knowledge.getCoverImage(), knowledge.getImages());
+        tagService.replaceTags(TagOwnerType.KNOWLEDGE, knowledge.getId(), knowledge.getTags(), true);
+        searchIndexService.reindexAfterCommit(SearchDocType.KNOWLEDGE, knowledge.getId());
 
         log.info("知识条目创建成功: id={}", knowledge.getId());
         return knowledge.getId();
@@ -219,6 +283,14 @@ public class KnowledgeService {
         }
 
         knowledgeRepository.updateById(knowledge);
+        if (request.getCoverImage() != null || request.getImages() != null) {
+            fileReferenceService.replaceReferences(FileOwnerType.KNOWLEDGE, knowledgeId,
+                    knowledge.getCoverImage(), knowledge.getImages());
+        }
+        if (request.getTags() != null) {
+            tagService.replaceTags(TagOwnerType.KNOWLEDGE, knowledgeId, knowledge.getTags(), true);
+        }
+        searchIndexService.reindexAfterCommit(SearchDocType.KNOWLEDGE, knowledgeId);
 
         log.info("知识条目更新成功: knowledgeId={}", knowledgeId);
     }
@@ -238,6 +310,7 @@ public class KnowledgeService {
 
         knowledge.setStatus(KnowledgeStatus.PUBLISHED.getValue());
         knowledgeRepository.updateById(knowledge);
+        searchIndexService.reindexAfterCommit(SearchDocType.KNOWLEDGE, knowledgeId);
 
         log.info("知识条目审核通过: knowledgeId={}", knowledgeId);
     }
@@ -257,6 +330,9 @@ public class KnowledgeService {
 
         knowledge.setStatus(KnowledgeStatus.REJECTED.getValue());
         knowledgeRepository.updateById(knowledge);
+        searchIndexService.reindexAfterCommit(SearchDocType.KNOWLEDGE, knowledgeId);
+
+        hotDataService.removeHot(TargetType.KNOWLEDGE, knowledgeId);
 
         log.info("知识条目审核拒绝: knowledgeId={}", knowledgeId);
     }
@@ -313,6 +389,11 @@ public class KnowledgeService {
         }
 
         knowledgeRepository.deleteById(knowledgeId);
+        fileReferenceService.removeReferences(FileOwnerType.KNOWLEDGE, knowledgeId);
+        tagService.removeTags(TagOwnerType.KNOWLEDGE, knowledgeId);
+        searchIndexService.reindexAfterCommit(SearchDocType.KNOWLEDGE, knowledgeId);
+
+        hotDataService.removeHot(TargetType.KNOWLEDGE, knowledgeId);
 
         log.info("知识条目删除成功: knowledgeId={}", knowledgeId);
     }
@@ -354,6 +435,8 @@ public class KnowledgeService {
         knowledge.setLikeCount(knowledge.getLikeCount() + 1);
         knowledgeRepository.updateById(knowledge);
 
+        hotDataService.recordLike(TargetType.KNOWLEDGE, knowledgeId);
+
         log.info("点赞成功: userId={}, knowledgeId={}", userId, knowledgeId);
     }
 
@@ -384,6 +467,8 @@ public class KnowledgeService {
             knowledgeRepository.updateById(knowledge);
         }
 
+        hotDataService.cancelLike(TargetType.KNOWLEDGE, knowledgeId, like.getCreatedAt());
+
         log.info("取消点赞成功: userId={}, knowledgeId={}", userId, knowledgeId);
     }
 
@@ -424,6 +509,8 @@ public class KnowledgeService {
         knowledge.setCollectCount(knowledge.getCollectCount() + 1);
         knowledgeRepository.updateById(knowledge);
 
+        hotDataService.recordCollect(TargetType.KNOWLEDGE, knowledgeId);
+
         log.info("收藏成功: userId={}, knowledgeId={}", userId, knowledgeId);
     }
 
@@ -454,6 +541,8 @@ public class KnowledgeService {
             knowledgeRepository.updateById(knowledge);
         }
 
+        hotDataService.cancelCollect(TargetType.KNOWLEDGE, knowledgeId, collect.getCreatedAt());
+
         log.info("取消收藏成功: userId={}, knowledgeId={}", userId, knowledgeId);
     }
 
@@ -468,43 +557,38 @@ public class KnowledgeService {
      * 转换为知识信息 DTO(带用户ID,用于查询点赞和收藏状态)
      */
     private KnowledgeResponse.KnowledgeInfo convertToKnowledgeInfo(Knowledge knowledge, Long userId) {
-        // 查询当前用户的点赞和收藏状态
-        Boolean isLiked = false;
-        Boolean isCollected = false;
-
-        if (userId != null) {
-            // 查询是否已点赞
-            UserLike like = userLikeRepository.selectOne(
-                    new LambdaQueryWrapper<UserLike>()
-                            .eq(UserLike::getUserId, userId)
-                            .eq(UserLike::getTargetId, knowledge.getId())
-                            .eq(UserLike::getTargetType, TargetType.KNOWLEDGE.getValue())
-            );
-            isLiked = (like != null);
-
-            // 查询是否已收藏
-            UserCollect collect = userCollectRepository.selectOne(
-                    new LambdaQueryWrapper<UserCollect>()
-                            .eq(UserCollect::getUserId, userId)
-                            .eq(UserCollect::getTargetId, knowledge.getId())
-                            .eq(UserCollect::getTargetType, TargetType.KNOWLEDGE.getValue())
-            );
-            isCollected = (collect != null);
-        }
+        return convertToKnowledgeInfos(java.util.List.of(knowledge), userId).get(0);
+    }
 
-        // 查询作者信息
-        String authorName = null;
-        String authorAvatar = null;
-        if (knowledge.getAuthorId() != null) {
-            User author = userRepository.selectById(knowledge.getAuthorId());
-            if (author != null) {
-                // 优先使用昵称,如果没有则使用用户名
-                authorName = author.getNickname() != null && !author.getNickname().isEmpty() 
-                    ? author.getNickname() 
-                    : author.getUsername();
-                authorAvatar = author.getAvatar();
-            }
+    /**
+     * 批量转换为知识信息 DTO
+     * 作者、点赞状态、收藏状态和未写入的浏览量各一次批量查询，在内存中组装
+     */
+    private java.util.List<KnowledgeResponse.KnowledgeInfo> convertToKnowledgeInfos(
+            java.util.List<Knowledge> knowledgeList, Long userId) {
+        java.util.List<Long> knowledgeIds = knowledgeList.stream().map(Knowledge::getId).collect(Collectors.toList());
+        java.util.Map<Long, User> authors = hydrationService.findUsers(knowledgeList, Knowledge::getAuthorId);
+        java.util.Set<Long> likedIds = hydrationService.findLikedTargetIds(userId, TargetType.KNOWLEDGE, knowledgeIds);
+        java.util.Set<Long> collectedIds = hydrationService.findCollectedTargetIds(userId, TargetType.KNOWLEDGE, knowledgeIds);
+        java.util.Map<Long, Long> pendingViews = viewCountService.getPendingDeltas(TargetType.KNOWLEDGE, knowledgeIds);
+
+        java.util.List<KnowledgeResponse.KnowledgeInfo> result = new java.util.ArrayList<>(knowledgeList.size());
+        for (Knowledge knowledge : knowledgeList) {
+            result.add(buildKnowledgeInfo(knowledge, authors.get(knowledge.getAuthorId()),
+                    likedIds.contains(knowledge.getId()), collectedIds.contains(knowledge.getId()),
+                    pendingViews.get(knowledge.getId())));
         }
+        return result;
+    }
+
+    /**
+     * 组装知识信息 DTO
+     */
+    private KnowledgeResponse.KnowledgeInfo buildKnowledgeInfo(
+            Knowledge knowledge, User author, Boolean isLiked, Boolean isCollected, Long pendingViews) {
+        // 优先使用昵称,如果没有则使用用户名
+        String authorName = HydrationService.displayName(author);
+        String authorAvatar = author != null ? author.getAvatar() : null;
 
         return KnowledgeResponse.KnowledgeInfo.builder()
                 .id(knowledge.getId())
@@ -521,7 +605,7 @@ public class KnowledgeService {
                 .authorId(knowledge.getAuthorId())
                 .authorName(authorName)
                 .authorAvatar(authorAvatar)
-                .viewCount(knowledge.getViewCount())
+                .viewCount(ViewCountService.merge(knowledge.getViewCount(), pendingViews))
                 .likeCount(knowledge.getLikeCount())
                 .collectCount(knowledge.getCollectCount())
                 .commentCount(knowledge.getCommentCount())
@@ -2,15 +2,18 @@ package com.pengcunfu.recognition.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pengcunfu.recognition.constant.CacheKeyPrefix;
 import com.pengcunfu.recognition.constant.ErrorCode;
 import com.pengcunfu.recognition.entity.Notification;
 import com.pengcunfu.recognition.entity.User;
 import com.pengcunfu.recognition.enums.NotificationType;
 import com.pengcunfu.recognition.exception.BusinessException;
 import com.pengcunfu.recognition.repository.NotificationRepository;
-import com.pengcunfu.recognition.repository.UserRepository;
+import com.pengcunfu.recognition.response.CursorPageResponse;
 import com.pengcunfu.recognition.response.NotificationResponse;
 import com.pengcunfu.recognition.response.PageResponse;
+import com.pengcunfu.recognition.service.redis.CacheService;
+import com.pengcunfu.recognition.util.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -32,7 +35,8 @@ import java.util.stream.Collectors;
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
-    private final UserRepository userRepository;
+    private final HydrationService hydrationService;
+    private final CacheService cacheService;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // 存储用户的SSE连接
@@ -171,9 +175,7 @@ public class NotificationService {
         Page<Notification> pageResult = notificationRepository.findByUserId(pageRequest, userId, isRead);
 
         return PageResponse.<NotificationResponse.NotificationInfo>builder()
-                .data(pageResult.getRecords().stream()
-                        .map(this::convertToNotificationInfo)
-                        .collect(Collectors.toList()))
+                .data(convertToNotificationInfos(pageResult.getRecords()))
                 .total(pageResult.getTotal())
                 .page((int) pageResult.getCurrent())
                 .size((int) pageResult.getSize())
@@ -181,6 +183,52 @@ public class NotificationService {
                 .build();
     }
 
+    /**
+     * 游标获取用户通知列表
+     * 每页只查询 size+1 条，不统计总数；withTotal 为 true 时返回短时缓存的总数
+     *
+     * @param cursor 上一页返回的游标，首页为空
+     */
+    public CursorPageResponse<NotificationResponse.NotificationInfo> scrollNotifications(
+            Long userId, String cursor, Integer size, Integer isRead, boolean withTotal) {
+        log.info("游标获取通知列表: userId={}, cursor={}, size={}, isRead={}", userId, cursor, size, isRead);
+
+        size = PageCursor.checkSize(size);
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        // 多查一条判断是否还有下一页
+        java.util.List<Notification> notifications = notificationRepository.findByUserIdAfter(
+                userId, isRead,
+                pageCursor != null ? pageCursor.getCreatedAt() : null,
+                pageCursor != null ? pageCursor.getId() : null,
+                size + 1
+        );
+        boolean hasMore = notifications.size() > size;
+        if (hasMore) {
+            notifications = new java.util.ArrayList<>(notifications.subList(0, size));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Notification last = notifications.get(notifications.size() - 1);
+            nextCursor = PageCursor.of(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        Long total = null;
+        if (withTotal) {
+            total = cacheService.getCount(CacheKeyPrefix.PAGE_TOTAL,
+                    "notification:" + userId + ":" + (isRead != null ? isRead : ""),
+                    () -> notificationRepository.countByUserId(userId, isRead));
+        }
+
+        return CursorPageResponse.<NotificationResponse.NotificationInfo>builder()
+                .data(convertToNotificationInfos(notifications))
+                .size(size)
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .total(total)
+                .build();
+    }
+
     /**
      * 标记为已读
      */
@@ -264,15 +312,30 @@ public class NotificationService {
      * 转换为通知信息DTO
      */
     private NotificationResponse.NotificationInfo convertToNotificationInfo(Notification notification) {
+        return convertToNotificationInfos(java.util.List.of(notification)).get(0);
+    }
+
+    /**
+     * 批量转换为通知信息DTO（发送者一次批量查询）
+     */
+    private java.util.List<NotificationResponse.NotificationInfo> convertToNotificationInfos(
+            java.util.List<Notification> notifications) {
+        Map<Long, User> senders = hydrationService.findUsers(notifications, Notification::getSenderId);
+        return notifications.stream()
+                .map(notification -> buildNotificationInfo(notification, senders.get(notification.getSenderId())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 组装通知信息DTO
+     */
+    private NotificationResponse.NotificationInfo buildNotificationInfo(Notification notification, User sender) {
         // 获取发送者信息
         String senderName = null;
         String senderAvatar = null;
-        if (notification.getSenderId() != null) {
-            User sender = userRepository.selectById(notification.getSenderId());
-            if (sender != null) {
-                senderName = sender.getNickname() != null ? sender.getNickname() : sender.getUsername();
-                senderAvatar = sender.getAvatar();
-            }
+        if (sender != null) {
+            senderName = sender.getNickname() != null ? sender.getNickname() : sender.getUsername();
+            senderAvatar = sender.getAvatar();
         }
 
         // 获取类型名称
@@ -0,0 +1,141 @@
+package com.pengcunfu.recognition.service;
+
+import com.pengcunfu.recognition.constant.RedisConstants;
+import com.pengcunfu.recognition.entity.User;
+import com.pengcunfu.recognition.security.UserPrincipal;
+import com.pengcunfu.recognition.service.redis.SessionService;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用户主体服务
+ * 权限校验读取用户角色和状态时依次查询本地缓存、Redis用户信息缓存和用户摘要缓存；
+ * 用户角色、状态或VIP变更后通过Redis发布订阅通知所有实例清除本地缓存
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PrincipalService {
+
+    private final UserSummaryService userSummaryService;
+    private final SessionService sessionService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${security.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${security.principal-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    // 本地缓存：用户ID -> 用户主体
+    private final Map<Long, LocalEntry> localCache = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            try {
+                localCache.remove(Long.valueOf(body));
+                log.debug("收到用户主体失效通知: userId={}", body);
+            } catch (NumberFormatException e) {
+                log.warn("无效的用户主体失效通知: {}", body);
+            }
+        }, new ChannelTopic(RedisConstants.PRINCIPAL_INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 获取用户主体，用户不存在时返回 null
+     */
+    public UserPrincipal getPrincipal(Long userId) {
+        long now = System.currentTimeMillis();
+        LocalEntry entry = localCache.get(userId);
+        if (entry != null && entry.expireAt > now) {
+            return entry.principal;
+        }
+
+        UserPrincipal principal = null;
+        try {
+            principal = sessionService.getCachedUserInfo(userId);
+        } catch (Exception e) {
+            log.warn("读取用户信息缓存失败: userId={}, error={}", userId, e.getMessage());
+        }
+
+        if (principal == null) {
+            User user = userSummaryService.get(userId);
+            if (user == null) {
+                localCache.remove(userId);
+                return null;
+            }
+            principal = new UserPrincipal(user.getId(), user.getUsername(), null, user.getRole(), user.getStatus(), true);
+            try {
+                sessionService.cacheUserInfo(userId, principal);
+            } catch (Exception e) {
+                log.warn("写入用户信息缓存失败: userId={}, error={}", userId, e.getMessage());
+            }
+        }
+
+        if (localCache.size() >= maxSize) {
+            localCache.values().removeIf(item -> item.expireAt <= now);
+        }
+        if (localCache.size() < maxSize) {
+            localCache.put(userId, new LocalEntry(principal, now + ttlSeconds * 1000));
+        }
+        return principal;
+    }
+
+    /**
+     * 用户角色、状态或VIP变更后清除缓存（同时清除其来源用户摘要缓存）
+     * 在事务中调用时延迟到提交之后，避免其他实例在提交前重新加载旧数据
+     */
+    public void invalidate(Long userId) {
+        userSummaryService.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doInvalidate(userId);
+                }
+            });
+        } else {
+            doInvalidate(userId);
+        }
+    }
+
+    /**
+     * 清除本地和Redis缓存，并通知其他实例
+     */
+    private void doInvalidate(Long userId) {
+        localCache.remove(userId);
+        try {
+            sessionService.removeCachedUserInfo(userId);
+            stringRedisTemplate.convertAndSend(RedisConstants.PRINCIPAL_INVALIDATE_CHANNEL, userId.toString());
+        } catch (Exception e) {
+            // 其他实例的本地缓存在过期时间后失效
+            log.warn("清除用户主体缓存失败: userId={}, error={}", userId, e.getMessage());
+        }
+        log.debug("清除用户主体缓存: userId={}", userId);
+    }
+
+    /**
+     * 本地缓存条目
+     */
+    @AllArgsConstructor
+    private static class LocalEntry {
+        private final UserPrincipal principal;
+        private final long expireAt;
+    }
+}
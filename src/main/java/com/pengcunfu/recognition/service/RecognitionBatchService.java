@@ -0,0 +1,160 @@
+package com.pengcunfu.recognition.service;
+
+import com.pengcunfu.recognition.config.ImageRecognitionConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 批量识别服务
+ * 将批次中的图片分发到共享线程池并发识别，单批次并发数由信号量限制，整个批次共用一个截止时间
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecognitionBatchService {
+
+    private final ImageRecognitionConfig imageRecognitionConfig;
+
+    private ExecutorService executor;
+
+    /**
+     * 初始化批量识别线程池
+     */
+    @PostConstruct
+    public void init() {
+        ImageRecognitionConfig.Batch batch = imageRecognitionConfig.getBatch();
+        AtomicInteger threadIndex = new AtomicInteger();
+
+        // 不排队：并发度已由各批次的信号量控制；线程耗尽时拒绝提交，不占用请求线程执行模型调用
+        this.executor = new ThreadPoolExecutor(
+                0,
+                batch.getPoolSize(),
+                60L,
+                TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "recognition-batch-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        log.info("初始化批量识别线程池: poolSize={}, concurrency={}, timeout={}s",
+                batch.getPoolSize(), batch.getConcurrency(), batch.getTimeoutSeconds());
+    }
+
+    /**
+     * 并发执行批量任务
+     * 结果顺序与输入一致；单项失败或超过批次截止时间的任务由 fallback 生成结果，不影响其他任务
+     *
+     * @param inputs   批量输入
+     * @param task     单项任务
+     * @param fallback 单项失败时的结果生成器
+     */
+    public <I, R> List<R> execute(List<I> inputs, Function<I, R> task, BiFunction<I, Throwable, R> fallback) {
+        ImageRecognitionConfig.Batch batch = imageRecognitionConfig.getBatch();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(batch.getTimeoutSeconds());
+        Semaphore permits = new Semaphore(Math.max(1, batch.getConcurrency()));
+
+        List<Future<R>> futures = new ArrayList<>(inputs.size());
+        for (I input : inputs) {
+            futures.add(submit(input, task, permits, deadline));
+        }
+
+        List<R> results = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            I input = inputs.get(i);
+            Future<R> future = futures.get(i);
+            try {
+                if (future == null) {
+                    throw new TimeoutException("批量识别已超时");
+                }
+                long remaining = deadline - System.nanoTime();
+                results.add(future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS));
+            } catch (ExecutionException e) {
+                results.add(fallback.apply(input, e.getCause()));
+            } catch (TimeoutException e) {
+                if (future != null) {
+                    future.cancel(true);
+                }
+                log.warn("批量识别单项超时: input={}", input);
+                results.add(fallback.apply(input, e));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.stream()
+                        .filter(f -> f != null)
+                        .forEach(f -> f.cancel(true));
+                results.add(fallback.apply(input, e));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 获取并发许可后提交单项任务，截止时间内未获得许可时返回 null；
+     * 线程池已满时返回失败的 Future，由调用方按单项失败处理
+     */
+    private <I, R> Future<R> submit(I input, Function<I, R> task, Semaphore permits, long deadline) {
+        try {
+            if (!permits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        try {
+            return executor.submit(() -> {
+                try {
+                    return task.apply(input);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            log.warn("批量识别线程池已满，跳过: input={}", input);
+            return CompletableFuture.failedFuture(new RejectedExecutionException("批量识别繁忙，请稍后重试"));
+        }
+    }
+
+    /**
+     * 关闭线程池
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            log.info("批量识别线程池已关闭");
+        }
+    }
+}
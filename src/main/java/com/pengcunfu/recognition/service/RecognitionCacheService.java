@@ -0,0 +1,186 @@
+package com.pengcunfu.recognition.service;
+
+import com.pengcunfu.recognition.config.ImageRecognitionConfig;
+import com.pengcunfu.recognition.constant.CacheKeyPrefix;
+import com.pengcunfu.recognition.response.CacheResponse;
+import com.pengcunfu.recognition.service.redis.CacheService;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 识别结果缓存服务
+ * 两级缓存（本地 + Redis），键由图片内容哈希、识别类型和提示词指纹组成；
+ * 提示词变化后指纹随之变化，旧缓存不再命中并随过期时间淘汰
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecognitionCacheService {
+
+    private final CacheService cacheService;
+    private final ImageRecognitionConfig imageRecognitionConfig;
+
+    // 本地缓存（LRU）
+    private final Map<String, LocalEntry> localCache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LocalEntry> eldest) {
+            return size() > imageRecognitionConfig.getCache().getLocalMaxSize();
+        }
+    };
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * 构建缓存键，图片哈希为空或缓存未启用时返回 null
+     */
+    public String buildKey(String imageHash, Integer recognitionType, String prompt) {
+        if (!imageRecognitionConfig.getCache().isEnabled() || imageHash == null || imageHash.isEmpty()) {
+            return null;
+        }
+        return imageHash + ":" + recognitionType + ":" + promptFingerprint(prompt);
+    }
+
+    /**
+     * 构建基于图片URL的键（无图片哈希时用于合并相同请求）
+     */
+    public String buildUrlKey(String imageUrl, Integer recognitionType, String prompt) {
+        return "url:" + DigestUtils.sha256Hex(imageUrl) + ":" + recognitionType + ":" + promptFingerprint(prompt);
+    }
+
+    /**
+     * 获取缓存的模型输出
+     */
+    public String get(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (localCache) {
+            LocalEntry entry = localCache.get(key);
+            if (entry != null) {
+                if (entry.expireAt > now) {
+                    hitCount.incrementAndGet();
+                    log.debug("识别结果命中本地缓存: key={}", key);
+                    return entry.value;
+                }
+                localCache.remove(key);
+            }
+        }
+
+        Object value = null;
+        try {
+            value = cacheService.get(CacheKeyPrefix.RECOGNITION_RESULT, key);
+        } catch (Exception e) {
+            log.warn("读取识别结果缓存失败: key={}, error={}", key, e.getMessage());
+        }
+
+        if (value instanceof String) {
+            String cached = (String) value;
+            hitCount.incrementAndGet();
+            putLocal(key, cached);
+            log.debug("识别结果命中Redis缓存: key={}", key);
+            return cached;
+        }
+
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 读取Redis中的共享结果（不计入命中率统计）
+     */
+    public String peek(String key) {
+        try {
+            Object value = cacheService.get(CacheKeyPrefix.RECOGNITION_RESULT, key);
+            return value instanceof String ? (String) value : null;
+        } catch (Exception e) {
+            log.warn("读取识别结果缓存失败: key={}, error={}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 写入缓存
+     */
+    public void put(String key, String value) {
+        if (!imageRecognitionConfig.getCache().isEnabled() || key == null || value == null || value.isBlank()) {
+            return;
+        }
+        putLocal(key, value);
+        try {
+            cacheService.set(CacheKeyPrefix.RECOGNITION_RESULT, key, value);
+        } catch (Exception e) {
+            log.warn("写入识别结果缓存失败: key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 集群模式下向其他实例上等待的相同请求共享结果
+     * 不写本地缓存，Redis中只保留几个轮询周期，不作为识别结果缓存
+     */
+    public void share(String key, String value) {
+        ImageRecognitionConfig.SingleFlight singleFlight = imageRecognitionConfig.getSingleFlight();
+        if (!singleFlight.isCluster() || key == null || value == null || value.isBlank()) {
+            return;
+        }
+        try {
+            cacheService.setWithExpire(CacheKeyPrefix.RECOGNITION_RESULT.getKey(key), value,
+                    Math.max(1000, singleFlight.getPollIntervalMillis() * 4), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("共享识别结果失败: key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public CacheResponse.CacheStats getStats() {
+        long hits = hitCount.get();
+        long misses = missCount.get();
+        long total = hits + misses;
+        long localSize;
+        synchronized (localCache) {
+            localSize = localCache.size();
+        }
+
+        return CacheResponse.CacheStats.builder()
+                .totalKeys(localSize)
+                .hitCount(hits)
+                .missCount(misses)
+                .hitRate(total == 0 ? 0.0 : (double) hits / total)
+                .build();
+    }
+
+    /**
+     * 计算提示词指纹
+     */
+    private String promptFingerprint(String prompt) {
+        return DigestUtils.sha256Hex(prompt == null ? "" : prompt).substring(0, 16);
+    }
+
+    /**
+     * 写入本地缓存
+     */
+    private void putLocal(String key, String value) {
+        long expireAt = System.currentTimeMillis()
+                + TimeUnit.SECONDS.toMillis(imageRecognitionConfig.getCache().getLocalTtlSeconds());
+        synchronized (localCache) {
+            localCache.put(key, new LocalEntry(value, expireAt));
+        }
+    }
+
+    /**
+     * 本地缓存条目
+     */
+    @AllArgsConstructor
+    private static class LocalEntry {
+        private final String value;
+        private final long expireAt;
+    }
+}
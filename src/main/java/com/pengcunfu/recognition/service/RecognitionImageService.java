@@ -0,0 +1,146 @@
+package com.pengcunfu.recognition.service;
+
+import com.pengcunfu.recognition.constant.ErrorCode;
+import com.pengcunfu.recognition.config.ImageRecognitionConfig;
+import com.pengcunfu.recognition.exception.BusinessException;
+import com.pengcunfu.recognition.util.ImageUtil;
+import com.pengcunfu.recognition.util.TosUtil;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * 识别图片服务
+ * 上传原图，并生成缩放、按EXIF方向校正、去除EXIF、重新编码后的识别用图片存放在原图旁边
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecognitionImageService {
+
+    private final TosUtil tosUtil;
+    private final ImageRecognitionConfig imageRecognitionConfig;
+    private final ImageVariantService imageVariantService;
+
+    /**
+     * 上传识别图片
+     *
+     * @param file   上传的图片
+     * @param prefix 存储路径前缀
+     */
+    public UploadedImage upload(MultipartFile file, String prefix) throws IOException {
+        byte[] data = file.getBytes();
+        ImageRecognitionConfig.Preprocess preprocess = imageRecognitionConfig.getPreprocess();
+
+        // 解码前只读文件头中的尺寸，拒绝像素数过大的图片（小文件也可能解压出巨大的位图）
+        Dimension size = null;
+        try {
+            size = ImageUtil.readSize(data);
+        } catch (Exception e) {
+            log.warn("读取图片尺寸失败: fileName={}, error={}", file.getOriginalFilename(), e.getMessage());
+        }
+        if (size != null && (long) size.width * size.height > preprocess.getMaxPixels()) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM,
+                    "图片分辨率过大，像素数不能超过 " + preprocess.getMaxPixels());
+        }
+
+        // 只解码一次，尺寸与缩放都基于该结果（已按EXIF方向校正）
+        BufferedImage image = null;
+        if (size != null) {
+            try {
+                image = ImageUtil.decode(data, preprocess.getMaxPixels());
+            } catch (Exception e) {
+                log.warn("解码图片失败: fileName={}, error={}", file.getOriginalFilename(), e.getMessage());
+            }
+        }
+
+        String originalUrl = tosUtil.uploadFile(file, prefix);
+        String imageUrl = originalUrl;
+
+        if (image != null && needsPreprocess(image, data.length, ImageUtil.readExifOrientation(data))) {
+            try {
+                long startTime = System.currentTimeMillis();
+                BufferedImage scaled = ImageUtil.scaleToMaxEdge(image, preprocess.getMaxEdge());
+                byte[] encoded = ImageUtil.encodeJpeg(scaled, preprocess.getQuality());
+                imageUrl = tosUtil.uploadVariant(originalUrl, "r" + preprocess.getMaxEdge(), encoded, "jpg");
+
+                log.info("识别图片预处理完成: {}x{} {}B -> {}x{} {}B, time={}ms",
+                        image.getWidth(), image.getHeight(), data.length,
+                        scaled.getWidth(), scaled.getHeight(), encoded.length,
+                        System.currentTimeMillis() - startTime);
+            } catch (Exception e) {
+                log.warn("识别图片预处理失败，使用原图: error={}", e.getMessage());
+            }
+        }
+
+        // 历史列表以识别记录中的图片地址查询缩略图，缩略图从原图生成
+        imageVariantService.generateAsync(imageUrl, data);
+
+        return UploadedImage.builder()
+                .originalUrl(originalUrl)
+                .imageUrl(imageUrl)
+                .imageHash(DigestUtils.sha256Hex(data))
+                .imageSize(data.length)
+                .imageWidth(image != null ? image.getWidth() : null)
+                .imageHeight(image != null ? image.getHeight() : null)
+                .build();
+    }
+
+    /**
+     * 是否需要生成识别用图片
+     * 带EXIF旋转的原图总是重新编码，保证提交给模型的像素方向正确
+     */
+    private boolean needsPreprocess(BufferedImage image, long size, int orientation) {
+        ImageRecognitionConfig.Preprocess preprocess = imageRecognitionConfig.getPreprocess();
+        if (!preprocess.isEnabled()) {
+            return false;
+        }
+        boolean withinEdge = Math.max(image.getWidth(), image.getHeight()) <= preprocess.getMaxEdge();
+        return !withinEdge || size > preprocess.getSkipBelowBytes() || orientation > 1;
+    }
+
+    /**
+     * 上传结果
+     */
+    @Data
+    @Builder
+    public static class UploadedImage {
+        /**
+         * 原图URL
+         */
+        private String originalUrl;
+
+        /**
+         * 识别用图片URL（未预处理时与原图相同）
+         */
+        private String imageUrl;
+
+        /**
+         * 原图内容哈希(SHA-256)
+         */
+        private String imageHash;
+
+        /**
+         * 原图大小(字节)
+         */
+        private Integer imageSize;
+
+        /**
+         * 原图宽度
+         */
+        private Integer imageWidth;
+
+        /**
+         * 原图高度
+         */
+        private Integer imageHeight;
+    }
+}
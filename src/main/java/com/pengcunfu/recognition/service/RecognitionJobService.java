@@ -0,0 +1,226 @@
+package com.pengcunfu.recognition.service;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.pengcunfu.recognition.config.ImageRecognitionConfig;
+import com.pengcunfu.recognition.constant.ErrorCode;
+import com.pengcunfu.recognition.entity.RecognitionResult;
+import com.pengcunfu.recognition.enums.RecognitionStatus;
+import com.pengcunfu.recognition.exception.BusinessException;
+import com.pengcunfu.recognition.repository.RecognitionResultRepository;
+import com.pengcunfu.recognition.response.RecognitionResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 识别任务服务
+ * 在独立线程池中执行模型调用，并通过SSE向订阅者推送任务结果；
+ * 任务只在内存队列中，进程退出时未完成的记录由下次启动时的清理标记为失败
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecognitionJobService {
+
+    private final ImageRecognitionConfig imageRecognitionConfig;
+    private final RecognitionResultRepository recognitionResultRepository;
+
+    private ThreadPoolExecutor executor;
+
+    // 存储识别任务的SSE订阅者
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * 初始化识别任务线程池
+     */
+    @PostConstruct
+    public void init() {
+        ImageRecognitionConfig.Job job = imageRecognitionConfig.getJob();
+        AtomicInteger threadIndex = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(
+                job.getCorePoolSize(),
+                job.getMaxPoolSize(),
+                job.getKeepAliveSeconds(),
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(job.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "recognition-job-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        log.info("初始化识别任务线程池: core={}, max={}, queue={}",
+                job.getCorePoolSize(), job.getMaxPoolSize(), job.getQueueCapacity());
+    }
+
+    /**
+     * 启动时把超时仍为待处理的识别记录标记为失败
+     * 这些记录的任务随上次进程退出而丢失，不再会有结果写入，否则会一直显示为处理中
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void failStalePendingJobs() {
+        long timeoutSeconds = imageRecognitionConfig.getJob().getPendingTimeoutSeconds();
+        if (timeoutSeconds <= 0) {
+            return;
+        }
+
+        try {
+            LocalDateTime before = LocalDateTime.now().minusSeconds(timeoutSeconds);
+            int failed = recognitionResultRepository.update(RecognitionResult.builder()
+                            .status(RecognitionStatus.FAILED.getValue())
+                            .errorMessage("识别任务超时未完成")
+                            .build(),
+                    new LambdaUpdateWrapper<RecognitionResult>()
+                            .eq(RecognitionResult::getStatus, RecognitionStatus.PENDING.getValue())
+                            .lt(RecognitionResult::getCreatedAt, before));
+            if (failed > 0) {
+                log.warn("已将超时未完成的识别记录标记为失败: count={}, before={}", failed, before);
+            }
+        } catch (Exception e) {
+            log.warn("清理超时识别记录失败: error={}", e.getMessage());
+        }
+    }
+
+    /**
+     * 提交识别任务
+     *
+     * @param jobId 任务ID（识别记录ID）
+     * @param task  识别任务，返回最终识别结果
+     */
+    public void submit(Long jobId, Supplier<RecognitionResponse.RecognitionInfo> task) {
+        try {
+            executor.execute(() -> {
+                RecognitionResponse.RecognitionInfo info;
+                try {
+                    info = task.get();
+                } catch (Exception e) {
+                    log.error("识别任务执行异常: jobId={}", jobId, e);
+                    info = RecognitionResponse.RecognitionInfo.builder()
+                            .id(jobId)
+                            .errorMessage(e.getMessage())
+                            .build();
+                }
+                publish(jobId, info);
+            });
+            log.debug("识别任务已提交: jobId={}, active={}, queued={}",
+                    jobId, executor.getActiveCount(), executor.getQueue().size());
+        } catch (RejectedExecutionException e) {
+            log.warn("识别任务队列已满: jobId={}", jobId);
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUESTS, "识别任务繁忙，请稍后再试");
+        }
+    }
+
+    /**
+     * 在识别任务线程池中执行任务（结果由任务自行推送）
+     */
+    public void execute(Long jobId, Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("识别任务执行异常: jobId={}", jobId, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("识别任务队列已满: jobId={}", jobId);
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUESTS, "识别任务繁忙，请稍后再试");
+        }
+    }
+
+    /**
+     * 创建流式识别的SSE连接
+     */
+    public SseEmitter createStreamEmitter() {
+        return new SseEmitter(imageRecognitionConfig.getJob().getSubscribeTimeout());
+    }
+
+    /**
+     * 订阅识别任务结果
+     */
+    public SseEmitter subscribe(Long jobId) {
+        SseEmitter emitter = new SseEmitter(imageRecognitionConfig.getJob().getSubscribeTimeout());
+
+        subscribers.computeIfAbsent(jobId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+
+        emitter.onCompletion(() -> removeSubscriber(jobId, emitter));
+        emitter.onTimeout(() -> removeSubscriber(jobId, emitter));
+        emitter.onError(throwable -> removeSubscriber(jobId, emitter));
+
+        log.debug("订阅识别任务: jobId={}", jobId);
+        return emitter;
+    }
+
+    /**
+     * 推送识别任务结果并结束订阅
+     */
+    public void publish(Long jobId, RecognitionResponse.RecognitionInfo info) {
+        List<SseEmitter> emitters = subscribers.remove(jobId);
+        if (emitters == null) {
+            return;
+        }
+
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name("result")
+                        .data(info));
+                emitter.complete();
+            } catch (IOException e) {
+                log.warn("推送识别结果失败: jobId={}", jobId, e);
+                emitter.completeWithError(e);
+            }
+        }
+        log.debug("识别结果已推送: jobId={}, subscribers={}", jobId, emitters.size());
+    }
+
+    /**
+     * 移除订阅者
+     */
+    private void removeSubscriber(Long jobId, SseEmitter emitter) {
+        subscribers.computeIfPresent(jobId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    /**
+     * 关闭线程池
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            log.info("识别任务线程池已关闭");
+        }
+    }
+}
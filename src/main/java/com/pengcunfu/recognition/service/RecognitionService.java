@@ -1,35 +1,49 @@
 package com.pengcunfu.recognition.service;
 
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pengcunfu.recognition.constant.CacheKeyPrefix;
 import com.pengcunfu.recognition.constant.ErrorCode;
 import com.pengcunfu.recognition.entity.RecognitionResult;
 import com.pengcunfu.recognition.entity.User;
+import com.pengcunfu.recognition.enums.FileOwnerType;
 import com.pengcunfu.recognition.enums.RecognitionStatus;
 import com.pengcunfu.recognition.enums.RecognitionType;
+import com.pengcunfu.recognition.enums.SearchDocType;
+import com.pengcunfu.recognition.enums.TagOwnerType;
 import com.pengcunfu.recognition.exception.BusinessException;
 import com.pengcunfu.recognition.exception.RateLimitException;
 import com.pengcunfu.recognition.repository.RecognitionResultRepository;
-import com.pengcunfu.recognition.repository.UserRepository;
+import com.pengcunfu.recognition.repository.TagRelationRepository;
 import com.pengcunfu.recognition.request.RecognitionRequest;
+import com.pengcunfu.recognition.response.CursorPageResponse;
 import com.pengcunfu.recognition.response.PageResponse;
 import com.pengcunfu.recognition.response.RecognitionResponse;
+import com.pengcunfu.recognition.service.redis.CacheService;
 import com.pengcunfu.recognition.service.redis.RateLimitService;
 import com.pengcunfu.recognition.util.DoubaoUtil;
+import com.pengcunfu.recognition.util.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * 图像识别服务
@@ -41,10 +55,20 @@ import java.util.stream.Collectors;
 public class RecognitionService {
 
     private final RecognitionResultRepository recognitionResultRepository;
-    private final UserRepository userRepository;
+    private final UserSummaryService userSummaryService;
     private final RateLimitService rateLimitService;
     private final DoubaoUtil doubaoUtil;
     private final com.pengcunfu.recognition.repository.KnowledgeRepository knowledgeRepository;
+    private final RecognitionJobService recognitionJobService;
+    private final RecognitionBatchService recognitionBatchService;
+    private final RecognitionCacheService recognitionCacheService;
+    private final RecognitionSingleFlightService recognitionSingleFlightService;
+    private final ImageVariantService imageVariantService;
+    private final FileReferenceService fileReferenceService;
+    private final TagService tagService;
+    private final SearchIndexService searchIndexService;
+    private final TagRelationRepository tagRelationRepository;
+    private final CacheService cacheService;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     // 提示词缓存
@@ -115,19 +139,170 @@ public class RecognitionService {
 
     /**
      * 执行图像识别
+     * 识别记录先行插入并提交，模型调用在事务之外执行，避免长时间占用数据库连接
      */
-    @Transactional
     public RecognitionResponse.RecognitionInfo recognizeImage(Long userId, RecognitionRequest.ImageRecognitionRequest request) {
         log.info("执行图像识别: userId={}, imageUrl={}", userId, request.getImageUrl());
 
+        RecognitionResult result = createRecognitionRecord(userId, request);
+        return executeRecognition(result);
+    }
+
+    /**
+     * 提交异步图像识别任务
+     * 立即返回待处理的识别记录，客户端通过记录ID轮询或订阅识别结果
+     */
+    public RecognitionResponse.RecognitionInfo submitRecognitionJob(Long userId, RecognitionRequest.ImageRecognitionRequest request) {
+        log.info("提交图像识别任务: userId={}, imageUrl={}", userId, request.getImageUrl());
+
+        RecognitionResult result = createRecognitionRecord(userId, request);
+        dispatchRecognitionJob(result, () -> executeRecognition(result));
+
+        return convertToRecognitionInfo(result);
+    }
+
+    /**
+     * 订阅识别任务结果
+     */
+    public SseEmitter subscribeRecognitionJob(Long userId, Long resultId) {
+        log.info("订阅识别任务: userId={}, resultId={}", userId, resultId);
+
+        RecognitionResult result = recognitionResultRepository.findByIdAndUserId(resultId, userId);
+        if (result == null) {
+            throw new BusinessException(ErrorCode.NOT_FOUND, "识别记录不存在或无权访问");
+        }
+
+        SseEmitter emitter = recognitionJobService.subscribe(resultId);
+
+        // 任务可能在订阅前已经完成，重新读取记录状态后直接推送
+        RecognitionResult latest = recognitionResultRepository.selectById(resultId);
+        if (latest != null && !RecognitionStatus.PENDING.getValue().equals(latest.getStatus())) {
+            recognitionJobService.publish(resultId, convertToRecognitionInfo(latest));
+        }
+
+        return emitter;
+    }
+
+    /**
+     * 流式图像识别
+     * 模型输出片段通过SSE实时推送（delta 事件），完成后推送最终识别结果（result 事件）并落库
+     */
+    public SseEmitter streamRecognition(Long userId, RecognitionRequest.ImageRecognitionRequest request) {
+        log.info("流式图像识别: userId={}, imageUrl={}", userId, request.getImageUrl());
+
+        RecognitionResult result = createRecognitionRecord(userId, request);
+        return dispatchStream(result, emitter ->
+                executeRecognition(result, prompt -> streamWithCache(result, prompt, emitter)));
+    }
+
+    /**
+     * 流式高级图像识别（VIP功能）
+     */
+    public SseEmitter streamAdvancedRecognition(Long userId, RecognitionRequest.AdvancedRecognitionRequest request) {
+        log.info("流式高级图像识别: userId={}, imageUrl={}, settings={}", userId, request.getImageUrl(), request.getSettings());
+
+        RecognitionResult result = createAdvancedRecognitionRecord(userId, request);
+        String settings = request.getSettings();
+        return dispatchStream(result, emitter ->
+                executeAdvancedRecognition(result, settings, prompt -> streamWithCache(result, prompt, emitter)));
+    }
+
+    /**
+     * 在识别线程池中执行流式识别并通过SSE推送结果
+     */
+    private SseEmitter dispatchStream(RecognitionResult result,
+                                      Function<SseEmitter, RecognitionResponse.RecognitionInfo> task) {
+        SseEmitter emitter = recognitionJobService.createStreamEmitter();
+        sendEvent(emitter, "created", convertToRecognitionInfo(result));
+
+        try {
+            recognitionJobService.execute(result.getId(), () -> {
+                try {
+                    RecognitionResponse.RecognitionInfo info = task.apply(emitter);
+                    sendEvent(emitter, "result", info);
+                } catch (BusinessException e) {
+                    sendEvent(emitter, "error", e.getMessage());
+                }
+                emitter.complete();
+            });
+        } catch (BusinessException e) {
+            result.setStatus(RecognitionStatus.FAILED.getValue());
+            result.setErrorMessage(e.getMessage());
+            recognitionResultRepository.updateById(result);
+            throw e;
+        }
+
+        return emitter;
+    }
+
+    /**
+     * 流式调用模型，缓存命中时一次性推送完整结果
+     */
+    private String streamWithCache(RecognitionResult result, String prompt, SseEmitter emitter) {
+        String cacheKey = recognitionCacheService.buildKey(result.getImageHash(), result.getRecognitionType(), prompt);
+        if (cacheKey != null) {
+            String cached = recognitionCacheService.get(cacheKey);
+            if (cached != null) {
+                result.setIsCached(1);
+                sendEvent(emitter, "delta", cached);
+                return cached;
+            }
+        }
+
+        String aiResult = doubaoUtil.streamRecognizeImage(result.getImageUrl(), prompt,
+                delta -> sendEvent(emitter, "delta", delta));
+        result.setIsCached(0);
+        recognitionCacheService.put(cacheKey, aiResult);
+        return aiResult;
+    }
+
+    /**
+     * 发送SSE事件，客户端断开时忽略（识别继续进行并落库）
+     */
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(name)
+                    .data(data));
+        } catch (Exception e) {
+            log.debug("推送SSE事件失败: event={}, error={}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * 将识别任务派发到识别线程池
+     */
+    private void dispatchRecognitionJob(RecognitionResult result,
+                                        Supplier<RecognitionResponse.RecognitionInfo> task) {
+        try {
+            recognitionJobService.submit(result.getId(), () -> {
+                try {
+                    return task.get();
+                } catch (BusinessException e) {
+                    // 失败状态已写入识别记录
+                    return convertToRecognitionInfo(result);
+                }
+            });
+        } catch (BusinessException e) {
+            result.setStatus(RecognitionStatus.FAILED.getValue());
+            result.setErrorMessage(e.getMessage());
+            recognitionResultRepository.updateById(result);
+            throw e;
+        }
+    }
+
+    /**
+     * 校验用户与限流并创建待处理的识别记录
+     */
+    private RecognitionResult createRecognitionRecord(Long userId, RecognitionRequest.ImageRecognitionRequest request) {
         // 检查用户
-        User user = userRepository.selectById(userId);
+        User user = userSummaryService.get(userId);
         if (user == null) {
             throw new BusinessException(ErrorCode.USER_NOT_FOUND, "用户不存在");
         }
 
         // VIP用户限流检查（更宽松）
-        boolean isVip = user.getVipExpireTime() != null && user.getVipExpireTime().isAfter(LocalDateTime.now());
+        boolean isVip = UserSummaryService.isVip(user);
         int maxCount = isVip ? 100 : 10;
         int timeWindow = 3600; // 1小时
 
@@ -139,6 +314,7 @@ public class RecognitionService {
         RecognitionResult result = RecognitionResult.builder()
                 .userId(userId)
                 .imageUrl(request.getImageUrl())
+                .originalImageUrl(request.getOriginalImageUrl())
                 .imageName(request.getImageName())
                 .imageSize(request.getImageSize())
                 .imageWidth(request.getImageWidth())
@@ -146,20 +322,39 @@ public class RecognitionService {
                 .recognitionType(request.getRecognitionType() != null && request.getRecognitionType() == 1
                         ? RecognitionType.DETAILED.getValue() 
                         : RecognitionType.QUICK.getValue())
+                .imageHash(request.getImageHash())
                 .status(RecognitionStatus.PENDING.getValue())
                 .build();
 
         recognitionResultRepository.insert(result);
+        fileReferenceService.replaceReferences(FileOwnerType.RECOGNITION, result.getId(),
+                result.getImageUrl(), result.getOriginalImageUrl());
+        return result;
+    }
+
+    /**
+     * 调用模型并写回识别结果
+     */
+    private RecognitionResponse.RecognitionInfo executeRecognition(RecognitionResult result) {
+        return executeRecognition(result, prompt -> recognizeWithCache(result, prompt));
+    }
+
+    /**
+     * 使用指定的模型调用方式识别并写回识别结果
+     */
+    private RecognitionResponse.RecognitionInfo executeRecognition(RecognitionResult result,
+                                                                   Function<String, String> modelCall) {
+        Long userId = result.getUserId();
+        boolean isDetailed = RecognitionType.DETAILED.getValue().equals(result.getRecognitionType());
 
         try {
             long startTime = System.currentTimeMillis();
             
             // 调用 AI 识别服务，使用预定义的提示词
-            boolean isDetailed = request.getRecognitionType() != null && request.getRecognitionType() == 1;
             String prompt = isDetailed ? getDetailedPrompt() : getQuickPrompt();
             
             log.info("使用提示词类型: {}", isDetailed ? "详细" : "快速");
-            String aiResult = doubaoUtil.recognizeImage(request.getImageUrl(), prompt);
+            String aiResult = modelCall.apply(prompt);
             
             // 提取JSON格式结果
             String jsonResult = extractJson(aiResult);
@@ -242,7 +437,10 @@ public class RecognitionService {
             result.setStatus(RecognitionStatus.SUCCESS.getValue());
             result.setProcessingTime((int) processingTime);
 
-            recognitionResultRepository.updateById(result);
+            if (!completeRecord(result)) {
+                return discardLateResult(result);
+            }
+            replaceRecognitionTags(result);
 
             log.info("图像识别成功: userId={}, resultId={}, category={}, name={}, confidence={}, time={}ms", 
                     userId, result.getId(), category, name, confidence, processingTime);
@@ -252,15 +450,51 @@ public class RecognitionService {
         } catch (Exception e) {
             log.error("图像识别失败: userId={}, resultId={}", userId, result.getId(), e);
 
-            // 更新为失败状态
+            // 更新为失败状态（记录已被写入最终状态时不覆盖）
             result.setStatus(RecognitionStatus.FAILED.getValue());
             result.setErrorMessage(e.getMessage());
-            recognitionResultRepository.updateById(result);
+            completeRecord(result);
 
             throw new BusinessException(ErrorCode.INTERNAL_ERROR, "图像识别失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 调用模型识别图片，相同图片内容与提示词的结果直接从缓存返回或与进行中的请求合并
+     */
+    private String recognizeWithCache(RecognitionResult result, String prompt) {
+        String cacheKey = recognitionCacheService.buildKey(result.getImageHash(), result.getRecognitionType(), prompt);
+        if (cacheKey != null) {
+            String cached = recognitionCacheService.get(cacheKey);
+            if (cached != null) {
+                log.info("识别结果命中缓存: resultId={}, imageHash={}", result.getId(), result.getImageHash());
+                result.setIsCached(1);
+                return cached;
+            }
+        }
+
+        // 相同图片与提示词的并发请求只调用一次模型
+        String flightKey = cacheKey != null
+                ? cacheKey
+                : recognitionCacheService.buildUrlKey(result.getImageUrl(), result.getRecognitionType(), prompt);
+        AtomicBoolean modelCalled = new AtomicBoolean(false);
+
+        String aiResult = recognitionSingleFlightService.execute(flightKey, () -> {
+            modelCalled.set(true);
+            String output = doubaoUtil.recognizeImage(result.getImageUrl(), prompt);
+            if (cacheKey != null) {
+                recognitionCacheService.put(cacheKey, output);
+            } else {
+                // 未启用缓存或没有图片哈希：只把结果短暂交给其他实例上等待的相同请求
+                recognitionCacheService.share(flightKey, output);
+            }
+            return output;
+        });
+
+        result.setIsCached(modelCalled.get() ? 0 : 1);
+        return aiResult;
+    }
+
     /**
      * 获取识别历史列表
      */
@@ -271,10 +505,13 @@ public class RecognitionService {
         Page<RecognitionResult> pageRequest = new Page<>(page, size);
         Page<RecognitionResult> pageResult = recognitionResultRepository.findByUserId(pageRequest, userId);
 
+        List<RecognitionResponse.RecognitionInfo> records = pageResult.getRecords().stream()
+                .map(this::convertToRecognitionInfo)
+                .collect(Collectors.toList());
+        imageVariantService.fillListThumbnails(records, RecognitionResponse.RecognitionInfo::getImageUrl, RecognitionResponse.RecognitionInfo::setThumbnailUrl);
+
         return PageResponse.<RecognitionResponse.RecognitionInfo>builder()
-                .data(pageResult.getRecords().stream()
-                        .map(this::convertToRecognitionInfo)
-                        .collect(Collectors.toList()))
+                .data(records)
                 .total(pageResult.getTotal())
                 .page((int) pageResult.getCurrent())
                 .size((int) pageResult.getSize())
@@ -282,6 +519,56 @@ public class RecognitionService {
                     .build();
     }
 
+    /**
+     * 游标获取识别历史列表
+     * 每页只查询 size+1 条，不统计总数；withTotal 为 true 时返回短时缓存的总数
+     *
+     * @param cursor 上一页返回的游标，首页为空
+     */
+    public CursorPageResponse<RecognitionResponse.RecognitionInfo> scrollRecognitionHistory(
+            Long userId, String cursor, Integer size, boolean withTotal) {
+        log.info("游标获取识别历史: userId={}, cursor={}, size={}", userId, cursor, size);
+
+        size = PageCursor.checkSize(size);
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        // 多查一条判断是否还有下一页
+        List<RecognitionResult> results = recognitionResultRepository.findByUserIdAfter(
+                userId,
+                pageCursor != null ? pageCursor.getCreatedAt() : null,
+                pageCursor != null ? pageCursor.getId() : null,
+                size + 1
+        );
+        boolean hasMore = results.size() > size;
+        if (hasMore) {
+            results = new ArrayList<>(results.subList(0, size));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            RecognitionResult last = results.get(results.size() - 1);
+            nextCursor = PageCursor.of(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        Long total = null;
+        if (withTotal) {
+            total = cacheService.getCount(CacheKeyPrefix.PAGE_TOTAL, "recognition:" + userId,
+                    () -> recognitionResultRepository.countByUserId(userId));
+        }
+
+        List<RecognitionResponse.RecognitionInfo> records = results.stream()
+                .map(this::convertToRecognitionInfo)
+                .collect(Collectors.toList());
+        imageVariantService.fillListThumbnails(records, RecognitionResponse.RecognitionInfo::getImageUrl, RecognitionResponse.RecognitionInfo::setThumbnailUrl);
+
+        return CursorPageResponse.<RecognitionResponse.RecognitionInfo>builder()
+                .data(records)
+                .size(size)
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .total(total)
+                .build();
+    }
+
     /**
      * 获取识别详情
      */
@@ -311,6 +598,8 @@ public class RecognitionService {
         }
 
         recognitionResultRepository.deleteById(resultId);
+        fileReferenceService.removeReferences(FileOwnerType.RECOGNITION, resultId);
+        tagService.removeTags(TagOwnerType.RECOGNITION, resultId);
 
         log.info("识别记录删除成功: userId={}, resultId={}", userId, resultId);
     }
@@ -355,12 +644,12 @@ public class RecognitionService {
         log.info("获取VIP识别统计数据: userId={}", userId);
 
         // 检查用户VIP权限
-        User user = userRepository.selectById(userId);
+        User user = userSummaryService.get(userId);
         if (user == null) {
             throw new BusinessException(ErrorCode.USER_NOT_FOUND, "用户不存在");
         }
 
-        boolean isVip = user.getVipExpireTime() != null && user.getVipExpireTime().isAfter(LocalDateTime.now());
+        boolean isVip = UserSummaryService.isVip(user);
         if (!isVip) {
             throw new BusinessException(ErrorCode.PERMISSION_DENIED, "VIP统计功能仅限VIP用户使用");
         }
@@ -384,7 +673,7 @@ public class RecognitionService {
         Long categoryCount = recognitionResultRepository.countDistinctCategoriesByUserId(userId);
 
         // 获取标签数量（通过解析所有tags字段）
-        Long tagCount = recognitionResultRepository.countDistinctTagsByUserId(userId);
+        Long tagCount = tagRelationRepository.countDistinctRecognitionTagsByUserId(userId);
 
         return RecognitionResponse.VipRecognitionStats.builder()
                 .totalRecognitions(totalRecognitions)
@@ -418,10 +707,12 @@ public class RecognitionService {
         );
 
         // 限制返回数量为3条
-        return related.stream()
+        List<RecognitionResponse.RecognitionInfo> records = related.stream()
                 .limit(3)
                 .map(this::convertToRecognitionInfo)
                 .collect(Collectors.toList());
+        imageVariantService.fillListThumbnails(records, RecognitionResponse.RecognitionInfo::getImageUrl, RecognitionResponse.RecognitionInfo::setThumbnailUrl);
+        return records;
     }
 
     /**
@@ -480,6 +771,10 @@ public class RecognitionService {
 
         // 保存到知识库
         knowledgeRepository.insert(knowledge);
+        fileReferenceService.replaceReferences(FileOwnerType.KNOWLEDGE, knowledge.getId(),
+                knowledge.getCoverImage(), knowledge.getImages());
+        tagService.replaceTags(TagOwnerType.KNOWLEDGE, knowledge.getId(), knowledge.getTags(), true);
+        searchIndexService.reindexAfterCommit(SearchDocType.KNOWLEDGE, knowledge.getId());
 
         log.info("识别结果已分享到知识库: userId={}, recognitionId={}, knowledgeId={}", 
                 userId, recognitionId, knowledge.getId());
@@ -495,6 +790,7 @@ public class RecognitionService {
                 .id(result.getId())
                 .userId(result.getUserId())
                 .imageUrl(result.getImageUrl())
+                .originalImageUrl(result.getOriginalImageUrl())
                 .imageName(result.getImageName())
                 .imageSize(result.getImageSize())
                 .imageWidth(result.getImageWidth())
@@ -510,6 +806,7 @@ public class RecognitionService {
                 .status(result.getStatus())
                 .errorMessage(result.getErrorMessage())
                 .processingTime(result.getProcessingTime())
+                .isCached(result.getIsCached())
                 .createdAt(result.getCreatedAt())
                 .build();
     }
@@ -517,12 +814,11 @@ public class RecognitionService {
     /**
      * 批量图像识别
      */
-    @Transactional
     public List<RecognitionResponse.RecognitionInfo> batchRecognizeImages(Long userId, RecognitionRequest.BatchRecognitionRequest request) {
         log.info("执行批量图像识别: userId={}, imageCount={}", userId, request.getImageUrls().length);
 
         // 检查用户
-        User user = userRepository.selectById(userId);
+        User user = userSummaryService.get(userId);
         if (user == null) {
             throw new BusinessException(ErrorCode.USER_NOT_FOUND, "用户不存在");
         }
@@ -532,47 +828,66 @@ public class RecognitionService {
             throw new RateLimitException("批量识别操作过于频繁，请稍后再试");
         }
 
-        List<RecognitionResponse.RecognitionInfo> results = new ArrayList<>();
-        
-        // 逐个处理图片
-        for (String imageUrl : request.getImageUrls()) {
+        String[] imageUrls = request.getImageUrls();
+        List<Integer> indexes = IntStream.range(0, imageUrls.length).boxed().collect(Collectors.toList());
+
+        // 识别记录在分发前由当前线程创建：工作线程只写回结果，超时处理不会与工作线程重复插入记录
+        RecognitionResult[] records = new RecognitionResult[imageUrls.length];
+        RuntimeException[] createErrors = new RuntimeException[imageUrls.length];
+        for (int i = 0; i < imageUrls.length; i++) {
+            RecognitionRequest.ImageRecognitionRequest singleRequest = new RecognitionRequest.ImageRecognitionRequest();
+            singleRequest.setImageUrl(imageUrls[i]);
+            singleRequest.setRecognitionType(request.getRecognitionType());
+            singleRequest.setImageHash(valueAt(request.getImageHashes(), i));
+            singleRequest.setOriginalImageUrl(valueAt(request.getOriginalImageUrls(), i));
             try {
-                // 创建单个识别请求
-                RecognitionRequest.ImageRecognitionRequest singleRequest = new RecognitionRequest.ImageRecognitionRequest();
-                singleRequest.setImageUrl(imageUrl);
-                singleRequest.setRecognitionType(request.getRecognitionType());
-                
-                // 执行识别
-                RecognitionResponse.RecognitionInfo result = recognizeImage(userId, singleRequest);
-                results.add(result);
-
-        } catch (Exception e) {
-                log.error("批量识别中单张图片识别失败: userId={}, imageUrl={}, error={}", 
-                    userId, imageUrl, e.getMessage(), e);
-                
-                // 创建失败记录
-                RecognitionResult failedResult = RecognitionResult.builder()
-                        .userId(userId)
-                        .imageUrl(imageUrl)
-                        .recognitionType(request.getRecognitionType())
-                        .status(RecognitionStatus.FAILED.getCode())
-                        .errorMessage("识别失败: " + e.getMessage())
-                        .createdAt(LocalDateTime.now())
-                    .build();
-                
-                recognitionResultRepository.insert(failedResult);
-                
-                results.add(RecognitionResponse.RecognitionInfo.builder()
-                        .id(failedResult.getId())
-                        .userId(userId)
-                        .imageUrl(imageUrl)
-                        .recognitionType(request.getRecognitionType())
-                        .status(RecognitionStatus.FAILED.getCode())
-                        .errorMessage("识别失败: " + e.getMessage())
-                        .createdAt(failedResult.getCreatedAt())
-                        .build());
+                records[i] = createRecognitionRecord(userId, singleRequest);
+            } catch (RuntimeException e) {
+                createErrors[i] = e;
             }
         }
+
+        // 并发处理图片，每张图片的识别结果在完成时单独落库
+        List<RecognitionResponse.RecognitionInfo> results = recognitionBatchService.execute(indexes, i -> {
+            if (records[i] == null) {
+                throw createErrors[i];
+            }
+            return executeRecognition(records[i]);
+        }, (i, e) -> {
+            String imageUrl = imageUrls[i];
+            log.error("批量识别中单张图片识别失败: userId={}, imageUrl={}, error={}", 
+                userId, imageUrl, e.getMessage(), e);
+
+            RecognitionResult record = records[i];
+            if (record != null) {
+                return markBatchItemFailed(record, e);
+            }
+
+            // 创建失败记录
+            RecognitionResult failedResult = RecognitionResult.builder()
+                    .userId(userId)
+                    .imageUrl(imageUrl)
+                    .originalImageUrl(valueAt(request.getOriginalImageUrls(), i))
+                    .recognitionType(request.getRecognitionType())
+                    .status(RecognitionStatus.FAILED.getCode())
+                    .errorMessage("识别失败: " + e.getMessage())
+                    .createdAt(LocalDateTime.now())
+                    .build();
+
+            recognitionResultRepository.insert(failedResult);
+            fileReferenceService.replaceReferences(FileOwnerType.RECOGNITION, failedResult.getId(),
+                    failedResult.getImageUrl(), failedResult.getOriginalImageUrl());
+
+            return RecognitionResponse.RecognitionInfo.builder()
+                    .id(failedResult.getId())
+                    .userId(userId)
+                    .imageUrl(imageUrl)
+                    .recognitionType(request.getRecognitionType())
+                    .status(RecognitionStatus.FAILED.getCode())
+                    .errorMessage("识别失败: " + e.getMessage())
+                    .createdAt(failedResult.getCreatedAt())
+                    .build();
+        });
         
         log.info("批量图像识别完成: userId={}, totalCount={}, successCount={}", 
             userId, results.size(), 
@@ -613,10 +928,13 @@ public class RecognitionService {
 
         Page<RecognitionResult> result = recognitionResultRepository.selectPage(resultPage, queryWrapper);
 
+        List<RecognitionResponse.RecognitionInfo> records = result.getRecords().stream()
+                .map(this::convertToRecognitionInfo)
+                .collect(Collectors.toList());
+        imageVariantService.fillListThumbnails(records, RecognitionResponse.RecognitionInfo::getImageUrl, RecognitionResponse.RecognitionInfo::setThumbnailUrl);
+
         return PageResponse.<RecognitionResponse.RecognitionInfo>builder()
-                .data(result.getRecords().stream()
-                        .map(this::convertToRecognitionInfo)
-                        .collect(Collectors.toList()))
+                .data(records)
                 .total(result.getTotal())
                 .page((int) result.getCurrent())
                 .size((int) result.getSize())
@@ -636,6 +954,8 @@ public class RecognitionService {
         }
 
         recognitionResultRepository.deleteById(recordId);
+        fileReferenceService.removeReferences(FileOwnerType.RECOGNITION, recordId);
+        tagService.removeTags(TagOwnerType.RECOGNITION, recordId);
         log.info("识别记录删除成功: recordId={}", recordId);
     }
 
@@ -651,7 +971,11 @@ public class RecognitionService {
         }
 
         // 逐个删除
-        ids.forEach(id -> recognitionResultRepository.deleteById(id));
+        ids.forEach(id -> {
+            recognitionResultRepository.deleteById(id);
+            fileReferenceService.removeReferences(FileOwnerType.RECOGNITION, id);
+            tagService.removeTags(TagOwnerType.RECOGNITION, id);
+        });
         log.info("批量删除识别记录成功: count={}", ids.size());
     }
 
@@ -661,14 +985,35 @@ public class RecognitionService {
     public RecognitionResponse.RecognitionInfo advancedRecognizeImage(Long userId, RecognitionRequest.AdvancedRecognitionRequest request) {
         log.info("执行高级图像识别: userId={}, imageUrl={}, settings={}", userId, request.getImageUrl(), request.getSettings());
 
+        RecognitionResult result = createAdvancedRecognitionRecord(userId, request);
+        return executeAdvancedRecognition(result, request.getSettings());
+    }
+
+    /**
+     * 提交异步高级识别任务（VIP功能）
+     */
+    public RecognitionResponse.RecognitionInfo submitAdvancedRecognitionJob(Long userId, RecognitionRequest.AdvancedRecognitionRequest request) {
+        log.info("提交高级识别任务: userId={}, imageUrl={}, settings={}", userId, request.getImageUrl(), request.getSettings());
+
+        RecognitionResult result = createAdvancedRecognitionRecord(userId, request);
+        String settings = request.getSettings();
+        dispatchRecognitionJob(result, () -> executeAdvancedRecognition(result, settings));
+
+        return convertToRecognitionInfo(result);
+    }
+
+    /**
+     * 校验VIP权限与限流并创建待处理的高级识别记录
+     */
+    private RecognitionResult createAdvancedRecognitionRecord(Long userId, RecognitionRequest.AdvancedRecognitionRequest request) {
         // 检查用户
-        User user = userRepository.selectById(userId);
+        User user = userSummaryService.get(userId);
         if (user == null) {
             throw new BusinessException(ErrorCode.USER_NOT_FOUND, "用户不存在");
         }
 
         // 检查VIP权限
-        boolean isVip = user.getVipExpireTime() != null && user.getVipExpireTime().isAfter(LocalDateTime.now());
+        boolean isVip = UserSummaryService.isVip(user);
         if (!isVip) {
             throw new BusinessException(ErrorCode.PERMISSION_DENIED, "高级识别功能仅限VIP用户使用");
         }
@@ -685,25 +1030,45 @@ public class RecognitionService {
         RecognitionResult result = RecognitionResult.builder()
                 .userId(userId)
                 .imageUrl(request.getImageUrl())
+                .originalImageUrl(request.getOriginalImageUrl())
                 .imageName(request.getImageName())
                 .imageSize(request.getImageSize())
                 .imageWidth(request.getImageWidth())
                 .imageHeight(request.getImageHeight())
                 .recognitionType(RecognitionType.DETAILED.getValue()) // 高级识别使用详细模式
                 .isAdvanced(1) // 标记为高级识别
+                .imageHash(request.getImageHash())
                 .status(RecognitionStatus.PENDING.getValue())
                 .build();
 
         recognitionResultRepository.insert(result);
+        fileReferenceService.replaceReferences(FileOwnerType.RECOGNITION, result.getId(),
+                result.getImageUrl(), result.getOriginalImageUrl());
+        return result;
+    }
+
+    /**
+     * 使用高级提示词调用模型并写回识别结果
+     */
+    private RecognitionResponse.RecognitionInfo executeAdvancedRecognition(RecognitionResult result, String settings) {
+        return executeAdvancedRecognition(result, settings, prompt -> recognizeWithCache(result, prompt));
+    }
+
+    /**
+     * 使用高级提示词和指定的模型调用方式识别并写回识别结果
+     */
+    private RecognitionResponse.RecognitionInfo executeAdvancedRecognition(RecognitionResult result, String settings,
+                                                                           Function<String, String> modelCall) {
+        Long userId = result.getUserId();
 
         try {
             long startTime = System.currentTimeMillis();
             
             // 构建高级识别提示词
-            String advancedPrompt = buildAdvancedPrompt(request.getSettings());
+            String advancedPrompt = buildAdvancedPrompt(settings);
             
-            log.info("使用高级识别提示词，设置: {}", request.getSettings());
-            String aiResult = doubaoUtil.recognizeImage(request.getImageUrl(), advancedPrompt);
+            log.info("使用高级识别提示词，设置: {}", settings);
+            String aiResult = modelCall.apply(advancedPrompt);
             
             // 提取JSON格式结果
             String jsonResult = extractJson(aiResult);
@@ -762,7 +1127,10 @@ public class RecognitionService {
             result.setStatus(RecognitionStatus.SUCCESS.getValue());
             result.setUpdatedAt(LocalDateTime.now());
 
-            recognitionResultRepository.updateById(result);
+            if (!completeRecord(result)) {
+                return discardLateResult(result);
+            }
+            replaceRecognitionTags(result);
 
             log.info("高级图像识别完成: userId={}, resultId={}, category={}, confidence={}, time={}ms", 
                 userId, result.getId(), category, confidence, processingTime);
@@ -787,6 +1155,7 @@ public class RecognitionService {
                     .description(result.getDescription())
                     .processingTime(result.getProcessingTime())
                     .status(result.getStatus())
+                    .isCached(result.getIsCached())
                     .createdAt(result.getCreatedAt())
                     .build();
 
@@ -797,7 +1166,7 @@ public class RecognitionService {
             result.setStatus(RecognitionStatus.FAILED.getValue());
             result.setErrorMessage(e.getMessage());
             result.setUpdatedAt(LocalDateTime.now());
-            recognitionResultRepository.updateById(result);
+            completeRecord(result);
             
             throw new BusinessException(ErrorCode.INTERNAL_ERROR, "高级图像识别失败: " + e.getMessage());
         }
@@ -810,13 +1179,13 @@ public class RecognitionService {
         log.info("执行批量高级图像识别: userId={}, imageCount={}, settings={}", userId, request.getImageUrls().length, request.getSettings());
 
         // 检查用户
-        User user = userRepository.selectById(userId);
+        User user = userSummaryService.get(userId);
         if (user == null) {
             throw new BusinessException(ErrorCode.USER_NOT_FOUND, "用户不存在");
         }
 
         // 检查VIP权限
-        boolean isVip = user.getVipExpireTime() != null && user.getVipExpireTime().isAfter(LocalDateTime.now());
+        boolean isVip = UserSummaryService.isVip(user);
         if (!isVip) {
             throw new BusinessException(ErrorCode.PERMISSION_DENIED, "批量高级识别功能仅限VIP用户使用");
         }
@@ -826,41 +1195,112 @@ public class RecognitionService {
             throw new RateLimitException("批量高级识别操作过于频繁，请稍后再试");
         }
 
-        List<RecognitionResponse.RecognitionInfo> results = new ArrayList<>();
-        
-        // 逐个处理图片
-        for (String imageUrl : request.getImageUrls()) {
+        String[] imageUrls = request.getImageUrls();
+        List<Integer> indexes = IntStream.range(0, imageUrls.length).boxed().collect(Collectors.toList());
+
+        // 识别记录在分发前由当前线程创建：工作线程只写回结果，超时处理不会与工作线程重复插入记录
+        RecognitionResult[] records = new RecognitionResult[imageUrls.length];
+        RuntimeException[] createErrors = new RuntimeException[imageUrls.length];
+        for (int i = 0; i < imageUrls.length; i++) {
+            RecognitionRequest.AdvancedRecognitionRequest singleRequest = new RecognitionRequest.AdvancedRecognitionRequest();
+            singleRequest.setImageUrl(imageUrls[i]);
+            singleRequest.setRecognitionType(request.getRecognitionType());
+            singleRequest.setSettings(request.getSettings());
+            singleRequest.setImageHash(valueAt(request.getImageHashes(), i));
+            singleRequest.setOriginalImageUrl(valueAt(request.getOriginalImageUrls(), i));
             try {
-                // 创建单个高级识别请求
-                RecognitionRequest.AdvancedRecognitionRequest singleRequest = new RecognitionRequest.AdvancedRecognitionRequest();
-                singleRequest.setImageUrl(imageUrl);
-                singleRequest.setRecognitionType(request.getRecognitionType());
-                singleRequest.setSettings(request.getSettings());
-                
-                // 执行高级识别
-                RecognitionResponse.RecognitionInfo result = advancedRecognizeImage(userId, singleRequest);
-                results.add(result);
-
-            } catch (Exception e) {
-                log.error("批量高级识别中单张图片识别失败: userId={}, imageUrl={}, error={}", 
-                    userId, imageUrl, e.getMessage());
-                
-                // 为失败的图片创建错误记录
-                RecognitionResponse.RecognitionInfo errorResult = RecognitionResponse.RecognitionInfo.builder()
-                        .imageUrl(imageUrl)
-                        .status(RecognitionStatus.FAILED.getValue())
-                        .errorMessage(e.getMessage())
-                        .build();
-                results.add(errorResult);
+                records[i] = createAdvancedRecognitionRecord(userId, singleRequest);
+            } catch (RuntimeException e) {
+                createErrors[i] = e;
             }
         }
 
+        // 并发处理图片，每张图片的识别结果在完成时单独落库
+        List<RecognitionResponse.RecognitionInfo> results = recognitionBatchService.execute(indexes, i -> {
+            if (records[i] == null) {
+                throw createErrors[i];
+            }
+            return executeAdvancedRecognition(records[i], request.getSettings());
+        }, (i, e) -> {
+            String imageUrl = imageUrls[i];
+            log.error("批量高级识别中单张图片识别失败: userId={}, imageUrl={}, error={}", 
+                userId, imageUrl, e.getMessage());
+
+            RecognitionResult record = records[i];
+            if (record != null) {
+                return markBatchItemFailed(record, e);
+            }
+
+            // 为失败的图片创建错误记录
+            return RecognitionResponse.RecognitionInfo.builder()
+                    .imageUrl(imageUrl)
+                    .status(RecognitionStatus.FAILED.getValue())
+                    .errorMessage(e.getMessage())
+                    .build();
+        });
+
         log.info("批量高级图像识别完成: userId={}, total={}, success={}", 
             userId, results.size(), results.stream().mapToInt(r -> r.getStatus() == RecognitionStatus.SUCCESS.getValue() ? 1 : 0).sum());
 
         return results;
     }
 
+    /**
+     * 获取批量请求中与第 i 张图片对应的附加值（内容哈希、原图URL）
+     */
+    private String valueAt(String[] values, int i) {
+        return values != null && i < values.length ? values[i] : null;
+    }
+
+    /**
+     * 标记批量识别中的单项失败（超时或异常），已写入最终结果的记录保持不变
+     * 超时的工作线程可能仍在运行并持有 record，这里只按ID写入失败状态，不修改该对象
+     */
+    private RecognitionResponse.RecognitionInfo markBatchItemFailed(RecognitionResult record, Throwable e) {
+        RecognitionResult failed = RecognitionResult.builder()
+                .id(record.getId())
+                .status(RecognitionStatus.FAILED.getValue())
+                .errorMessage(e instanceof TimeoutException ? "批量识别超时" : e.getMessage())
+                .build();
+        completeRecord(failed);
+
+        RecognitionResult latest = recognitionResultRepository.selectById(record.getId());
+        return convertToRecognitionInfo(latest != null ? latest : record);
+    }
+
+    /**
+     * 写入识别的最终状态，仅当记录仍为待处理时生效
+     * 批量识别超时后，仍在运行的工作线程和超时处理可能同时写入，只有先写入的一方生效
+     *
+     * @return 是否写入成功
+     */
+    private boolean completeRecord(RecognitionResult result) {
+        return recognitionResultRepository.update(result, new LambdaUpdateWrapper<RecognitionResult>()
+                .eq(RecognitionResult::getId, result.getId())
+                .eq(RecognitionResult::getStatus, RecognitionStatus.PENDING.getValue())) > 0;
+    }
+
+    /**
+     * 写入识别记录的标签关联
+     * 识别结果已写入成功状态，标签写入失败只记录日志，不影响本次识别结果（可通过标签重建修复）
+     */
+    private void replaceRecognitionTags(RecognitionResult result) {
+        try {
+            tagService.replaceTags(TagOwnerType.RECOGNITION, result.getId(), result.getTags(), true);
+        } catch (Exception e) {
+            log.warn("写入识别标签失败: resultId={}, tags={}, error={}", result.getId(), result.getTags(), e.getMessage());
+        }
+    }
+
+    /**
+     * 记录已被写入最终状态（如批量识别超时已标记失败）时丢弃本次结果，返回记录的当前状态
+     */
+    private RecognitionResponse.RecognitionInfo discardLateResult(RecognitionResult result) {
+        log.warn("识别记录已是最终状态，丢弃本次识别结果: resultId={}", result.getId());
+        RecognitionResult latest = recognitionResultRepository.selectById(result.getId());
+        return convertToRecognitionInfo(latest != null ? latest : result);
+    }
+
     /**
      * 构建高级识别提示词
      */
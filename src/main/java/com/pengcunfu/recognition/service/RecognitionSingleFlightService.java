@@ -0,0 +1,123 @@
+package com.pengcunfu.recognition.service;
+
+import com.pengcunfu.recognition.config.ImageRecognitionConfig;
+import com.pengcunfu.recognition.constant.ErrorCode;
+import com.pengcunfu.recognition.constant.RedisConstants;
+import com.pengcunfu.recognition.exception.BusinessException;
+import com.pengcunfu.recognition.service.redis.RedisService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 识别请求合并服务
+ * 相同键的并发请求只执行一次模型调用，其余请求等待同一结果；
+ * 集群模式下通过Redis锁合并多实例间的相同请求，非持锁实例从共享结果缓存中读取结果
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecognitionSingleFlightService {
+
+    private final ImageRecognitionConfig imageRecognitionConfig;
+    private final RedisService redisService;
+    private final RecognitionCacheService recognitionCacheService;
+
+    // 进行中的识别请求
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 执行识别请求，相同键的并发请求共享同一结果
+     *
+     * @param key    请求键（图片哈希或URL + 识别类型 + 提示词指纹）
+     * @param loader 模型调用，需自行将结果写入共享结果缓存
+     */
+    public String execute(String key, Supplier<String> loader) {
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            log.info("合并相同识别请求: key={}", key);
+            return await(key, existing);
+        }
+
+        try {
+            String value = imageRecognitionConfig.getSingleFlight().isCluster()
+                    ? loadWithClusterLock(key, loader)
+                    : loader.get();
+            created.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    /**
+     * 等待进行中的请求结果
+     */
+    private String await(String key, CompletableFuture<String> future) {
+        try {
+            return future.get(imageRecognitionConfig.getSingleFlight().getWaitSeconds(), TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new BusinessException(ErrorCode.INTERNAL_ERROR, "图像识别失败: " + e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            log.warn("等待相同识别请求超时: key={}", key);
+            throw new BusinessException(ErrorCode.INTERNAL_ERROR, "识别请求等待超时，请稍后再试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.INTERNAL_ERROR, "识别请求已中断");
+        }
+    }
+
+    /**
+     * 集群模式：获取Redis锁的实例执行模型调用，其他实例轮询共享结果
+     */
+    private String loadWithClusterLock(String key, Supplier<String> loader) {
+        ImageRecognitionConfig.SingleFlight config = imageRecognitionConfig.getSingleFlight();
+        String lockKey = RedisConstants.RECOGNITION_LOCK_KEY + key;
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(config.getWaitSeconds());
+
+        while (System.currentTimeMillis() < deadline) {
+            if (Boolean.TRUE.equals(redisService.setIfAbsent(lockKey, token, config.getLockSeconds(), TimeUnit.SECONDS))) {
+                try {
+                    // 持锁前其他实例可能刚完成识别
+                    String shared = recognitionCacheService.peek(key);
+                    return shared != null ? shared : loader.get();
+                } finally {
+                    redisService.deleteIfEquals(lockKey, token);
+                }
+            }
+
+            String shared = recognitionCacheService.peek(key);
+            if (shared != null) {
+                log.info("使用其他实例的识别结果: key={}", key);
+                return shared;
+            }
+
+            try {
+                Thread.sleep(config.getPollIntervalMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException(ErrorCode.INTERNAL_ERROR, "识别请求已中断");
+            }
+        }
+
+        log.warn("等待其他实例识别结果超时: key={}", key);
+        throw new BusinessException(ErrorCode.INTERNAL_ERROR, "识别请求等待超时，请稍后再试");
+    }
+}
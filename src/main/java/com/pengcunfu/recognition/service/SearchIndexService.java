@@ -0,0 +1,809 @@
+package com.pengcunfu.recognition.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.pengcunfu.recognition.config.SearchConfig;
+import com.pengcunfu.recognition.constant.ErrorCode;
+import com.pengcunfu.recognition.entity.CommunityPost;
+import com.pengcunfu.recognition.entity.Knowledge;
+import com.pengcunfu.recognition.enums.KnowledgeStatus;
+import com.pengcunfu.recognition.enums.PostStatus;
+import com.pengcunfu.recognition.enums.SearchDocType;
+import com.pengcunfu.recognition.exception.BusinessException;
+import com.pengcunfu.recognition.repository.CommunityPostRepository;
+import com.pengcunfu.recognition.repository.KnowledgeRepository;
+import com.pengcunfu.recognition.response.SearchResponse;
+import com.pengcunfu.recognition.util.KeysetBatch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.Facets;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsCollectorManager;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.PassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.search.uhighlight.WholeBreakIterator;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 全文检索服务
+ * 知识库和社区帖子写入本地 Lucene 倒排索引（中文智能分词），按 BM25 相关度排序，
+ * 返回标题/正文高亮片段和分类、标签分面；
+ * 业务写入提交后由单个后台线程从数据库读取最新数据增量更新索引，新内容在刷新间隔内可被搜索到
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchIndexService {
+
+    private static final String FIELD_KEY = "key";
+    private static final String FIELD_TYPE = "type";
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_CONTENT = "content";
+    private static final String FIELD_TAGS = "tags";
+    private static final String FIELD_CATEGORY = "category";
+    private static final String FIELD_TAG = "tag";
+    private static final String FIELD_CREATED_AT = "createdAt";
+
+    private static final float TITLE_BOOST = 3f;
+    private static final float TAGS_BOOST = 2f;
+    private static final int MAX_QUERY_TERMS = 16;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int TASK_QUEUE_CAPACITY = 10000;
+
+    /**
+     * 可搜索文本字段：保存原文并记录偏移量，高亮时无需重新分词
+     */
+    private static final FieldType TEXT_FIELD_TYPE = new FieldType(TextField.TYPE_STORED);
+
+    static {
+        TEXT_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        TEXT_FIELD_TYPE.freeze();
+    }
+
+    private final SearchConfig searchConfig;
+    private final CommunityPostRepository communityPostRepository;
+    private final KnowledgeRepository knowledgeRepository;
+    private final TagService tagService;
+    private final Executor asyncExecutor;
+
+    private final Analyzer analyzer = new SmartChineseAnalyzer();
+    private final FacetsConfig facetsConfig = new FacetsConfig();
+    private final PassageFormatter passageFormatter = new DefaultPassageFormatter("<em>", "</em>", "... ", true);
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+    private final LongAdder indexedCount = new LongAdder();
+    private final LongAdder deletedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    /**
+     * 重建期间收到的增量更新，重建失败回滚后重新提交
+     */
+    private final Set<Map.Entry<SearchDocType, Long>> rebuildUpdates = ConcurrentHashMap.newKeySet();
+
+    private Directory directory;
+    private volatile IndexWriter writer;
+    private volatile SearcherManager searcherManager;
+    private ThreadPoolExecutor indexExecutor;
+    private volatile boolean ready;
+    private volatile long lastCommitMillis = System.currentTimeMillis();
+    private volatile FacetState facetState;
+
+    @PostConstruct
+    public void init() {
+        facetsConfig.setMultiValued(FIELD_TAG, true);
+        try {
+            Path path = Paths.get(searchConfig.getIndexPath());
+            Files.createDirectories(path);
+            directory = FSDirectory.open(path);
+            openWriter();
+            ready = writer.getDocStats().numDocs > 0;
+        } catch (IOException e) {
+            // 索引不可用时关键词查询回退到数据库 LIKE 查询
+            log.error("打开搜索索引失败: path={}, error={}", searchConfig.getIndexPath(), e.getMessage());
+            writer = null;
+            return;
+        }
+
+        indexExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(TASK_QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "search-indexer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        log.info("搜索索引已打开: path={}, ready={}", searchConfig.getIndexPath(), ready);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writer == null) {
+            return;
+        }
+        indexExecutor.shutdown();
+        try {
+            indexExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            searcherManager.close();
+            writer.close();
+            directory.close();
+        } catch (IOException e) {
+            log.warn("关闭搜索索引失败: error={}", e.getMessage());
+        }
+    }
+
+    /**
+     * 索引是否可用于查询（已打开且已完成首次构建）
+     */
+    public boolean isReady() {
+        return writer != null && ready;
+    }
+
+    /**
+     * 在当前事务提交后重新索引指定文档（从数据库读取最新数据，已删除的从索引移除）
+     */
+    public void reindexAfterCommit(SearchDocType type, Long id) {
+        if (writer == null || id == null) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(type, id);
+                }
+            });
+        } else {
+            submit(type, id);
+        }
+    }
+
+    /**
+     * 检索已发布的帖子或知识
+     *
+     * @param typeCode 文档类型，见 {@link SearchDocType}
+     */
+    public SearchResponse.SearchResult searchPublished(Integer typeCode, String keyword, String category,
+                                                       String tag, int page, int size) {
+        SearchDocType type;
+        try {
+            type = SearchDocType.fromCode(typeCode);
+        } catch (IllegalArgumentException e) {
+            type = null;
+        }
+        if (type == null) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM, "无效的搜索类型");
+        }
+
+        Integer status = type == SearchDocType.POST
+                ? PostStatus.PUBLISHED.getValue()
+                : KnowledgeStatus.PUBLISHED.getValue();
+        return search(type, keyword, status, category, tag, page, size);
+    }
+
+    /**
+     * 全文检索，返回高亮片段和分类、标签分面
+     * 分面按关键词、类型和状态统计，不受已选分类、标签影响
+     *
+     * @param status 状态过滤，为 null 时不过滤
+     */
+    public SearchResponse.SearchResult search(SearchDocType type, String keyword, Integer status,
+                                              String category, String tag, int page, int size) {
+        long startTime = System.currentTimeMillis();
+        checkSearchable(page, size);
+
+        Query keywordQuery = buildKeywordQuery(keyword);
+        if (keywordQuery == null) {
+            return SearchResponse.SearchResult.builder()
+                    .data(Collections.emptyList())
+                    .total(0L)
+                    .page(page)
+                    .size(size)
+                    .pages(0)
+                    .categories(Collections.emptyList())
+                    .tags(Collections.emptyList())
+                    .tookMillis(System.currentTimeMillis() - startTime)
+                    .build();
+        }
+        Query baseQuery = buildFilterQuery(keywordQuery, type, status, null, null);
+        Query query = buildFilterQuery(keywordQuery, type, status, category, tag);
+
+        IndexSearcher searcher = acquireSearcher();
+        try {
+            TopDocs topDocs = searcher.search(query, page * size);
+            long total = totalHits(searcher, query, topDocs);
+            ScoreDoc[] pageDocs = pageDocs(topDocs, page, size);
+            TopDocs pageTopDocs = new TopDocs(topDocs.totalHits, pageDocs);
+
+            UnifiedHighlighter titleHighlighter = UnifiedHighlighter.builder(searcher, analyzer)
+                    .withBreakIterator(WholeBreakIterator::new)
+                    .withFormatter(passageFormatter)
+                    .build();
+            UnifiedHighlighter contentHighlighter = UnifiedHighlighter.builder(searcher, analyzer)
+                    .withFormatter(passageFormatter)
+                    .withMaxLength(searchConfig.getHighlightMaxLength())
+                    .build();
+            String[] titles = titleHighlighter.highlight(FIELD_TITLE, keywordQuery, pageTopDocs, 1);
+            String[] snippets = contentHighlighter.highlight(FIELD_CONTENT, keywordQuery, pageTopDocs,
+                    searchConfig.getHighlightPassages());
+
+            StoredFields storedFields = searcher.storedFields();
+            List<SearchResponse.SearchHit> hits = new ArrayList<>(pageDocs.length);
+            for (int i = 0; i < pageDocs.length; i++) {
+                Document doc = storedFields.document(pageDocs[i].doc);
+                hits.add(SearchResponse.SearchHit.builder()
+                        .type(Integer.valueOf(doc.get(FIELD_TYPE)))
+                        .id(doc.getField(FIELD_ID).numericValue().longValue())
+                        .title(titles[i])
+                        .highlight(snippets[i])
+                        .category(doc.get(FIELD_CATEGORY))
+                        .tags(tagService.parseTags(doc.get(FIELD_TAGS)))
+                        .createdAt(toDateTime(doc.getField(FIELD_CREATED_AT)))
+                        .score(pageDocs[i].score)
+                        .build());
+            }
+
+            FacetsCollector facetsCollector = searcher.search(baseQuery, new FacetsCollectorManager());
+            Facets facets = facets(searcher.getIndexReader(), facetsCollector);
+
+            return SearchResponse.SearchResult.builder()
+                    .data(hits)
+                    .total(total)
+                    .page(page)
+                    .size(size)
+                    .pages((int) ((total + size - 1) / size))
+                    .categories(facetValues(facets, FIELD_CATEGORY))
+                    .tags(facetValues(facets, FIELD_TAG))
+                    .tookMillis(System.currentTimeMillis() - startTime)
+                    .build();
+        } catch (IOException e) {
+            log.error("全文检索失败: keyword={}, error={}", keyword, e.getMessage());
+            throw new BusinessException(ErrorCode.INTERNAL_ERROR, "搜索失败");
+        } finally {
+            releaseSearcher(searcher);
+        }
+    }
+
+    /**
+     * 全文检索，只返回按相关度排序的文档ID（供列表接口按ID加载完整数据）
+     *
+     * @param status 状态过滤，为 null 时不过滤
+     */
+    public Page<Long> searchIds(SearchDocType type, String keyword, Integer status,
+                                String category, String tag, int page, int size) {
+        checkSearchable(page, size);
+
+        Page<Long> result = new Page<>(page, size);
+        Query keywordQuery = buildKeywordQuery(keyword);
+        if (keywordQuery == null) {
+            result.setRecords(Collections.emptyList());
+            result.setTotal(0);
+            return result;
+        }
+        Query query = buildFilterQuery(keywordQuery, type, status, category, tag);
+
+        IndexSearcher searcher = acquireSearcher();
+        try {
+            TopDocs topDocs = searcher.search(query, page * size);
+            ScoreDoc[] pageDocs = pageDocs(topDocs, page, size);
+
+            StoredFields storedFields = searcher.storedFields();
+            List<Long> ids = new ArrayList<>(pageDocs.length);
+            for (ScoreDoc scoreDoc : pageDocs) {
+                Document doc = storedFields.document(scoreDoc.doc, Collections.singleton(FIELD_ID));
+                ids.add(doc.getField(FIELD_ID).numericValue().longValue());
+            }
+            result.setRecords(ids);
+            result.setTotal(totalHits(searcher, query, topDocs));
+            return result;
+        } catch (IOException e) {
+            log.error("全文检索失败: keyword={}, error={}", keyword, e.getMessage());
+            throw new BusinessException(ErrorCode.INTERNAL_ERROR, "搜索失败");
+        } finally {
+            releaseSearcher(searcher);
+        }
+    }
+
+    /**
+     * 获取索引状态
+     */
+    public SearchResponse.IndexStats getStats() {
+        return SearchResponse.IndexStats.builder()
+                .ready(isReady())
+                .rebuilding(rebuilding.get())
+                .numDocs(writer != null ? writer.getDocStats().numDocs : 0)
+                .pendingTasks(pendingTasks.get())
+                .indexedCount(indexedCount.sum())
+                .deletedCount(deletedCount.sum())
+                .failedCount(failedCount.sum())
+                .build();
+    }
+
+    /**
+     * 定时刷新可见索引，并按提交间隔持久化；重建期间不刷新，查询继续使用重建前的索引
+     */
+    @Scheduled(fixedDelayString = "${search.refresh-interval-millis:1000}")
+    public void refresh() {
+        if (writer == null || rebuilding.get()) {
+            return;
+        }
+
+        try {
+            searcherManager.maybeRefresh();
+            long now = System.currentTimeMillis();
+            if (now - lastCommitMillis >= searchConfig.getCommitIntervalMillis() && writer.hasUncommittedChanges()) {
+                writer.commit();
+                lastCommitMillis = now;
+            }
+        } catch (IOException e) {
+            log.warn("刷新搜索索引失败: error={}", e.getMessage());
+        }
+    }
+
+    /**
+     * 根据数据库重建全部索引
+     * 先提交已有的增量更新，清空后按ID分批读取帖子和知识写入，完成后一次性提交并切换到新索引；
+     * 任一步失败（包括数据库异常）都回滚到重建前的提交点，查询继续使用原索引
+     */
+    public Map<String, Object> rebuild() {
+        if (writer == null) {
+            throw new BusinessException(ErrorCode.INTERNAL_ERROR, "搜索索引不可用");
+        }
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUESTS, "搜索索引重建正在进行中");
+        }
+
+        rebuildUpdates.clear();
+        try {
+            long startTime = System.currentTimeMillis();
+            writer.commit();
+            lastCommitMillis = startTime;
+            writer.deleteAll();
+
+            int posts = rebuildDocs(SearchDocType.POST, lastId -> communityPostRepository.selectList(new LambdaQueryWrapper<CommunityPost>()
+                            .select(CommunityPost::getId, CommunityPost::getTitle, CommunityPost::getContent,
+                                    CommunityPost::getCategory, CommunityPost::getTags, CommunityPost::getStatus,
+                                    CommunityPost::getCreatedAt)
+                            .gt(CommunityPost::getId, lastId)
+                            .ne(CommunityPost::getStatus, PostStatus.DELETED.getValue())
+                            .orderByAsc(CommunityPost::getId)
+                            .last("LIMIT " + REBUILD_BATCH_SIZE)),
+                    CommunityPost::getId,
+                    this::toDocument);
+
+            int knowledge = rebuildDocs(SearchDocType.KNOWLEDGE, lastId -> knowledgeRepository.selectList(new LambdaQueryWrapper<Knowledge>()
+                            .select(Knowledge::getId, Knowledge::getTitle, Knowledge::getContent,
+                                    Knowledge::getCategory, Knowledge::getTags, Knowledge::getStatus,
+                                    Knowledge::getCreatedAt)
+                            .gt(Knowledge::getId, lastId)
+                            .orderByAsc(Knowledge::getId)
+                            .last("LIMIT " + REBUILD_BATCH_SIZE)),
+                    Knowledge::getId,
+                    this::toDocument);
+
+            writer.commit();
+            lastCommitMillis = System.currentTimeMillis();
+            searcherManager.maybeRefresh();
+            ready = true;
+            rebuildUpdates.clear();
+
+            log.info("搜索索引重建完成: posts={}, knowledge={}, time={}ms",
+                    posts, knowledge, System.currentTimeMillis() - startTime);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("posts", posts);
+            result.put("knowledge", knowledge);
+            result.put("time", System.currentTimeMillis() - startTime);
+            return result;
+        } catch (Exception e) {
+            log.error("搜索索引重建失败，回滚到重建前的索引: error={}", e.getMessage());
+            rollbackRebuild();
+            throw new BusinessException(ErrorCode.INTERNAL_ERROR, "搜索索引重建失败");
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 首次启动（索引为空）时在异步任务线程池中构建索引，构建完成前关键词查询走数据库
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (writer == null || ready) {
+            return;
+        }
+
+        asyncExecutor.execute(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.warn("启动时构建搜索索引失败: error={}", e.getMessage());
+            }
+        });
+    }
+
+    private void openWriter() throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        config.setRAMBufferSizeMB(searchConfig.getRamBufferSizeMb());
+        writer = new IndexWriter(directory, config);
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    /**
+     * 丢弃上次提交之后的全部写入并重新打开索引（rollback 会关闭原写入器），
+     * 随后重新提交重建期间的增量更新
+     */
+    private void rollbackRebuild() {
+        SearcherManager oldSearcherManager = searcherManager;
+        try {
+            writer.rollback();
+            openWriter();
+            oldSearcherManager.close();
+        } catch (IOException e) {
+            // 无法恢复时关闭索引，关键词查询回退到数据库
+            log.error("回滚搜索索引失败: error={}", e.getMessage());
+            writer = null;
+            return;
+        }
+
+        for (Map.Entry<SearchDocType, Long> update : rebuildUpdates) {
+            enqueue(update.getKey(), update.getValue());
+        }
+        rebuildUpdates.clear();
+    }
+
+    private void submit(SearchDocType type, Long id) {
+        if (rebuilding.get()) {
+            rebuildUpdates.add(Map.entry(type, id));
+        }
+        enqueue(type, id);
+    }
+
+    private void enqueue(SearchDocType type, Long id) {
+        pendingTasks.incrementAndGet();
+        try {
+            indexExecutor.execute(() -> {
+                try {
+                    reindex(type, id);
+                } finally {
+                    pendingTasks.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingTasks.decrementAndGet();
+            failedCount.increment();
+            log.warn("索引任务队列已满，跳过: type={}, id={}", type, id);
+        }
+    }
+
+    private void reindex(SearchDocType type, Long id) {
+        try {
+            Document doc = null;
+            if (type == SearchDocType.POST) {
+                CommunityPost post = communityPostRepository.selectById(id);
+                if (post != null && !PostStatus.DELETED.getValue().equals(post.getStatus())) {
+                    doc = toDocument(post);
+                }
+            } else {
+                Knowledge knowledge = knowledgeRepository.selectById(id);
+                if (knowledge != null) {
+                    doc = toDocument(knowledge);
+                }
+            }
+
+            Term key = new Term(FIELD_KEY, key(type, id));
+            if (doc != null) {
+                writer.updateDocument(key, doc);
+                indexedCount.increment();
+            } else {
+                writer.deleteDocuments(key);
+                deletedCount.increment();
+            }
+        } catch (Exception e) {
+            failedCount.increment();
+            log.warn("更新搜索索引失败: type={}, id={}, error={}", type, id, e.getMessage());
+        }
+    }
+
+    private Document toDocument(CommunityPost post) throws IOException {
+        return toDocument(SearchDocType.POST, post.getId(), post.getStatus(), post.getTitle(), post.getContent(),
+                post.getCategory(), post.getTags(), post.getCreatedAt());
+    }
+
+    private Document toDocument(Knowledge knowledge) throws IOException {
+        return toDocument(SearchDocType.KNOWLEDGE, knowledge.getId(), knowledge.getStatus(), knowledge.getTitle(),
+                knowledge.getContent(), knowledge.getCategory(), knowledge.getTags(), knowledge.getCreatedAt());
+    }
+
+    private Document toDocument(SearchDocType type, Long id, Integer status, String title, String content,
+                                String category, String tagsValue, LocalDateTime createdAt) throws IOException {
+        Document doc = new Document();
+        doc.add(new StringField(FIELD_KEY, key(type, id), Field.Store.NO));
+        doc.add(new StringField(FIELD_TYPE, String.valueOf(type.getValue()), Field.Store.YES));
+        doc.add(new StoredField(FIELD_ID, id));
+        if (status != null) {
+            doc.add(new StringField(FIELD_STATUS, String.valueOf(status), Field.Store.NO));
+        }
+        if (title != null) {
+            doc.add(new Field(FIELD_TITLE, title, TEXT_FIELD_TYPE));
+        }
+        if (content != null) {
+            doc.add(new Field(FIELD_CONTENT, content, TEXT_FIELD_TYPE));
+        }
+        if (category != null && !category.isEmpty()) {
+            doc.add(new StringField(FIELD_CATEGORY, category, Field.Store.YES));
+            doc.add(new SortedSetDocValuesFacetField(FIELD_CATEGORY, category));
+        }
+
+        List<String> tags = tagService.parseTags(tagsValue);
+        if (!tags.isEmpty()) {
+            doc.add(new Field(FIELD_TAGS, String.join(",", tags), TEXT_FIELD_TYPE));
+            for (String tag : tags) {
+                doc.add(new StringField(FIELD_TAG, tag.toLowerCase(Locale.ROOT), Field.Store.NO));
+                doc.add(new SortedSetDocValuesFacetField(FIELD_TAG, tag));
+            }
+        }
+        if (createdAt != null) {
+            doc.add(new StoredField(FIELD_CREATED_AT, createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+        }
+        return facetsConfig.build(doc);
+    }
+
+    /**
+     * 关键词分词后逐词匹配：每个词须出现在标题、标签或正文之一（标题、标签加权），分词为空时返回 null
+     */
+    private Query buildKeywordQuery(String keyword) {
+        if (keyword == null || keyword.isBlank()) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM, "搜索关键词不能为空");
+        }
+
+        Set<String> terms = new LinkedHashSet<>();
+        try (TokenStream stream = analyzer.tokenStream(FIELD_CONTENT, keyword.trim())) {
+            CharTermAttribute termAttribute = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken() && terms.size() < MAX_QUERY_TERMS) {
+                terms.add(termAttribute.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM, "搜索关键词无效");
+        }
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (String term : terms) {
+            BooleanQuery.Builder fields = new BooleanQuery.Builder();
+            fields.add(new BoostQuery(new TermQuery(new Term(FIELD_TITLE, term)), TITLE_BOOST), BooleanClause.Occur.SHOULD);
+            fields.add(new BoostQuery(new TermQuery(new Term(FIELD_TAGS, term)), TAGS_BOOST), BooleanClause.Occur.SHOULD);
+            fields.add(new TermQuery(new Term(FIELD_CONTENT, term)), BooleanClause.Occur.SHOULD);
+            builder.add(fields.build(), BooleanClause.Occur.MUST);
+        }
+        return builder.build();
+    }
+
+    private Query buildFilterQuery(Query keywordQuery, SearchDocType type, Integer status, String category, String tag) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(keywordQuery, BooleanClause.Occur.MUST);
+        builder.add(new TermQuery(new Term(FIELD_TYPE, String.valueOf(type.getValue()))), BooleanClause.Occur.FILTER);
+        if (status != null) {
+            builder.add(new TermQuery(new Term(FIELD_STATUS, String.valueOf(status))), BooleanClause.Occur.FILTER);
+        }
+        if (category != null && !category.isEmpty()) {
+            builder.add(new TermQuery(new Term(FIELD_CATEGORY, category)), BooleanClause.Occur.FILTER);
+        }
+        if (tag != null && !tag.isEmpty()) {
+            builder.add(new TermQuery(new Term(FIELD_TAG, tag.trim().toLowerCase(Locale.ROOT))), BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    private void checkSearchable(int page, int size) {
+        if (!isReady()) {
+            throw new BusinessException(ErrorCode.INTERNAL_ERROR, "搜索索引尚未就绪");
+        }
+        if (page < 1 || size < 1) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM, "分页参数无效");
+        }
+        if ((long) page * size > searchConfig.getMaxResultWindow()) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM,
+                    "最多只能查看前" + searchConfig.getMaxResultWindow() + "条搜索结果");
+        }
+    }
+
+    private IndexSearcher acquireSearcher() {
+        try {
+            return searcherManager.acquire();
+        } catch (IOException e) {
+            log.error("获取索引读取器失败: error={}", e.getMessage());
+            throw new BusinessException(ErrorCode.INTERNAL_ERROR, "搜索失败");
+        }
+    }
+
+    private void releaseSearcher(IndexSearcher searcher) {
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            log.warn("释放索引读取器失败: error={}", e.getMessage());
+        }
+    }
+
+    /**
+     * 命中总数超过默认精确计数阈值时单独计数
+     */
+    private long totalHits(IndexSearcher searcher, Query query, TopDocs topDocs) throws IOException {
+        if (topDocs.totalHits.relation == TotalHits.Relation.EQUAL_TO) {
+            return topDocs.totalHits.value;
+        }
+        return searcher.count(query);
+    }
+
+    private ScoreDoc[] pageDocs(TopDocs topDocs, int page, int size) {
+        int from = Math.min((page - 1) * size, topDocs.scoreDocs.length);
+        return Arrays.copyOfRange(topDocs.scoreDocs, from, topDocs.scoreDocs.length);
+    }
+
+    /**
+     * 分面统计，分面状态按读取器缓存，索引刷新后重建
+     */
+    private Facets facets(IndexReader reader, FacetsCollector facetsCollector) throws IOException {
+        FacetState state = facetState;
+        if (state == null || state.reader != reader) {
+            SortedSetDocValuesReaderState readerState;
+            try {
+                readerState = new DefaultSortedSetDocValuesReaderState(reader, facetsConfig);
+            } catch (IllegalArgumentException e) {
+                // 索引中还没有任何分面字段
+                readerState = null;
+            }
+            state = new FacetState(reader, readerState);
+            facetState = state;
+        }
+        if (state.readerState == null) {
+            return null;
+        }
+        return new SortedSetDocValuesFacetCounts(state.readerState, facetsCollector);
+    }
+
+    private List<SearchResponse.FacetValue> facetValues(Facets facets, String dim) throws IOException {
+        if (facets == null) {
+            return Collections.emptyList();
+        }
+
+        FacetResult result;
+        try {
+            result = facets.getTopChildren(searchConfig.getFacetLimit(), dim);
+        } catch (IllegalArgumentException e) {
+            // 该维度尚未被索引
+            return Collections.emptyList();
+        }
+        if (result == null) {
+            return Collections.emptyList();
+        }
+
+        List<SearchResponse.FacetValue> values = new ArrayList<>(result.labelValues.length);
+        for (LabelAndValue labelValue : result.labelValues) {
+            values.add(SearchResponse.FacetValue.builder()
+                    .value(labelValue.label)
+                    .count(labelValue.value.longValue())
+                    .build());
+        }
+        return values;
+    }
+
+    private LocalDateTime toDateTime(IndexableField field) {
+        if (field == null) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(field.numericValue().longValue()), ZoneId.systemDefault());
+    }
+
+    private String key(SearchDocType type, Long id) {
+        return type.getValue() + ":" + id;
+    }
+
+    /**
+     * 按ID分批遍历一类数据并写入索引
+     */
+    private <T> int rebuildDocs(SearchDocType type, Function<Long, List<T>> batchLoader, Function<T, Long> idGetter,
+                                DocumentBuilder<T> documentBuilder) throws IOException {
+        // 按主键覆盖，避免与重建期间的增量更新重复
+        return KeysetBatch.forEach(REBUILD_BATCH_SIZE, batchLoader, idGetter,
+                item -> writer.updateDocument(new Term(FIELD_KEY, key(type, idGetter.apply(item))), documentBuilder.build(item)));
+    }
+
+    @FunctionalInterface
+    private interface DocumentBuilder<T> {
+        Document build(T item) throws IOException;
+    }
+
+    /**
+     * 分面读取状态及其对应的索引读取器
+     */
+    private static class FacetState {
+        private final IndexReader reader;
+        private final SortedSetDocValuesReaderState readerState;
+
+        FacetState(IndexReader reader, SortedSetDocValuesReaderState readerState) {
+            this.reader = reader;
+            this.readerState = readerState;
+        }
+    }
+}
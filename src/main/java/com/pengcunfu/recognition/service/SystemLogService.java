@@ -1,21 +1,38 @@
 package com.pengcunfu.recognition.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.pengcunfu.recognition.config.SystemLogConfig;
+import com.pengcunfu.recognition.constant.CacheKeyPrefix;
 import com.pengcunfu.recognition.entity.SystemLog;
+import com.pengcunfu.recognition.enums.LogOverflowPolicy;
+import com.pengcunfu.recognition.enums.SystemLogStatus;
 import com.pengcunfu.recognition.repository.SystemLogRepository;
+import com.pengcunfu.recognition.response.CursorPageResponse;
 import com.pengcunfu.recognition.response.PageResponse;
 import com.pengcunfu.recognition.response.StatsResponse;
+import com.pengcunfu.recognition.response.SystemLogResponse;
+import com.pengcunfu.recognition.service.redis.CacheService;
+import com.pengcunfu.recognition.util.PageCursor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
  * 系统日志服务
- * 处理系统操作日志记录
+ * 处理系统操作日志记录；日志先进入有界队列，由单个后台线程攒批（按条数或时间）批量写入，
+ * 队列写满时按配置的溢出策略丢弃、采样或短暂阻塞，停机时写完队列中剩余的日志
  */
 @Slf4j
 @Service
@@ -23,29 +40,186 @@ import java.util.stream.Collectors;
 public class SystemLogService {
 
     private final SystemLogRepository systemLogRepository;
+    private final SystemLogConfig systemLogConfig;
+    private final CacheService cacheService;
+
+    private final LongAdder acceptedCount = new LongAdder();
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder sampledOutCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+
+    private BlockingQueue<SystemLog> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, systemLogConfig.getQueueCapacity()));
+        running = true;
+        writerThread = new Thread(this::runWriter, "system-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("系统日志写入线程已启动: capacity={}, batchSize={}, policy={}",
+                systemLogConfig.getQueueCapacity(), systemLogConfig.getBatchSize(),
+                systemLogConfig.getOverflowPolicy());
+    }
+
+    /**
+     * 停止接收新日志，等待后台线程写完队列中剩余的日志
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writerThread.join(systemLogConfig.getFlushIntervalMillis() + TimeUnit.SECONDS.toMillis(10));
+        if (writerThread.isAlive()) {
+            log.warn("系统日志写入线程未能及时结束: pending={}", queue.size());
+        }
+    }
 
     /**
      * 记录日志（异步，使用 Builder 模式）
      */
-    @Async
     public void logAsync(String module, String action, String requestMethod, String requestParams, 
                         String description, Long userId, String ipAddress, Integer responseTime) {
+        record(SystemLog.builder()
+                .module(module)
+                .action(action)
+                .requestMethod(requestMethod)
+                .requestParams(requestParams)
+                .description(description)
+                .userId(userId)
+                .ipAddress(ipAddress)
+                .responseTime(responseTime)
+                .status(SystemLogStatus.SUCCESS.getValue())
+                .build());
+    }
+
+    /**
+     * 提交日志到写入队列，队列溢出时按配置的策略处理，不抛出异常
+     */
+    public void record(SystemLog systemLog) {
+        if (!running) {
+            droppedCount.increment();
+            return;
+        }
+        if (systemLog.getCreatedAt() == null) {
+            // 批量写入不经过自动填充，在提交时记录时间
+            systemLog.setCreatedAt(LocalDateTime.now());
+        }
+        switch (enqueue(systemLog)) {
+            case ACCEPTED:
+                acceptedCount.increment();
+                break;
+            case SAMPLED_OUT:
+                sampledOutCount.increment();
+                break;
+            default:
+                droppedCount.increment();
+                break;
+        }
+    }
+
+    /**
+     * 获取日志写入统计
+     */
+    public SystemLogResponse.WriterStats getStats() {
+        return SystemLogResponse.WriterStats.builder()
+                .overflowPolicy(systemLogConfig.getOverflowPolicy().name())
+                .capacity(systemLogConfig.getQueueCapacity())
+                .pending(queue.size())
+                .acceptedCount(acceptedCount.sum())
+                .writtenCount(writtenCount.sum())
+                .droppedCount(droppedCount.sum())
+                .sampledOutCount(sampledOutCount.sum())
+                .failedCount(failedCount.sum())
+                .batchCount(batchCount.sum())
+                .build();
+    }
+
+    /**
+     * 按溢出策略入队；采样丢弃与队列已满丢弃分别计数，每条日志只计入一项
+     */
+    private EnqueueResult enqueue(SystemLog systemLog) {
+        LogOverflowPolicy policy = systemLogConfig.getOverflowPolicy();
+        if (policy == LogOverflowPolicy.SAMPLE) {
+            int capacity = Math.max(1, systemLogConfig.getQueueCapacity());
+            if (queue.size() >= capacity * systemLogConfig.getSampleHighWatermark()
+                    && ThreadLocalRandom.current().nextDouble() >= systemLogConfig.getSampleRate()) {
+                return EnqueueResult.SAMPLED_OUT;
+            }
+            return offered(queue.offer(systemLog));
+        }
+        if (policy == LogOverflowPolicy.BLOCK) {
+            try {
+                return offered(queue.offer(systemLog, systemLogConfig.getBlockTimeoutMillis(), TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return EnqueueResult.DROPPED;
+            }
+        }
+        return offered(queue.offer(systemLog));
+    }
+
+    private static EnqueueResult offered(boolean accepted) {
+        return accepted ? EnqueueResult.ACCEPTED : EnqueueResult.DROPPED;
+    }
+
+
+    private void runWriter() {
+        List<SystemLog> batch = new ArrayList<>(systemLogConfig.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch);
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 攒批：等待第一条日志后，在刷新间隔内继续收集，直到攒满一批
+     */
+    private void collectBatch(List<SystemLog> batch) throws InterruptedException {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(systemLogConfig.getFlushIntervalMillis());
+        SystemLog first = queue.poll(intervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        int batchSize = Math.max(1, systemLogConfig.getBatchSize());
+        long deadline = System.nanoTime() + intervalNanos;
+        while (batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !running) {
+                return;
+            }
+            SystemLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void writeBatch(List<SystemLog> batch) {
         try {
-            SystemLog systemLog = SystemLog.builder()
-                    .module(module)
-                    .action(action)
-                    .requestMethod(requestMethod)
-                    .requestParams(requestParams)
-                    .description(description)
-                    .userId(userId)
-                    .ipAddress(ipAddress)
-                    .responseTime(responseTime)
-                    .status(0) // 0-SUCCESS
-                    .build();
-
-            systemLogRepository.insert(systemLog);
+            systemLogRepository.insertBatch(batch);
+            writtenCount.add(batch.size());
+            batchCount.increment();
         } catch (Exception e) {
-            log.error("记录系统日志失败", e);
+            failedCount.add(batch.size());
+            log.error("批量写入系统日志失败: size={}, error={}", batch.size(), e.getMessage());
         }
     }
 
@@ -74,6 +248,56 @@ public class SystemLogService {
                 .build();
     }
 
+    /**
+     * 游标获取日志列表
+     * 每页只查询 size+1 条，不统计总数；withTotal 为 true 时返回短时缓存的总数
+     *
+     * @param cursor 上一页返回的游标，首页为空
+     */
+    public CursorPageResponse<StatsResponse.SystemLogInfo> scrollLogs(
+            String cursor, Integer size, String module, Long userId,
+            LocalDateTime startTime, LocalDateTime endTime, boolean withTotal) {
+        log.info("游标获取系统日志: cursor={}, size={}, module={}, userId={}", cursor, size, module, userId);
+
+        size = PageCursor.checkSize(size);
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        // 多查一条判断是否还有下一页
+        List<SystemLog> logs = systemLogRepository.findLogsAfter(
+                module, userId, startTime, endTime,
+                pageCursor != null ? pageCursor.getCreatedAt() : null,
+                pageCursor != null ? pageCursor.getId() : null,
+                size + 1
+        );
+        boolean hasMore = logs.size() > size;
+        if (hasMore) {
+            logs = new ArrayList<>(logs.subList(0, size));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            SystemLog last = logs.get(logs.size() - 1);
+            nextCursor = PageCursor.of(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        Long total = null;
+        if (withTotal) {
+            total = cacheService.getCount(CacheKeyPrefix.PAGE_TOTAL,
+                    "log:" + (module != null ? module : "") + ":" + (userId != null ? userId : "")
+                            + ":" + (startTime != null ? startTime : "") + ":" + (endTime != null ? endTime : ""),
+                    () -> systemLogRepository.countLogsWithConditions(module, userId, startTime, endTime));
+        }
+
+        return CursorPageResponse.<StatsResponse.SystemLogInfo>builder()
+                .data(logs.stream()
+                        .map(this::convertToLogInfo)
+                        .collect(Collectors.toList()))
+                .size(size)
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .total(total)
+                .build();
+    }
+
     /**
      * 转换为日志信息 DTO
      */
@@ -91,5 +315,19 @@ public class SystemLogService {
                 .createTime(log.getCreatedAt() != null ? log.getCreatedAt().toString() : null)
                 .build();
     }
-}
 
+    /**
+     * 入队结果
+     */
+    private enum EnqueueResult {
+        ACCEPTED,
+        /**
+         * 队列已满（或阻塞超时）丢弃
+         */
+        DROPPED,
+        /**
+         * 超过高水位后被采样丢弃
+         */
+        SAMPLED_OUT
+    }
+}
@@ -0,0 +1,331 @@
+package com.pengcunfu.recognition.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pengcunfu.recognition.constant.CacheKeyPrefix;
+import com.pengcunfu.recognition.constant.ErrorCode;
+import com.pengcunfu.recognition.constant.RedisConstants;
+import com.pengcunfu.recognition.entity.CommunityPost;
+import com.pengcunfu.recognition.entity.Knowledge;
+import com.pengcunfu.recognition.entity.RecognitionResult;
+import com.pengcunfu.recognition.enums.PostStatus;
+import com.pengcunfu.recognition.enums.TagOwnerType;
+import com.pengcunfu.recognition.exception.BusinessException;
+import com.pengcunfu.recognition.repository.CommunityPostRepository;
+import com.pengcunfu.recognition.repository.KnowledgeRepository;
+import com.pengcunfu.recognition.repository.RecognitionResultRepository;
+import com.pengcunfu.recognition.repository.TagRelationRepository;
+import com.pengcunfu.recognition.repository.TagRepository;
+import com.pengcunfu.recognition.response.TagResponse;
+import com.pengcunfu.recognition.util.KeysetBatch;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 标签服务
+ * 帖子、知识库和识别记录写入时同步维护标签字典和 (关联方类型, 关联方ID, 标签ID) 关联表，
+ * 按标签筛选走关联表索引；标签计数随关联变化增量更新，列表从Redis缓存读取
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TagService {
+
+    private static final int MAX_TAG_LENGTH = 50;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final TagRepository tagRepository;
+    private final TagRelationRepository tagRelationRepository;
+    private final CommunityPostRepository communityPostRepository;
+    private final KnowledgeRepository knowledgeRepository;
+    private final RecognitionResultRepository recognitionResultRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Executor asyncExecutor;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    /**
+     * 替换关联方的全部标签，并增量调整标签计数
+     *
+     * @param ownerType 关联方类型
+     * @param ownerId   关联方ID
+     * @param tagsValue 逗号分隔的标签
+     * @param counted   是否计入标签计数（如帖子仅已发布时计入）
+     */
+    public void replaceTags(TagOwnerType ownerType, Long ownerId, String tagsValue, boolean counted) {
+        if (ownerId == null) {
+            return;
+        }
+
+        // 加入调用方事务，没有事务时单独开启，保证行锁、关联和计数一起提交
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> oldCountedIds = tagRelationRepository.findTagIdsForUpdate(ownerType.getValue(), ownerId, 1);
+            List<Long> tagIds = writeRelations(ownerType, ownerId, tagsValue, counted);
+
+            Map<Long, Integer> deltas = new TreeMap<>();
+            for (Long tagId : oldCountedIds) {
+                deltas.merge(tagId, -1, Integer::sum);
+            }
+            if (counted) {
+                for (Long tagId : tagIds) {
+                    deltas.merge(tagId, 1, Integer::sum);
+                }
+            }
+            applyCountDeltas(ownerType, deltas);
+        });
+    }
+
+    /**
+     * 删除关联方的全部标签
+     */
+    public void removeTags(TagOwnerType ownerType, Long ownerId) {
+        replaceTags(ownerType, ownerId, null, false);
+    }
+
+    /**
+     * 修改关联方是否计入标签计数（如帖子发布、下架）
+     */
+    public void setCounted(TagOwnerType ownerType, Long ownerId, boolean counted) {
+        if (ownerId == null) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> flipped = tagRelationRepository.findTagIdsForUpdate(ownerType.getValue(), ownerId, counted ? 0 : 1);
+            if (flipped.isEmpty()) {
+                return;
+            }
+            tagRelationRepository.updateCounted(ownerType.getValue(), ownerId, counted ? 1 : 0);
+
+            Map<Long, Integer> deltas = new TreeMap<>();
+            for (Long tagId : flipped) {
+                deltas.put(tagId, counted ? 1 : -1);
+            }
+            applyCountDeltas(ownerType, deltas);
+        });
+    }
+
+    /**
+     * 获取某类关联方的标签计数（按数量降序），优先读取Redis缓存
+     */
+    public List<TagResponse.TagCount> getTagCounts(TagOwnerType ownerType) {
+        String key = CacheKeyPrefix.TAG_COUNTS.getKey(String.valueOf(ownerType.getValue()));
+        try {
+            String cached = stringRedisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                return objectMapper.readValue(cached, new TypeReference<List<TagResponse.TagCount>>() {});
+            }
+        } catch (Exception e) {
+            log.warn("读取标签计数缓存失败: key={}, error={}", key, e.getMessage());
+        }
+
+        List<TagResponse.TagCount> counts = tagRepository.findCounts(ownerType.getValue());
+        try {
+            stringRedisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(counts),
+                    CacheKeyPrefix.TAG_COUNTS.getExpireTime(), TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入标签计数缓存失败: key={}, error={}", key, e.getMessage());
+        }
+        return counts;
+    }
+
+    /**
+     * 解析逗号分隔的标签：去除空白、忽略大小写去重，过长的标签丢弃
+     */
+    public List<String> parseTags(String tagsValue) {
+        if (tagsValue == null || tagsValue.isBlank()) {
+            return Collections.emptyList();
+        }
+
+        Map<String, String> tags = new LinkedHashMap<>();
+        for (String part : tagsValue.split("[,，]")) {
+            String tag = part.trim();
+            if (tag.isEmpty()) {
+                continue;
+            }
+            if (tag.length() > MAX_TAG_LENGTH) {
+                log.debug("忽略过长的标签: {}", tag);
+                continue;
+            }
+            tags.putIfAbsent(tag.toLowerCase(Locale.ROOT), tag);
+        }
+        return new ArrayList<>(tags.values());
+    }
+
+    /**
+     * 根据业务数据重建标签关联表和计数
+     * 逐类按ID分批读取关联方并写入关联，删除关联方已不存在的记录后整体重算计数
+     */
+    public Map<String, Object> rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUESTS, "标签重建正在进行中");
+        }
+
+        try {
+            long startTime = System.currentTimeMillis();
+
+            int posts = KeysetBatch.forEach(REBUILD_BATCH_SIZE, lastId -> communityPostRepository.selectList(new LambdaQueryWrapper<CommunityPost>()
+                            .select(CommunityPost::getId, CommunityPost::getTags, CommunityPost::getStatus)
+                            .gt(CommunityPost::getId, lastId)
+                            .orderByAsc(CommunityPost::getId)
+                            .last("LIMIT " + REBUILD_BATCH_SIZE)),
+                    CommunityPost::getId,
+                    post -> writeRelations(TagOwnerType.POST, post.getId(), post.getTags(),
+                            PostStatus.PUBLISHED.getValue().equals(post.getStatus())));
+
+            int knowledge = KeysetBatch.forEach(REBUILD_BATCH_SIZE, lastId -> knowledgeRepository.selectList(new LambdaQueryWrapper<Knowledge>()
+                            .select(Knowledge::getId, Knowledge::getTags)
+                            .gt(Knowledge::getId, lastId)
+                            .orderByAsc(Knowledge::getId)
+                            .last("LIMIT " + REBUILD_BATCH_SIZE)),
+                    Knowledge::getId,
+                    item -> writeRelations(TagOwnerType.KNOWLEDGE, item.getId(), item.getTags(), true));
+
+            int recognitions = KeysetBatch.forEach(REBUILD_BATCH_SIZE, lastId -> recognitionResultRepository.selectList(new LambdaQueryWrapper<RecognitionResult>()
+                            .select(RecognitionResult::getId, RecognitionResult::getTags)
+                            .gt(RecognitionResult::getId, lastId)
+                            .orderByAsc(RecognitionResult::getId)
+                            .last("LIMIT " + REBUILD_BATCH_SIZE)),
+                    RecognitionResult::getId,
+                    result -> writeRelations(TagOwnerType.RECOGNITION, result.getId(), result.getTags(), true));
+
+            int dangling = tagRelationRepository.deleteDanglingPostRelations()
+                    + tagRelationRepository.deleteDanglingKnowledgeRelations()
+                    + tagRelationRepository.deleteDanglingRecognitionRelations();
+
+            transactionTemplate.executeWithoutResult(status -> {
+                tagRepository.deleteAllCounts();
+                tagRepository.recomputeCounts();
+            });
+            for (TagOwnerType ownerType : TagOwnerType.values()) {
+                evictCounts(ownerType);
+            }
+            markRebuilt();
+
+            log.info("标签重建完成: posts={}, knowledge={}, recognitions={}, dangling={}, time={}ms",
+                    posts, knowledge, recognitions, dangling, System.currentTimeMillis() - startTime);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("posts", posts);
+            result.put("knowledge", knowledge);
+            result.put("recognitions", recognitions);
+            result.put("dangling", dangling);
+            return result;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 首次启动（标签字典为空）时在异步任务线程池中从逗号分隔的标签字段回填
+     * 重建成功后写入完成标记，业务数据本身没有标签时不会每次启动都重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        try {
+            if (isRebuilt() || tagRepository.selectCount(null) > 0) {
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("检查标签表失败，跳过启动回填: error={}", e.getMessage());
+            return;
+        }
+
+        asyncExecutor.execute(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.warn("启动时标签回填失败: error={}", e.getMessage());
+            }
+        });
+    }
+
+    private boolean isRebuilt() {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(RedisConstants.TAG_REBUILD_DONE_KEY));
+        } catch (Exception e) {
+            log.warn("读取标签重建标记失败: error={}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void markRebuilt() {
+        try {
+            stringRedisTemplate.opsForValue().set(RedisConstants.TAG_REBUILD_DONE_KEY, String.valueOf(System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.warn("写入标签重建标记失败: error={}", e.getMessage());
+        }
+    }
+
+    /**
+     * 写入关联方的标签关联（不调整计数）
+     *
+     * @return 关联的标签ID
+     */
+    private List<Long> writeRelations(TagOwnerType ownerType, Long ownerId, String tagsValue, boolean counted) {
+        tagRelationRepository.deleteByOwner(ownerType.getValue(), ownerId);
+
+        List<String> names = parseTags(tagsValue);
+        if (names.isEmpty()) {
+            return Collections.emptyList();
+        }
+        tagRepository.insertIgnore(names);
+        List<Long> tagIds = tagRepository.findIdsByNames(names);
+        if (!tagIds.isEmpty()) {
+            tagRelationRepository.insertIgnore(ownerType.getValue(), ownerId, tagIds, counted ? 1 : 0);
+        }
+        return tagIds;
+    }
+
+    /**
+     * 累加标签计数（按标签ID顺序写入，减少并发更新时的死锁），提交后清除计数缓存
+     */
+    private void applyCountDeltas(TagOwnerType ownerType, Map<Long, Integer> deltas) {
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        tagRepository.addCounts(ownerType.getValue(), deltas);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictCounts(ownerType);
+                }
+            });
+        } else {
+            evictCounts(ownerType);
+        }
+    }
+
+    private void evictCounts(TagOwnerType ownerType) {
+        try {
+            stringRedisTemplate.delete(CacheKeyPrefix.TAG_COUNTS.getKey(String.valueOf(ownerType.getValue())));
+        } catch (Exception e) {
+            log.warn("清除标签计数缓存失败: ownerType={}, error={}", ownerType, e.getMessage());
+        }
+    }
+}
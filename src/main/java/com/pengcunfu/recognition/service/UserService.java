@@ -3,6 +3,7 @@ package com.pengcunfu.recognition.service;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.pengcunfu.recognition.constant.ErrorCode;
 import com.pengcunfu.recognition.entity.User;
+import com.pengcunfu.recognition.enums.FileOwnerType;
 import com.pengcunfu.recognition.enums.UserRole;
 import com.pengcunfu.recognition.enums.UserStatus;
 import com.pengcunfu.recognition.exception.BusinessException;
@@ -38,6 +39,9 @@ public class UserService {
     private final CommentRepository commentRepository;
     private final UserCollectRepository userCollectRepository;
     private final UserLikeRepository userLikeRepository;
+    private final FileReferenceService fileReferenceService;
+    private final PrincipalService principalService;
+    private final UserSummaryService userSummaryService;
 
     /**
      * 获取用户列表（使用 SQL 查询，管理员功能）
@@ -111,6 +115,12 @@ public class UserService {
         }
 
         userRepository.updateById(user);
+        if (request.getAvatar() != null) {
+            fileReferenceService.replaceReferences(FileOwnerType.USER_AVATAR, userId, user.getAvatar());
+        }
+        if (request.getNickname() != null || request.getAvatar() != null) {
+            userSummaryService.invalidate(userId);
+        }
 
         log.info("用户信息更新成功: userId={}", userId);
     }
@@ -178,6 +188,7 @@ public class UserService {
                 .build();
 
         userRepository.insert(user);
+        fileReferenceService.replaceReferences(FileOwnerType.USER_AVATAR, user.getId(), user.getAvatar());
 
         log.info("用户创建成功: userId={}, username={}", user.getId(), user.getUsername());
         return user.getId();
@@ -232,6 +243,10 @@ public class UserService {
         }
 
         userRepository.updateById(user);
+        principalService.invalidate(userId);
+        if (request.getAvatar() != null) {
+            fileReferenceService.replaceReferences(FileOwnerType.USER_AVATAR, userId, user.getAvatar());
+        }
 
         log.info("用户信息更新成功: userId={}", userId);
     }
@@ -251,6 +266,7 @@ public class UserService {
 
         user.setStatus(status);
         userRepository.updateById(user);
+        principalService.invalidate(userId);
 
         log.info("用户状态更新成功: userId={}, status={}", userId, status);
     }
@@ -274,6 +290,8 @@ public class UserService {
         }
 
         userRepository.deleteById(userId);
+        principalService.invalidate(userId);
+        fileReferenceService.removeReferences(FileOwnerType.USER_AVATAR, userId);
 
         log.info("用户删除成功: userId={}", userId);
     }
@@ -453,6 +471,7 @@ public class UserService {
         
         user.setVipExpireTime(newExpireTime);
         userRepository.updateById(user);
+        principalService.invalidate(userId);
         
         log.info("VIP时长延长成功: userId={}, days={}, newExpireTime={}", userId, days, newExpireTime);
     }
@@ -535,6 +554,7 @@ public class UserService {
         }
         
         userRepository.updateById(user);
+        principalService.invalidate(userId);
     }
 
     /**
@@ -588,6 +608,7 @@ public class UserService {
         user.setVipExpireTime(null);
         
         userRepository.updateById(user);
+        principalService.invalidate(userId);
         
         log.info("VIP权限已撤销: userId={}", userId);
     }
@@ -0,0 +1,292 @@
+package com.pengcunfu.recognition.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pengcunfu.recognition.constant.CacheKeyPrefix;
+import com.pengcunfu.recognition.constant.RedisConstants;
+import com.pengcunfu.recognition.entity.User;
+import com.pengcunfu.recognition.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户摘要缓存服务
+ * 缓存 id、用户名、昵称、头像、角色、状态和VIP到期时间，供列表作者填充、权限校验和VIP检查使用；
+ * 批量读取依次查询本地缓存、Redis（一次MGET）和数据库（一次IN查询），
+ * 用户资料、角色或VIP变更后通过Redis发布订阅通知所有实例清除本地缓存；
+ * 每次失效递增版本号，读取数据库期间发生失效时不回填缓存，避免旧数据在删除之后重新写入
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserSummaryService {
+
+    private static final RedisScript<Long> PUT_SCRIPT = loadScript("scripts/user_summary_put.lua");
+
+    private final UserRepository userRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final ObjectMapper objectMapper;
+
+    @Value("${cache.user-summary.max-size:20000}")
+    private int maxSize;
+
+    @Value("${cache.user-summary.local-ttl-seconds:60}")
+    private long localTtlSeconds;
+
+    // 本地缓存：用户ID -> 用户摘要
+    private final Map<Long, LocalEntry> localCache = new ConcurrentHashMap<>();
+
+    // 本实例收到的失效次数，加载期间发生变化时不写入本地缓存
+    private final AtomicLong localGeneration = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            try {
+                Long userId = Long.valueOf(body);
+                localGeneration.incrementAndGet();
+                localCache.remove(userId);
+                log.debug("收到用户摘要失效通知: userId={}", body);
+            } catch (NumberFormatException e) {
+                log.warn("无效的用户摘要失效通知: {}", body);
+            }
+        }, new ChannelTopic(RedisConstants.USER_SUMMARY_INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 获取用户摘要，用户不存在时返回 null
+     */
+    public User get(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        return getAll(List.of(userId)).get(userId);
+    }
+
+    /**
+     * 批量获取用户摘要
+     *
+     * @return 用户ID -> 用户摘要，不存在的用户不在结果中
+     */
+    public Map<Long, User> getAll(Collection<Long> userIds) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Long id : userIds) {
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        long generation = localGeneration.get();
+        long now = System.currentTimeMillis();
+        Map<Long, User> users = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            LocalEntry entry = localCache.get(id);
+            if (entry != null && entry.expireAt > now) {
+                users.put(id, entry.user);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return users;
+        }
+
+        Map<Long, User> loaded = getFromRedis(missing);
+        if (loaded.size() < missing.size()) {
+            List<Long> dbIds = new ArrayList<>();
+            for (Long id : missing) {
+                if (!loaded.containsKey(id)) {
+                    dbIds.add(id);
+                }
+            }
+            // 先读取版本号再查询数据库，回填时版本号不一致说明查询结果可能已过期
+            List<String> versions = getVersions(dbIds);
+            Map<Long, User> fromDb = new HashMap<>();
+            for (User user : userRepository.findSummariesByIds(dbIds)) {
+                fromDb.put(user.getId(), user);
+            }
+            putToRedis(dbIds, versions, fromDb);
+            loaded.putAll(fromDb);
+        }
+
+        if (localCache.size() + loaded.size() > maxSize) {
+            localCache.values().removeIf(item -> item.expireAt <= now);
+        }
+        for (Map.Entry<Long, User> entry : loaded.entrySet()) {
+            if (localCache.size() < maxSize) {
+                localCache.put(entry.getKey(), new LocalEntry(entry.getValue(), now + localTtlSeconds * 1000));
+            }
+        }
+        if (localGeneration.get() != generation) {
+            // 加载期间有用户失效，本次结果可能已过期，只返回不缓存
+            loaded.keySet().forEach(localCache::remove);
+        }
+        users.putAll(loaded);
+        return users;
+    }
+
+    /**
+     * 用户昵称、头像、角色、状态或VIP变更后清除缓存
+     * 在事务中调用时延迟到提交之后，避免其他实例在提交前重新加载旧数据
+     */
+    public void invalidate(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doInvalidate(userId);
+                }
+            });
+        } else {
+            doInvalidate(userId);
+        }
+    }
+
+    /**
+     * 是否为有效VIP（VIP到期时间晚于当前时间）
+     */
+    public static boolean isVip(User user) {
+        return user != null && user.getVipExpireTime() != null && user.getVipExpireTime().isAfter(LocalDateTime.now());
+    }
+
+    /**
+     * 从Redis批量读取，读取失败时全部回源数据库
+     */
+    private Map<Long, User> getFromRedis(List<Long> ids) {
+        Map<Long, User> users = new HashMap<>();
+        try {
+            List<String> keys = ids.stream().map(this::cacheKey).toList();
+            List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+            if (values == null) {
+                return users;
+            }
+            for (int i = 0; i < ids.size(); i++) {
+                String value = values.get(i);
+                if (value != null) {
+                    users.put(ids.get(i), objectMapper.readValue(value, User.class));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("读取用户摘要缓存失败: count={}, error={}", ids.size(), e.getMessage());
+        }
+        return users;
+    }
+
+    /**
+     * 批量读取失效版本号，读取失败时返回 null（不回填Redis）
+     */
+    private List<String> getVersions(List<Long> ids) {
+        try {
+            return stringRedisTemplate.opsForValue().multiGet(ids.stream().map(this::versionKey).toList());
+        } catch (Exception e) {
+            log.warn("读取用户摘要版本号失败: count={}, error={}", ids.size(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 通过脚本批量写入Redis，只写入版本号与查询数据库前一致的用户
+     */
+    private void putToRedis(List<Long> ids, List<String> versions, Map<Long, User> users) {
+        if (users.isEmpty() || versions == null) {
+            return;
+        }
+        try {
+            List<String> keys = new ArrayList<>();
+            List<Object> args = new ArrayList<>();
+            args.add(String.valueOf(CacheKeyPrefix.USER_SUMMARY.getExpireTime()));
+            for (int i = 0; i < ids.size(); i++) {
+                User user = users.get(ids.get(i));
+                if (user == null) {
+                    continue;
+                }
+                keys.add(cacheKey(ids.get(i)));
+                keys.add(versionKey(ids.get(i)));
+                args.add(versions.get(i) != null ? versions.get(i) : "");
+                args.add(objectMapper.writeValueAsString(user));
+            }
+            Long written = stringRedisTemplate.execute(PUT_SCRIPT, keys, args.toArray());
+            if (written != null && written < keys.size() / 2) {
+                log.debug("用户摘要加载期间发生失效，跳过回填: count={}", keys.size() / 2 - written);
+            }
+        } catch (Exception e) {
+            log.warn("写入用户摘要缓存失败: count={}, error={}", users.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 清除本地和Redis缓存，并通知其他实例
+     */
+    private void doInvalidate(Long userId) {
+        localGeneration.incrementAndGet();
+        localCache.remove(userId);
+        try {
+            // 先递增版本号再删除，正在加载旧数据的请求回填时会发现版本号变化
+            String versionKey = versionKey(userId);
+            stringRedisTemplate.opsForValue().increment(versionKey);
+            stringRedisTemplate.expire(versionKey, CacheKeyPrefix.USER_SUMMARY_VERSION.getExpireTime(), TimeUnit.SECONDS);
+            stringRedisTemplate.delete(cacheKey(userId));
+            stringRedisTemplate.convertAndSend(RedisConstants.USER_SUMMARY_INVALIDATE_CHANNEL, userId.toString());
+        } catch (Exception e) {
+            // 其他实例的本地缓存在过期时间后失效
+            log.warn("清除用户摘要缓存失败: userId={}, error={}", userId, e.getMessage());
+        }
+        log.debug("清除用户摘要缓存: userId={}", userId);
+    }
+
+    private String cacheKey(Long userId) {
+        return CacheKeyPrefix.USER_SUMMARY.getKey(String.valueOf(userId));
+    }
+
+    private String versionKey(Long userId) {
+        return CacheKeyPrefix.USER_SUMMARY_VERSION.getKey(String.valueOf(userId));
+    }
+
+    private static RedisScript<Long> loadScript(String path) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    /**
+     * 本地缓存条目
+     */
+    @AllArgsConstructor
+    private static class LocalEntry {
+        private final User user;
+        private final long expireAt;
+    }
+}
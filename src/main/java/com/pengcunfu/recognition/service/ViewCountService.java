@@ -0,0 +1,247 @@
+package com.pengcunfu.recognition.service;
+
+import com.pengcunfu.recognition.constant.RedisConstants;
+import com.pengcunfu.recognition.entity.ViewCountFlush;
+import com.pengcunfu.recognition.enums.TargetType;
+import com.pengcunfu.recognition.repository.CommunityPostRepository;
+import com.pengcunfu.recognition.repository.KnowledgeRepository;
+import com.pengcunfu.recognition.repository.ViewCountFlushRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 浏览量服务
+ * 请求路径只在Redis哈希中累加增量，定时任务将增量改名为刷新批次后分批写入数据库；
+ * 批次ID与浏览量更新在同一事务中落库，进程在刷新中退出后重放批次时不会重复累加
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ViewCountService {
+
+    private static final RedisScript<String> DRAIN_SCRIPT = loadScript("scripts/view_count_drain.lua", String.class);
+    private static final RedisScript<Long> ACK_SCRIPT = loadScript("scripts/view_count_ack.lua", Long.class);
+    private static final List<TargetType> TARGET_TYPES = List.of(TargetType.POST, TargetType.KNOWLEDGE);
+    private static final int BATCH_SIZE = 500;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final CommunityPostRepository communityPostRepository;
+    private final KnowledgeRepository knowledgeRepository;
+    private final ViewCountFlushRepository viewCountFlushRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${view-count.flush-retention-days:7}")
+    private long flushRetentionDays;
+
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    /**
+     * 记录一次浏览
+     */
+    public void recordView(TargetType targetType, Long targetId) {
+        try {
+            stringRedisTemplate.opsForHash().increment(pendingKey(targetType), targetId.toString(), 1);
+        } catch (Exception e) {
+            log.warn("记录浏览量失败: targetType={}, targetId={}, error={}", targetType, targetId, e.getMessage());
+        }
+    }
+
+    /**
+     * 批量查询尚未写入数据库的浏览量增量（待刷新 + 刷新中）
+     *
+     * @return 目标ID -> 增量，没有增量的目标不在结果中
+     */
+    public Map<Long, Long> getPendingDeltas(TargetType targetType, Collection<Long> targetIds) {
+        Set<Long> ids = new LinkedHashSet<>(targetIds);
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<Long> idList = new ArrayList<>(ids);
+        byte[][] fields = new byte[idList.size()][];
+        for (int i = 0; i < idList.size(); i++) {
+            fields[i] = idList.get(i).toString().getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] pendingKey = pendingKey(targetType).getBytes(StandardCharsets.UTF_8);
+        byte[] flushingKey = flushingKey(targetType).getBytes(StandardCharsets.UTF_8);
+
+        Map<Long, Long> deltas = new HashMap<>();
+        try {
+            List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.hashCommands().hMGet(pendingKey, fields);
+                connection.hashCommands().hMGet(flushingKey, fields);
+                return null;
+            });
+            for (Object result : results) {
+                List<?> values = (List<?>) result;
+                for (int i = 0; i < idList.size(); i++) {
+                    Object value = values.get(i);
+                    if (value != null) {
+                        deltas.merge(idList.get(i), Long.parseLong(value.toString()), Long::sum);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("读取浏览量增量失败: targetType={}, error={}", targetType, e.getMessage());
+        }
+        return deltas;
+    }
+
+    /**
+     * 合并数据库浏览数和未写入的增量
+     */
+    public static Integer merge(Integer storedCount, Long pendingDelta) {
+        long count = (storedCount != null ? storedCount : 0) + (pendingDelta != null ? pendingDelta : 0);
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 定时将浏览量增量写入数据库
+     */
+    @Scheduled(fixedDelayString = "${view-count.flush-interval-millis:5000}")
+    public void flush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (TargetType targetType : TARGET_TYPES) {
+                try {
+                    flush(targetType);
+                } catch (Exception e) {
+                    // 批次保留在Redis中，下次刷新时重放
+                    log.error("浏览量刷新失败: targetType={}", targetType, e);
+                }
+            }
+        } finally {
+            flushing.set(false);
+        }
+    }
+
+    /**
+     * 停机前刷新一次，减少重启后的浏览量延迟
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * 定时清理过期的批次记录
+     */
+    @Scheduled(cron = "${view-count.cleanup-cron:0 30 3 * * ?}")
+    public void cleanupFlushRecords() {
+        int deleted = viewCountFlushRepository.deleteBefore(LocalDateTime.now().minusDays(flushRetentionDays));
+        log.info("清理浏览量刷新批次记录: deleted={}", deleted);
+    }
+
+    /**
+     * 刷新一类目标的浏览量
+     * 取出批次 -> 批次ID与浏览量在同一事务中落库 -> 确认并删除批次
+     */
+    private void flush(TargetType targetType) {
+        String flushingKey = flushingKey(targetType);
+        String flushIdKey = flushIdKey(targetType);
+        String flushId = stringRedisTemplate.execute(DRAIN_SCRIPT,
+                List.of(pendingKey(targetType), flushingKey, flushIdKey), UUID.randomUUID().toString());
+        if (flushId == null) {
+            return;
+        }
+
+        Map<Long, Long> deltas = new LinkedHashMap<>();
+        for (Map.Entry<Object, Object> entry : stringRedisTemplate.opsForHash().entries(flushingKey).entrySet()) {
+            try {
+                long delta = Long.parseLong(entry.getValue().toString());
+                if (delta > 0) {
+                    deltas.put(Long.valueOf(entry.getKey().toString()), delta);
+                }
+            } catch (NumberFormatException e) {
+                log.warn("忽略无效的浏览量增量: targetType={}, field={}, value={}",
+                        targetType, entry.getKey(), entry.getValue());
+            }
+        }
+
+        Boolean applied = transactionTemplate.execute(status -> {
+            try {
+                viewCountFlushRepository.insert(ViewCountFlush.builder()
+                        .flushId(flushId)
+                        .targetType(targetType.getValue())
+                        .itemCount(deltas.size())
+                        .build());
+            } catch (DuplicateKeyException e) {
+                // 批次已写入，进程在确认前退出或其他实例已处理
+                return false;
+            }
+            Map<Long, Long> batch = new LinkedHashMap<>();
+            for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+                batch.put(entry.getKey(), entry.getValue());
+                if (batch.size() >= BATCH_SIZE) {
+                    addViewCounts(targetType, batch);
+                    batch = new LinkedHashMap<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                addViewCounts(targetType, batch);
+            }
+            return true;
+        });
+
+        stringRedisTemplate.execute(ACK_SCRIPT, List.of(flushingKey, flushIdKey), flushId);
+        log.debug("浏览量刷新完成: targetType={}, flushId={}, items={}, applied={}",
+                targetType, flushId, deltas.size(), applied);
+    }
+
+    private void addViewCounts(TargetType targetType, Map<Long, Long> deltas) {
+        if (targetType == TargetType.POST) {
+            communityPostRepository.addViewCounts(deltas);
+        } else {
+            knowledgeRepository.addViewCounts(deltas);
+        }
+    }
+
+    private String pendingKey(TargetType targetType) {
+        return RedisConstants.VIEW_PENDING_KEY + targetType.name().toLowerCase(Locale.ROOT);
+    }
+
+    private String flushingKey(TargetType targetType) {
+        return RedisConstants.VIEW_FLUSHING_KEY + targetType.name().toLowerCase(Locale.ROOT);
+    }
+
+    private String flushIdKey(TargetType targetType) {
+        return RedisConstants.VIEW_FLUSH_ID_KEY + targetType.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static <T> RedisScript<T> loadScript(String path, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(resultType);
+        return script;
+    }
+}
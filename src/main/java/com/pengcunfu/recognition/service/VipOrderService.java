@@ -33,6 +33,7 @@ public class VipOrderService {
 
     private final VipOrderRepository vipOrderRepository;
     private final UserRepository userRepository;
+    private final PrincipalService principalService;
 
     /**
      * 创建VIP订单（使用 Builder 模式）
@@ -250,6 +251,7 @@ public class VipOrderService {
         // 更新用户角色为VIP
         user.setRole(1); // 1 = VIP
         userRepository.updateById(user);
+        principalService.invalidate(userId);
 
         log.info("用户VIP状态更新成功: userId={}, expireTime={}", userId, expireTime);
     }
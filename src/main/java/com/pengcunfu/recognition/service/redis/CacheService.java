@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * 缓存服务
@@ -37,6 +38,32 @@ public class CacheService {
         return value;
     }
 
+    /**
+     * 获取缓存的计数，未命中时调用 loader 查询并缓存；Redis 不可用时直接查询
+     */
+    public long getCount(CacheKeyPrefix prefix, String suffix, Supplier<Long> loader) {
+        String key = prefix.getKey(suffix);
+        try {
+            Object value = redisService.get(key);
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+        } catch (Exception e) {
+            log.warn("读取计数缓存失败: key={}, error={}", key, e.getMessage());
+            Long count = loader.get();
+            return count != null ? count : 0L;
+        }
+
+        Long count = loader.get();
+        long result = count != null ? count : 0L;
+        try {
+            redisService.set(key, result, prefix.getExpireTime(), TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入计数缓存失败: key={}, error={}", key, e.getMessage());
+        }
+        return result;
+    }
+
     /**
      * 删除缓存
      */
@@ -1,147 +1,360 @@
 package com.pengcunfu.recognition.service.redis;
 
+import com.pengcunfu.recognition.config.HotRankConfig;
 import com.pengcunfu.recognition.constant.RedisConstants;
+import com.pengcunfu.recognition.entity.CommunityPost;
+import com.pengcunfu.recognition.entity.Knowledge;
+import com.pengcunfu.recognition.enums.KnowledgeStatus;
+import com.pengcunfu.recognition.enums.PostStatus;
+import com.pengcunfu.recognition.enums.TargetType;
+import com.pengcunfu.recognition.repository.CommunityPostRepository;
+import com.pengcunfu.recognition.repository.KnowledgeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 热点数据服务
- * 管理热门帖子、热门知识等热点数据
+ * 管理热门帖子、热门知识等热点数据；
+ * 热门排行由浏览、点赞、收藏、评论事件增量更新Redis有序集合中的时间衰减分数，查询只需 ZREVRANGE；
+ * 事务中的更新延迟到提交之后执行，排行不存在时启动回填最近发布的帖子和知识
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class HotDataService {
 
+    private static final RedisScript<String> INCREMENT_SCRIPT = loadScript("scripts/hot_rank_increment.lua", String.class);
+    private static final RedisScript<Long> RESCALE_SCRIPT = loadScript("scripts/hot_rank_rescale.lua", Long.class);
+    private static final RedisScript<Long> BACKFILL_SCRIPT = loadScript("scripts/hot_rank_backfill.lua", Long.class);
+    private static final String EPOCH_SUFFIX = RedisConstants.KEY_SEPARATOR + "epoch";
+    private static final String BACKFILL_SUFFIX = RedisConstants.KEY_SEPARATOR + "backfilled";
+
     private final RedisService redisService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final HotRankConfig hotRankConfig;
+    private final CommunityPostRepository communityPostRepository;
+    private final KnowledgeRepository knowledgeRepository;
 
     /**
-     * 增加帖子浏览次数
+     * 缓存帖子信息
      */
-    public void incrementPostViewCount(Long postId) {
-        String key = RedisConstants.POST_VIEW_COUNT_KEY + postId;
-        redisService.increment(key);
+    public void cachePostInfo(Long postId, Object postInfo) {
+        String key = RedisConstants.POST_INFO_KEY + postId;
+        redisService.set(key, postInfo, RedisConstants.DEFAULT_EXPIRE_TIME, TimeUnit.SECONDS);
+        log.debug("缓存帖子信息: postId={}", postId);
     }
 
     /**
-     * 获取帖子浏览次数
+     * 获取缓存的帖子信息
      */
-    public Long getPostViewCount(Long postId) {
-        String key = RedisConstants.POST_VIEW_COUNT_KEY + postId;
-        Object count = redisService.get(key);
-        return count != null ? Long.valueOf(count.toString()) : 0L;
+    public Object getCachedPostInfo(Long postId) {
+        String key = RedisConstants.POST_INFO_KEY + postId;
+        return redisService.get(key);
     }
 
     /**
-     * 添加热门帖子
+     * 删除缓存的帖子信息
      */
-    public void addHotPost(Long postId, double score) {
-        redisService.zAdd(RedisConstants.HOT_POSTS_KEY, postId, score);
-        log.debug("添加热门帖子: postId={}, score={}", postId, score);
+    public void removeCachedPostInfo(Long postId) {
+        String key = RedisConstants.POST_INFO_KEY + postId;
+        redisService.delete(key);
+        log.debug("删除缓存帖子信息: postId={}", postId);
     }
 
     /**
-     * 获取热门帖子列表
+     * 缓存知识信息
      */
-    public Set<Object> getHotPosts(int limit) {
-        return redisService.zReverseRange(RedisConstants.HOT_POSTS_KEY, 0, limit - 1);
+    public void cacheKnowledgeInfo(Long knowledgeId, Object knowledgeInfo) {
+        String key = RedisConstants.KNOWLEDGE_INFO_KEY + knowledgeId;
+        redisService.set(key, knowledgeInfo, RedisConstants.DEFAULT_EXPIRE_TIME, TimeUnit.SECONDS);
+        log.debug("缓存知识信息: knowledgeId={}", knowledgeId);
     }
 
     /**
-     * 移除热门帖子
+     * 获取缓存的知识信息
      */
-    public void removeHotPost(Long postId) {
-        redisService.zRemove(RedisConstants.HOT_POSTS_KEY, postId);
-        log.debug("移除热门帖子: postId={}", postId);
+    public Object getCachedKnowledgeInfo(Long knowledgeId) {
+        String key = RedisConstants.KNOWLEDGE_INFO_KEY + knowledgeId;
+        return redisService.get(key);
     }
 
     /**
-     * 添加热门知识
+     * 删除缓存的知识信息
      */
-    public void addHotKnowledge(Long knowledgeId, double score) {
-        redisService.zAdd(RedisConstants.HOT_KNOWLEDGE_KEY, knowledgeId, score);
-        log.debug("添加热门知识: knowledgeId={}, score={}", knowledgeId, score);
+    public void removeCachedKnowledgeInfo(Long knowledgeId) {
+        String key = RedisConstants.KNOWLEDGE_INFO_KEY + knowledgeId;
+        redisService.delete(key);
+        log.debug("删除缓存知识信息: knowledgeId={}", knowledgeId);
     }
 
     /**
-     * 获取热门知识列表
+     * 记录浏览
      */
-    public Set<Object> getHotKnowledge(int limit) {
-        return redisService.zReverseRange(RedisConstants.HOT_KNOWLEDGE_KEY, 0, limit - 1);
+    public void recordView(TargetType targetType, Long targetId) {
+        incrementHotScore(targetType, targetId, hotRankConfig.getWeight().getView());
     }
 
     /**
-     * 移除热门知识
+     * 记录点赞
      */
-    public void removeHotKnowledge(Long knowledgeId) {
-        redisService.zRemove(RedisConstants.HOT_KNOWLEDGE_KEY, knowledgeId);
-        log.debug("移除热门知识: knowledgeId={}", knowledgeId);
+    public void recordLike(TargetType targetType, Long targetId) {
+        incrementHotScore(targetType, targetId, hotRankConfig.getWeight().getLike());
     }
 
     /**
-     * 缓存帖子信息
+     * 记录取消点赞，只扣除该点赞在点赞时间计入、至今已衰减的分量
+     *
+     * @param likedAt 点赞时间
      */
-    public void cachePostInfo(Long postId, Object postInfo) {
-        String key = RedisConstants.POST_INFO_KEY + postId;
-        redisService.set(key, postInfo, RedisConstants.DEFAULT_EXPIRE_TIME, TimeUnit.SECONDS);
-        log.debug("缓存帖子信息: postId={}", postId);
+    public void cancelLike(TargetType targetType, Long targetId, LocalDateTime likedAt) {
+        updateHotScore(targetType, targetId, -hotRankConfig.getWeight().getLike(), likedAt);
     }
 
     /**
-     * 获取缓存的帖子信息
+     * 记录收藏
      */
-    public Object getCachedPostInfo(Long postId) {
-        String key = RedisConstants.POST_INFO_KEY + postId;
-        return redisService.get(key);
+    public void recordCollect(TargetType targetType, Long targetId) {
+        incrementHotScore(targetType, targetId, hotRankConfig.getWeight().getCollect());
     }
 
     /**
-     * 删除缓存的帖子信息
+     * 记录取消收藏，只扣除该收藏在收藏时间计入、至今已衰减的分量
+     *
+     * @param collectedAt 收藏时间
      */
-    public void removeCachedPostInfo(Long postId) {
-        String key = RedisConstants.POST_INFO_KEY + postId;
-        redisService.delete(key);
-        log.debug("删除缓存帖子信息: postId={}", postId);
+    public void cancelCollect(TargetType targetType, Long targetId, LocalDateTime collectedAt) {
+        updateHotScore(targetType, targetId, -hotRankConfig.getWeight().getCollect(), collectedAt);
     }
 
     /**
-     * 缓存知识信息
+     * 记录评论
      */
-    public void cacheKnowledgeInfo(Long knowledgeId, Object knowledgeInfo) {
-        String key = RedisConstants.KNOWLEDGE_INFO_KEY + knowledgeId;
-        redisService.set(key, knowledgeInfo, RedisConstants.DEFAULT_EXPIRE_TIME, TimeUnit.SECONDS);
-        log.debug("缓存知识信息: knowledgeId={}", knowledgeId);
+    public void recordComment(TargetType targetType, Long targetId) {
+        incrementHotScore(targetType, targetId, hotRankConfig.getWeight().getComment());
     }
 
     /**
-     * 获取缓存的知识信息
+     * 按事件权重累加时间衰减热度分（只支持帖子和知识）
      */
-    public Object getCachedKnowledgeInfo(Long knowledgeId) {
-        String key = RedisConstants.KNOWLEDGE_INFO_KEY + knowledgeId;
-        return redisService.get(key);
+    public void incrementHotScore(TargetType targetType, Long targetId, double weight) {
+        updateHotScore(targetType, targetId, weight, null);
     }
 
     /**
-     * 删除缓存的知识信息
+     * 从热门排行中移除（删除或下架时调用）
      */
-    public void removeCachedKnowledgeInfo(Long knowledgeId) {
-        String key = RedisConstants.KNOWLEDGE_INFO_KEY + knowledgeId;
-        redisService.delete(key);
-        log.debug("删除缓存知识信息: knowledgeId={}", knowledgeId);
+    public void removeHot(TargetType targetType, Long targetId) {
+        String key = hotKey(targetType);
+        if (key == null || targetId == null) {
+            return;
+        }
+        runAfterCommit(() -> doRemoveHot(key, targetType, targetId));
+    }
+
+    /**
+     * 更新热度分，在事务中调用时延迟到提交之后，回滚的点赞、评论等不计入热度
+     *
+     * @param eventTime 事件发生时间，为空时取当前时间
+     */
+    private void updateHotScore(TargetType targetType, Long targetId, double weight, LocalDateTime eventTime) {
+        String key = hotKey(targetType);
+        if (key == null || targetId == null) {
+            return;
+        }
+        String eventMillis = eventTime != null ? String.valueOf(toMillis(eventTime)) : "";
+        runAfterCommit(() -> {
+            try {
+                stringRedisTemplate.execute(INCREMENT_SCRIPT, List.of(key, key + EPOCH_SUFFIX),
+                        targetId.toString(), String.valueOf(weight), String.valueOf(halfLifeMillis()), eventMillis);
+            } catch (Exception e) {
+                log.warn("更新热度失败: targetType={}, targetId={}, error={}", targetType, targetId, e.getMessage());
+            }
+        });
+    }
+
+    private void doRemoveHot(String key, TargetType targetType, Long targetId) {
+        try {
+            stringRedisTemplate.opsForZSet().remove(key, targetId.toString());
+            log.debug("移除热门排行: targetType={}, targetId={}", targetType, targetId);
+        } catch (Exception e) {
+            log.warn("移除热门排行失败: targetType={}, targetId={}, error={}", targetType, targetId, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取热度最高的目标ID（按热度降序）
+     */
+    public List<Long> getHotIds(TargetType targetType, int limit) {
+        String key = hotKey(targetType);
+        if (key == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Set<String> members = stringRedisTemplate.opsForZSet().reverseRange(key, 0, limit - 1);
+        if (members == null) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = new ArrayList<>(members.size());
+        for (String member : members) {
+            ids.add(Long.valueOf(member));
+        }
+        return ids;
+    }
+
+    /**
+     * 定时衰减热度分
+     * 各实例都会执行，缩放因子按上次缩放以来经过的时间计算，重复执行不会多次衰减
+     */
+    @Scheduled(fixedDelayString = "${hot-rank.rescale-interval-millis:600000}")
+    public void rescaleHotScores() {
+        for (String key : List.of(RedisConstants.HOT_POSTS_KEY, RedisConstants.HOT_KNOWLEDGE_KEY)) {
+            try {
+                Long size = stringRedisTemplate.execute(RESCALE_SCRIPT, List.of(key, key + EPOCH_SUFFIX),
+                        String.valueOf(halfLifeMillis()), String.valueOf(hotRankConfig.getMaxSize()),
+                        String.valueOf(hotRankConfig.getMinScore()));
+                log.debug("热度衰减完成: key={}, size={}", key, size);
+            } catch (Exception e) {
+                log.warn("热度衰减失败: key={}, error={}", key, e.getMessage());
+            }
+        }
     }
 
     /**
-     * 刷新热点数据
+     * 刷新热点数据：清除排行后从数据库重新回填
      */
     public void refreshHotData() {
         // 清除旧的热点数据
-        redisService.delete(RedisConstants.HOT_POSTS_KEY);
-        redisService.delete(RedisConstants.HOT_KNOWLEDGE_KEY);
+        List<String> keys = new ArrayList<>();
+        for (String key : List.of(RedisConstants.HOT_POSTS_KEY, RedisConstants.HOT_KNOWLEDGE_KEY)) {
+            keys.add(key);
+            keys.add(key + EPOCH_SUFFIX);
+            keys.add(key + BACKFILL_SUFFIX);
+        }
+        redisService.delete(keys);
+        backfillIfMissing();
         log.info("热点数据已刷新");
     }
-}
 
+    /**
+     * 启动时回填热门排行
+     * 排行只由事件增量维护，新部署或Redis数据丢失后为空；按最近发布内容的浏览、点赞、评论、收藏数
+     * 和发布时间计算衰减分数写入，各实例通过回填标记保证只回填一次
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfMissing() {
+        LocalDateTime since = LocalDateTime.now().minusDays(hotRankConfig.getBackfillDays());
+        try {
+            if (!isBackfilled(RedisConstants.HOT_POSTS_KEY)) {
+                List<String> args = new ArrayList<>();
+                for (CommunityPost post : communityPostRepository.findHotCandidates(
+                        PostStatus.PUBLISHED.getValue(), since, hotRankConfig.getMaxSize())) {
+                    addBackfillArgs(args, post.getId(), post.getViewCount(), post.getLikeCount(),
+                            post.getCommentCount(), post.getCollectCount(), post.getCreatedAt());
+                }
+                backfill(RedisConstants.HOT_POSTS_KEY, args);
+            }
+            if (!isBackfilled(RedisConstants.HOT_KNOWLEDGE_KEY)) {
+                List<String> args = new ArrayList<>();
+                for (Knowledge knowledge : knowledgeRepository.findHotCandidates(
+                        KnowledgeStatus.PUBLISHED.getValue(), since, hotRankConfig.getMaxSize())) {
+                    addBackfillArgs(args, knowledge.getId(), knowledge.getViewCount(), knowledge.getLikeCount(),
+                            knowledge.getCommentCount(), knowledge.getCollectCount(), knowledge.getCreatedAt());
+                }
+                backfill(RedisConstants.HOT_KNOWLEDGE_KEY, args);
+            }
+        } catch (Exception e) {
+            log.warn("回填热门排行失败: error={}", e.getMessage());
+        }
+    }
+
+    private boolean isBackfilled(String key) {
+        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(key + BACKFILL_SUFFIX));
+    }
+
+    private void addBackfillArgs(List<String> args, Long id, Integer views, Integer likes,
+                                 Integer comments, Integer collects, LocalDateTime createdAt) {
+        if (id == null || createdAt == null) {
+            return;
+        }
+        HotRankConfig.Weight weight = hotRankConfig.getWeight();
+        double total = count(views) * weight.getView() + count(likes) * weight.getLike()
+                + count(comments) * weight.getComment() + count(collects) * weight.getCollect();
+        if (total <= 0) {
+            return;
+        }
+        args.add(id.toString());
+        args.add(String.valueOf(total));
+        args.add(String.valueOf(toMillis(createdAt)));
+    }
+
+    private void backfill(String key, List<String> args) {
+        List<String> scriptArgs = new ArrayList<>(args.size() + 1);
+        scriptArgs.add(String.valueOf(halfLifeMillis()));
+        scriptArgs.addAll(args);
+        Long count = stringRedisTemplate.execute(BACKFILL_SCRIPT,
+                List.of(key, key + EPOCH_SUFFIX, key + BACKFILL_SUFFIX), scriptArgs.toArray());
+        if (count != null && count >= 0) {
+            log.info("回填热门排行完成: key={}, count={}", key, count);
+        }
+    }
+
+    private static long count(Integer value) {
+        return value != null ? Math.max(0, value) : 0;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private String hotKey(TargetType targetType) {
+        if (targetType == TargetType.POST) {
+            return RedisConstants.HOT_POSTS_KEY;
+        }
+        if (targetType == TargetType.KNOWLEDGE) {
+            return RedisConstants.HOT_KNOWLEDGE_KEY;
+        }
+        return null;
+    }
+
+    private long halfLifeMillis() {
+        return Math.max(1L, (long) (hotRankConfig.getHalfLifeHours() * 3600_000L));
+    }
+
+    private static <T> RedisScript<T> loadScript(String path, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(resultType);
+        return script;
+    }
+}
@@ -1,25 +1,65 @@
 package com.pengcunfu.recognition.service.redis;
 
+import com.pengcunfu.recognition.config.RateLimitConfig;
 import com.pengcunfu.recognition.constant.RedisConstants;
+import com.pengcunfu.recognition.enums.RateLimitAlgorithm;
+import com.pengcunfu.recognition.response.RateLimitResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 限流服务
- * 基于Redis实现分布式限流
+ * 基于Redis Lua脚本实现分布式限流，支持固定窗口、滑动窗口和令牌桶；
+ * 各实例从Redis租用一部分额度在本地扣减，额度内的请求无需访问Redis
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RateLimitService {
 
+    private static final RedisScript<List> FIXED_WINDOW_SCRIPT = loadScript("scripts/rate_limit_fixed_window.lua");
+    private static final RedisScript<List> SLIDING_WINDOW_SCRIPT = loadScript("scripts/rate_limit_sliding_window.lua");
+    private static final RedisScript<List> TOKEN_BUCKET_SCRIPT = loadScript("scripts/rate_limit_token_bucket.lua");
+
+    // 滑动日志中同一毫秒内的请求需要不同的成员
+    private static final String INSTANCE_ID = UUID.randomUUID().toString().substring(0, 8);
+    private static final AtomicLong REQUEST_SEQUENCE = new AtomicLong();
+
     private final RedisService redisService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RateLimitConfig rateLimitConfig;
+
+    // 本地租约：限流键 -> 从Redis租用的许可
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    // 统计
+    private final long startTime = System.currentTimeMillis();
+    private final LongAdder checkCount = new LongAdder();
+    private final LongAdder checkNanos = new LongAdder();
+    private final LongAdder localAllowedCount = new LongAdder();
+    private final LongAdder localRejectedCount = new LongAdder();
+    private final LongAdder remoteCount = new LongAdder();
+    private final LongAdder remoteNanos = new LongAdder();
+    private final LongAdder leasedPermits = new LongAdder();
 
     /**
-     * 检查是否被限流
+     * 检查是否被限流（固定窗口）
      *
      * @param key 限流键
      * @param maxCount 最大次数
@@ -27,24 +67,151 @@ public class RateLimitService {
      * @return true-允许访问，false-被限流
      */
     public boolean isAllowed(String key, int maxCount, int timeWindow) {
-        Object countObj = redisService.get(key);
-        
-        if (countObj == null) {
-            // 第一次访问，设置计数为1
-            redisService.set(key, 1, timeWindow, TimeUnit.SECONDS);
-            return true;
+        return isAllowed(key, maxCount, timeWindow, RateLimitAlgorithm.FIXED_WINDOW);
+    }
+
+    /**
+     * 检查是否被限流
+     * 优先使用本地租用的许可，用完或过期时再通过Lua脚本向Redis原子租用一批许可
+     *
+     * @param key 限流键
+     * @param maxCount 最大次数（令牌桶为桶容量）
+     * @param timeWindow 时间窗口（秒）
+     * @param algorithm 限流算法
+     * @return true-允许访问，false-被限流
+     */
+    public boolean isAllowed(String key, int maxCount, int timeWindow, RateLimitAlgorithm algorithm) {
+        long begin = System.nanoTime();
+        try {
+            if (rateLimitConfig.getLocal().isEnabled()) {
+                return acquireLocal(key, maxCount, timeWindow, algorithm);
+            }
+            return acquireRemote(key, maxCount, timeWindow, algorithm, 1)[0] > 0;
+        } finally {
+            checkCount.increment();
+            checkNanos.add(System.nanoTime() - begin);
         }
+    }
 
-        int count = (Integer) countObj;
-        if (count < maxCount) {
-            // 未达到限流阈值，增加计数
-            redisService.increment(key);
+    /**
+     * 获取限流统计
+     */
+    public RateLimitResponse.LimiterStats getStats() {
+        long checks = checkCount.sum();
+        long remoteCalls = remoteCount.sum();
+        long localAllowed = localAllowedCount.sum();
+        long localRejected = localRejectedCount.sum();
+        double uptimeSeconds = Math.max(1, System.currentTimeMillis() - startTime) / 1000.0;
+
+        return RateLimitResponse.LimiterStats.builder()
+                .localEnabled(rateLimitConfig.getLocal().isEnabled())
+                .localKeys(leases.size())
+                .checkCount(checks)
+                .localAllowedCount(localAllowed)
+                .localRejectedCount(localRejected)
+                .localHitRate(checks > 0 ? (double) (localAllowed + localRejected) / checks : 0.0)
+                .remoteCount(remoteCalls)
+                .leasedPermits(leasedPermits.sum())
+                .leaseRefillPerSecond(remoteCalls / uptimeSeconds)
+                .avgLatencyMicros(checks > 0 ? checkNanos.sum() / 1000.0 / checks : 0.0)
+                .avgRemoteLatencyMicros(remoteCalls > 0 ? remoteNanos.sum() / 1000.0 / remoteCalls : 0.0)
+                .build();
+    }
+
+    /**
+     * 本地预限流：租约内的许可无需访问Redis；
+     * Redis拒绝时在结果有效期内（固定窗口为窗口剩余时间）直接在本地拒绝
+     */
+    private boolean acquireLocal(String key, int maxCount, int timeWindow, RateLimitAlgorithm algorithm) {
+        RateLimitConfig.Local local = rateLimitConfig.getLocal();
+        String leaseKey = algorithm.getValue() + ":" + key;
+
+        Lease lease = leases.get(leaseKey);
+        if (lease == null) {
+            if (leases.size() >= local.getMaxKeys()) {
+                long now = System.currentTimeMillis();
+                leases.values().removeIf(item -> item.expireAt <= now);
+                if (leases.size() >= local.getMaxKeys()) {
+                    return acquireRemote(key, maxCount, timeWindow, algorithm, 1)[0] > 0;
+                }
+            }
+            lease = leases.computeIfAbsent(leaseKey, k -> new Lease());
+        }
+
+        int state = lease.tryTake(System.currentTimeMillis());
+        if (state == Lease.TAKEN) {
+            localAllowedCount.increment();
             return true;
         }
+        if (state == Lease.REJECTED) {
+            localRejectedCount.increment();
+            return false;
+        }
 
-        // 达到限流阈值
-        log.warn("触发限流: key={}, count={}/{}, timeWindow={}s", key, count, maxCount, timeWindow);
-        return false;
+        // 同一个键只允许一个线程续租，其余线程等待后使用新租约
+        synchronized (lease) {
+            long now = System.currentTimeMillis();
+            state = lease.tryTake(now);
+            if (state == Lease.TAKEN) {
+                localAllowedCount.increment();
+                return true;
+            }
+            if (state == Lease.REJECTED) {
+                localRejectedCount.increment();
+                return false;
+            }
+
+            int leaseSize = (int) Math.max(1, Math.min(local.getMaxLease(), Math.ceil(maxCount * local.getLeaseRatio())));
+            long[] grant = acquireRemote(key, maxCount, timeWindow, algorithm, leaseSize);
+            long ttl = algorithm == RateLimitAlgorithm.FIXED_WINDOW
+                    ? grant[1]
+                    : Math.min(grant[1], local.getLeaseTtlMillis());
+            lease.renew((int) grant[0], now + ttl);
+            return grant[0] > 0;
+        }
+    }
+
+    /**
+     * 通过Lua脚本向Redis原子申请许可，每次一次往返
+     *
+     * @return {授予的许可数, 结果有效期(毫秒)}
+     */
+    private long[] acquireRemote(String key, int maxCount, int timeWindow, RateLimitAlgorithm algorithm, int permits) {
+        long begin = System.nanoTime();
+        long windowMillis = TimeUnit.SECONDS.toMillis(timeWindow);
+        String limit = String.valueOf(maxCount);
+        String window = String.valueOf(windowMillis);
+        String requested = String.valueOf(permits);
+
+        List<?> result;
+        switch (algorithm) {
+            case SLIDING_WINDOW:
+                result = stringRedisTemplate.execute(SLIDING_WINDOW_SCRIPT,
+                        Collections.singletonList(key + ":sliding"), limit, window, requested, requestId());
+                break;
+            case TOKEN_BUCKET:
+                result = stringRedisTemplate.execute(TOKEN_BUCKET_SCRIPT,
+                        Collections.singletonList(key + ":bucket"), limit, window, requested);
+                break;
+            default:
+                result = stringRedisTemplate.execute(FIXED_WINDOW_SCRIPT,
+                        Collections.singletonList(key), limit, window, requested);
+                break;
+        }
+
+        long granted = result != null && !result.isEmpty() ? ((Number) result.get(0)).longValue() : 0;
+        long ttl = result != null && result.size() > 1 ? ((Number) result.get(1)).longValue() : windowMillis;
+
+        remoteCount.increment();
+        remoteNanos.add(System.nanoTime() - begin);
+        leasedPermits.add(granted);
+
+        if (granted <= 0) {
+            // 达到限流阈值
+            log.warn("触发限流: key={}, algorithm={}, maxCount={}, timeWindow={}s, retryAfter={}ms",
+                    key, algorithm, maxCount, timeWindow, ttl);
+        }
+        return new long[]{granted, ttl};
     }
 
     /**
@@ -56,11 +223,11 @@ public class RateLimitService {
     }
 
     /**
-     * 识别功能限流
+     * 识别功能限流（滑动窗口，避免窗口边界处放行两倍额度）
      */
     public boolean isRecognitionAllowed(Long userId, int maxCount, int timeWindow) {
         String key = RedisConstants.RECOGNITION_RATE_LIMIT_KEY + userId;
-        return isAllowed(key, maxCount, timeWindow);
+        return isAllowed(key, maxCount, timeWindow, RateLimitAlgorithm.SLIDING_WINDOW);
     }
 
     /**
@@ -136,5 +303,60 @@ public class RateLimitService {
         String key = RedisConstants.ACCOUNT_LOCK_KEY + username;
         return redisService.getExpire(key, TimeUnit.SECONDS);
     }
+
+    /**
+     * 滑动日志成员标识
+     */
+    private static String requestId() {
+        return INSTANCE_ID + "-" + REQUEST_SEQUENCE.incrementAndGet();
+    }
+
+    /**
+     * 加载类路径下的Lua脚本（执行时优先EVALSHA）
+     */
+    private static RedisScript<List> loadScript(String path) {
+        DefaultRedisScript<List> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(List.class);
+        return script;
+    }
+
+    /**
+     * 本地租约
+     * 许可数通过CAS扣减；exhausted 表示Redis已拒绝，在 expireAt 之前直接本地拒绝
+     */
+    private static class Lease {
+        static final int TAKEN = 0;
+        static final int REJECTED = 1;
+        static final int EXPIRED = 2;
+
+        private final AtomicInteger permits = new AtomicInteger();
+        private volatile boolean exhausted;
+        private volatile long expireAt;
+
+        int tryTake(long now) {
+            if (now >= expireAt) {
+                return EXPIRED;
+            }
+            while (true) {
+                int current = permits.get();
+                if (current <= 0) {
+                    return exhausted ? REJECTED : EXPIRED;
+                }
+                if (permits.compareAndSet(current, current - 1)) {
+                    return TAKEN;
+                }
+            }
+        }
+
+        /**
+         * 续租，授予的许可中有一个由当前请求使用
+         */
+        void renew(int granted, long expireAt) {
+            this.exhausted = granted <= 0;
+            this.permits.set(Math.max(0, granted - 1));
+            this.expireAt = expireAt;
+        }
+    }
 }
 
@@ -3,9 +3,12 @@ package com.pengcunfu.recognition.service.redis;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -22,6 +25,10 @@ public class RedisService {
 
     private final RedisTemplate<String, Object> redisTemplate;
 
+    private static final RedisScript<Long> COMPARE_AND_DELETE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
     // ==================== String 操作 ====================
 
     /**
@@ -108,6 +115,21 @@ public class RedisService {
         return redisTemplate.opsForValue().decrement(key, delta);
     }
 
+    /**
+     * 不存在时设置（带过期时间）
+     */
+    public Boolean setIfAbsent(String key, Object value, long timeout, TimeUnit unit) {
+        return redisTemplate.opsForValue().setIfAbsent(key, value, timeout, unit);
+    }
+
+    /**
+     * 值相等时删除（用于释放分布式锁）
+     */
+    public Boolean deleteIfEquals(String key, Object value) {
+        Long deleted = redisTemplate.execute(COMPARE_AND_DELETE_SCRIPT, Collections.singletonList(key), value);
+        return deleted != null && deleted > 0;
+    }
+
     // ==================== Hash 操作 ====================
 
     /**
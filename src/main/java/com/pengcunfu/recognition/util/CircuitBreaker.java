@@ -0,0 +1,98 @@
+package com.pengcunfu.recognition.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 简单熔断器
+ * 连续失败达到阈值后打开，打开期间直接拒绝调用；超过打开时长后放行一次试探调用，成功则关闭，失败则重新打开
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    /**
+     * 熔断状态
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInProgress;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * 是否允许本次调用
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInProgress = true;
+                log.info("熔断器进入半开状态: name={}", name);
+                return true;
+            case HALF_OPEN:
+                if (trialInProgress) {
+                    return false;
+                }
+                trialInProgress = true;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * 记录调用成功
+     */
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("熔断器关闭: name={}", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInProgress = false;
+    }
+
+    /**
+     * 记录调用失败
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            trialInProgress = false;
+            log.warn("熔断器打开: name={}, consecutiveFailures={}", name, consecutiveFailures);
+        }
+    }
+
+    /**
+     * 记录未计入统计的调用（归还半开状态下的试探许可）
+     */
+    public synchronized void onIgnored() {
+        trialInProgress = false;
+    }
+
+    /**
+     * 获取当前状态
+     */
+    public synchronized State getState() {
+        return state;
+    }
+}
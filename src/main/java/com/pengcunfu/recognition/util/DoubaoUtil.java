@@ -1,6 +1,9 @@
 package com.pengcunfu.recognition.util;
 
 import com.pengcunfu.recognition.config.DoubaoConfig;
+import com.pengcunfu.recognition.constant.ErrorCode;
+import com.pengcunfu.recognition.exception.BusinessException;
+import com.volcengine.ark.runtime.exception.ArkHttpException;
 import com.volcengine.ark.runtime.model.completion.chat.ChatCompletionContentPart;
 import com.volcengine.ark.runtime.model.completion.chat.ChatCompletionRequest;
 import com.volcengine.ark.runtime.model.completion.chat.ChatMessage;
@@ -14,9 +17,24 @@ import okhttp3.ConnectionPool;
 import okhttp3.Dispatcher;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * 豆包视觉识别工具类
@@ -27,27 +45,59 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class DoubaoUtil {
     
+    // 等待单次调用时在SDK超时之外多等的时间，使SDK自身的超时先触发并按可重试错误处理
+    private static final long ATTEMPT_WAIT_GRACE_MILLIS = 1000;
+    
     private final DoubaoConfig doubaoConfig;
     
     private ArkService arkService;
     
+    // 执行模型调用，调用线程按剩余时间等待结果
+    private ExecutorService callExecutor;
+    
+    // 并发调用隔离
+    private Semaphore bulkhead;
+    
+    // 熔断器
+    private CircuitBreaker circuitBreaker;
+    
     /**
      * 初始化ARK服务
      */
     @PostConstruct
     public void init() {
-        log.info("初始化豆包视觉服务: baseUrl={}, model={}", 
-                doubaoConfig.getBaseUrl(), doubaoConfig.getModel());
+        log.info("初始化豆包视觉服务: baseUrl={}, model={}, timeout={}ms, maxRetries={}, maxConcurrentCalls={}", 
+                doubaoConfig.getBaseUrl(), doubaoConfig.getModel(), doubaoConfig.getTimeout(),
+                doubaoConfig.getMaxRetries(), doubaoConfig.getMaxConcurrentCalls());
         
-        ConnectionPool connectionPool = new ConnectionPool(5, 1, TimeUnit.SECONDS);
+        // 保持长连接，避免频繁重建TLS连接
+        ConnectionPool connectionPool = new ConnectionPool(
+                doubaoConfig.getMaxIdleConnections(), doubaoConfig.getKeepAliveSeconds(), TimeUnit.SECONDS);
         Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(doubaoConfig.getMaxConcurrentCalls());
+        dispatcher.setMaxRequestsPerHost(doubaoConfig.getMaxConcurrentCalls());
         
         this.arkService = ArkService.builder()
                 .dispatcher(dispatcher)
                 .connectionPool(connectionPool)
+                .timeout(Duration.ofMillis(doubaoConfig.getTimeout()))
+                .connectTimeout(Duration.ofMillis(doubaoConfig.getConnectTimeout()))
+                .retryTimes(0) // 重试由本类统一控制
                 .baseUrl(doubaoConfig.getBaseUrl())
                 .apiKey(doubaoConfig.getKey())
                 .build();
+        
+        // 线程数受舱壁许可限制，不会超过最大并发调用数
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.callExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "doubao-call-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.bulkhead = new Semaphore(doubaoConfig.getMaxConcurrentCalls());
+        this.circuitBreaker = new CircuitBreaker("doubao",
+                doubaoConfig.getCircuitBreaker().getFailureThreshold(),
+                TimeUnit.SECONDS.toMillis(doubaoConfig.getCircuitBreaker().getOpenSeconds()));
     }
     
     /**
@@ -61,57 +111,276 @@ public class DoubaoUtil {
         log.info("调用豆包视觉识别: imageUrl={}, prompt={}", imageUrl, prompt);
         
         try {
-            // 构建消息内容
-            List<ChatCompletionContentPart> multiParts = new ArrayList<>();
-            
-            // 添加图片
-            multiParts.add(ChatCompletionContentPart.builder()
-                    .type("image_url")
-                    .imageUrl(new ChatCompletionContentPart.ChatCompletionContentPartImageURL(imageUrl))
-                    .build());
-            
-            // 添加文本提示
-            multiParts.add(ChatCompletionContentPart.builder()
-                    .type("text")
-                    .text(prompt)
-                    .build());
-            
-            // 构建用户消息
-            ChatMessage userMessage = ChatMessage.builder()
-                    .role(ChatMessageRole.USER)
-                    .multiContent(multiParts)
-                    .build();
-            
-            List<ChatMessage> messages = new ArrayList<>();
-            messages.add(userMessage);
-            
-            // 构建请求
-            ChatCompletionRequest request = ChatCompletionRequest.builder()
-                    .model(doubaoConfig.getModel())
-                    .messages(messages)
-                    .build();
+            ChatCompletionRequest request = buildRequest(imageUrl, prompt);
             
             // 调用API
-            StringBuilder result = new StringBuilder();
-            arkService.createChatCompletion(request).getChoices().forEach(choice -> {
-                Object content = choice.getMessage().getContent();
-                if (content != null) {
-                    result.append(content.toString());
-                    log.debug("豆包返回内容: {}", content);
-                }
-            });
-            
-            String finalResult = result.toString();
+            String finalResult = execute(() -> {
+                StringBuilder result = new StringBuilder();
+                arkService.createChatCompletion(request).getChoices().forEach(choice -> {
+                    Object content = choice.getMessage().getContent();
+                    if (content != null) {
+                        result.append(content.toString());
+                        log.debug("豆包返回内容: {}", content);
+                    }
+                });
+                return result.toString();
+            }, doubaoConfig.getMaxRetries());
             log.info("豆包识别完成，结果长度: {}", finalResult.length());
             
             return finalResult;
             
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("豆包视觉识别失败", e);
             throw new RuntimeException("图像识别失败: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * 流式识别图像内容
+     * 模型输出的每个片段都会回调 onDelta，已输出内容无法撤回，因此流式调用不重试
+     * 
+     * @param imageUrl 图像URL（必须是公网可访问的URL）
+     * @param prompt 提示词
+     * @param onDelta 输出片段回调
+     * @return 完整识别结果
+     */
+    public String streamRecognizeImage(String imageUrl, String prompt, Consumer<String> onDelta) {
+        log.info("调用豆包视觉流式识别: imageUrl={}", imageUrl);
+        
+        try {
+            ChatCompletionRequest request = buildRequest(imageUrl, prompt);
+            
+            String finalResult = execute(() -> {
+                StringBuilder result = new StringBuilder();
+                arkService.streamChatCompletion(request).blockingForEach(chunk -> {
+                    if (chunk.getChoices() == null) {
+                        return;
+                    }
+                    chunk.getChoices().forEach(choice -> {
+                        Object content = choice.getMessage() != null ? choice.getMessage().getContent() : null;
+                        if (content != null && !content.toString().isEmpty()) {
+                            result.append(content);
+                            onDelta.accept(content.toString());
+                        }
+                    });
+                });
+                return result.toString();
+            }, 0);
+            log.info("豆包流式识别完成，结果长度: {}", finalResult.length());
+            
+            return finalResult;
+            
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("豆包视觉流式识别失败", e);
+            throw new RuntimeException("图像识别失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 构建图文识别请求
+     */
+    private ChatCompletionRequest buildRequest(String imageUrl, String prompt) {
+        // 构建消息内容
+        List<ChatCompletionContentPart> multiParts = new ArrayList<>();
+        
+        // 添加图片
+        multiParts.add(ChatCompletionContentPart.builder()
+                .type("image_url")
+                .imageUrl(new ChatCompletionContentPart.ChatCompletionContentPartImageURL(imageUrl))
+                .build());
+        
+        // 添加文本提示
+        multiParts.add(ChatCompletionContentPart.builder()
+                .type("text")
+                .text(prompt)
+                .build());
+        
+        // 构建用户消息
+        ChatMessage userMessage = ChatMessage.builder()
+                .role(ChatMessageRole.USER)
+                .multiContent(multiParts)
+                .build();
+        
+        List<ChatMessage> messages = new ArrayList<>();
+        messages.add(userMessage);
+        
+        // 构建请求
+        return ChatCompletionRequest.builder()
+                .model(doubaoConfig.getModel())
+                .messages(messages)
+                .build();
+    }
+    
+    /**
+     * 在熔断、舱壁和重试保护下执行模型调用
+     * 仅对超时、429和5xx错误按指数退避加随机抖动重试；每次调用最多等待 min(timeout, 剩余时间)，
+     * 剩余时间不足 minAttemptMillis 时不再发起调用，总耗时不超过 totalTimeout
+     */
+    private <T> T execute(Supplier<T> call, int maxRetries) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new BusinessException(ErrorCode.RECOGNITION_SERVICE_UNAVAILABLE, "识别服务暂时不可用，请稍后再试");
+        }
+        
+        // 每条退出路径都必须向熔断器报告结果，否则半开状态下的试探许可不会归还
+        boolean recorded = false;
+        boolean acquired = false;
+        try {
+            try {
+                acquired = bulkhead.tryAcquire(doubaoConfig.getBulkheadWaitMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException(ErrorCode.RECOGNITION_SERVICE_UNAVAILABLE, "识别请求已中断");
+            }
+            if (!acquired) {
+                throw new BusinessException(ErrorCode.RECOGNITION_SERVICE_UNAVAILABLE, "识别服务繁忙，请稍后再试");
+            }
+            
+            long deadline = System.currentTimeMillis() + doubaoConfig.getTotalTimeout();
+            for (int attempt = 0; ; attempt++) {
+                // 调用结束与放弃等待只有后发生的一方归还许可
+                AtomicBoolean settled = new AtomicBoolean();
+                Future<T> future = callExecutor.submit(() -> {
+                    try {
+                        return call.get();
+                    } finally {
+                        if (!settled.compareAndSet(false, true)) {
+                            bulkhead.release();
+                        }
+                    }
+                });
+                try {
+                    T result = await(future, deadline);
+                    circuitBreaker.onSuccess();
+                    recorded = true;
+                    return result;
+                } catch (RuntimeException e) {
+                    if (!future.isDone()) {
+                        // 放弃仍在进行的调用：许可在调用真正结束时归还，不再重试
+                        future.cancel(true);
+                        if (settled.compareAndSet(false, true)) {
+                            acquired = false;
+                        }
+                        if (Thread.currentThread().isInterrupted()) {
+                            throw e;
+                        }
+                        circuitBreaker.onFailure();
+                        recorded = true;
+                        throw new BusinessException(ErrorCode.RECOGNITION_TIMEOUT, "识别服务响应超时，请稍后再试");
+                    }
+                    if (!isRetryable(e)) {
+                        // 客户端错误说明上游可用，不计入熔断
+                        circuitBreaker.onSuccess();
+                        recorded = true;
+                        throw e;
+                    }
+                    
+                    long delay = backoffDelay(attempt);
+                    if (attempt >= maxRetries
+                            || deadline - System.currentTimeMillis() - delay < doubaoConfig.getMinAttemptMillis()) {
+                        circuitBreaker.onFailure();
+                        recorded = true;
+                        if (isTimeout(e)) {
+                            throw new BusinessException(ErrorCode.RECOGNITION_TIMEOUT, "识别服务响应超时，请稍后再试");
+                        }
+                        throw e;
+                    }
+                    
+                    log.warn("豆包调用失败，{}ms后重试: attempt={}, error={}", delay, attempt + 1, e.getMessage());
+                    sleep(delay);
+                }
+            }
+        } finally {
+            if (acquired) {
+                bulkhead.release();
+            }
+            if (!recorded) {
+                // 未得出调用结论（舱壁已满、等待或重试期间被中断等），不影响熔断统计
+                circuitBreaker.onIgnored();
+            }
+        }
+    }
+    
+    /**
+     * 等待单次调用结果，最多等待 min(timeout, 截止时间前的剩余时间)
+     * 等待超时时抛出可重试的超时异常，仍在进行的调用由调用方取消
+     */
+    private <T> T await(Future<T> future, long deadline) {
+        long remaining = deadline - System.currentTimeMillis();
+        long wait = remaining > doubaoConfig.getTimeout()
+                ? doubaoConfig.getTimeout() + ATTEMPT_WAIT_GRACE_MILLIS
+                : remaining;
+        try {
+            return future.get(Math.max(0, wait), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new UncheckedIOException(new InterruptedIOException("豆包调用超过截止时间"));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.RECOGNITION_SERVICE_UNAVAILABLE, "识别请求已中断");
+        }
+    }
+    
+    /**
+     * 是否可重试：超时/网络错误、429 和 5xx
+     */
+    private boolean isRetryable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ArkHttpException) {
+                int statusCode = ((ArkHttpException) cause).statusCode;
+                return statusCode == 429 || statusCode >= 500;
+            }
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 是否为超时错误
+     */
+    private boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedIOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 计算退避时间（指数退避 + 随机抖动）
+     */
+    private long backoffDelay(int attempt) {
+        long exponential = (long) doubaoConfig.getRetryBaseDelay() << Math.min(attempt, 16);
+        long cap = Math.min(doubaoConfig.getRetryMaxDelay(), exponential);
+        return ThreadLocalRandom.current().nextLong(cap / 2, cap + 1);
+    }
+    
+    /**
+     * 重试等待
+     */
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.RECOGNITION_SERVICE_UNAVAILABLE, "识别请求已中断");
+        }
+    }
+    
     /**
      * 批量识别图像
      * 
@@ -174,6 +443,9 @@ public class DoubaoUtil {
      */
     @PreDestroy
     public void shutdown() {
+        if (callExecutor != null) {
+            callExecutor.shutdownNow();
+        }
         if (arkService != null) {
             arkService.shutdownExecutor();
             log.info("豆包视觉服务已关闭");
@@ -121,6 +121,47 @@ public class FileUtil {
         return Arrays.asList(FileConstants.ALLOWED_IMAGE_EXTENSIONS).contains(extension.toLowerCase());
     }
 
+    /**
+     * 根据文件头(魔数)识别图片类型
+     *
+     * @param header 文件开头的字节（至少12字节才能识别WEBP）
+     * @return 图片扩展名，无法识别时返回 null
+     */
+    public String detectImageType(byte[] header) {
+        if (startsWith(header, 0xFF, 0xD8, 0xFF)) {
+            return "jpg";
+        }
+        if (startsWith(header, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "png";
+        }
+        if (startsWith(header, 'G', 'I', 'F', '8')) {
+            return "gif";
+        }
+        if (startsWith(header, 'B', 'M')) {
+            return "bmp";
+        }
+        if (startsWith(header, 'R', 'I', 'F', 'F') && header.length >= 12
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "webp";
+        }
+        return null;
+    }
+
+    /**
+     * 字节数组是否以指定字节开头
+     */
+    private boolean startsWith(byte[] data, int... prefix) {
+        if (data.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * 验证文件大小
      */
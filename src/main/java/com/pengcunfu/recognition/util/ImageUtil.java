@@ -0,0 +1,358 @@
+package com.pengcunfu.recognition.util;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * 图片处理工具类
+ * 解码、缩放和JPEG编码（重新编码时不写入EXIF等元数据，解码时已按EXIF方向旋转像素）
+ */
+public class ImageUtil {
+
+    /**
+     * 默认允许解码的最大像素数
+     */
+    public static final long DEFAULT_MAX_PIXELS = 40_000_000L;
+
+    /**
+     * EXIF 方向标签
+     */
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    /**
+     * 解码图片（像素数不超过默认上限），无法识别的格式返回 null
+     */
+    public static BufferedImage decode(byte[] data) throws IOException {
+        return decode(data, DEFAULT_MAX_PIXELS);
+    }
+
+    /**
+     * 解码图片并按EXIF方向校正，无法识别的格式返回 null
+     * 解码前先从文件头读取尺寸，像素数超过 maxPixels 时不解码，避免解压缩炸弹耗尽内存
+     */
+    public static BufferedImage decode(byte[] data, long maxPixels) throws IOException {
+        BufferedImage image;
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            ImageReader reader = firstReader(input);
+            if (reader == null) {
+                return null;
+            }
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IOException("图片像素数超过限制: " + width + "x" + height);
+                }
+                image = reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+        return applyOrientation(image, readExifOrientation(data));
+    }
+
+    /**
+     * 只读取文件头中的图片尺寸（不解码像素），无法识别的格式返回 null
+     */
+    public static Dimension readSize(byte[] data) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            ImageReader reader = firstReader(input);
+            if (reader == null) {
+                return null;
+            }
+            try {
+                reader.setInput(input, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 读取JPEG的EXIF方向（1-8），没有方向信息时返回 1
+     */
+    public static int readExifOrientation(byte[] data) {
+        if (data.length < 4 || (data[0] & 0xFF) != 0xFF || (data[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+
+        int pos = 2;
+        while (pos + 4 <= data.length) {
+            if ((data[pos] & 0xFF) != 0xFF) {
+                return 1;
+            }
+            int marker = data[pos + 1] & 0xFF;
+            if (marker == 0xFF) {
+                pos++;
+                continue;
+            }
+            if (marker == 0xD9 || marker == 0xDA) {
+                // 图像数据开始后不会再有元数据段
+                return 1;
+            }
+
+            int length = readShort(data, pos + 2, false);
+            int segmentEnd = Math.min(data.length, pos + 2 + length);
+            if (marker == 0xE1 && pos + 10 <= segmentEnd && isExifHeader(data, pos + 4)) {
+                return readTiffOrientation(data, pos + 10, segmentEnd);
+            }
+            pos += 2 + length;
+        }
+        return 1;
+    }
+
+    /**
+     * 按EXIF方向旋转或翻转图片，使像素方向与显示方向一致
+     */
+    public static BufferedImage applyOrientation(BufferedImage source, int orientation) {
+        if (source == null || orientation <= 1 || orientation > 8) {
+            return source;
+        }
+
+        int width = source.getWidth();
+        int height = source.getHeight();
+        boolean swap = orientation >= 5;
+
+        AffineTransform transform = new AffineTransform();
+        switch (orientation) {
+            case 2:
+                transform.scale(-1, 1);
+                transform.translate(-width, 0);
+                break;
+            case 3:
+                transform.translate(width, height);
+                transform.rotate(Math.PI);
+                break;
+            case 4:
+                transform.scale(1, -1);
+                transform.translate(0, -height);
+                break;
+            case 5:
+                transform.rotate(-Math.PI / 2);
+                transform.scale(-1, 1);
+                break;
+            case 6:
+                transform.translate(height, 0);
+                transform.rotate(Math.PI / 2);
+                break;
+            case 7:
+                transform.translate(height, width);
+                transform.rotate(Math.PI / 2);
+                transform.scale(-1, 1);
+                break;
+            default:
+                transform.translate(0, width);
+                transform.rotate(-Math.PI / 2);
+                break;
+        }
+
+        BufferedImage target = new BufferedImage(swap ? height : width, swap ? width : height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.drawImage(toRgb(source), transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * 等比缩放到最长边不超过 maxEdge，原图已满足时原样返回
+     */
+    public static BufferedImage scaleToMaxEdge(BufferedImage source, int maxEdge) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int longEdge = Math.max(width, height);
+        if (longEdge <= maxEdge) {
+            return source;
+        }
+
+        double ratio = (double) maxEdge / longEdge;
+        return scale(source, Math.max(1, (int) Math.round(width * ratio)), Math.max(1, (int) Math.round(height * ratio)));
+    }
+
+    /**
+     * 等比缩放到指定宽度，原图更窄时原样返回
+     */
+    public static BufferedImage scaleToWidth(BufferedImage source, int targetWidth) {
+        if (source.getWidth() <= targetWidth) {
+            return source;
+        }
+
+        double ratio = (double) targetWidth / source.getWidth();
+        return scale(source, targetWidth, Math.max(1, (int) Math.round(source.getHeight() * ratio)));
+    }
+
+    /**
+     * 缩放到指定尺寸
+     * 先逐次减半再做最后一次双线性插值，兼顾速度与画质
+     */
+    public static BufferedImage scale(BufferedImage source, int targetWidth, int targetHeight) {
+        BufferedImage current = toRgb(source);
+        int width = current.getWidth();
+        int height = current.getHeight();
+
+        while (width / 2 >= targetWidth && height / 2 >= targetHeight) {
+            width /= 2;
+            height /= 2;
+            current = draw(current, width, height);
+        }
+
+        if (width != targetWidth || height != targetHeight) {
+            current = draw(current, targetWidth, targetHeight);
+        }
+        return current;
+    }
+
+    /**
+     * 编码为JPEG
+     *
+     * @param image   图片
+     * @param quality 编码质量（0-1）
+     */
+    public static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("不支持JPEG编码");
+        }
+
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(imageOutput);
+
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+
+            writer.write(null, new IIOImage(toRgb(image), null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * 转换为不含透明通道的RGB图片（透明区域填充白色）
+     */
+    private static BufferedImage toRgb(BufferedImage source) {
+        if (source.getType() == BufferedImage.TYPE_INT_RGB) {
+            return source;
+        }
+
+        BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, source.getWidth(), source.getHeight());
+            graphics.drawImage(source, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return rgb;
+    }
+
+    /**
+     * 使用双线性插值绘制到新尺寸
+     */
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * 获取可读取该图片格式的解码器
+     */
+    private static ImageReader firstReader(ImageInputStream input) {
+        if (input == null) {
+            return null;
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        return readers.hasNext() ? readers.next() : null;
+    }
+
+    /**
+     * 是否为 "Exif\0\0" 段头
+     */
+    private static boolean isExifHeader(byte[] data, int offset) {
+        return data[offset] == 'E' && data[offset + 1] == 'x' && data[offset + 2] == 'i'
+                && data[offset + 3] == 'f' && data[offset + 4] == 0 && data[offset + 5] == 0;
+    }
+
+    /**
+     * 在TIFF结构的第一个IFD中查找方向标签
+     */
+    private static int readTiffOrientation(byte[] data, int start, int end) {
+        if (start + 8 > end) {
+            return 1;
+        }
+        boolean littleEndian;
+        if (data[start] == 'I' && data[start + 1] == 'I') {
+            littleEndian = true;
+        } else if (data[start] == 'M' && data[start + 1] == 'M') {
+            littleEndian = false;
+        } else {
+            return 1;
+        }
+
+        long ifdOffset = readInt(data, start + 4, littleEndian) & 0xFFFFFFFFL;
+        if (ifdOffset < 8 || start + ifdOffset + 2 > end) {
+            return 1;
+        }
+        int ifd = (int) (start + ifdOffset);
+        int entries = readShort(data, ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                return 1;
+            }
+            if (readShort(data, entry, littleEndian) == EXIF_ORIENTATION_TAG) {
+                int orientation = readShort(data, entry + 8, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int readShort(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private static int readInt(byte[] data, int offset, boolean littleEndian) {
+        int high = readShort(data, offset, littleEndian);
+        int low = readShort(data, offset + 2, littleEndian);
+        return littleEndian ? (low << 16) | high : (high << 16) | low;
+    }
+
+    private ImageUtil() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+}
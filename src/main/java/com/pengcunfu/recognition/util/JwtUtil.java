@@ -2,10 +2,13 @@ package com.pengcunfu.recognition.util;
 
 import com.pengcunfu.recognition.constant.JwtConstants;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -13,11 +16,13 @@ import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * JWT工具类
- * 用于生成和解析JWT Token
+ * 用于生成和解析JWT Token；密钥和解析器只构建一次，
+ * 验证通过的Claims按Token摘要缓存到过期时间（LRU，超出容量时淘汰最久未使用的项），同一Token每个实例只验签一次
  */
 @Slf4j
 @Component
@@ -32,6 +37,30 @@ public class JwtUtil {
     @Value("${jwt.issuer:image-recognition-system}")
     private String issuer;
 
+    @Value("${jwt.claims-cache-size:10000}")
+    private int claimsCacheSize;
+
+    private SecretKey secretKey;
+
+    // 线程安全，可在请求间复用
+    private JwtParser jwtParser;
+
+    // Token摘要 -> 已验证的Claims（LRU）
+    private final Map<String, Claims> verifiedClaims = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+            return size() > claimsCacheSize;
+        }
+    };
+
+    @PostConstruct
+    public void init() {
+        this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build();
+    }
+
     /**
      * 生成Token
      */
@@ -62,26 +91,48 @@ public class JwtUtil {
     }
 
     /**
-     * 从Token中获取Claims
+     * 从Token中获取Claims（签名无效或已过期时返回 null）
      */
     public Claims getClaimsFromToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        String digest = DigestUtils.sha256Hex(token);
+        Claims claims;
+        synchronized (verifiedClaims) {
+            claims = verifiedClaims.get(digest);
+            if (claims != null) {
+                if (!isExpired(claims)) {
+                    return claims;
+                }
+                verifiedClaims.remove(digest);
+                return null;
+            }
+        }
+
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSecretKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            claims = jwtParser.parseClaimsJws(token).getBody();
         } catch (Exception e) {
             log.error("解析Token失败: {}", e.getMessage());
             return null;
         }
+
+        cacheClaims(digest, claims);
+        return claims;
     }
 
     /**
      * 从Token中获取用户ID
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
+        return getUserId(getClaimsFromToken(token));
+    }
+
+    /**
+     * 从Claims中获取用户ID
+     */
+    public Long getUserId(Claims claims) {
         if (claims == null) {
             return null;
         }
@@ -104,7 +155,13 @@ public class JwtUtil {
      * 从Token中获取用户角色
      */
     public Integer getRoleFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
+        return getRole(getClaimsFromToken(token));
+    }
+
+    /**
+     * 从Claims中获取用户角色
+     */
+    public Integer getRole(Claims claims) {
         return claims != null ? (Integer) claims.get(JwtConstants.CLAIM_ROLE) : null;
     }
 
@@ -128,13 +185,8 @@ public class JwtUtil {
      * 验证Token是否有效
      */
     public boolean validateToken(String token) {
-        try {
-            Claims claims = getClaimsFromToken(token);
-            return claims != null && !isTokenExpired(token);
-        } catch (Exception e) {
-            log.error("Token验证失败: {}", e.getMessage());
-            return false;
-        }
+        // 解析时已校验签名和过期时间
+        return getClaimsFromToken(token) != null;
     }
 
     /**
@@ -154,6 +206,26 @@ public class JwtUtil {
      * 获取密钥
      */
     private SecretKey getSecretKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        return secretKey;
+    }
+
+    /**
+     * Claims是否已过期
+     */
+    private boolean isExpired(Claims claims) {
+        Date expirationDate = claims.getExpiration();
+        return expirationDate != null && expirationDate.getTime() <= System.currentTimeMillis();
+    }
+
+    /**
+     * 缓存已验证的Claims，缓存满时淘汰最久未使用的一项
+     */
+    private void cacheClaims(String digest, Claims claims) {
+        if (claims.getExpiration() == null || claimsCacheSize <= 0) {
+            return;
+        }
+        synchronized (verifiedClaims) {
+            verifiedClaims.put(digest, claims);
+        }
     }
 }
@@ -0,0 +1,45 @@
+package com.pengcunfu.recognition.util;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 按主键分批遍历
+ * 每批查询 ID 大于上一批最后一条的记录（按ID升序、LIMIT 批大小），避免 OFFSET 翻页越往后越慢
+ */
+public class KeysetBatch {
+
+    /**
+     * 从最小ID开始逐批读取并处理每一条，某批不足 batchSize 条时结束
+     *
+     * @param batchSize   每批数量，需与 batchLoader 中的 LIMIT 一致
+     * @param batchLoader 按上一批最后一条的ID读取下一批，首批传入 0
+     * @param idGetter    读取记录ID
+     * @param handler     处理单条记录
+     * @return 处理的记录总数
+     */
+    public static <T, E extends Exception> int forEach(int batchSize, Function<Long, List<T>> batchLoader,
+                                                       Function<T, Long> idGetter, ItemHandler<T, E> handler) throws E {
+        long lastId = 0;
+        int count = 0;
+        while (true) {
+            List<T> batch = batchLoader.apply(lastId);
+            for (T item : batch) {
+                handler.handle(item);
+            }
+            count += batch.size();
+            if (batch.size() < batchSize) {
+                return count;
+            }
+            lastId = idGetter.apply(batch.get(batch.size() - 1));
+        }
+    }
+
+    /**
+     * 单条记录处理，允许抛出受检异常（如写索引的 IOException）
+     */
+    @FunctionalInterface
+    public interface ItemHandler<T, E extends Exception> {
+        void handle(T item) throws E;
+    }
+}
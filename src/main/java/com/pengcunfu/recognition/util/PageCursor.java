@@ -0,0 +1,81 @@
+package com.pengcunfu.recognition.util;
+
+import com.pengcunfu.recognition.constant.AppConstants;
+import com.pengcunfu.recognition.constant.ErrorCode;
+import com.pengcunfu.recognition.exception.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+
+/**
+ * 分页游标
+ * 记录上一页最后一条的排序键（置顶标记、创建时间、ID），编码为对客户端不透明的字符串
+ */
+@Getter
+@AllArgsConstructor
+public class PageCursor {
+
+    /**
+     * 置顶标记，只有按置顶排序的列表使用
+     */
+    private final Integer top;
+
+    private final LocalDateTime createdAt;
+
+    private final Long id;
+
+    public static PageCursor of(LocalDateTime createdAt, Long id) {
+        return new PageCursor(null, createdAt, id);
+    }
+
+    public static PageCursor of(Integer top, LocalDateTime createdAt, Long id) {
+        return new PageCursor(top != null ? top : 0, createdAt, id);
+    }
+
+    /**
+     * 编码为游标字符串
+     */
+    public String encode() {
+        long millis = createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        String raw = (top != null ? top.toString() : "") + "_" + millis + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 校验每页数量，为空时取默认值，超出 1~最大分页大小 时抛出参数错误
+     * 游标查询直接使用 LIMIT，不经过分页插件的单页上限
+     */
+    public static int checkSize(Integer size) {
+        if (size == null) {
+            return AppConstants.DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1 || size > AppConstants.MAX_PAGE_SIZE) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM, "每页数量必须在1到" + AppConstants.MAX_PAGE_SIZE + "之间");
+        }
+        return size;
+    }
+
+    /**
+     * 解析游标字符串，为空时返回 null
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("_", -1);
+            Integer top = parts[0].isEmpty() ? null : Integer.valueOf(parts[0]);
+            LocalDateTime createdAt = LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(Long.parseLong(parts[1])), ZoneId.systemDefault());
+            return new PageCursor(top, createdAt, Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM, "无效的分页游标");
+        }
+    }
+}
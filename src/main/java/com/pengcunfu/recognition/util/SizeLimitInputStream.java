@@ -0,0 +1,68 @@
+package com.pengcunfu.recognition.util;
+
+import com.pengcunfu.recognition.constant.ErrorCode;
+import com.pengcunfu.recognition.exception.FileException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 限制读取大小的输入流
+ * 读取的字节数超过上限时抛出异常，用于上传时在写入存储的同时校验实际大小
+ */
+public class SizeLimitInputStream extends FilterInputStream {
+
+    private final long maxSize;
+    private long count;
+
+    public SizeLimitInputStream(InputStream in, long maxSize) {
+        super(in);
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int value = super.read();
+        if (value >= 0) {
+            increase(1);
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            increase(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        increase(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * 已读取的字节数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    private void increase(long read) {
+        count += read;
+        if (count > maxSize) {
+            throw new FileException(ErrorCode.FILE_SIZE_ERROR,
+                    String.format("文件大小不能超过 %dMB", maxSize / 1024 / 1024));
+        }
+    }
+}
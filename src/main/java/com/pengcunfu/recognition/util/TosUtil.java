@@ -4,6 +4,7 @@ import com.pengcunfu.recognition.config.VolcengineConfig;
 import com.volcengine.tos.TOSV2;
 import com.volcengine.tos.TOSV2ClientBuilder;
 import com.volcengine.tos.TosException;
+import com.volcengine.tos.TosServerException;
 import com.volcengine.tos.model.object.*;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
@@ -14,6 +15,8 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.UUID;
@@ -84,6 +87,105 @@ public class TosUtil {
         }
     }
     
+    /**
+     * 以流的方式上传到TOS（边读边传，不在内存中缓冲整个文件）
+     * 
+     * @param inputStream 输入流（由调用方关闭）
+     * @param contentLength 内容长度
+     * @param prefix 文件路径前缀
+     * @param extension 扩展名（不含点号）
+     * @return 文件的访问URL
+     */
+    public String uploadStream(InputStream inputStream, long contentLength, String prefix, String extension) {
+        String key = buildObjectKey(prefix, extension);
+        
+        log.info("上传文件流到TOS: bucket={}, key={}, size={}", 
+                volcengineConfig.getTos().getBucket(), key, contentLength);
+        
+        try {
+            PutObjectInput input = new PutObjectInput()
+                    .setBucket(volcengineConfig.getTos().getBucket())
+                    .setKey(key)
+                    .setContent(inputStream)
+                    .setContentLength(contentLength);
+            
+            PutObjectOutput output = tosClient.putObject(input);
+            
+            log.info("文件流上传成功: key={}, etag={}", key, output.getEtag());
+            
+            return generatePresignedUrl(key);
+        } catch (TosException e) {
+            log.error("上传文件流到TOS失败: key={}", key, e);
+            throw new RuntimeException("上传文件失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 上传本地文件到指定key（边读边传）
+     * 
+     * @param file 本地文件
+     * @param key 对象key
+     */
+    public void putFile(Path file, String key) {
+        log.info("上传本地文件到TOS: bucket={}, key={}, file={}", 
+                volcengineConfig.getTos().getBucket(), key, file);
+        
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            PutObjectInput input = new PutObjectInput()
+                    .setBucket(volcengineConfig.getTos().getBucket())
+                    .setKey(key)
+                    .setContent(inputStream)
+                    .setContentLength(Files.size(file));
+            
+            PutObjectOutput output = tosClient.putObject(input);
+            log.info("本地文件上传成功: key={}, etag={}", key, output.getEtag());
+        } catch (TosException | IOException e) {
+            log.error("上传本地文件到TOS失败: key={}", key, e);
+            throw new RuntimeException("上传文件失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 对象是否已存在
+     * 
+     * @param key 对象key
+     */
+    public boolean exists(String key) {
+        try {
+            tosClient.headObject(new HeadObjectV2Input()
+                    .setBucket(volcengineConfig.getTos().getBucket())
+                    .setKey(key));
+            return true;
+        } catch (TosServerException e) {
+            if (e.getStatusCode() == 404) {
+                return false;
+            }
+            throw new RuntimeException("查询文件失败: " + e.getMessage(), e);
+        } catch (TosException e) {
+            throw new RuntimeException("查询文件失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 按内容哈希构建对象key（prefix/哈希前两位/哈希.ext），相同内容总是对应同一个对象
+     * 
+     * @param prefix 前缀
+     * @param contentHash 内容哈希
+     * @param extension 文件扩展名
+     * @return 对象key
+     */
+    public String buildContentKey(String prefix, String contentHash, String extension) {
+        StringBuilder keyBuilder = new StringBuilder();
+        if (prefix != null && !prefix.isEmpty()) {
+            keyBuilder.append(prefix).append("/");
+        }
+        keyBuilder.append(contentHash, 0, 2).append("/").append(contentHash);
+        if (extension != null && !extension.isEmpty()) {
+            keyBuilder.append(".").append(extension);
+        }
+        return keyBuilder.toString();
+    }
+    
     /**
      * 上传字节数组到TOS
      * 
@@ -117,6 +219,43 @@ public class TosUtil {
         }
     }
     
+    /**
+     * 上传派生图片（缩放图、缩略图等），与原图存放在同一路径下
+     * 
+     * @param originalUrl 原图URL
+     * @param variant 派生图片名称，例如 r1024、w320
+     * @param data 图片数据
+     * @param extension 扩展名（不含点号）
+     * @return 派生图片的访问URL
+     */
+    public String uploadVariant(String originalUrl, String variant, byte[] data, String extension) {
+        String originalKey = extractKeyFromUrl(originalUrl);
+        if (originalKey == null) {
+            throw new RuntimeException("无法解析原图地址: " + originalUrl);
+        }
+        
+        int lastDotIndex = originalKey.lastIndexOf('.');
+        String baseKey = lastDotIndex > originalKey.lastIndexOf('/') ? originalKey.substring(0, lastDotIndex) : originalKey;
+        String key = baseKey + "_" + variant + "." + extension;
+        
+        log.info("上传派生图片到TOS: bucket={}, key={}, size={}", 
+                volcengineConfig.getTos().getBucket(), key, data.length);
+        
+        try (InputStream inputStream = new ByteArrayInputStream(data)) {
+            PutObjectInput input = new PutObjectInput()
+                    .setBucket(volcengineConfig.getTos().getBucket())
+                    .setKey(key)
+                    .setContent(inputStream)
+                    .setContentLength((long) data.length);
+            
+            tosClient.putObject(input);
+            return generatePresignedUrl(key);
+        } catch (TosException | IOException e) {
+            log.error("上传派生图片到TOS失败: key={}", key, e);
+            throw new RuntimeException("上传派生图片失败: " + e.getMessage(), e);
+        }
+    }
+    
     /**
      * 删除TOS上的文件
      * 
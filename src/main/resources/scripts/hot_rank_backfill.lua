@@ -0,0 +1,29 @@
+-- 启动时从数据库回填热度分
+-- KEYS[1] 热度有序集合, KEYS[2] 分数基准时间键, KEYS[3] 回填完成标记键
+-- ARGV[1] 半衰期(毫秒)，之后依次为 成员, 权重合计, 发布时间(毫秒)
+-- 标记已存在（其他实例已回填）时不重复回填；回填分数与之后的事件累加合并
+-- 返回回填的成员数，已回填过返回 -1
+if not redis.call('SET', KEYS[3], 1, 'NX') then
+    return -1
+end
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local epoch = tonumber(redis.call('GET', KEYS[2]))
+if not epoch then
+    epoch = now
+    redis.call('SET', KEYS[2], now)
+end
+
+local halfLife = tonumber(ARGV[1])
+local count = 0
+for i = 2, #ARGV, 3 do
+    local eventTime = math.min(tonumber(ARGV[i + 2]), now)
+    local delta = tonumber(ARGV[i + 1]) * math.pow(2, (eventTime - epoch) / halfLife)
+    if delta > 0 then
+        redis.call('ZINCRBY', KEYS[1], delta, ARGV[i])
+        count = count + 1
+    end
+end
+return count
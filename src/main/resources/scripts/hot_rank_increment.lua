@@ -0,0 +1,34 @@
+-- 累加时间衰减热度分
+-- KEYS[1] 热度有序集合, KEYS[2] 分数基准时间键
+-- ARGV[1] 成员, ARGV[2] 事件权重, ARGV[3] 半衰期(毫秒), ARGV[4] 事件发生时间(毫秒，可选，默认当前时间)
+-- 事件按 权重 * 2^((事件时间 - 基准时间) / 半衰期) 累加，新事件的分量随时间指数增大，
+-- 等价于已有分数按半衰期衰减；定时重新缩放分数并前移基准时间，避免数值溢出
+-- 权重为负（取消点赞、取消收藏）时按原事件发生时间计算扣除的分量，
+-- 只扣减已有成员且不低于0，不因撤销操作移除成员
+-- 返回成员的新分数，撤销时成员不在排行中返回 false
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local epoch = tonumber(redis.call('GET', KEYS[2]))
+if not epoch then
+    epoch = now
+    redis.call('SET', KEYS[2], now)
+end
+
+local eventTime = tonumber(ARGV[4]) or now
+if eventTime > now then
+    eventTime = now
+end
+local delta = tonumber(ARGV[2]) * math.pow(2, (eventTime - epoch) / tonumber(ARGV[3]))
+
+if delta >= 0 then
+    return tostring(redis.call('ZINCRBY', KEYS[1], delta, ARGV[1]))
+end
+
+local current = tonumber(redis.call('ZSCORE', KEYS[1], ARGV[1]))
+if not current then
+    return false
+end
+local score = math.max(current + delta, 0)
+redis.call('ZADD', KEYS[1], score, ARGV[1])
+return tostring(score)
@@ -0,0 +1,21 @@
+-- 按经过的时间衰减热度分，并将基准时间前移到当前时间
+-- KEYS[1] 热度有序集合, KEYS[2] 分数基准时间键
+-- ARGV[1] 半衰期(毫秒), ARGV[2] 保留的最大成员数, ARGV[3] 低于该分数的成员被移除
+-- 多个实例先后执行时，后执行的实例只衰减两次执行之间的时间，结果与执行一次相同
+-- 返回缩放后的成员数
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local epoch = tonumber(redis.call('GET', KEYS[2]))
+if not epoch then
+    return redis.call('ZCARD', KEYS[1])
+end
+
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    local factor = math.pow(2, -(now - epoch) / tonumber(ARGV[1]))
+    redis.call('ZUNIONSTORE', KEYS[1], 1, KEYS[1], 'WEIGHTS', factor)
+    redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', '(' .. ARGV[3])
+    redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(tonumber(ARGV[2]) + 1))
+end
+redis.call('SET', KEYS[2], now)
+return redis.call('ZCARD', KEYS[1])
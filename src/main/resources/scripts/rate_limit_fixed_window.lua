@@ -0,0 +1,27 @@
+-- 固定窗口限流
+-- KEYS[1] 计数键
+-- ARGV[1] 窗口内最大次数, ARGV[2] 窗口长度(毫秒), ARGV[3] 申请的许可数
+-- 返回 {授予的许可数, 结果有效期(毫秒，即窗口剩余时间)}
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+local granted = math.min(requested, limit - current)
+if granted <= 0 then
+    -- 修复历史遗留的无过期时间的计数键
+    local ttl = redis.call('PTTL', KEYS[1])
+    if ttl < 0 then
+        redis.call('PEXPIRE', KEYS[1], window)
+        ttl = window
+    end
+    return {0, ttl}
+end
+
+current = redis.call('INCRBY', KEYS[1], granted)
+local ttl = redis.call('PTTL', KEYS[1])
+if current == granted or ttl < 0 then
+    redis.call('PEXPIRE', KEYS[1], window)
+    ttl = window
+end
+return {granted, ttl}
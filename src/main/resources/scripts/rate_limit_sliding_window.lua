@@ -0,0 +1,30 @@
+-- 滑动日志限流，有序集合中记录窗口内每次放行的时间
+-- KEYS[1] 有序集合键
+-- ARGV[1] 窗口内最大次数, ARGV[2] 窗口长度(毫秒), ARGV[3] 申请的许可数, ARGV[4] 本次请求的唯一标识
+-- 返回 {授予的许可数, 结果有效期(毫秒)}
+redis.replicate_commands()
+
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)
+local granted = math.min(requested, limit - redis.call('ZCARD', KEYS[1]))
+if granted <= 0 then
+    -- 最早的一次放行移出窗口后才有新的额度
+    local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+    local wait = window
+    if oldest[2] then
+        wait = math.max(1, tonumber(oldest[2]) + window - now)
+    end
+    return {0, wait}
+end
+
+for i = 1, granted do
+    redis.call('ZADD', KEYS[1], now, now .. '-' .. ARGV[4] .. '-' .. i)
+end
+redis.call('PEXPIRE', KEYS[1], window)
+return {granted, window}
@@ -0,0 +1,36 @@
+-- 令牌桶限流，桶容量为窗口内最大次数，一个窗口内匀速补满
+-- KEYS[1] 令牌桶哈希键(tokens, ts)
+-- ARGV[1] 桶容量, ARGV[2] 窗口长度(毫秒), ARGV[3] 申请的许可数
+-- 返回 {授予的许可数, 结果有效期(毫秒)}
+redis.replicate_commands()
+
+local capacity = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(bucket[1])
+local ts = tonumber(bucket[2])
+if tokens == nil or ts == nil then
+    tokens = capacity
+    ts = now
+end
+
+tokens = math.min(capacity, tokens + math.max(0, now - ts) * capacity / window)
+
+local granted = math.min(requested, math.floor(tokens))
+local ttl = window
+if granted > 0 then
+    tokens = tokens - granted
+else
+    granted = 0
+    -- 补充出一个令牌所需的时间
+    ttl = math.max(1, math.ceil((1 - tokens) * window / capacity))
+end
+
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now))
+redis.call('PEXPIRE', KEYS[1], window)
+return {granted, ttl}
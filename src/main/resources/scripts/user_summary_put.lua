@@ -0,0 +1,13 @@
+-- 回填用户摘要缓存
+-- KEYS 依次为 摘要键1, 版本号键1, 摘要键2, 版本号键2 ...
+-- ARGV[1] 过期时间（秒），之后依次为 读取数据库前的版本号1, 摘要1, 版本号2, 摘要2 ...
+-- 版本号在读取数据库后发生变化说明期间有失效，跳过该用户，避免旧数据覆盖删除
+local written = 0
+for i = 1, #KEYS, 2 do
+    local version = redis.call('GET', KEYS[i + 1]) or ''
+    if version == ARGV[i + 1] then
+        redis.call('SETEX', KEYS[i], ARGV[1], ARGV[i + 2])
+        written = written + 1
+    end
+end
+return written
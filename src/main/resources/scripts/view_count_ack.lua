@@ -0,0 +1,9 @@
+-- 确认浏览量批次已写入数据库
+-- KEYS[1] 刷新中增量哈希, KEYS[2] 刷新批次ID键
+-- ARGV[1] 已处理的批次ID
+-- 只删除仍属于该批次的数据，避免并发实例误删后续批次
+if redis.call('GET', KEYS[2]) == ARGV[1] then
+    redis.call('DEL', KEYS[1], KEYS[2])
+    return 1
+end
+return 0
@@ -0,0 +1,21 @@
+-- 取出待刷新的浏览量增量
+-- KEYS[1] 待刷新增量哈希, KEYS[2] 刷新中增量哈希, KEYS[3] 刷新批次ID键
+-- ARGV[1] 新批次ID
+-- 上一批次未确认（进程在刷新中退出）时返回上一批次ID重新处理，否则将待刷新哈希改名为刷新中哈希
+-- 返回批次ID，没有待刷新数据时返回 false
+if redis.call('EXISTS', KEYS[2]) == 1 then
+    local flushId = redis.call('GET', KEYS[3])
+    if flushId then
+        return flushId
+    end
+    redis.call('SET', KEYS[3], ARGV[1])
+    return ARGV[1]
+end
+
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return false
+end
+
+redis.call('RENAME', KEYS[1], KEYS[2])
+redis.call('SET', KEYS[3], ARGV[1])
+return ARGV[1]
@@ -0,0 +1,188 @@
+package com.pengcunfu.recognition.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pengcunfu.recognition.config.AccessLogConfig;
+import com.pengcunfu.recognition.filter.AccessLogFilter;
+import com.pengcunfu.recognition.response.ApiResponse;
+import com.pengcunfu.recognition.service.AccessLogService;
+import com.pengcunfu.recognition.util.IpUtil;
+import com.pengcunfu.recognition.util.JsonUtil;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 访问日志过滤器基准测试
+ * 多个请求线程同时处理请求，对比原 LogAspect + LogInterceptor（请求线程上同步序列化参数和返回值并输出 INFO 日志）、
+ * 关闭访问日志、只记录元数据和全量采样请求体/响应体时的单次请求开销；
+ * 原方案的日志经编码后写入空输出流，访问日志的输出关闭，只测量请求线程上的采集和入队成本
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AccessLogFilterBenchmark {
+
+    private static final byte[] REQUEST_BODY = "{\"page\":1,\"size\":20,\"keyword\":\"cat\"}".getBytes(StandardCharsets.UTF_8);
+    private static final String RESPONSE_BODY = "{\"code\":200,\"message\":\"success\",\"data\":{\"list\":[]}}";
+
+    private static final String ASPECT_LOGGER = "com.pengcunfu.recognition.aspect.LogAspect";
+    private static final String INTERCEPTOR_LOGGER = "com.pengcunfu.recognition.interceptor.LogInterceptor";
+
+    /**
+     * aspect: 原 LogAspect + LogInterceptor；off: 关闭访问日志；metadata: 只记录元数据；body: 全部请求采样请求体和响应体
+     */
+    @Param({"aspect", "off", "metadata", "body"})
+    private String mode;
+
+    private AccessLogService accessLogService;
+    private AccessLogFilter filter;
+    private HttpServlet servlet;
+    private JsonUtil jsonUtil;
+    private org.slf4j.Logger aspectLog;
+    private org.slf4j.Logger interceptorLog;
+    private Object[] controllerArgs;
+    private Object controllerResult;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ((Logger) LoggerFactory.getLogger("ACCESS_LOG")).setLevel(ch.qos.logback.classic.Level.OFF);
+        aspectLog = nullOutputLogger(ASPECT_LOGGER);
+        interceptorLog = nullOutputLogger(INTERCEPTOR_LOGGER);
+
+        // 控制器绑定后的参数和返回值，原切面对二者做 JSON 序列化
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        jsonUtil = new JsonUtil(objectMapper);
+        controllerArgs = new Object[]{objectMapper.readValue(REQUEST_BODY, Map.class)};
+        controllerResult = ApiResponse.success(objectMapper.readValue(RESPONSE_BODY, Map.class).get("data"));
+
+        AccessLogConfig config = new AccessLogConfig();
+        config.setEnabled(!"off".equals(mode) && !"aspect".equals(mode));
+        if ("body".equals(mode)) {
+            AccessLogConfig.BodyPolicy policy = new AccessLogConfig.BodyPolicy();
+            policy.setPattern("/api/**");
+            policy.setSampleRate(1.0);
+            policy.setMaxBodyBytes(512);
+            config.setBodyPolicies(List.of(policy));
+        }
+        accessLogService = new AccessLogService(config);
+        accessLogService.init();
+        filter = new AccessLogFilter(config, accessLogService);
+
+        servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                request.getInputStream().readAllBytes();
+                response.setContentType("application/json");
+                response.getWriter().write(RESPONSE_BODY);
+            }
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        accessLogService.shutdown();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse filterRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/community/posts");
+        request.setContentType("application/json");
+        request.setContent(REQUEST_BODY);
+        request.setRemoteAddr("127.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        if ("aspect".equals(mode)) {
+            handleWithLogAspect(request, response);
+        } else {
+            filter.doFilter(request, response, new MockFilterChain(servlet));
+        }
+        return response;
+    }
+
+    /**
+     * 按原 LogInterceptor 和 LogAspect 的做法在请求线程上输出日志
+     */
+    private void handleWithLogAspect(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        long startTime = System.currentTimeMillis();
+        String method = request.getMethod();
+        String uri = request.getRequestURI();
+        String ip = IpUtil.getClientIp(request);
+        Long userId = 1L;
+        interceptorLog.info("请求开始 - Method: {}, URI: {}, IP: {}, UserId: {}", method, uri, ip, userId);
+
+        aspectLog.info("===> 请求开始: {}.{} - {} {} - IP: {} - UserId: {} - Args: {}",
+                "CommunityController", "getPosts", method, uri, ip, userId, jsonUtil.toJson(controllerArgs));
+        servlet.service(request, response);
+        aspectLog.info("<=== 请求结束: {}.{} - 耗时: {}ms - Result: {}",
+                "CommunityController", "getPosts", System.currentTimeMillis() - startTime, jsonUtil.toJson(controllerResult));
+
+        interceptorLog.info("请求结束 - Method: {}, URI: {}, Status: {}, Duration: {}ms",
+                method, uri, response.getStatus(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * INFO 级别、按应用日志格式编码后写入空输出流的日志器
+     */
+    private static org.slf4j.Logger nullOutputLogger(String name) {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss} [%thread] %-5level %logger{36} - %msg%n");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+
+        Logger logger = context.getLogger(name);
+        logger.detachAndStopAllAppenders();
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+        logger.setLevel(ch.qos.logback.classic.Level.INFO);
+        return logger;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AccessLogFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,151 @@
+package com.pengcunfu.recognition.benchmark;
+
+import com.pengcunfu.recognition.service.FileAccessService;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.Tomcat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地文件访问基准测试
+ * 在内嵌Tomcat上通过本机回环请求完整文件，对比原来的缓冲流复制（FileSystemResource 的做法）、
+ * FileAccessService 关闭sendfile时的 transferTo 和开启sendfile时的零拷贝传输
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FileAccessBenchmark {
+
+    private static final String FILE_PATH = "images/2024/01/01/benchmark.jpg";
+
+    /**
+     * buffered: 原缓冲流复制；transferTo: 关闭sendfile；sendfile: Tomcat零拷贝
+     */
+    @Param({"buffered", "transferTo", "sendfile"})
+    private String mode;
+
+    @Param({"65536", "1048576", "8388608"})
+    private int fileSize;
+
+    private Path baseDir;
+    private Tomcat tomcat;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, LifecycleException {
+        baseDir = Files.createTempDirectory("file-access-benchmark");
+        Path uploadDir = baseDir.resolve("uploads");
+        Path file = uploadDir.resolve(FILE_PATH);
+        Files.createDirectories(file.getParent());
+        byte[] content = new byte[fileSize];
+        new Random(42).nextBytes(content);
+        Files.write(file, content);
+
+        FileAccessService fileAccessService = new FileAccessService();
+        ReflectionTestUtils.setField(fileAccessService, "uploadPath", uploadDir.toString());
+        fileAccessService.init();
+
+        HttpServlet servlet;
+        if ("buffered".equals(mode)) {
+            servlet = new HttpServlet() {
+                @Override
+                protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                    copyBuffered(uploadDir, req, resp);
+                }
+            };
+        } else {
+            servlet = new HttpServlet() {
+                @Override
+                protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                    fileAccessService.serve(req.getRequestURI().substring(1), req, resp);
+                }
+            };
+        }
+
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(baseDir.resolve("tomcat").toString());
+        tomcat.setPort(0);
+        tomcat.getConnector().setProperty("useSendfile", String.valueOf("sendfile".equals(mode)));
+        Context context = tomcat.addContext("", null);
+        Tomcat.addServlet(context, "files", servlet);
+        context.addServletMappingDecoded("/*", "files");
+        tomcat.start();
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + tomcat.getConnector().getLocalPort() + "/" + FILE_PATH)).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, LifecycleException {
+        tomcat.stop();
+        tomcat.destroy();
+        FileSystemUtils.deleteRecursively(baseDir);
+    }
+
+    @Benchmark
+    public int getFile() throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != HttpServletResponse.SC_OK) {
+            throw new IllegalStateException("unexpected status: " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    /**
+     * 原 FileController 返回 FileSystemResource 时的输出方式：探测类型后以缓冲流复制到响应
+     */
+    private static void copyBuffered(Path uploadDir, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        Path fullPath = uploadDir.resolve(req.getRequestURI().substring(1)).normalize();
+        String contentType = Files.probeContentType(fullPath);
+        resp.setContentType(contentType != null ? contentType : "application/octet-stream");
+        resp.setContentLengthLong(Files.size(fullPath));
+        resp.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fullPath.getFileName() + "\"");
+        try (InputStream input = Files.newInputStream(fullPath)) {
+            StreamUtils.copy(input, resp.getOutputStream());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FileAccessBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
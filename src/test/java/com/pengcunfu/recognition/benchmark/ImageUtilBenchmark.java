@@ -0,0 +1,134 @@
+package com.pengcunfu.recognition.benchmark;
+
+import com.pengcunfu.recognition.config.ImageRecognitionConfig;
+import com.pengcunfu.recognition.util.ImageUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 识别图片预处理基准测试
+ * 对比不同原图尺寸下解码、缩放到最长边和重新编码JPEG各阶段以及完整预处理的耗时；
+ * 启动时打印原图与识别用图片的字节数，即提交给模型的数据量变化
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ImageUtilBenchmark {
+
+    /**
+     * 原图尺寸（宽x高），分别对应普通截图、手机照片和高像素相机照片
+     */
+    @Param({"1920x1080", "4032x3024", "6000x4000"})
+    private String size;
+
+    private int maxEdge;
+    private float quality;
+    private byte[] original;
+    private BufferedImage decoded;
+    private BufferedImage scaled;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ImageRecognitionConfig.Preprocess preprocess = new ImageRecognitionConfig.Preprocess();
+        maxEdge = preprocess.getMaxEdge();
+        quality = preprocess.getQuality();
+
+        String[] parts = size.split("x");
+        original = ImageUtil.encodeJpeg(photoLike(Integer.parseInt(parts[0]), Integer.parseInt(parts[1])), 0.92f);
+        decoded = ImageUtil.decode(original);
+        scaled = ImageUtil.scaleToMaxEdge(decoded, maxEdge);
+
+        byte[] encoded = ImageUtil.encodeJpeg(scaled, quality);
+        System.out.printf("%n%s: 原图 %dB -> 识别用图片 %dx%d %dB%n",
+                size, original.length, scaled.getWidth(), scaled.getHeight(), encoded.length);
+    }
+
+    @Benchmark
+    public BufferedImage decode() throws IOException {
+        return ImageUtil.decode(original);
+    }
+
+    @Benchmark
+    public BufferedImage downscale() {
+        return ImageUtil.scaleToMaxEdge(decoded, maxEdge);
+    }
+
+    @Benchmark
+    public byte[] reencode() throws IOException {
+        return ImageUtil.encodeJpeg(scaled, quality);
+    }
+
+    /**
+     * 与 RecognitionImageService 相同的完整流程：解码、缩放、重新编码
+     */
+    @Benchmark
+    public byte[] preprocess() throws IOException {
+        BufferedImage image = ImageUtil.decode(original);
+        return ImageUtil.encodeJpeg(ImageUtil.scaleToMaxEdge(image, maxEdge), quality);
+    }
+
+    /**
+     * 渐变背景加随机色块和噪点，压缩率接近真实照片
+     */
+    private static BufferedImage photoLike(int width, int height) {
+        Random random = new Random(42);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setPaint(new GradientPaint(0, 0, new Color(90, 140, 60), width, height, new Color(200, 180, 120)));
+            graphics.fillRect(0, 0, width, height);
+            for (int i = 0; i < 400; i++) {
+                graphics.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+                graphics.fillOval(random.nextInt(width), random.nextInt(height),
+                        20 + random.nextInt(width / 8), 20 + random.nextInt(height / 8));
+            }
+        } finally {
+            graphics.dispose();
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = image.getRGB(x, y);
+                int noise = random.nextInt(17) - 8;
+                int r = clamp(((rgb >> 16) & 0xFF) + noise);
+                int g = clamp(((rgb >> 8) & 0xFF) + noise);
+                int b = clamp((rgb & 0xFF) + noise);
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ImageUtilBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
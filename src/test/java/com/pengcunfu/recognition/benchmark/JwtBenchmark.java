@@ -0,0 +1,126 @@
+package com.pengcunfu.recognition.benchmark;
+
+import com.pengcunfu.recognition.constant.JwtConstants;
+import com.pengcunfu.recognition.filter.JwtAuthenticationFilter;
+import com.pengcunfu.recognition.security.SecurityContextHolder;
+import com.pengcunfu.recognition.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT验证基准测试
+ * 对比每次新建解析器验签（优化前的做法）、复用解析器的缓存验证、缓存已满时未命中的验证，以及认证过滤器处理一次请求的耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "benchmark-secret-for-jwt-at-least-32-bytes";
+    private static final int CACHE_SIZE = 10000;
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+    private String token;
+    private String[] missTokens;
+    private int missIndex;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3600L);
+        ReflectionTestUtils.setField(jwtUtil, "issuer", "benchmark");
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheSize", CACHE_SIZE);
+        jwtUtil.init();
+
+        token = jwtUtil.generateToken(1L, "benchmark", 0);
+        filter = new JwtAuthenticationFilter(jwtUtil);
+
+        // 循环访问两倍于缓存容量的不同Token：缓存始终是满的，且每次都未命中
+        missTokens = new String[CACHE_SIZE * 2];
+        for (int i = 0; i < missTokens.length; i++) {
+            missTokens[i] = jwtUtil.generateToken((long) i + 2, "benchmark-" + i, 0);
+        }
+        for (String missToken : missTokens) {
+            jwtUtil.getClaimsFromToken(missToken);
+        }
+    }
+
+    /**
+     * 每次构建密钥和解析器并验签
+     */
+    @Benchmark
+    public Claims parseWithNewParser() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    /**
+     * 通过 JwtUtil 获取Claims（命中已验证缓存）
+     */
+    @Benchmark
+    public Claims cachedClaims() {
+        return jwtUtil.getClaimsFromToken(token);
+    }
+
+    /**
+     * 缓存已满时未命中：验签后写入缓存并淘汰最久未使用的一项
+     */
+    @Benchmark
+    public Claims missOnFullCache() {
+        String missToken = missTokens[missIndex];
+        missIndex = (missIndex + 1) % missTokens.length;
+        return jwtUtil.getClaimsFromToken(missToken);
+    }
+
+    /**
+     * 认证过滤器处理一次携带Token的请求
+     */
+    @Benchmark
+    public MockHttpServletResponse filterRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/info");
+        request.addHeader(JwtConstants.TOKEN_HEADER, JwtConstants.TOKEN_PREFIX + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, new MockFilterChain());
+        } finally {
+            SecurityContextHolder.clear();
+            org.springframework.security.core.context.SecurityContextHolder.clearContext();
+        }
+        return response;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,163 @@
+package com.pengcunfu.recognition.benchmark;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.pengcunfu.recognition.config.SearchConfig;
+import com.pengcunfu.recognition.entity.CommunityPost;
+import com.pengcunfu.recognition.entity.Knowledge;
+import com.pengcunfu.recognition.enums.PostStatus;
+import com.pengcunfu.recognition.enums.SearchDocType;
+import com.pengcunfu.recognition.repository.CommunityPostRepository;
+import com.pengcunfu.recognition.repository.KnowledgeRepository;
+import com.pengcunfu.recognition.response.SearchResponse;
+import com.pengcunfu.recognition.service.SearchIndexService;
+import com.pengcunfu.recognition.service.TagService;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 全文检索基准测试
+ * 对比索引检索（只取ID、带高亮和分面）与逐行子串匹配（等价于 LIKE '%关键词%' 全表扫描）的单次查询耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SearchIndexBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String KEYWORD = "orchid";
+    private static final String[] WORDS = {
+            "cat", "dog", "bird", "fish", "tree", "flower", "leaf", "river", "stone", "cloud",
+            "garden", "forest", "mountain", "insect", "butterfly", "rabbit", "horse", "tiger", "panda", "lotus"
+    };
+    private static final String[] CATEGORIES = {"animal", "plant", "landscape", "food", "other"};
+
+    @Param({"10000", "100000"})
+    private int docCount;
+
+    private Path indexDir;
+    private SearchIndexService searchIndexService;
+    private List<CommunityPost> posts;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, CommunityPost.class);
+        TableInfoHelper.initTableInfo(assistant, Knowledge.class);
+
+        // 约1%的帖子包含关键词
+        Random random = new Random(42);
+        posts = new ArrayList<>(docCount);
+        for (int i = 1; i <= docCount; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int w = 0; w < 60; w++) {
+                content.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            if (random.nextInt(100) == 0) {
+                content.append(KEYWORD);
+            }
+            posts.add(CommunityPost.builder()
+                    .id((long) i)
+                    .title(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)])
+                    .content(content.toString())
+                    .category(CATEGORIES[random.nextInt(CATEGORIES.length)])
+                    .status(PostStatus.PUBLISHED.getValue())
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+
+        // 按批返回帖子，模拟重建时的分批读取
+        CommunityPostRepository communityPostRepository = mock(CommunityPostRepository.class);
+        int[] offset = {0};
+        when(communityPostRepository.selectList(any())).thenAnswer(invocation -> {
+            int from = offset[0];
+            int to = Math.min(from + BATCH_SIZE, posts.size());
+            offset[0] = to;
+            return new ArrayList<>(posts.subList(from, to));
+        });
+        KnowledgeRepository knowledgeRepository = mock(KnowledgeRepository.class);
+        when(knowledgeRepository.selectList(any())).thenReturn(List.of());
+
+        indexDir = Files.createTempDirectory("search-index-benchmark");
+        SearchConfig config = new SearchConfig();
+        config.setIndexPath(indexDir.toString());
+        searchIndexService = new SearchIndexService(config, communityPostRepository, knowledgeRepository,
+                mock(TagService.class), Runnable::run);
+        searchIndexService.init();
+        searchIndexService.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        searchIndexService.shutdown();
+        FileSystemUtils.deleteRecursively(indexDir);
+    }
+
+    @Benchmark
+    public Page<Long> indexSearchIds() {
+        return searchIndexService.searchIds(SearchDocType.POST, KEYWORD, null, null, null, 1, 20);
+    }
+
+    @Benchmark
+    public SearchResponse.SearchResult indexSearchWithHighlight() {
+        return searchIndexService.search(SearchDocType.POST, KEYWORD, null, null, null, 1, 20);
+    }
+
+    @Benchmark
+    public Page<Long> likeScan() {
+        Page<Long> page = new Page<>(1, 20);
+        List<Long> ids = new ArrayList<>();
+        long total = 0;
+        for (CommunityPost post : posts) {
+            if (post.getTitle().contains(KEYWORD) || post.getContent().contains(KEYWORD)) {
+                if (ids.size() < 20) {
+                    ids.add(post.getId());
+                }
+                total++;
+            }
+        }
+        // LIKE 查询同样需要统计总数，必须扫完全部行
+        page.setRecords(ids);
+        page.setTotal(total);
+        return page;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SearchIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,186 @@
+package com.pengcunfu.recognition.service;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pengcunfu.recognition.entity.CommunityPost;
+import com.pengcunfu.recognition.entity.User;
+import com.pengcunfu.recognition.enums.PostStatus;
+import com.pengcunfu.recognition.repository.CommunityPostRepository;
+import com.pengcunfu.recognition.repository.UserCollectRepository;
+import com.pengcunfu.recognition.repository.UserLikeRepository;
+import com.pengcunfu.recognition.repository.UserRepository;
+import com.pengcunfu.recognition.response.CommunityResponse;
+import com.pengcunfu.recognition.response.PageResponse;
+import com.pengcunfu.recognition.service.redis.CacheService;
+import com.pengcunfu.recognition.service.redis.HotDataService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 帖子列表批量填充测试：统计作者、点赞和收藏的查询次数，每页查询次数与帖子条数无关
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CommunityServiceHydrationTest {
+
+    private static final Long CURRENT_USER_ID = 100L;
+    private static final int AUTHOR_COUNT = 5;
+
+    @Mock private CommunityPostRepository communityPostRepository;
+    @Mock private UserRepository userRepository;
+    @Mock private UserLikeRepository userLikeRepository;
+    @Mock private UserCollectRepository userCollectRepository;
+    @Mock private StringRedisTemplate stringRedisTemplate;
+    @Mock private ValueOperations<String, String> valueOperations;
+    @Mock private RedisMessageListenerContainer redisMessageListenerContainer;
+    @Mock private ViewCountService viewCountService;
+    @Mock private HotDataService hotDataService;
+    @Mock private ImageVariantService imageVariantService;
+    @Mock private FileReferenceService fileReferenceService;
+    @Mock private TagService tagService;
+    @Mock private SearchIndexService searchIndexService;
+    @Mock private CacheService cacheService;
+
+    private CommunityService communityService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        UserSummaryService userSummaryService = new UserSummaryService(
+                userRepository, stringRedisTemplate, redisMessageListenerContainer, new ObjectMapper());
+        ReflectionTestUtils.setField(userSummaryService, "maxSize", 1000);
+        ReflectionTestUtils.setField(userSummaryService, "localTtlSeconds", 60L);
+        HydrationService hydrationService = new HydrationService(
+                userSummaryService, userLikeRepository, userCollectRepository);
+
+        communityService = new CommunityService(communityPostRepository, userLikeRepository, userCollectRepository,
+                viewCountService, hotDataService, imageVariantService, hydrationService, fileReferenceService,
+                tagService, searchIndexService, cacheService);
+
+        // Redis 中没有用户摘要，全部回源数据库
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(anyList())).thenAnswer(invocation -> {
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < ((List<?>) invocation.getArgument(0)).size(); i++) {
+                values.add(null);
+            }
+            return values;
+        });
+        when(userRepository.findSummariesByIds(anyCollection())).thenAnswer(invocation -> {
+            List<User> users = new ArrayList<>();
+            for (Long id : (Collection<Long>) invocation.getArgument(0)) {
+                User user = new User();
+                user.setId(id);
+                user.setUsername("user" + id);
+                users.add(user);
+            }
+            return users;
+        });
+        // 当前用户点赞和收藏了第一条帖子
+        when(userLikeRepository.findTargetIds(eq(CURRENT_USER_ID), anyInt(), anyCollection())).thenReturn(List.of(1L));
+        when(userCollectRepository.findTargetIds(eq(CURRENT_USER_ID), anyInt(), anyCollection())).thenReturn(List.of(1L));
+        when(viewCountService.getPendingDeltas(any(), anyCollection())).thenReturn(Map.of());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 20, 100})
+    void pageQueriesAreIndependentOfPageSize(int size) {
+        stubPage(size);
+
+        PageResponse<CommunityResponse.PostInfo> response =
+                communityService.getPosts(1, size, null, null, "latest", CURRENT_USER_ID);
+
+        assertThat(response.getData()).hasSize(size);
+        assertThat(response.getData()).allSatisfy(post -> assertThat(post.getUsername()).isEqualTo("user" + post.getUserId()));
+        assertThat(response.getData().get(0).getIsLiked()).isTrue();
+        assertThat(response.getData().get(0).getIsCollected()).isTrue();
+
+        // 作者一次IN查询，点赞和收藏状态各一次查询，没有逐条查询
+        assertThat(queryCount(userRepository)).isEqualTo(1);
+        assertThat(queryCount(userLikeRepository)).isEqualTo(1);
+        assertThat(queryCount(userCollectRepository)).isEqualTo(1);
+        verify(userRepository, never()).selectById(any());
+        verify(userLikeRepository, never()).findByUserAndTarget(anyLong(), anyLong(), anyInt());
+        verify(userCollectRepository, never()).findByUserAndTarget(anyLong(), anyLong(), anyInt());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 20})
+    void anonymousPageSkipsLikeAndCollectQueries(int size) {
+        stubPage(size);
+
+        communityService.getPosts(1, size, null, null, "latest", null);
+
+        assertThat(queryCount(userRepository)).isEqualTo(1);
+        assertThat(queryCount(userLikeRepository)).isZero();
+        assertThat(queryCount(userCollectRepository)).isZero();
+    }
+
+    @Test
+    void repeatedPageReadsAuthorsFromLocalCache() {
+        stubPage(20);
+
+        communityService.getPosts(1, 20, null, null, "latest", CURRENT_USER_ID);
+        communityService.getPosts(1, 20, null, null, "latest", CURRENT_USER_ID);
+
+        assertThat(queryCount(userRepository)).isEqualTo(1);
+        assertThat(queryCount(userLikeRepository)).isEqualTo(2);
+        assertThat(queryCount(userCollectRepository)).isEqualTo(2);
+    }
+
+    /**
+     * 模拟一页帖子，作者在少量用户之间轮换
+     */
+    private void stubPage(int size) {
+        List<CommunityPost> posts = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            posts.add(CommunityPost.builder()
+                    .id(id)
+                    .userId(id % AUTHOR_COUNT + 1)
+                    .title("post" + id)
+                    .status(PostStatus.PUBLISHED.getValue())
+                    .viewCount(0)
+                    .likeCount(0)
+                    .commentCount(0)
+                    .isTop(0)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+        Page<CommunityPost> page = new Page<>(1, size, size);
+        page.setRecords(posts);
+        when(communityPostRepository.findPostsByLatest(any(), any(), any(), any())).thenReturn(page);
+    }
+
+    private static int queryCount(Object repository) {
+        return Mockito.mockingDetails(repository).getInvocations().size();
+    }
+}
@@ -0,0 +1,83 @@
+package com.pengcunfu.recognition.service;
+
+import com.pengcunfu.recognition.entity.FileManifest;
+import com.pengcunfu.recognition.repository.FileManifestRepository;
+import com.pengcunfu.recognition.repository.FileManifestStatsRepository;
+import com.pengcunfu.recognition.util.FileUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 文件清单测试：上传去重命中时刷新修改时间，复用的旧文件重新进入清理保护期
+ */
+class FileManifestServiceTest {
+
+    private static final String PATH = "images/2024/01/01/a.jpg";
+
+    @TempDir
+    Path uploadDir;
+
+    private FileManifestRepository fileManifestRepository;
+    private FileManifestService fileManifestService;
+
+    @BeforeEach
+    void setUp() {
+        fileManifestRepository = mock(FileManifestRepository.class);
+        fileManifestService = new FileManifestService(fileManifestRepository, mock(FileManifestStatsRepository.class),
+                new FileUtil(), mock(TransactionTemplate.class));
+        ReflectionTestUtils.setField(fileManifestService, "uploadPath", uploadDir.toString());
+    }
+
+    @Test
+    void reuseRefreshesModifiedTime() throws Exception {
+        Path file = uploadDir.resolve(PATH);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[]{1, 2, 3});
+        Instant old = Instant.now().minus(Duration.ofDays(3));
+        Files.setLastModifiedTime(file, FileTime.from(old));
+        when(fileManifestRepository.findByContentHash("images", "hash")).thenReturn(FileManifest.builder()
+                .id(7L)
+                .path(PATH)
+                .modifiedAt(LocalDateTime.now().minusDays(3))
+                .build());
+
+        String url = fileManifestService.reuseByContentHash("images", "hash");
+
+        assertThat(url).isEqualTo("/api/v1/files/" + PATH);
+        // 磁盘时间和清单时间都刷新，对账后也不会回到旧时间
+        assertThat(Files.getLastModifiedTime(file).toInstant()).isAfter(old.plus(Duration.ofDays(2)));
+        ArgumentCaptor<FileManifest> updated = ArgumentCaptor.forClass(FileManifest.class);
+        verify(fileManifestRepository).updateById(updated.capture());
+        assertThat(updated.getValue().getId()).isEqualTo(7L);
+        assertThat(updated.getValue().getModifiedAt()).isAfter(LocalDateTime.now().minusMinutes(1));
+    }
+
+    @Test
+    void missingFileIsNotReused() {
+        when(fileManifestRepository.findByContentHash("images", "hash")).thenReturn(FileManifest.builder()
+                .id(7L)
+                .path(PATH)
+                .build());
+
+        assertThat(fileManifestService.reuseByContentHash("images", "hash")).isNull();
+        verify(fileManifestRepository, never()).updateById(any(FileManifest.class));
+    }
+}
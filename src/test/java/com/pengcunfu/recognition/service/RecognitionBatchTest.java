@@ -0,0 +1,270 @@
+package com.pengcunfu.recognition.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.pengcunfu.recognition.config.ImageRecognitionConfig;
+import com.pengcunfu.recognition.entity.RecognitionResult;
+import com.pengcunfu.recognition.entity.User;
+import com.pengcunfu.recognition.enums.RecognitionStatus;
+import com.pengcunfu.recognition.repository.KnowledgeRepository;
+import com.pengcunfu.recognition.repository.RecognitionResultRepository;
+import com.pengcunfu.recognition.repository.TagRelationRepository;
+import com.pengcunfu.recognition.request.RecognitionRequest;
+import com.pengcunfu.recognition.response.RecognitionResponse;
+import com.pengcunfu.recognition.service.redis.CacheService;
+import com.pengcunfu.recognition.service.redis.RateLimitService;
+import com.pengcunfu.recognition.util.DoubaoUtil;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量识别测试：以桩替代方舟模型调用，覆盖单项超时与部分失败
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RecognitionBatchTest {
+
+    private static final String MODEL_OUTPUT = "{\"category\":\"动物\",\"name\":\"猫\",\"confidence\":0.9}";
+
+    @Mock private RecognitionResultRepository recognitionResultRepository;
+    @Mock private UserSummaryService userSummaryService;
+    @Mock private RateLimitService rateLimitService;
+    @Mock private DoubaoUtil doubaoUtil;
+    @Mock private KnowledgeRepository knowledgeRepository;
+    @Mock private RecognitionJobService recognitionJobService;
+    @Mock private RecognitionCacheService recognitionCacheService;
+    @Mock private RecognitionSingleFlightService recognitionSingleFlightService;
+    @Mock private ImageVariantService imageVariantService;
+    @Mock private FileReferenceService fileReferenceService;
+    @Mock private TagService tagService;
+    @Mock private SearchIndexService searchIndexService;
+    @Mock private TagRelationRepository tagRelationRepository;
+    @Mock private CacheService cacheService;
+
+    /**
+     * 内存中的识别记录表，update 按条件写入语义实现：仅待处理的记录可写入最终状态
+     */
+    private final Map<Long, RecognitionResult> rows = new ConcurrentHashMap<>();
+    private final AtomicLong idSequence = new AtomicLong();
+    private final CountDownLatch lateWriteAttempted = new CountDownLatch(1);
+
+    private RecognitionBatchService recognitionBatchService;
+    private RecognitionService recognitionService;
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), RecognitionResult.class);
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ImageRecognitionConfig config = new ImageRecognitionConfig();
+        config.getBatch().setConcurrency(3);
+        config.getBatch().setPoolSize(4);
+        config.getBatch().setTimeoutSeconds(1);
+        recognitionBatchService = new RecognitionBatchService(config);
+        recognitionBatchService.init();
+
+        recognitionService = new RecognitionService(recognitionResultRepository, userSummaryService, rateLimitService,
+                doubaoUtil, knowledgeRepository, recognitionJobService, recognitionBatchService, recognitionCacheService,
+                recognitionSingleFlightService, imageVariantService, fileReferenceService, tagService, searchIndexService,
+                tagRelationRepository, cacheService);
+
+        when(userSummaryService.get(anyLong())).thenReturn(new User());
+        when(rateLimitService.isApiAllowed(anyLong(), anyString(), anyInt(), anyInt())).thenReturn(true);
+        when(rateLimitService.isRecognitionAllowed(anyLong(), anyInt(), anyInt())).thenReturn(true);
+        when(recognitionSingleFlightService.execute(any(), any()))
+                .thenAnswer(invocation -> ((Supplier<String>) invocation.getArgument(1)).get());
+
+        when(recognitionResultRepository.insert(any(RecognitionResult.class))).thenAnswer(invocation -> {
+            RecognitionResult result = invocation.getArgument(0);
+            result.setId(idSequence.incrementAndGet());
+            rows.put(result.getId(), snapshot(result));
+            return 1;
+        });
+        when(recognitionResultRepository.selectById(any())).thenAnswer(invocation -> {
+            RecognitionResult row = rows.get((Long) invocation.getArgument(0));
+            return row != null ? snapshot(row) : null;
+        });
+        when(recognitionResultRepository.update(any(RecognitionResult.class), any())).thenAnswer(invocation -> {
+            RecognitionResult result = invocation.getArgument(0);
+            boolean[] updated = new boolean[1];
+            RecognitionResult row = rows.computeIfPresent(result.getId(), (id, current) -> {
+                if (!RecognitionStatus.PENDING.getValue().equals(current.getStatus())) {
+                    return current;
+                }
+                updated[0] = true;
+                RecognitionResult merged = snapshot(current);
+                merged.setStatus(result.getStatus());
+                merged.setErrorMessage(result.getErrorMessage());
+                merged.setMainCategory(result.getMainCategory());
+                return merged;
+            });
+            if (row != null && row.getImageUrl().contains("slow")
+                    && RecognitionStatus.SUCCESS.getValue().equals(result.getStatus())) {
+                lateWriteAttempted.countDown();
+            }
+            return updated[0] ? 1 : 0;
+        });
+
+        // 方舟模型桩：slow 超过批次截止时间且不响应中断，fail 直接报错
+        when(doubaoUtil.recognizeImage(anyString(), anyString())).thenAnswer(invocation -> {
+            String imageUrl = invocation.getArgument(0);
+            if (imageUrl.contains("fail")) {
+                throw new IllegalStateException("模型调用失败");
+            }
+            if (imageUrl.contains("slow")) {
+                long until = System.currentTimeMillis() + 1800;
+                while (System.currentTimeMillis() < until) {
+                    try {
+                        Thread.sleep(Math.max(1, until - System.currentTimeMillis()));
+                    } catch (InterruptedException ignored) {
+                        // 模拟不响应中断的阻塞IO
+                    }
+                }
+            }
+            return MODEL_OUTPUT;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        recognitionBatchService.shutdown();
+    }
+
+    @Test
+    void timeoutAndPartialFailureAreIsolated() throws InterruptedException {
+        RecognitionRequest.BatchRecognitionRequest request = new RecognitionRequest.BatchRecognitionRequest();
+        request.setImageUrls(new String[]{"http://img/ok-1.jpg", "http://img/slow.jpg", "http://img/fail.jpg"});
+
+        List<RecognitionResponse.RecognitionInfo> results = recognitionService.batchRecognizeImages(1L, request);
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).getStatus()).isEqualTo(RecognitionStatus.SUCCESS.getValue());
+        assertThat(results.get(1).getStatus()).isEqualTo(RecognitionStatus.FAILED.getValue());
+        assertThat(results.get(1).getErrorMessage()).isEqualTo("批量识别超时");
+        assertThat(results.get(2).getStatus()).isEqualTo(RecognitionStatus.FAILED.getValue());
+
+        // 每张图片只有一条记录，失败项不会重复插入
+        assertThat(rows).hasSize(3);
+
+        // 超时后工作线程仍完成了模型调用，迟到的成功结果不能覆盖已写入的失败状态
+        assertThat(lateWriteAttempted.await(5, TimeUnit.SECONDS)).isTrue();
+        Long slowId = results.get(1).getId();
+        assertThat(rows.get(slowId).getStatus()).isEqualTo(RecognitionStatus.FAILED.getValue());
+        assertThat(rows.get(slowId).getErrorMessage()).isEqualTo("批量识别超时");
+        verify(tagService, never()).replaceTags(any(), eq(slowId), any(), anyBoolean());
+        verify(tagService).replaceTags(any(), eq(results.get(0).getId()), any(), anyBoolean());
+    }
+
+    @Test
+    void recordCreationFailureInsertsSingleFailedRow() {
+        when(rateLimitService.isRecognitionAllowed(anyLong(), anyInt(), anyInt())).thenReturn(true, false);
+
+        RecognitionRequest.BatchRecognitionRequest request = new RecognitionRequest.BatchRecognitionRequest();
+        request.setImageUrls(new String[]{"http://img/ok-1.jpg", "http://img/ok-2.jpg"});
+
+        List<RecognitionResponse.RecognitionInfo> results = recognitionService.batchRecognizeImages(1L, request);
+
+        assertThat(results.get(0).getStatus()).isEqualTo(RecognitionStatus.SUCCESS.getValue());
+        assertThat(results.get(1).getStatus()).isEqualTo(RecognitionStatus.FAILED.getValue());
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(results.get(1).getId()).getStatus()).isEqualTo(RecognitionStatus.FAILED.getValue());
+    }
+
+    @Test
+    void tagFailureDoesNotFailSuccessfulRecognition() {
+        doThrow(new IllegalStateException("标签写入失败"))
+                .when(tagService).replaceTags(any(), anyLong(), any(), anyBoolean());
+
+        RecognitionRequest.BatchRecognitionRequest request = new RecognitionRequest.BatchRecognitionRequest();
+        request.setImageUrls(new String[]{"http://img/ok-1.jpg"});
+
+        List<RecognitionResponse.RecognitionInfo> results = recognitionService.batchRecognizeImages(1L, request);
+
+        assertThat(results.get(0).getStatus()).isEqualTo(RecognitionStatus.SUCCESS.getValue());
+        assertThat(rows.get(results.get(0).getId()).getStatus()).isEqualTo(RecognitionStatus.SUCCESS.getValue());
+    }
+
+    @Test
+    void saturatedPoolRejectsItemInsteadOfRunningOnCaller() {
+        ImageRecognitionConfig config = new ImageRecognitionConfig();
+        config.getBatch().setConcurrency(2);
+        config.getBatch().setPoolSize(1);
+        config.getBatch().setTimeoutSeconds(5);
+        RecognitionBatchService saturated = new RecognitionBatchService(config);
+        saturated.init();
+        Thread caller = Thread.currentThread();
+        try {
+            List<String> results = saturated.execute(List.of("a", "b"), input -> {
+                assertThat(Thread.currentThread()).isNotSameAs(caller);
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "ok-" + input;
+            }, (input, e) -> e.getClass().getSimpleName());
+
+            // 唯一的工作线程被占用，第二项被拒绝并走单项失败
+            assertThat(results).containsExactly("ok-a", "RejectedExecutionException");
+        } finally {
+            saturated.shutdown();
+        }
+    }
+
+    @Test
+    void resultWithoutImageHashIsNotCached() {
+        when(recognitionCacheService.buildUrlKey(any(), any(), any())).thenReturn("url:key");
+
+        RecognitionRequest.BatchRecognitionRequest request = new RecognitionRequest.BatchRecognitionRequest();
+        request.setImageUrls(new String[]{"http://img/ok-1.jpg"});
+
+        List<RecognitionResponse.RecognitionInfo> results = recognitionService.batchRecognizeImages(1L, request);
+
+        // 没有图片哈希时按URL合并请求，结果只共享给等待方，不写入识别结果缓存
+        assertThat(results.get(0).getStatus()).isEqualTo(RecognitionStatus.SUCCESS.getValue());
+        verify(recognitionCacheService, never()).put(any(), any());
+        verify(recognitionCacheService).share(eq("url:key"), eq(MODEL_OUTPUT));
+    }
+
+    private static RecognitionResult snapshot(RecognitionResult source) {
+        return RecognitionResult.builder()
+                .id(source.getId())
+                .userId(source.getUserId())
+                .imageUrl(source.getImageUrl())
+                .status(source.getStatus())
+                .errorMessage(source.getErrorMessage())
+                .mainCategory(source.getMainCategory())
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.pengcunfu.recognition.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.pengcunfu.recognition.config.ImageRecognitionConfig;
+import com.pengcunfu.recognition.entity.RecognitionResult;
+import com.pengcunfu.recognition.enums.RecognitionStatus;
+import com.pengcunfu.recognition.repository.RecognitionResultRepository;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 识别任务启动清理测试：超时仍为待处理的记录标记为失败
+ */
+class RecognitionJobServiceTest {
+
+    private ImageRecognitionConfig config;
+    private RecognitionResultRepository recognitionResultRepository;
+    private RecognitionJobService recognitionJobService;
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), RecognitionResult.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        config = new ImageRecognitionConfig();
+        recognitionResultRepository = mock(RecognitionResultRepository.class);
+        recognitionJobService = new RecognitionJobService(config, recognitionResultRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stalePendingJobsAreMarkedFailed() {
+        config.getJob().setPendingTimeoutSeconds(600);
+        when(recognitionResultRepository.update(any(RecognitionResult.class), any(Wrapper.class))).thenReturn(2);
+
+        recognitionJobService.failStalePendingJobs();
+
+        ArgumentCaptor<RecognitionResult> entity = ArgumentCaptor.forClass(RecognitionResult.class);
+        ArgumentCaptor<LambdaUpdateWrapper<RecognitionResult>> wrapper = ArgumentCaptor.forClass(LambdaUpdateWrapper.class);
+        verify(recognitionResultRepository).update(entity.capture(), wrapper.capture());
+        assertThat(entity.getValue().getStatus()).isEqualTo(RecognitionStatus.FAILED.getValue());
+        assertThat(entity.getValue().getErrorMessage()).isNotBlank();
+
+        // 只更新待处理且创建时间早于超时时间的记录
+        String sql = wrapper.getValue().getSqlSegment();
+        assertThat(sql).contains("status").contains("created_at");
+        assertThat(wrapper.getValue().getParamNameValuePairs().values())
+                .contains(RecognitionStatus.PENDING.getValue())
+                .anySatisfy(value -> assertThat(value).isInstanceOfSatisfying(LocalDateTime.class,
+                        before -> assertThat(before).isBefore(LocalDateTime.now().minusSeconds(590))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sweepIsSkippedWhenTimeoutDisabled() {
+        config.getJob().setPendingTimeoutSeconds(0);
+
+        recognitionJobService.failStalePendingJobs();
+
+        verify(recognitionResultRepository, never()).update(any(RecognitionResult.class), any(Wrapper.class));
+    }
+}
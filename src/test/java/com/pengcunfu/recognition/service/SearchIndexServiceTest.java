@@ -0,0 +1,134 @@
+package com.pengcunfu.recognition.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.pengcunfu.recognition.config.SearchConfig;
+import com.pengcunfu.recognition.entity.CommunityPost;
+import com.pengcunfu.recognition.entity.Knowledge;
+import com.pengcunfu.recognition.enums.PostStatus;
+import com.pengcunfu.recognition.enums.SearchDocType;
+import com.pengcunfu.recognition.exception.BusinessException;
+import com.pengcunfu.recognition.repository.CommunityPostRepository;
+import com.pengcunfu.recognition.repository.KnowledgeRepository;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 搜索索引测试：重建中途失败时回滚到重建前的索引，之后的定时刷新也不会提交部分结果
+ */
+class SearchIndexServiceTest {
+
+    @TempDir
+    Path indexDir;
+
+    private SearchConfig searchConfig;
+    private CommunityPostRepository communityPostRepository;
+    private KnowledgeRepository knowledgeRepository;
+    private SearchIndexService searchIndexService;
+
+    @BeforeAll
+    static void initTableInfo() {
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, CommunityPost.class);
+        TableInfoHelper.initTableInfo(assistant, Knowledge.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        searchConfig = new SearchConfig();
+        searchConfig.setIndexPath(indexDir.toString());
+        // 每次刷新都允许提交，模拟重建失败后下一次定时刷新
+        searchConfig.setCommitIntervalMillis(0);
+        communityPostRepository = mock(CommunityPostRepository.class);
+        knowledgeRepository = mock(KnowledgeRepository.class);
+        searchIndexService = open();
+
+        when(communityPostRepository.selectList(any())).thenReturn(List.of(post(1L), post(2L)));
+        when(knowledgeRepository.selectList(any())).thenReturn(List.of());
+        searchIndexService.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        searchIndexService.shutdown();
+    }
+
+    @Test
+    void failedRebuildKeepsPreviousIndex() {
+        when(communityPostRepository.selectList(any())).thenReturn(List.of(post(3L)));
+        when(knowledgeRepository.selectList(any())).thenThrow(new RuntimeException("数据库连接中断"));
+
+        assertThatThrownBy(() -> searchIndexService.rebuild()).isInstanceOf(BusinessException.class);
+        searchIndexService.refresh();
+
+        assertThat(searchIndexService.isReady()).isTrue();
+        assertThat(searchIndexService.getStats().getRebuilding()).isFalse();
+        assertThat(searchIds()).containsExactlyInAnyOrder(1L, 2L);
+
+        // 重新打开后磁盘上仍是重建前的提交
+        searchIndexService.shutdown();
+        searchIndexService = open();
+        assertThat(searchIndexService.getStats().getNumDocs()).isEqualTo(2);
+        assertThat(searchIds()).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void updatesDuringFailedRebuildAreReapplied() throws InterruptedException {
+        when(communityPostRepository.selectById(4L)).thenReturn(post(4L));
+        when(knowledgeRepository.selectList(any())).thenAnswer(invocation -> {
+            // 重建期间帖子4提交了修改，随后数据库查询失败
+            searchIndexService.reindexAfterCommit(SearchDocType.POST, 4L);
+            throw new RuntimeException("数据库连接中断");
+        });
+
+        assertThatThrownBy(() -> searchIndexService.rebuild()).isInstanceOf(BusinessException.class);
+        awaitIndexed();
+        searchIndexService.refresh();
+
+        assertThat(searchIds()).containsExactlyInAnyOrder(1L, 2L, 4L);
+    }
+
+    private SearchIndexService open() {
+        SearchIndexService service = new SearchIndexService(searchConfig, communityPostRepository, knowledgeRepository,
+                mock(TagService.class), Runnable::run);
+        service.init();
+        return service;
+    }
+
+    private List<Long> searchIds() {
+        return searchIndexService.searchIds(SearchDocType.POST, "cat", null, null, null, 1, 10).getRecords();
+    }
+
+    private void awaitIndexed() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (searchIndexService.getStats().getPendingTasks() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(searchIndexService.getStats().getPendingTasks()).isZero();
+    }
+
+    private static CommunityPost post(Long id) {
+        return CommunityPost.builder()
+                .id(id)
+                .title("cat care " + id)
+                .content("how to feed a cat")
+                .category("pets")
+                .status(PostStatus.PUBLISHED.getValue())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.pengcunfu.recognition.service;
+
+import com.pengcunfu.recognition.config.SystemLogConfig;
+import com.pengcunfu.recognition.entity.SystemLog;
+import com.pengcunfu.recognition.enums.LogOverflowPolicy;
+import com.pengcunfu.recognition.repository.SystemLogRepository;
+import com.pengcunfu.recognition.response.SystemLogResponse;
+import com.pengcunfu.recognition.service.redis.CacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 系统日志入队统计测试：每条日志只计入接收、丢弃或采样丢弃中的一项
+ */
+class SystemLogServiceTest {
+
+    private SystemLogConfig config;
+    private SystemLogService systemLogService;
+
+    @BeforeEach
+    void setUp() {
+        config = new SystemLogConfig();
+        systemLogService = new SystemLogService(mock(SystemLogRepository.class), config, mock(CacheService.class));
+        // 不启动写入线程，队列内容保持不变
+        ReflectionTestUtils.setField(systemLogService, "queue", new ArrayBlockingQueue<SystemLog>(2));
+        ReflectionTestUtils.setField(systemLogService, "running", true);
+    }
+
+    @Test
+    void sampledOutIsNotCountedAsDropped() {
+        config.setQueueCapacity(2);
+        config.setOverflowPolicy(LogOverflowPolicy.SAMPLE);
+        config.setSampleHighWatermark(0);
+        config.setSampleRate(0);
+
+        for (int i = 0; i < 5; i++) {
+            systemLogService.record(new SystemLog());
+        }
+
+        SystemLogResponse.WriterStats stats = systemLogService.getStats();
+        assertThat(stats.getSampledOutCount()).isEqualTo(5);
+        assertThat(stats.getDroppedCount()).isZero();
+        assertThat(stats.getAcceptedCount()).isZero();
+    }
+
+    @Test
+    void fullQueueIsCountedAsDropped() {
+        config.setQueueCapacity(2);
+        config.setOverflowPolicy(LogOverflowPolicy.DROP);
+
+        for (int i = 0; i < 5; i++) {
+            systemLogService.record(new SystemLog());
+        }
+
+        SystemLogResponse.WriterStats stats = systemLogService.getStats();
+        assertThat(stats.getAcceptedCount()).isEqualTo(2);
+        assertThat(stats.getDroppedCount()).isEqualTo(3);
+        assertThat(stats.getSampledOutCount()).isZero();
+    }
+}
@@ -0,0 +1,106 @@
+package com.pengcunfu.recognition.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pengcunfu.recognition.constant.RedisConstants;
+import com.pengcunfu.recognition.enums.TagOwnerType;
+import com.pengcunfu.recognition.repository.CommunityPostRepository;
+import com.pengcunfu.recognition.repository.KnowledgeRepository;
+import com.pengcunfu.recognition.repository.RecognitionResultRepository;
+import com.pengcunfu.recognition.repository.TagRelationRepository;
+import com.pengcunfu.recognition.repository.TagRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 标签服务测试：关联和计数在同一事务中写入，启动回填按完成标记只执行一次
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TagServiceTest {
+
+    @Mock private TagRepository tagRepository;
+    @Mock private TagRelationRepository tagRelationRepository;
+    @Mock private CommunityPostRepository communityPostRepository;
+    @Mock private KnowledgeRepository knowledgeRepository;
+    @Mock private RecognitionResultRepository recognitionResultRepository;
+    @Mock private StringRedisTemplate stringRedisTemplate;
+    @Mock private TransactionTemplate transactionTemplate;
+
+    private TagService tagService;
+    private int transactions;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        tagService = new TagService(tagRepository, tagRelationRepository, communityPostRepository, knowledgeRepository,
+                recognitionResultRepository, stringRedisTemplate, transactionTemplate, new ObjectMapper(), Runnable::run);
+
+        // 记录事务次数并在"事务"内执行回调
+        doAnswer(invocation -> {
+            transactions++;
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(new SimpleTransactionStatus());
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(tagRelationRepository.findTagIdsForUpdate(anyInt(), anyLong(), anyInt())).thenReturn(List.of());
+        when(tagRepository.findIdsByNames(anyList())).thenReturn(List.of(1L, 2L));
+    }
+
+    @Test
+    void replaceTagsRunsInOneTransaction() {
+        tagService.replaceTags(TagOwnerType.RECOGNITION, 10L, "猫,动物", true);
+
+        assertThat(transactions).isEqualTo(1);
+        InOrder order = inOrder(transactionTemplate, tagRelationRepository, tagRepository);
+        order.verify(transactionTemplate).executeWithoutResult(any());
+        order.verify(tagRelationRepository).findTagIdsForUpdate(TagOwnerType.RECOGNITION.getValue(), 10L, 1);
+        order.verify(tagRelationRepository).insertIgnore(eq(TagOwnerType.RECOGNITION.getValue()), eq(10L), eq(List.of(1L, 2L)), eq(1));
+        order.verify(tagRepository).addCounts(eq(TagOwnerType.RECOGNITION.getValue()), any());
+    }
+
+    @Test
+    void setCountedRunsInOneTransaction() {
+        when(tagRelationRepository.findTagIdsForUpdate(TagOwnerType.POST.getValue(), 10L, 0)).thenReturn(List.of(1L));
+
+        tagService.setCounted(TagOwnerType.POST, 10L, true);
+
+        assertThat(transactions).isEqualTo(1);
+        verify(tagRelationRepository).updateCounted(TagOwnerType.POST.getValue(), 10L, 1);
+        verify(tagRepository).addCounts(eq(TagOwnerType.POST.getValue()), any());
+    }
+
+    @Test
+    void startupRebuildIsSkippedAfterCompletion() {
+        when(stringRedisTemplate.hasKey(RedisConstants.TAG_REBUILD_DONE_KEY)).thenReturn(true);
+        when(tagRepository.selectCount(any())).thenReturn(0L);
+
+        tagService.rebuildIfEmpty();
+
+        // 标签表为空但已重建过，不再检查标签表也不启动重建
+        verify(tagRepository, never()).selectCount(any());
+    }
+}
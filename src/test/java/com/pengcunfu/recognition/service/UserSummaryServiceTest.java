@@ -0,0 +1,119 @@
+package com.pengcunfu.recognition.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pengcunfu.recognition.constant.CacheKeyPrefix;
+import com.pengcunfu.recognition.entity.User;
+import com.pengcunfu.recognition.repository.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户摘要缓存测试：读取数据库期间发生失效时，旧数据不能回填到Redis和本地缓存
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class UserSummaryServiceTest {
+
+    private static final Long USER_ID = 1L;
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate stringRedisTemplate;
+
+    private UserRepository userRepository;
+    private UserSummaryService userSummaryService;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        stringRedisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+        userRepository = mock(UserRepository.class);
+        userSummaryService = new UserSummaryService(userRepository, stringRedisTemplate,
+                mock(RedisMessageListenerContainer.class), new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(userSummaryService, "maxSize", 1000);
+        ReflectionTestUtils.setField(userSummaryService, "localTtlSeconds", 60L);
+    }
+
+    @Test
+    void missIsWrittenBackWithSummaryTtl() {
+        when(userRepository.findSummariesByIds(anyCollection())).thenReturn(List.of(user("alice")));
+
+        assertThat(userSummaryService.get(USER_ID).getNickname()).isEqualTo("alice");
+
+        String key = CacheKeyPrefix.USER_SUMMARY.getKey(String.valueOf(USER_ID));
+        assertThat(stringRedisTemplate.hasKey(key)).isTrue();
+        assertThat(stringRedisTemplate.getExpire(key, TimeUnit.SECONDS))
+                .isPositive()
+                .isLessThanOrEqualTo(CacheKeyPrefix.USER_SUMMARY.getExpireTime());
+    }
+
+    @Test
+    void staleReadIsNotWrittenBackAfterInvalidation() throws Exception {
+        CountDownLatch dbRead = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        // 第一次查询读到旧昵称，并在返回前等待另一线程提交变更并失效缓存
+        when(userRepository.findSummariesByIds(anyCollection()))
+                .thenAnswer(invocation -> {
+                    dbRead.countDown();
+                    assertThat(invalidated.await(5, TimeUnit.SECONDS)).isTrue();
+                    return List.of(user("old"));
+                })
+                .thenReturn(List.of(user("new")));
+
+        CompletableFuture<User> staleLoad = CompletableFuture.supplyAsync(() -> userSummaryService.get(USER_ID));
+        assertThat(dbRead.await(5, TimeUnit.SECONDS)).isTrue();
+        userSummaryService.invalidate(USER_ID);
+        invalidated.countDown();
+
+        // 正在进行的请求仍返回它读到的数据，但不能写入缓存
+        assertThat(staleLoad.get(5, TimeUnit.SECONDS).getNickname()).isEqualTo("old");
+        assertThat(stringRedisTemplate.hasKey(CacheKeyPrefix.USER_SUMMARY.getKey(String.valueOf(USER_ID)))).isFalse();
+
+        assertThat(userSummaryService.get(USER_ID).getNickname()).isEqualTo("new");
+        Mockito.verify(userRepository, Mockito.times(2)).findSummariesByIds(anyCollection());
+    }
+
+    private static User user(String nickname) {
+        User user = new User();
+        user.setId(USER_ID);
+        user.setUsername("user" + USER_ID);
+        user.setNickname(nickname);
+        return user;
+    }
+}
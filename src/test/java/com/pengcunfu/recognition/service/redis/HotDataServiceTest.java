@@ -0,0 +1,160 @@
+package com.pengcunfu.recognition.service.redis;
+
+import com.pengcunfu.recognition.config.HotRankConfig;
+import com.pengcunfu.recognition.constant.RedisConstants;
+import com.pengcunfu.recognition.entity.CommunityPost;
+import com.pengcunfu.recognition.enums.TargetType;
+import com.pengcunfu.recognition.repository.CommunityPostRepository;
+import com.pengcunfu.recognition.repository.KnowledgeRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 热门排行测试：撤销操作只扣除原事件的衰减分量、事务提交后才计分、启动回填只执行一次
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class HotDataServiceTest {
+
+    private static final String KEY = RedisConstants.HOT_POSTS_KEY;
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate stringRedisTemplate;
+
+    private CommunityPostRepository communityPostRepository;
+    private HotDataService hotDataService;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        stringRedisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+        communityPostRepository = mock(CommunityPostRepository.class);
+        KnowledgeRepository knowledgeRepository = mock(KnowledgeRepository.class);
+        when(knowledgeRepository.findHotCandidates(any(), any(), anyInt())).thenReturn(List.of());
+        hotDataService = new HotDataService(mock(RedisService.class), stringRedisTemplate, new HotRankConfig(),
+                communityPostRepository, knowledgeRepository);
+    }
+
+    @Test
+    void immediateRetractionRestoresScoreAndKeepsMember() {
+        hotDataService.recordView(TargetType.POST, 1L);
+        hotDataService.recordLike(TargetType.POST, 1L);
+        hotDataService.cancelLike(TargetType.POST, 1L, LocalDateTime.now());
+
+        // 只剩浏览的分量，成员仍在排行中
+        assertThat(score(1L)).isCloseTo(1.0, within(0.01));
+    }
+
+    @Test
+    void retractionOfOldLikeSubtractsOnlyDecayedContribution() {
+        hotDataService.recordView(TargetType.POST, 1L);
+
+        // 两个半衰期之前的点赞（权重3）至今只剩四分之一
+        hotDataService.cancelLike(TargetType.POST, 1L, LocalDateTime.now().minusHours(48));
+        assertThat(score(1L)).isCloseTo(1.0 - 0.75, within(0.01));
+
+        // 扣减超过当前分数时截断为0，不移除成员
+        hotDataService.cancelCollect(TargetType.POST, 1L, LocalDateTime.now());
+        assertThat(score(1L)).isZero();
+    }
+
+    @Test
+    void retractionOfAbsentMemberIsIgnored() {
+        hotDataService.cancelLike(TargetType.POST, 1L, LocalDateTime.now());
+
+        assertThat(stringRedisTemplate.opsForZSet().score(KEY, "1")).isNull();
+    }
+
+    @Test
+    void scoreIsUpdatedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            hotDataService.recordLike(TargetType.POST, 1L);
+            hotDataService.recordLike(TargetType.POST, 2L);
+            assertThat(stringRedisTemplate.hasKey(KEY)).isFalse();
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            // 第一个事件提交，第二个事件所在事务回滚
+            synchronizations.get(0).afterCommit();
+            synchronizations.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(score(1L)).isCloseTo(3.0, within(0.01));
+        assertThat(stringRedisTemplate.opsForZSet().score(KEY, "2")).isNull();
+    }
+
+    @Test
+    void backfillSeedsRankingOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        when(communityPostRepository.findHotCandidates(any(), any(), anyInt())).thenReturn(List.of(
+                post(1L, 10, 0, now.minusHours(48)),
+                post(2L, 10, 0, now),
+                post(3L, 0, 0, now)));
+
+        hotDataService.backfillIfMissing();
+
+        // 同样的计数，较新的帖子分数更高；没有任何互动的帖子不写入
+        assertThat(hotDataService.getHotIds(TargetType.POST, 10)).containsExactly(2L, 1L);
+        assertThat(score(2L)).isCloseTo(10.0, within(0.01));
+        assertThat(score(1L)).isCloseTo(2.5, within(0.01));
+
+        // 已回填过，其他实例再次启动不会重复累加
+        hotDataService.backfillIfMissing();
+        assertThat(score(2L)).isCloseTo(10.0, within(0.01));
+    }
+
+    private static double score(Long id) {
+        Double score = stringRedisTemplate.opsForZSet().score(KEY, id.toString());
+        assertThat(score).isNotNull();
+        return score;
+    }
+
+    private static CommunityPost post(Long id, int views, int likes, LocalDateTime createdAt) {
+        return CommunityPost.builder()
+                .id(id)
+                .viewCount(views)
+                .likeCount(likes)
+                .commentCount(0)
+                .collectCount(0)
+                .createdAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,123 @@
+package com.pengcunfu.recognition.service.redis;
+
+import com.pengcunfu.recognition.config.RateLimitConfig;
+import com.pengcunfu.recognition.enums.RateLimitAlgorithm;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 限流并发测试：多线程、多实例同时请求真实Redis，放行数不超过限制
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RateLimitServiceConcurrencyTest {
+
+    private static final int LIMIT = 50;
+    private static final int WINDOW_SECONDS = 3600;
+    private static final int THREADS = 32;
+    private static final int REQUESTS_PER_THREAD = 20;
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate stringRedisTemplate;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void flush() {
+        stringRedisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+    }
+
+    @ParameterizedTest
+    @EnumSource(RateLimitAlgorithm.class)
+    void remoteChecksNeverOverAdmit(RateLimitAlgorithm algorithm) throws Exception {
+        RateLimitService service = newService(false);
+
+        int admitted = runConcurrently(List.of(service), "test:remote:" + algorithm, algorithm);
+
+        assertThat(admitted).isEqualTo(LIMIT);
+    }
+
+    @ParameterizedTest
+    @EnumSource(RateLimitAlgorithm.class)
+    void leasedChecksAcrossInstancesNeverOverAdmit(RateLimitAlgorithm algorithm) throws Exception {
+        // 两个实例各自从Redis租用许可，租约未用完的许可不会被另一实例使用，因此只校验上限
+        List<RateLimitService> instances = List.of(newService(true), newService(true));
+
+        int admitted = runConcurrently(instances, "test:leased:" + algorithm, algorithm);
+
+        assertThat(admitted).isPositive().isLessThanOrEqualTo(LIMIT);
+    }
+
+    /**
+     * 所有线程同时开始请求，返回放行总数
+     */
+    private int runConcurrently(List<RateLimitService> instances, String key, RateLimitAlgorithm algorithm)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger admitted = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                RateLimitService service = instances.get(t % instances.size());
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                        if (service.isAllowed(key, LIMIT, WINDOW_SECONDS, algorithm)) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return admitted.get();
+    }
+
+    private static RateLimitService newService(boolean localEnabled) {
+        RateLimitConfig config = new RateLimitConfig();
+        config.getLocal().setEnabled(localEnabled);
+        return new RateLimitService(null, stringRedisTemplate, config);
+    }
+}
@@ -0,0 +1,244 @@
+package com.pengcunfu.recognition.util;
+
+import com.pengcunfu.recognition.config.DoubaoConfig;
+import com.pengcunfu.recognition.constant.ErrorCode;
+import com.pengcunfu.recognition.exception.BusinessException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 豆包调用保护测试：以本地桩服务注入延迟和错误，覆盖重试、总截止时间、舱壁和熔断
+ */
+class DoubaoUtilTest {
+
+    private static final String OK_BODY = """
+            {"id":"stub","object":"chat.completion","created":0,"model":"stub",
+             "choices":[{"index":0,"message":{"role":"assistant","content":"ok"},"finish_reason":"stop"}]}
+            """;
+    private static final String ERROR_BODY = """
+            {"error":{"message":"stub error","type":"stub","code":"StubError"}}
+            """;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final ConcurrentLinkedQueue<Response> responses = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch firstRequest = new CountDownLatch(1);
+    private volatile Response defaultResponse = new Response(200, 0);
+
+    private DoubaoConfig config;
+    private DoubaoUtil doubaoUtil;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", this::handle);
+        server.start();
+
+        config = new DoubaoConfig();
+        config.setKey("stub-key");
+        config.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/api/v3");
+        config.setModel("stub-model");
+        config.setTimeout(5000);
+        config.setConnectTimeout(1000);
+        config.setTotalTimeout(10000);
+        config.setMinAttemptMillis(200);
+        config.setMaxRetries(3);
+        config.setRetryBaseDelay(20);
+        config.setRetryMaxDelay(50);
+        config.setMaxConcurrentCalls(4);
+        config.setBulkheadWaitMillis(100);
+        config.getCircuitBreaker().setFailureThreshold(100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (doubaoUtil != null) {
+            doubaoUtil.shutdown();
+        }
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void serverErrorsAreRetriedUntilSuccess() {
+        responses.add(new Response(500, 0));
+        responses.add(new Response(503, 0));
+        start();
+
+        assertThat(doubaoUtil.recognizeImage("http://img/a.jpg", "prompt")).isEqualTo("ok");
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void clientErrorIsNotRetried() {
+        defaultResponse = new Response(400, 0);
+        start();
+
+        assertThatThrownBy(() -> doubaoUtil.recognizeImage("http://img/a.jpg", "prompt"))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void slowAttemptIsCutAtTotalDeadline() {
+        // 单次调用超时远大于总截止时间，调用仍按总截止时间结束
+        config.setTotalTimeout(500);
+        defaultResponse = new Response(200, 3000);
+        start();
+
+        long startTime = System.currentTimeMillis();
+        assertThatThrownBy(() -> doubaoUtil.recognizeImage("http://img/a.jpg", "prompt"))
+                .isInstanceOfSatisfying(BusinessException.class,
+                        e -> assertThat(e.getCode()).isEqualTo(ErrorCode.RECOGNITION_TIMEOUT));
+
+        assertThat(System.currentTimeMillis() - startTime).isLessThan(2000);
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void retryIsNotStartedWhenRemainingTimeIsBelowFloor() {
+        config.setTotalTimeout(1000);
+        config.setMinAttemptMillis(500);
+        config.setMaxRetries(10);
+        defaultResponse = new Response(500, 300);
+        start();
+
+        long startTime = System.currentTimeMillis();
+        assertThatThrownBy(() -> doubaoUtil.recognizeImage("http://img/a.jpg", "prompt"))
+                .isInstanceOf(RuntimeException.class);
+
+        // 每次约300ms：第二次之后剩余时间不足500ms，不再发起
+        assertThat(requests.get()).isLessThanOrEqualTo(2);
+        assertThat(System.currentTimeMillis() - startTime).isLessThan(1500);
+    }
+
+    @Test
+    void saturatedBulkheadRejectsQuickly() throws Exception {
+        config.setMaxConcurrentCalls(1);
+        defaultResponse = new Response(200, 1000);
+        start();
+
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> first = caller.submit(() -> doubaoUtil.recognizeImage("http://img/a.jpg", "prompt"));
+            assertThat(firstRequest.await(5, TimeUnit.SECONDS)).isTrue();
+
+            long startTime = System.currentTimeMillis();
+            assertThatThrownBy(() -> doubaoUtil.recognizeImage("http://img/b.jpg", "prompt"))
+                    .isInstanceOfSatisfying(BusinessException.class,
+                            e -> assertThat(e.getCode()).isEqualTo(ErrorCode.RECOGNITION_SERVICE_UNAVAILABLE));
+            assertThat(System.currentTimeMillis() - startTime).isLessThan(800);
+
+            // 许可随第一次调用结束归还
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+            defaultResponse = new Response(200, 0);
+            assertThat(doubaoUtil.recognizeImage("http://img/c.jpg", "prompt")).isEqualTo("ok");
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+    @Test
+    void abandonedCallKeepsPermitUntilItFinishes() throws InterruptedException {
+        config.setMaxConcurrentCalls(1);
+        config.setTotalTimeout(300);
+        defaultResponse = new Response(200, 1000);
+        start();
+
+        assertThatThrownBy(() -> doubaoUtil.recognizeImage("http://img/a.jpg", "prompt"))
+                .isInstanceOf(BusinessException.class);
+
+        // 超时放弃的调用仍在进行，不能再放行新的调用
+        assertThatThrownBy(() -> doubaoUtil.recognizeImage("http://img/b.jpg", "prompt"))
+                .isInstanceOfSatisfying(BusinessException.class,
+                        e -> assertThat(e.getCode()).isEqualTo(ErrorCode.RECOGNITION_SERVICE_UNAVAILABLE));
+        assertThat(requests.get()).isEqualTo(1);
+
+        Thread.sleep(1500);
+        config.setTotalTimeout(5000);
+        defaultResponse = new Response(200, 0);
+        assertThat(doubaoUtil.recognizeImage("http://img/c.jpg", "prompt")).isEqualTo("ok");
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailures() {
+        config.setMaxRetries(0);
+        config.getCircuitBreaker().setFailureThreshold(2);
+        defaultResponse = new Response(500, 0);
+        start();
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> doubaoUtil.recognizeImage("http://img/a.jpg", "prompt"))
+                    .isInstanceOf(RuntimeException.class);
+        }
+        assertThatThrownBy(() -> doubaoUtil.recognizeImage("http://img/a.jpg", "prompt"))
+                .isInstanceOfSatisfying(BusinessException.class,
+                        e -> assertThat(e.getCode()).isEqualTo(ErrorCode.RECOGNITION_SERVICE_UNAVAILABLE));
+
+        // 熔断打开后不再请求上游
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    private void start() {
+        doubaoUtil = new DoubaoUtil(config);
+        doubaoUtil.init();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        requests.incrementAndGet();
+        firstRequest.countDown();
+
+        Response response = responses.poll();
+        if (response == null) {
+            response = defaultResponse;
+        }
+        if (response.delayMillis > 0) {
+            try {
+                Thread.sleep(response.delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        byte[] body = (response.status == 200 ? OK_BODY : ERROR_BODY).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        try (OutputStream output = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(response.status, body.length);
+            output.write(body);
+        } catch (IOException e) {
+            // 客户端已放弃等待并断开
+        }
+    }
+
+    private static class Response {
+        private final int status;
+        private final long delayMillis;
+
+        Response(int status, long delayMillis) {
+            this.status = status;
+            this.delayMillis = delayMillis;
+        }
+    }
+}
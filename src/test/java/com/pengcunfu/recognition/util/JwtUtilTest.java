@@ -0,0 +1,105 @@
+package com.pengcunfu.recognition.util;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JwtUtil Claims 缓存测试
+ */
+class JwtUtilTest {
+
+    private static final String SECRET = "test-secret-for-jwt-util-at-least-32-bytes";
+
+    @Test
+    void cachedClaimsAreReusedUntilExpiry() {
+        JwtUtil jwtUtil = newJwtUtil(SECRET, 3600L, 100);
+        String token = jwtUtil.generateToken(1L, "alice", 0);
+
+        Claims first = jwtUtil.getClaimsFromToken(token);
+        Claims second = jwtUtil.getClaimsFromToken(token);
+
+        assertThat(first).isNotNull();
+        assertThat(second).isSameAs(first);
+        assertThat(jwtUtil.getUserId(second)).isEqualTo(1L);
+        assertThat(cache(jwtUtil)).hasSize(1);
+    }
+
+    @Test
+    void cachedTokenIsRejectedAfterExpiry() throws InterruptedException {
+        // exp 精确到秒，2秒有效期保证首次解析时尚未过期
+        JwtUtil jwtUtil = newJwtUtil(SECRET, 2L, 100);
+        String token = jwtUtil.generateToken(1L, "alice", 0);
+        assertThat(jwtUtil.getClaimsFromToken(token)).isNotNull();
+        assertThat(cache(jwtUtil)).hasSize(1);
+
+        Thread.sleep(2100);
+
+        // 缓存命中但已过期：拒绝并移除缓存项
+        assertThat(jwtUtil.getClaimsFromToken(token)).isNull();
+        assertThat(cache(jwtUtil)).isEmpty();
+
+        // 缓存项移除后重新验签，过期Token仍被拒绝且不会再次缓存
+        assertThat(jwtUtil.getClaimsFromToken(token)).isNull();
+        assertThat(jwtUtil.validateToken(token)).isFalse();
+        assertThat(cache(jwtUtil)).isEmpty();
+    }
+
+    @Test
+    void evictedTokenIsVerifiedAgain() {
+        JwtUtil jwtUtil = newJwtUtil(SECRET, 3600L, 100);
+        String token = jwtUtil.generateToken(1L, "alice", 0);
+        assertThat(jwtUtil.getClaimsFromToken(token)).isNotNull();
+
+        // 缓存项被清除后，签名被篡改的同一Token必须重新验签并被拒绝
+        cache(jwtUtil).clear();
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        assertThat(jwtUtil.getClaimsFromToken(tampered)).isNull();
+
+        // 其他实例签发的Token不会因为摘要缓存而被接受
+        JwtUtil otherIssuer = newJwtUtil("another-secret-for-jwt-util-at-least-32-bytes", 3600L, 100);
+        String foreign = otherIssuer.generateToken(1L, "alice", 0);
+        assertThat(jwtUtil.getClaimsFromToken(foreign)).isNull();
+
+        assertThat(jwtUtil.getClaimsFromToken(token)).isNotNull();
+        assertThat(cache(jwtUtil)).hasSize(1);
+    }
+
+    @Test
+    void fullCacheEvictsLeastRecentlyUsed() {
+        JwtUtil jwtUtil = newJwtUtil(SECRET, 3600L, 2);
+        String first = jwtUtil.generateToken(1L, "alice", 0);
+        String second = jwtUtil.generateToken(2L, "bob", 1);
+        String third = jwtUtil.generateToken(3L, "carol", 1);
+
+        Claims firstClaims = jwtUtil.getClaimsFromToken(first);
+        Claims secondClaims = jwtUtil.getClaimsFromToken(second);
+        // 访问 first 后 second 成为最久未使用的项
+        assertThat(jwtUtil.getClaimsFromToken(first)).isSameAs(firstClaims);
+        assertThat(jwtUtil.getUserId(jwtUtil.getClaimsFromToken(third))).isEqualTo(3L);
+
+        // 新Token被缓存，容量不超过上限，淘汰的是 second
+        assertThat(cache(jwtUtil)).hasSize(2);
+        assertThat(jwtUtil.getClaimsFromToken(first)).isSameAs(firstClaims);
+        assertThat(jwtUtil.getClaimsFromToken(second)).isNotSameAs(secondClaims);
+    }
+
+    static JwtUtil newJwtUtil(String secret, Long expirationSeconds, int cacheSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", secret);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", expirationSeconds);
+        ReflectionTestUtils.setField(jwtUtil, "issuer", "test");
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheSize", cacheSize);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Claims> cache(JwtUtil jwtUtil) {
+        return (Map<String, Claims>) ReflectionTestUtils.getField(jwtUtil, "verifiedClaims");
+    }
+}
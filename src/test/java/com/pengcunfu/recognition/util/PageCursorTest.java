@@ -0,0 +1,49 @@
+package com.pengcunfu.recognition.util;
+
+import com.pengcunfu.recognition.constant.AppConstants;
+import com.pengcunfu.recognition.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 游标分页测试：游标编解码和每页数量校验
+ */
+class PageCursorTest {
+
+    @Test
+    void encodedCursorRoundTrips() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 2, 3, 4, 5, 6_000_000);
+
+        PageCursor cursor = PageCursor.decode(PageCursor.of(1, createdAt, 42L).encode());
+
+        assertThat(cursor.getTop()).isEqualTo(1);
+        assertThat(cursor.getCreatedAt()).isEqualTo(createdAt);
+        assertThat(cursor.getId()).isEqualTo(42L);
+        assertThat(PageCursor.decode(null)).isNull();
+        assertThat(PageCursor.decode("")).isNull();
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> PageCursor.decode("not-a-cursor")).isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void missingSizeUsesDefault() {
+        assertThat(PageCursor.checkSize(null)).isEqualTo(AppConstants.DEFAULT_PAGE_SIZE);
+        assertThat(PageCursor.checkSize(1)).isEqualTo(1);
+        assertThat(PageCursor.checkSize(AppConstants.MAX_PAGE_SIZE)).isEqualTo(AppConstants.MAX_PAGE_SIZE);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, -1, AppConstants.MAX_PAGE_SIZE + 1, Integer.MAX_VALUE})
+    void outOfRangeSizeIsRejected(int size) {
+        assertThatThrownBy(() -> PageCursor.checkSize(size)).isInstanceOf(BusinessException.class);
+    }
+}
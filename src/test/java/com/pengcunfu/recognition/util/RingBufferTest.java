@@ -0,0 +1,123 @@
+package com.pengcunfu.recognition.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 无锁环形队列测试：容量边界，以及多生产者多消费者并发下每个元素恰好出队一次
+ */
+class RingBufferTest {
+
+    private static final int PRODUCERS = 8;
+    private static final int CONSUMERS = 4;
+    private static final int ITEMS_PER_PRODUCER = 200_000;
+
+    @Test
+    void capacityIsRoundedToPowerOfTwo() {
+        assertThat(new RingBuffer<>(1000).capacity()).isEqualTo(1024);
+        assertThat(new RingBuffer<>(1024).capacity()).isEqualTo(1024);
+        assertThat(new RingBuffer<>(1).capacity()).isEqualTo(2);
+    }
+
+    @Test
+    void offerFailsWhenFullAndPollReturnsNullWhenEmpty() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+
+        assertThat(buffer.poll()).isNull();
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        // 绕回多圈后仍保持先进先出
+        for (int round = 0; round < 10; round++) {
+            assertThat(buffer.poll()).isEqualTo(round);
+            assertThat(buffer.offer(round + 4)).isTrue();
+        }
+        assertThat(buffer.size()).isEqualTo(4);
+    }
+
+    @Test
+    void concurrentProducersAndConsumersDeliverEachItemExactlyOnce() throws Exception {
+        // 容量远小于元素总数，生产者频繁遇到队列已满，槽位反复绕回
+        RingBuffer<Long> buffer = new RingBuffer<>(64);
+        int total = PRODUCERS * ITEMS_PER_PRODUCER;
+        AtomicIntegerArray received = new AtomicIntegerArray(total);
+        AtomicLong consumed = new AtomicLong();
+        AtomicLong orderViolations = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS + CONSUMERS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                int producer = p;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ITEMS_PER_PRODUCER; i++) {
+                        long item = (long) producer * ITEMS_PER_PRODUCER + i;
+                        while (!buffer.offer(item)) {
+                            // 让出CPU，核数少于线程数时被挂起的线程才能推进
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (int c = 0; c < CONSUMERS; c++) {
+                futures.add(executor.submit(() -> {
+                    // 同一生产者的元素在单个消费者看到的顺序中必须递增
+                    long[] lastSeen = new long[PRODUCERS];
+                    Arrays.fill(lastSeen, -1);
+                    start.await();
+                    while (consumed.get() < total) {
+                        Long item = buffer.poll();
+                        if (item == null) {
+                            Thread.yield();
+                            continue;
+                        }
+                        received.incrementAndGet(item.intValue());
+                        int producer = (int) (item / ITEMS_PER_PRODUCER);
+                        if (item <= lastSeen[producer]) {
+                            orderViolations.incrementAndGet();
+                        }
+                        lastSeen[producer] = item;
+                        consumed.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(consumed.get()).isEqualTo(total);
+        assertThat(orderViolations.get()).isZero();
+        List<Integer> notExactlyOnce = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            if (received.get(i) != 1) {
+                notExactlyOnce.add(i);
+            }
+        }
+        assertThat(notExactlyOnce).isEmpty();
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.size()).isZero();
+    }
+}